@@ -0,0 +1,225 @@
+package scott.carga;
+
+import io.vavr.control.Either;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scott.dominio.*;
+import scott.infra.Falla;
+import scott.infra.util.Argumentos;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Ejecuta una mezcla de operaciones contra los servicios y registra la latencia de cada una en un histograma.
+// Modelo cerrado: cada hilo encadena operaciones sin pausa. Modelo abierto: las operaciones llegan a una tasa fija
+// y la latencia se mide desde el instante previsto de llegada, de modo que las esperas en cola se contabilizan
+public class ConductorCarga {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConductorCarga.class);
+
+    private static final long LATENCIA_MAXIMA_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final List<String> LOCALIDADES = List.of("Quito", "Bogota", "Lima", "Caracas", "Santiago");
+
+    public enum Operacion {CREAR, REASIGNAR, RELOCALIZAR, LEER}
+
+    public enum Modelo {CERRADO, ABIERTO}
+
+    public record Parametros(Modelo modelo,
+                             int hilos,
+                             double tasaObjetivo,
+                             long duracionSegundos,
+                             long calentamientoSegundos,
+                             Map<Operacion, Integer> mezcla) {
+
+        public static Parametros de(Argumentos argumentos) {
+            final var mezcla = new EnumMap<Operacion, Integer>(Operacion.class);
+            for (final var parte : argumentos.leerArgumento("mezcla", "crear:5,reasignar:20,relocalizar:5,leer:70").split(",")) {
+                final var pos = parte.indexOf(':');
+                mezcla.put(Operacion.valueOf(parte.substring(0, pos).trim().toUpperCase()),
+                        Integer.parseInt(parte.substring(pos + 1).trim()));
+            }
+            return new Parametros(
+                    Modelo.valueOf(argumentos.leerArgumento("modelo", "cerrado").toUpperCase()),
+                    Integer.parseInt(argumentos.leerArgumento("hilos", "8")),
+                    Double.parseDouble(argumentos.leerArgumento("tasa", "200")),
+                    Long.parseLong(argumentos.leerArgumento("duracion", "60")),
+                    Long.parseLong(argumentos.leerArgumento("calentamiento", "10")),
+                    mezcla);
+        }
+    }
+
+    public record Resultado(Operacion operacion, Histogram latencias, long errores, double segundos) {
+
+        public double rendimiento() {
+            return latencias.getTotalCount() / segundos;
+        }
+
+        @Override
+        public String toString() {
+            return "%-12s n=%-8d err=%-6d %8.1f op/s  p50=%7.2fms p90=%7.2fms p99=%7.2fms p99.9=%7.2fms max=%7.2fms"
+                    .formatted(operacion, latencias.getTotalCount(), errores, rendimiento(),
+                            milisegundos(latencias.getValueAtPercentile(50)),
+                            milisegundos(latencias.getValueAtPercentile(90)),
+                            milisegundos(latencias.getValueAtPercentile(99)),
+                            milisegundos(latencias.getValueAtPercentile(99.9)),
+                            milisegundos(latencias.getMaxValue()));
+        }
+
+        private static double milisegundos(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    private final ServicioEmpleado servicioEmpleado;
+    private final ServicioDepartamento servicioDepartamento;
+    private final RepositorioVistaEmpleado repositorioVistaEmpleado;
+    private final List<VistaEmpleado> empleados;
+    private final List<String> idsDepartamento;
+    private final Queue<String> codigosLibres;
+    private final Operacion[] ruleta;
+
+    private final Map<Operacion, Histogram> latencias = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, LongAdder> errores = new EnumMap<>(Operacion.class);
+    private volatile boolean midiendo = false;
+
+    public ConductorCarga(ServicioEmpleado servicioEmpleado,
+                          ServicioDepartamento servicioDepartamento,
+                          RepositorioVistaEmpleado repositorioVistaEmpleado,
+                          RepositorioVistaDepartamento repositorioVistaDepartamento,
+                          Map<Operacion, Integer> mezcla) {
+        this.servicioEmpleado = servicioEmpleado;
+        this.servicioDepartamento = servicioDepartamento;
+        this.repositorioVistaEmpleado = repositorioVistaEmpleado;
+        this.empleados = repositorioVistaEmpleado.leerTodos();
+        this.idsDepartamento = repositorioVistaDepartamento.leerTodos().stream().map(VistaDepartamento::id).toList();
+        if (empleados.isEmpty() || idsDepartamento.isEmpty()) {
+            throw new IllegalStateException("La base de datos no contiene empleados; genere primero un dataset");
+        }
+
+        final var usados = new HashSet<String>();
+        empleados.forEach(e -> usados.add(e.codigo()));
+        final var libres = new ArrayList<String>();
+        for (int i = 0; i < ParametrosDataset.MAXIMO_EMPLEADOS; i++) {
+            final var codigo = "%04d".formatted(i);
+            if (!usados.contains(codigo)) {
+                libres.add(codigo);
+            }
+        }
+        Collections.shuffle(libres);
+        this.codigosLibres = new ConcurrentLinkedQueue<>(libres);
+
+        final var ruleta = new ArrayList<Operacion>();
+        mezcla.forEach((operacion, peso) -> ruleta.addAll(Collections.nCopies(peso, operacion)));
+        this.ruleta = ruleta.toArray(new Operacion[0]);
+        for (final var operacion : Operacion.values()) {
+            latencias.put(operacion, new ConcurrentHistogram(LATENCIA_MAXIMA_NANOS, 3));
+            errores.put(operacion, new LongAdder());
+        }
+    }
+
+    public List<Resultado> ejecutar(Parametros parametros) throws InterruptedException {
+        final var ejecutor = Executors.newFixedThreadPool(parametros.hilos());
+        final var inicio = System.nanoTime();
+        final var inicioMedicion = inicio + TimeUnit.SECONDS.toNanos(parametros.calentamientoSegundos());
+        final var fin = inicioMedicion + TimeUnit.SECONDS.toNanos(parametros.duracionSegundos());
+
+        final var medicion = Executors.newSingleThreadScheduledExecutor();
+        medicion.schedule(() -> midiendo = true, inicioMedicion - inicio, TimeUnit.NANOSECONDS);
+
+        if (parametros.modelo() == Modelo.CERRADO) {
+            for (int i = 0; i < parametros.hilos(); i++) {
+                ejecutor.execute(() -> {
+                    while (System.nanoTime() < fin) {
+                        ejecutarOperacion(System.nanoTime());
+                    }
+                });
+            }
+        } else {
+            final var intervalo = (long) (TimeUnit.SECONDS.toNanos(1) / parametros.tasaObjetivo());
+            for (long prevista = inicio; prevista < fin; prevista += intervalo) {
+                final var espera = prevista - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                final var llegada = prevista;
+                ejecutor.execute(() -> ejecutarOperacion(llegada));
+            }
+        }
+
+        ejecutor.shutdown();
+        ejecutor.awaitTermination(1, TimeUnit.MINUTES);
+        medicion.shutdownNow();
+        final var segundos = (System.nanoTime() - inicioMedicion) / 1e9;
+
+        return Arrays.stream(Operacion.values())
+                .filter(operacion -> parametros.mezcla().getOrDefault(operacion, 0) > 0)
+                .map(operacion -> new Resultado(
+                        operacion, latencias.get(operacion), errores.get(operacion).sum(), segundos))
+                .toList();
+    }
+
+    private void ejecutarOperacion(long llegada) {
+        final var azar = ThreadLocalRandom.current();
+        final var operacion = ruleta[azar.nextInt(ruleta.length)];
+        final var exito = switch (operacion) {
+            case CREAR -> crear(azar);
+            case REASIGNAR -> reasignar(azar);
+            case RELOCALIZAR -> ejecutar(() -> servicioDepartamento.relocalizar(
+                    idsDepartamento.get(azar.nextInt(idsDepartamento.size())),
+                    LOCALIDADES.get(azar.nextInt(LOCALIDADES.size()))));
+            case LEER -> repositorioVistaEmpleado
+                    .buscarPorId(empleados.get(azar.nextInt(empleados.size())).id())
+                    .isPresent();
+        };
+        if (!midiendo) {
+            return;
+        }
+        latencias.get(operacion).recordValue(Math.min(System.nanoTime() - llegada, LATENCIA_MAXIMA_NANOS));
+        if (!exito) {
+            errores.get(operacion).increment();
+        }
+    }
+
+    private boolean crear(ThreadLocalRandom azar) {
+        final var codigo = codigosLibres.poll();
+        if (codigo == null) {
+            return false;
+        }
+        final var supervisor = empleados.get(azar.nextInt(empleados.size()));
+        return ejecutar(() -> servicioEmpleado.crearEmpleado(
+                codigo, "Carga", Genero.FEMENINO, "Oficinista", supervisor.id(),
+                LocalDate.now(), BigDecimal.valueOf(azar.nextInt(1000, 9000)), null, supervisor.idDepartamento()));
+    }
+
+    // Conserva departamento, supervisor y comisión para no violar las reglas de Ventas ni formar ciclos
+    private boolean reasignar(ThreadLocalRandom azar) {
+        final var empleado = empleados.get(azar.nextInt(empleados.size()));
+        final var salario = empleado.salario()
+                .multiply(BigDecimal.valueOf(azar.nextDouble(0.9, 1.1)))
+                .setScale(2, RoundingMode.HALF_UP);
+        return ejecutar(() -> servicioEmpleado.reasignar(
+                empleado.id(), empleado.idDepartamento(), empleado.cargo(), empleado.idSupervisor(),
+                salario, empleado.comision()));
+    }
+
+    private static boolean ejecutar(Supplier<Either<Falla, ?>> operacion) {
+        try {
+            final var resultado = operacion.get();
+            if (resultado.isLeft()) {
+                logger.debug("Operación fallida: {}", resultado.getLeft().mensaje());
+            }
+            return resultado.isRight();
+        } catch (RuntimeException e) {
+            logger.debug("Operación fallida", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package scott.carga;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.dominio.*;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Genera un dataset referencialmente válido: los supervisores preceden a sus subordinados (recorrido por niveles
+// del organigrama) y solo los empleados de departamentos de Ventas reciben comisión
+public class GeneradorDataset {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorDataset.class);
+
+    private static final int TAMANO_BLOQUE = 500;
+
+    private static final List<String> NOMBRES_DEPARTAMENTO = List.of(
+            "Contabilidad", "Investigacion", "Ventas", "Operaciones", "Logistica", "Finanzas", "Compras", "Legal");
+    private static final List<String> LOCALIDADES = List.of(
+            "Quito", "Bogota", "Lima", "Caracas", "Santiago", "Sunrise", "Dallas", "Boston", "Chicago", "Guayaquil");
+    private static final List<String> NOMBRES_EMPLEADO = List.of(
+            "Smith", "Allen", "Ward", "Jones", "Martin", "Blake", "Clark", "Scott", "King", "Turner", "Adams",
+            "James", "Ford", "Miller");
+    private static final List<String> CARGOS = List.of("Presidente", "Gerente", "Analista", "Vendedor", "Oficinista");
+
+    public record PlanDepartamento(String codigo, String nombre, String localidad) {
+        boolean aplicaComision() {
+            return nombre.equals("Ventas");
+        }
+    }
+
+    public record PlanEmpleado(String codigo,
+                               String nombre,
+                               Genero genero,
+                               String cargo,
+                               int supervisor,
+                               LocalDate fechaContratacion,
+                               BigDecimal salario,
+                               BigDecimal comision,
+                               int departamento) {
+    }
+
+    public record Plan(List<PlanDepartamento> departamentos, List<PlanEmpleado> empleados) {
+    }
+
+    public static Plan generar(ParametrosDataset parametros) {
+        final var azar = new Random(parametros.semilla());
+
+        final var departamentos = new ArrayList<PlanDepartamento>();
+        for (int i = 0; i < parametros.departamentos(); i++) {
+            departamentos.add(new PlanDepartamento(
+                    "%02d".formatted(i),
+                    NOMBRES_DEPARTAMENTO.get(i % NOMBRES_DEPARTAMENTO.size()),
+                    LOCALIDADES.get(azar.nextInt(LOCALIDADES.size()))));
+        }
+
+        // Recorrido por niveles: cada empleado del nivel anterior recibe hasta 'ramificacion' subordinados
+        final var empleados = new ArrayList<PlanEmpleado>();
+        final var codigos = codigosAlAzar(azar);
+        empleados.add(empleado(parametros, azar, codigos[0], 0, -1, departamentos));
+        int inicioNivel = 0;
+        for (int nivel = 1; nivel < parametros.profundidad() && empleados.size() < parametros.empleados(); nivel++) {
+            final int finNivel = empleados.size();
+            for (int supervisor = inicioNivel; supervisor < finNivel; supervisor++) {
+                for (int hijo = 0; hijo < parametros.ramificacion() && empleados.size() < parametros.empleados(); hijo++) {
+                    empleados.add(empleado(
+                            parametros, azar, codigos[empleados.size()], nivel, supervisor, departamentos));
+                }
+            }
+            inicioNivel = finNivel;
+        }
+        if (empleados.size() < parametros.empleados()) {
+            logger.warn("El organigrama de profundidad {} y ramificación {} admite solo {} empleados",
+                    parametros.profundidad(), parametros.ramificacion(), empleados.size());
+        }
+        return new Plan(departamentos, empleados);
+    }
+
+    // Cada llamada a los servicios se ejecuta en su propia transacción, como en producción
+    public static Cargado cargarPorServicios(Plan plan,
+                                             ServicioDepartamento servicioDepartamento,
+                                             ServicioEmpleado servicioEmpleado) {
+        final var idsDepartamento = plan.departamentos().stream()
+                .map(d -> servicioDepartamento.crearDepartamento(d.codigo(), d.nombre(), d.localidad())
+                        .getOrElseThrow(falla -> new IllegalStateException(falla.mensaje())))
+                .toList();
+        final var idsEmpleado = new ArrayList<String>(plan.empleados().size());
+        for (final var e : plan.empleados()) {
+            idsEmpleado.add(servicioEmpleado.crearEmpleado(
+                            e.codigo(), e.nombre(), e.genero(), e.cargo(),
+                            e.supervisor() < 0 ? null : idsEmpleado.get(e.supervisor()),
+                            e.fechaContratacion(), e.salario(), e.comision(),
+                            idsDepartamento.get(e.departamento()))
+                    .getOrElseThrow(falla -> new IllegalStateException(falla.mensaje())));
+        }
+        return new Cargado(idsDepartamento, idsEmpleado);
+    }
+
+    // Inserción directa por bloques (lotes JDBC), una transacción por bloque; los índices en memoria de jerarquía
+    // y nómina se invalidan al final
+    public static Cargado cargarEnLote(Plan plan,
+                                       TransactionTemplate transaccion,
+                                       EntityManager entityManager,
+                                       RepositorioDepartamento repositorioDepartamento,
+                                       RepositorioEmpleado repositorioEmpleado,
+                                       JerarquiaEmpleados jerarquiaEmpleados,
+                                       RepositorioNomina repositorioNomina) {
+        final var departamentos = transaccion.execute(estado -> repositorioDepartamento.saveAll(
+                plan.departamentos().stream()
+                        .map(d -> Departamento.builder().codigo(d.codigo()).nombre(d.nombre()).localidad(d.localidad()).build())
+                        .toList()));
+        final var empleados = new ArrayList<Empleado>(plan.empleados().size());
+        for (int desde = 0; desde < plan.empleados().size(); desde += TAMANO_BLOQUE) {
+            final var bloque = plan.empleados().subList(desde, Math.min(desde + TAMANO_BLOQUE, plan.empleados().size()));
+            transaccion.executeWithoutResult(estado -> {
+                for (final var e : bloque) {
+                    empleados.add(repositorioEmpleado.save(Empleado.builder()
+                            .codigo(e.codigo())
+                            .nombre(e.nombre())
+                            .genero(e.genero())
+                            .cargo(e.cargo())
+                            .supervisor(e.supervisor() < 0 ? null : empleados.get(e.supervisor()))
+                            .fechaContratacion(e.fechaContratacion())
+                            .salario(e.salario())
+                            .comision(e.comision())
+                            .departamento(departamentos.get(e.departamento()))
+                            .build()));
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+        jerarquiaEmpleados.invalidar();
+        repositorioNomina.invalidar();
+        return new Cargado(
+                departamentos.stream().map(Departamento::getId).toList(),
+                empleados.stream().map(Empleado::getId).toList());
+    }
+
+    public record Cargado(List<String> idsDepartamento, List<String> idsEmpleado) {
+    }
+
+    private static PlanEmpleado empleado(ParametrosDataset parametros,
+                                         Random azar,
+                                         String codigo,
+                                         int nivel,
+                                         int supervisor,
+                                         List<PlanDepartamento> departamentos) {
+        final var departamento = azar.nextInt(departamentos.size());
+        // Distribución log-normal alrededor de la mediana
+        final var salario = BigDecimal
+                .valueOf(parametros.salarioMediana() * Math.exp(parametros.salarioDispersion() * azar.nextGaussian()))
+                .max(BigDecimal.ONE)
+                .setScale(2, RoundingMode.HALF_UP);
+        final var comision = departamentos.get(departamento).aplicaComision() &&
+                azar.nextDouble() < parametros.probabilidadComision() ?
+                salario.multiply(BigDecimal.valueOf(0.01 + azar.nextDouble() * parametros.comisionMaxima()))
+                        .setScale(2, RoundingMode.HALF_UP) :
+                null;
+        return new PlanEmpleado(
+                codigo,
+                NOMBRES_EMPLEADO.get(azar.nextInt(NOMBRES_EMPLEADO.size())),
+                azar.nextBoolean() ? Genero.FEMENINO : Genero.MASCULINO,
+                CARGOS.get(Math.min(nivel, CARGOS.size() - 1)),
+                supervisor,
+                LocalDate.of(2000, 1, 1).plusDays(azar.nextInt(8000)),
+                salario,
+                comision,
+                departamento);
+    }
+
+    private static String[] codigosAlAzar(Random azar) {
+        final var codigos = new String[ParametrosDataset.MAXIMO_EMPLEADOS];
+        for (int i = 0; i < codigos.length; i++) {
+            codigos[i] = "%04d".formatted(i);
+        }
+        for (int i = codigos.length - 1; i > 0; i--) {
+            final var j = azar.nextInt(i + 1);
+            final var codigo = codigos[i];
+            codigos[i] = codigos[j];
+            codigos[j] = codigo;
+        }
+        return codigos;
+    }
+}
@@ -0,0 +1,82 @@
+package scott.carga;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.AplicacionScott;
+import scott.dominio.*;
+import scott.infra.util.Argumentos;
+
+import javax.persistence.EntityManager;
+
+// Uso:
+//   --accion=generar --departamentos=20 --empleados=5000 --profundidad=6 --ramificacion=5 --via=lote|servicios
+//   --accion=conducir --modelo=cerrado|abierto --hilos=16 --tasa=500 --duracion=60 --calentamiento=10
+//       --mezcla=crear:5,reasignar:20,relocalizar:5,leer:70
+// Las propiedades de Spring (p. ej. --spring.datasource.url=...) se pasan tal cual. Ambas acciones pueden
+// combinarse repitiendo --accion
+public class HerramientaCarga {
+
+    private static final Logger logger = LoggerFactory.getLogger(HerramientaCarga.class);
+
+    public static void main(String[] args) throws InterruptedException {
+        final var argumentos = new Argumentos(args);
+        // Herramienta de desarrollo: el perfil dev admite arrancar sin la clave de los tokens
+        try (final var contexto = new SpringApplicationBuilder(AplicacionScott.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .run(args)) {
+            for (final var accion : argumentos.leerArgumentos("accion")) {
+                switch (accion) {
+                    case "generar" -> generar(contexto, argumentos);
+                    case "conducir" -> conducir(contexto, argumentos);
+                    default -> throw new IllegalArgumentException("Acción desconocida: %s".formatted(accion));
+                }
+            }
+        }
+    }
+
+    private static void generar(ConfigurableApplicationContext contexto, Argumentos argumentos) {
+        final var parametros = ParametrosDataset.de(argumentos);
+        final var plan = GeneradorDataset.generar(parametros);
+        logger.info("Cargando {} departamentos y {} empleados: {}",
+                plan.departamentos().size(), plan.empleados().size(), parametros);
+
+        final var inicio = System.nanoTime();
+        final var cargado = argumentos.leerArgumento("via", "lote").equals("servicios") ?
+                GeneradorDataset.cargarPorServicios(
+                        plan,
+                        contexto.getBean(ServicioDepartamento.class),
+                        contexto.getBean(ServicioEmpleado.class)) :
+                GeneradorDataset.cargarEnLote(
+                        plan,
+                        new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class)),
+                        contexto.getBean(EntityManager.class),
+                        contexto.getBean(RepositorioDepartamento.class),
+                        contexto.getBean(RepositorioEmpleado.class),
+                        contexto.getBean(JerarquiaEmpleados.class),
+                        contexto.getBean(RepositorioNomina.class));
+        logger.info("Dataset cargado en {} ms: {} empleados",
+                (System.nanoTime() - inicio) / 1_000_000, cargado.idsEmpleado().size());
+    }
+
+    private static void conducir(ConfigurableApplicationContext contexto, Argumentos argumentos)
+            throws InterruptedException {
+        final var parametros = ConductorCarga.Parametros.de(argumentos);
+        logger.info("Iniciando carga: {}", parametros);
+        final var conductor = new ConductorCarga(
+                contexto.getBean(ServicioEmpleado.class),
+                contexto.getBean(ServicioDepartamento.class),
+                contexto.getBean(RepositorioVistaEmpleado.class),
+                contexto.getBean(RepositorioVistaDepartamento.class),
+                parametros.mezcla());
+        final var resultados = conductor.ejecutar(parametros);
+        resultados.forEach(resultado -> logger.info("{}", resultado));
+        logger.info("Total: {} op/s", "%.1f".formatted(
+                resultados.stream().mapToDouble(ConductorCarga.Resultado::rendimiento).sum()));
+    }
+}
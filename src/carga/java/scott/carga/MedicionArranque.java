@@ -0,0 +1,120 @@
+package scott.carga;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scott.infra.util.Argumentos;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Tiempo hasta la primera solicitud atendida (GET /actuator/health) y memoria residente de AplicacionScott en
+// cada modo de arranque, lanzando una JVM nueva por repetición. Uso (ver la tarea medirArranque):
+//   --classpath=... --cds=build/arranque/scott.jsa --repeticiones=5 --espera-maxima=60
+// Las mediciones de RSS leen /proc, así que solo están disponibles en Linux
+public class MedicionArranque {
+
+    private static final Logger logger = LoggerFactory.getLogger(MedicionArranque.class);
+
+    private record Modo(String nombre, List<String> opcionesJvm, List<String> argumentos) {
+    }
+
+    private record Medicion(long milisegundos, long rssKb) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final var argumentos = new Argumentos(args);
+        final var classpath = argumentos.leerArgumento("classpath", System.getProperty("java.class.path"));
+        final var cds = argumentos.leerArgumento("cds", "");
+        final var repeticiones = Integer.parseInt(argumentos.leerArgumento("repeticiones", "5"));
+        final var esperaMaxima = Duration.ofSeconds(Long.parseLong(argumentos.leerArgumento("espera-maxima", "60")));
+
+        final var modos = new ArrayList<Modo>();
+        modos.add(new Modo("normal", List.of(), List.of("--spring.profiles.active=dev")));
+        modos.add(new Modo("perezoso", List.of(), List.of("--spring.profiles.active=arranque,dev")));
+        if (!cds.isEmpty() && Files.exists(Path.of(cds))) {
+            modos.add(new Modo("perezoso+cds",
+                    List.of("-XX:SharedArchiveFile=" + cds, "-Xshare:auto"),
+                    List.of("--spring.profiles.active=arranque,dev")));
+        }
+
+        for (final var modo : modos) {
+            final var mediciones = new ArrayList<Medicion>();
+            for (int i = 0; i < repeticiones; i++) {
+                mediciones.add(medir(modo, classpath, esperaMaxima));
+            }
+            final var tiempos = mediciones.stream().mapToLong(Medicion::milisegundos).sorted().toArray();
+            final var rss = mediciones.stream().mapToLong(Medicion::rssKb).sorted().toArray();
+            logger.info("{}: mediana {} ms, mínimo {} ms, RSS {} MB",
+                    modo.nombre(),
+                    tiempos[tiempos.length / 2],
+                    tiempos[0],
+                    rss[rss.length / 2] < 0 ? "n/d" : String.valueOf(rss[rss.length / 2] / 1024));
+        }
+    }
+
+    private static Medicion medir(Modo modo, String classpath, Duration esperaMaxima) throws Exception {
+        final var puerto = puertoLibre();
+        final var comando = new ArrayList<String>();
+        comando.add(ProcessHandle.current().info().command().orElse("java"));
+        comando.addAll(modo.opcionesJvm());
+        comando.addAll(List.of("-cp", classpath, "scott.AplicacionScott", "--server.port=" + puerto));
+        comando.addAll(modo.argumentos());
+
+        final var cliente = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        final var salud = HttpRequest.newBuilder(URI.create("http://localhost:%d/actuator/health".formatted(puerto)))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        final var inicio = System.nanoTime();
+        final var proceso = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            final var limite = inicio + esperaMaxima.toNanos();
+            while (System.nanoTime() < limite) {
+                if (!proceso.isAlive()) {
+                    throw new IllegalStateException("%s terminó con código %d".formatted(modo, proceso.exitValue()));
+                }
+                try {
+                    if (cliente.send(salud, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return new Medicion((System.nanoTime() - inicio) / 1_000_000, rssKb(proceso.pid()));
+                    }
+                } catch (IOException e) {
+                    // Aún no escucha
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("%s no respondió en %s".formatted(modo, esperaMaxima));
+        } finally {
+            proceso.destroy();
+            proceso.waitFor();
+        }
+    }
+
+    private static long rssKb(long pid) {
+        try {
+            return Files.readAllLines(Path.of("/proc/%d/status".formatted(pid))).stream()
+                    .filter(linea -> linea.startsWith("VmRSS:"))
+                    .mapToLong(linea -> Long.parseLong(linea.replaceAll("\\D", "")))
+                    .findFirst()
+                    .orElse(-1);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int puertoLibre() throws IOException {
+        try (final var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
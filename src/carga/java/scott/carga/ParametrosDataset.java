@@ -0,0 +1,45 @@
+package scott.carga;
+
+import scott.infra.util.Argumentos;
+
+// Los códigos de empleado (cuatro dígitos) y de departamento (dos dígitos) acotan el tamaño del dataset
+public record ParametrosDataset(int departamentos,
+                                int empleados,
+                                int profundidad,
+                                int ramificacion,
+                                double salarioMediana,
+                                double salarioDispersion,
+                                double probabilidadComision,
+                                double comisionMaxima,
+                                long semilla) {
+
+    public static final int MAXIMO_DEPARTAMENTOS = 100;
+    public static final int MAXIMO_EMPLEADOS = 10_000;
+
+    public ParametrosDataset {
+        if (departamentos < 1 || departamentos > MAXIMO_DEPARTAMENTOS) {
+            throw new IllegalArgumentException(
+                    "La cantidad de departamentos debe estar entre 1 y %d".formatted(MAXIMO_DEPARTAMENTOS));
+        }
+        if (empleados < 1 || empleados > MAXIMO_EMPLEADOS) {
+            throw new IllegalArgumentException(
+                    "La cantidad de empleados debe estar entre 1 y %d".formatted(MAXIMO_EMPLEADOS));
+        }
+        if (profundidad < 1 || ramificacion < 1) {
+            throw new IllegalArgumentException("La profundidad y la ramificación deben ser positivas");
+        }
+    }
+
+    public static ParametrosDataset de(Argumentos argumentos) {
+        return new ParametrosDataset(
+                Integer.parseInt(argumentos.leerArgumento("departamentos", "10")),
+                Integer.parseInt(argumentos.leerArgumento("empleados", "1000")),
+                Integer.parseInt(argumentos.leerArgumento("profundidad", "6")),
+                Integer.parseInt(argumentos.leerArgumento("ramificacion", "5")),
+                Double.parseDouble(argumentos.leerArgumento("salario-mediana", "3000")),
+                Double.parseDouble(argumentos.leerArgumento("salario-dispersion", "0.35")),
+                Double.parseDouble(argumentos.leerArgumento("probabilidad-comision", "0.6")),
+                Double.parseDouble(argumentos.leerArgumento("comision-maxima", "0.25")),
+                Long.parseLong(argumentos.leerArgumento("semilla", "42")));
+    }
+}
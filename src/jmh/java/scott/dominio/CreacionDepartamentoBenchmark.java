@@ -0,0 +1,62 @@
+package scott.dominio;
+
+import org.openjdk.jmh.annotations.*;
+import scott.infra.idempotencia.AlmacenIdempotencia;
+
+import java.util.concurrent.TimeUnit;
+
+// Costo del estilo Either/lambdas de RepositorioDSL frente al estilo imperativo, sobre el mismo repositorio en
+// memoria para aislar el costo de la composición
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CreacionDepartamentoBenchmark {
+
+    private RepositorioDepartamentoMemoria repositorio;
+    private ServicioDepartamento servicioDsl;
+    private ServicioDepartamentoComplicado servicioImperativo;
+
+    @Setup
+    public void preparar() {
+        repositorio = new RepositorioDepartamentoMemoria();
+        // La jerarquía y la nómina no intervienen en la creación de departamentos
+        servicioDsl = new ServicioDepartamento.Impl(repositorio, null, null, AlmacenIdempotencia.enMemoria(1));
+        servicioImperativo = new ServicioDepartamentoComplicado(repositorio);
+    }
+
+    @Benchmark
+    public String dsl() {
+        final var id = servicioDsl.crearDepartamento("10", "Contabilidad", "Quito").get();
+        repositorio.deleteById(id);
+        return id;
+    }
+
+    @Benchmark
+    public String imperativo() {
+        final var id = servicioImperativo.crearDepartamento("10", "Contabilidad", "Quito");
+        repositorio.deleteById(id);
+        return id;
+    }
+
+    @Benchmark
+    public boolean dslDuplicado() {
+        return servicioDsl.crearDepartamento(existente(), "Contabilidad", "Quito").isLeft();
+    }
+
+    @Benchmark
+    public boolean imperativoDuplicado() {
+        try {
+            servicioImperativo.crearDepartamento(existente(), "Contabilidad", "Quito");
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private String existente() {
+        if (repositorio.count() == 0) {
+            repositorio.save(Departamento.builder().codigo("20").nombre("Ventas").localidad("Bogota").build());
+        }
+        return "20";
+    }
+}
@@ -0,0 +1,70 @@
+package scott.dominio;
+
+import org.openjdk.jmh.annotations.*;
+import scott.infra.jpa.RepositorioMemoria;
+import scott.infra.jpa.entidad.EscuchaEntidad;
+import scott.infra.util.Dinero;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Nómina por departamento sobre la instantánea columnar frente a recorrer las entidades
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InstantaneaEmpleadosBenchmark {
+
+    @Param({"10000", "100000"})
+    public int empleados;
+
+    private List<Empleado> entidades;
+    private InstantaneaEmpleados instantanea;
+
+    @Setup
+    public void preparar() {
+        final var departamentos = new ArrayList<Departamento>();
+        for (int i = 0; i < 10; i++) {
+            final var departamento = Departamento.builder()
+                    .codigo("%02d".formatted(i))
+                    .nombre(i == 0 ? "Ventas" : "Investigacion")
+                    .localidad("Quito")
+                    .build();
+            EscuchaEntidad.prePersist(departamento);
+            departamentos.add(departamento);
+        }
+        final var repositorio = new RepositorioMemoria<Empleado>() {
+        };
+        for (int i = 0; i < empleados; i++) {
+            final var departamento = departamentos.get(i % departamentos.size());
+            repositorio.save(Empleado.builder()
+                    .codigo("%04d".formatted(i % 10_000))
+                    .nombre("Empleado")
+                    .genero(i % 2 == 0 ? Genero.FEMENINO : Genero.MASCULINO)
+                    .cargo("Analista")
+                    .fechaContratacion(LocalDate.of(2010, 1, 1).plusDays(i % 4000))
+                    .salario(BigDecimal.valueOf(1000 + i % 9000))
+                    .comision(i % departamentos.size() == 0 ? BigDecimal.valueOf(100) : null)
+                    .departamento(departamento)
+                    .build());
+        }
+        entidades = repositorio.findAll();
+        instantanea = InstantaneaEmpleados.de(repositorio);
+    }
+
+    @Benchmark
+    public Map<String, TotalesNomina> columnar() {
+        return instantanea.nominaPorDepartamento(instantanea.todas());
+    }
+
+    @Benchmark
+    public Map<String, Dinero> entidades() {
+        return entidades.stream().collect(Collectors.groupingBy(
+                empleado -> empleado.getDepartamento().getId(),
+                Collectors.reducing(Dinero.CERO, Empleado::getMontoSalario, Dinero::mas)));
+    }
+}
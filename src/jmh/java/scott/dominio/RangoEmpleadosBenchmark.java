@@ -0,0 +1,79 @@
+package scott.dominio;
+
+import org.openjdk.jmh.annotations.*;
+import scott.infra.jpa.Criterio;
+import scott.infra.jpa.RepositorioMemoria;
+import scott.infra.jpa.entidad.EscuchaEntidad;
+import scott.infra.util.Dinero;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Banda salarial (global y dentro de un departamento) resuelta con los índices de rango de RepositorioMemoria
+// frente a recorrer todas las instancias con el mismo predicado
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RangoEmpleadosBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int empleados;
+
+    private RepositorioMemoria<Empleado> repositorio;
+    private Criterio<Empleado> banda;
+    private Criterio<Empleado> bandaDepartamento;
+
+    @Setup
+    public void preparar() {
+        final var departamentos = new ArrayList<Departamento>();
+        for (int i = 0; i < 10; i++) {
+            final var departamento = Departamento.builder()
+                    .codigo("%02d".formatted(i))
+                    .nombre(i == 0 ? "Ventas" : "Investigacion")
+                    .localidad("Quito")
+                    .build();
+            EscuchaEntidad.prePersist(departamento);
+            departamentos.add(departamento);
+        }
+        repositorio = new RepositorioMemoria<>() {
+        };
+        for (int i = 0; i < empleados; i++) {
+            final var departamento = departamentos.get(i % departamentos.size());
+            repositorio.save(Empleado.builder()
+                    .codigo("%04d".formatted(i % 10_000))
+                    .nombre("Empleado")
+                    .genero(i % 2 == 0 ? Genero.FEMENINO : Genero.MASCULINO)
+                    .cargo("Analista")
+                    .fechaContratacion(LocalDate.of(2010, 1, 1).plusDays(i % 4000))
+                    .salario(BigDecimal.valueOf(1000 + i % 9000))
+                    .comision(i % departamentos.size() == 0 ? BigDecimal.valueOf(100) : null)
+                    .departamento(departamento)
+                    .build());
+        }
+        banda = Criterio.entre(Empleado.SALARIO, Dinero.de(5000), Dinero.de(5010));
+        bandaDepartamento = Criterio.igual("departamento", Empleado::getDepartamento, departamentos.get(3)).y(banda);
+    }
+
+    @Benchmark
+    public List<Empleado> bandaIndice() {
+        return repositorio.cargar(banda);
+    }
+
+    @Benchmark
+    public List<Empleado> bandaRecorrido() {
+        return repositorio.encontrar(banda.predicado()).toList();
+    }
+
+    @Benchmark
+    public List<Empleado> bandaDepartamentoIndice() {
+        return repositorio.cargar(bandaDepartamento);
+    }
+
+    @Benchmark
+    public List<Empleado> bandaDepartamentoRecorrido() {
+        return repositorio.encontrar(bandaDepartamento.predicado()).toList();
+    }
+}
@@ -0,0 +1,69 @@
+package scott.dominio;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.AplicacionScott;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Ciclo completo de creación, lectura, actualización y borrado de un departamento en RepositorioMemoria y en JPA
+// sobre H2 en memoria
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositorioBenchmark {
+
+    @Param({"memoria", "jpa"})
+    public String implementacion;
+
+    private ConfigurableApplicationContext contexto;
+    private RepositorioDepartamento repositorio;
+    private TransactionTemplate transaccion;
+
+    @Setup
+    public void preparar() {
+        if (implementacion.equals("memoria")) {
+            repositorio = new RepositorioDepartamentoMemoria();
+            return;
+        }
+        contexto = new SpringApplicationBuilder(AplicacionScott.class)
+                .web(WebApplicationType.NONE)
+                .profiles("dev")
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        repositorio = contexto.getBean(RepositorioDepartamento.class);
+        transaccion = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void terminar() {
+        if (contexto != null) {
+            contexto.close();
+        }
+    }
+
+    @Benchmark
+    public String crud() {
+        final var id = ejecutar(() -> repositorio.guardarYGrabar(
+                Departamento.builder().codigo("10").nombre("Contabilidad").localidad("Quito").build()).getId());
+        ejecutar(() -> {
+            repositorio.buscarPorId(id).orElseThrow().relocalizar("Guayaquil");
+            repositorio.flush();
+            return id;
+        });
+        ejecutar(() -> {
+            repositorio.deleteById(id);
+            return id;
+        });
+        return id;
+    }
+
+    private String ejecutar(Supplier<String> cuerpo) {
+        return transaccion == null ? cuerpo.get() : transaccion.execute(estado -> cuerpo.get());
+    }
+}
@@ -0,0 +1,15 @@
+package scott.dominio;
+
+import scott.infra.jpa.RepositorioMemoria;
+
+import java.util.Optional;
+
+public class RepositorioDepartamentoMemoria extends RepositorioMemoria<Departamento> implements RepositorioDepartamento {
+
+    @Override
+    public Optional<Departamento> findByCodigo(String codigo) {
+        return todas()
+                .filter(departamento -> departamento.getCodigo().equals(codigo))
+                .findFirst();
+    }
+}
@@ -0,0 +1,23 @@
+package scott.infra.jpa;
+
+import org.openjdk.jmh.annotations.*;
+import scott.dominio.Genero;
+import scott.dominio.Genero.ConvertidorGenero;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConvertidorEnumeracionBenchmark {
+
+    private final ConvertidorGenero convertidor = new ConvertidorGenero();
+
+    @Param({"FEMENINO", "MASCULINO"})
+    public Genero genero;
+
+    @Benchmark
+    public Genero idaYVuelta() {
+        return convertidor.convertToEntityAttribute(convertidor.convertToDatabaseColumn(genero));
+    }
+}
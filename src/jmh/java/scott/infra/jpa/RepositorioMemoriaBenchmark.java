@@ -0,0 +1,53 @@
+package scott.infra.jpa;
+
+import org.openjdk.jmh.annotations.*;
+import scott.dominio.Departamento;
+import scott.dominio.RepositorioDepartamentoMemoria;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Lecturas por id de RepositorioMemoria. La tarea verificarAsignaciones falla si alguna asigna memoria por operación
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RepositorioMemoriaBenchmark {
+
+    // Potencia de dos, para recorrer los ids con una máscara; el código de departamento admite dos dígitos
+    private static final int INSTANCIAS = 64;
+
+    private RepositorioDepartamentoMemoria repositorio;
+    private String[] ids;
+    private String[] ausentes;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        repositorio = new RepositorioDepartamentoMemoria();
+        ids = new String[INSTANCIAS];
+        ausentes = new String[INSTANCIAS];
+        for (int i = 0; i < INSTANCIAS; i++) {
+            ids[i] = repositorio.save(Departamento.builder()
+                    .codigo("%02d".formatted(i))
+                    .nombre("Departamento")
+                    .localidad("Quito")
+                    .build()).getId();
+            ausentes[i] = "ausente-" + i;
+        }
+    }
+
+    @Benchmark
+    public Optional<Departamento> buscarPresente() {
+        return repositorio.findById(ids[siguiente++ & (INSTANCIAS - 1)]);
+    }
+
+    @Benchmark
+    public Optional<Departamento> buscarAusente() {
+        return repositorio.findById(ausentes[siguiente++ & (INSTANCIAS - 1)]);
+    }
+
+    @Benchmark
+    public boolean existe() {
+        return repositorio.existsById(ids[siguiente++ & (INSTANCIAS - 1)]);
+    }
+}
@@ -0,0 +1,61 @@
+package scott.infra.seguridad;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Costo por solicitud de cada modo de autenticación: BCrypt en cada solicitud (lo que hace Spring Security por
+// defecto), la autenticación básica resuelta desde la caché y la verificación local de un token firmado
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutenticacionBenchmark {
+
+    private DaoAuthenticationProvider bcrypt;
+    private ProveedorBasicoCache cache;
+    private TokenFirmado tokens;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        final var cifrado = new BCryptPasswordEncoder();
+        bcrypt = new DaoAuthenticationProvider();
+        bcrypt.setPasswordEncoder(cifrado);
+        bcrypt.setUserDetailsService(new InMemoryUserDetailsManager(
+                User.withUsername("scott").password(cifrado.encode("tiger")).roles("USUARIO").build()));
+        cache = new ProveedorBasicoCache(bcrypt, 1000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        cache.authenticate(credenciales());
+        tokens = new TokenFirmado(new byte[32], Duration.ofHours(1), Clock.systemUTC());
+        token = tokens.emitir("scott", List.of("USUARIO")).token();
+    }
+
+    @Benchmark
+    public Authentication basicaBcrypt() {
+        return bcrypt.authenticate(credenciales());
+    }
+
+    @Benchmark
+    public Authentication basicaCache() {
+        return cache.authenticate(credenciales());
+    }
+
+    @Benchmark
+    public Optional<TokenFirmado.Credencial> token() {
+        return tokens.verificar(token);
+    }
+
+    private static Authentication credenciales() {
+        return new UsernamePasswordAuthenticationToken("scott", "tiger");
+    }
+}
@@ -0,0 +1,127 @@
+package scott.infra.util;
+
+import org.openjdk.jmh.annotations.*;
+import scott.infra.jpa.ConvertidorDinero;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Salario y comisión de un millón de empleados como BigDecimal y como Dinero. Las cargas parten de centavos
+// primitivos y todo lo que asignan queda retenido, así que gc.alloc.rate.norm / filas es el costo en heap por
+// empleado; las sumas y validaciones miden el recorrido sobre las filas ya cargadas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DineroBenchmark {
+
+    record FilaDecimal(BigDecimal salario, BigDecimal comision) {
+    }
+
+    record FilaDinero(Dinero salario, Dinero comision) {
+    }
+
+    @Param({"1000000"})
+    public int filas;
+
+    private long[] centavosSalario;
+    private long[] centavosComision;
+    private FilaDecimal[] decimales;
+    private FilaDinero[] montos;
+
+    @Setup
+    public void preparar() {
+        final var azar = new SplittableRandom(42);
+        centavosSalario = new long[filas];
+        centavosComision = new long[filas];
+        for (int fila = 0; fila < filas; fila++) {
+            centavosSalario[fila] = azar.nextLong(80_000, 2_000_000);
+            centavosComision[fila] = azar.nextInt(4) == 0 ? azar.nextLong(1_000, 200_000) : -1;
+        }
+        decimales = cargarDecimal();
+        montos = cargarDinero();
+    }
+
+    @Benchmark
+    public FilaDecimal[] cargarDecimal() {
+        final var resultado = new FilaDecimal[filas];
+        for (int fila = 0; fila < filas; fila++) {
+            resultado[fila] = new FilaDecimal(
+                    BigDecimal.valueOf(centavosSalario[fila], 2),
+                    centavosComision[fila] < 0 ? null : BigDecimal.valueOf(centavosComision[fila], 2));
+        }
+        return resultado;
+    }
+
+    @Benchmark
+    public FilaDinero[] cargarDinero() {
+        final var resultado = new FilaDinero[filas];
+        for (int fila = 0; fila < filas; fila++) {
+            resultado[fila] = new FilaDinero(
+                    Dinero.deCentavos(centavosSalario[fila]),
+                    centavosComision[fila] < 0 ? null : Dinero.deCentavos(centavosComision[fila]));
+        }
+        return resultado;
+    }
+
+    @Benchmark
+    public BigDecimal sumarDecimal() {
+        var total = BigDecimal.ZERO;
+        for (final var fila : decimales) {
+            total = total.add(fila.salario());
+            if (fila.comision() != null) {
+                total = total.add(fila.comision());
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumarDinero() {
+        var total = 0L;
+        for (final var fila : montos) {
+            total += fila.salario().centavos();
+            if (fila.comision() != null) {
+                total += fila.comision().centavos();
+            }
+        }
+        return total;
+    }
+
+    // Lo que evalúan @Positive y la regla de comisión de Empleado sobre cada fila
+    @Benchmark
+    public int validarDecimal() {
+        var validas = 0;
+        for (final var fila : decimales) {
+            if (fila.salario().signum() > 0 && (fila.comision() == null || fila.comision().signum() > 0)) {
+                validas++;
+            }
+        }
+        return validas;
+    }
+
+    @Benchmark
+    public int validarDinero() {
+        var validas = 0;
+        for (final var fila : montos) {
+            if (fila.salario().esPositivo() && (fila.comision() == null || fila.comision().esPositivo())) {
+                validas++;
+            }
+        }
+        return validas;
+    }
+
+    // Ida y vuelta por el convertidor de la columna numeric(19,2)
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long convertirColumna() {
+        final var convertidor = new ConvertidorDinero();
+        var total = 0L;
+        for (int fila = 0; fila < 1000; fila++) {
+            total += convertidor.convertToEntityAttribute(
+                    convertidor.convertToDatabaseColumn(montos[fila].salario())).centavos();
+        }
+        return total;
+    }
+}
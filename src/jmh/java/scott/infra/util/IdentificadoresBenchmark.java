@@ -0,0 +1,21 @@
+package scott.infra.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdentificadoresBenchmark {
+
+    @Benchmark
+    public String siguienteIdentificador() {
+        return Identificadores.siguienteIdentificador();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String siguienteIdentificadorConcurrente() {
+        return Identificadores.siguienteIdentificador();
+    }
+}
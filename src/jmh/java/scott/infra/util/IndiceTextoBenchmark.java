@@ -0,0 +1,48 @@
+package scott.infra.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Consultas de autocompletar sobre dos millones de nombres sintéticos (nombre y cargo formados por sílabas, con
+// acentos). El vocabulario es más denso que uno real, de modo que los prefijos cortos son el peor caso
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndiceTextoBenchmark {
+
+    private static final String[] SILABAS =
+            {"ma", "ri", "to", "lo", "pe", "ra", "sa", "mi", "ná", "ju", "an", "go", "me", "ca", "ño"};
+
+    @Param({"2000000"})
+    public int documentos;
+
+    @Param({"m", "mar", "marito ca", "maritolopera"})
+    public String consulta;
+
+    private IndiceTexto<Integer> indice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        final var azar = new SplittableRandom(42);
+        indice = new IndiceTexto<>();
+        for (int documento = 0; documento < documentos; documento++) {
+            indice.registrar(documento, palabra(azar) + " " + palabra(azar));
+        }
+    }
+
+    @Benchmark
+    public List<IndiceTexto.Coincidencia<Integer>> buscar() {
+        return indice.buscar(consulta, 10);
+    }
+
+    private static String palabra(SplittableRandom azar) {
+        final var palabra = new StringBuilder();
+        for (int silaba = azar.nextInt(2, 5); silaba > 0; silaba--) {
+            palabra.append(SILABAS[azar.nextInt(SILABAS.length)]);
+        }
+        return palabra.toString();
+    }
+}
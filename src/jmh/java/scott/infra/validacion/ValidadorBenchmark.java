@@ -0,0 +1,44 @@
+package scott.infra.validacion;
+
+import org.openjdk.jmh.annotations.*;
+import scott.dominio.Departamento;
+import scott.infra.jpa.entidad.ErrorValidacion;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidadorBenchmark {
+
+    private Departamento valido;
+    private Departamento invalido;
+
+    @Setup
+    public void preparar() {
+        valido = Departamento.builder().codigo("10").nombre("Contabilidad").localidad("Quito").build();
+        invalido = Departamento.builder().codigo("20").nombre("Ventas").localidad("Bogota").build();
+        try {
+            // La instancia conserva la localidad inválida aunque la validación falle
+            invalido.relocalizar("Bogota 123");
+        } catch (ErrorValidacion e) {
+            // esperado
+        }
+    }
+
+    @Benchmark
+    public Departamento valida() {
+        Validador.validarAtributos(valido);
+        return valido;
+    }
+
+    @Benchmark
+    public ErrorValidacion invalida() {
+        try {
+            Validador.validarAtributos(invalido);
+            throw new IllegalStateException("Se esperaba un error de validación");
+        } catch (ErrorValidacion e) {
+            return e;
+        }
+    }
+}
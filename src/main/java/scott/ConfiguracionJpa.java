@@ -0,0 +1,12 @@
+package scott;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import scott.infra.jpa.RepositorioJpa;
+
+@Configuration
+@Profile("!memoria")
+@EnableJpaRepositories(considerNestedRepositories = true, repositoryBaseClass = RepositorioJpa.class)
+public class ConfiguracionJpa {
+}
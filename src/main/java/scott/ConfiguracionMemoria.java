@@ -0,0 +1,72 @@
+package scott;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import scott.infra.jpa.CascadaMemoria;
+import scott.infra.jpa.GeneradorRepositoriosMemoria;
+import scott.infra.jpa.Repositorio;
+import scott.infra.jpa.TransaccionesMemoria;
+import scott.infra.jpa.entidad.EscuchaEntidad;
+
+// Perfil sin Hibernate ni base de datos (ver application-memoria.properties): cada interfaz derivada de Repositorio
+// se implementa en memoria con GeneradorRepositoriosMemoria, todas unidas a una CascadaMemoria que emula los
+// ON DELETE CASCADE de la base de datos, y las transacciones solo delimitan las sincronizaciones: una reversión no
+// deshace escrituras (ver TransaccionesMemoria)
+@Configuration
+@Profile("memoria")
+public class ConfiguracionMemoria {
+
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor repositoriosMemoria() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registro) {
+                final var explorador = new ClassPathScanningCandidateComponentProvider(false) {
+                    @Override
+                    protected boolean isCandidateComponent(AnnotatedBeanDefinition definicion) {
+                        final var metadatos = definicion.getMetadata();
+                        return metadatos.isInterface() && metadatos.isIndependent()
+                                && !metadatos.getClassName().equals(Repositorio.class.getName());
+                    }
+                };
+                explorador.addIncludeFilter(new AssignableTypeFilter(Repositorio.class));
+                final var cascada = new CascadaMemoria();
+                for (final var candidato : explorador.findCandidateComponents(AplicacionScott.class.getPackageName())) {
+                    registrar(registro, ClassUtils.resolveClassName(candidato.getBeanClassName(), null), cascada);
+                }
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends Repositorio<?>> void registrar(BeanDefinitionRegistry registro,
+                                                             Class<?> interfaz,
+                                                             CascadaMemoria cascada) {
+        final var tipo = (Class<R>) interfaz;
+        registro.registerBeanDefinition(
+                StringUtils.uncapitalize(interfaz.getSimpleName()),
+                new RootBeanDefinition(tipo, () -> GeneradorRepositoriosMemoria.generar(
+                        tipo, cascada, ((BeanFactory) registro).getBean(EscuchaEntidad.class))));
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new TransaccionesMemoria();
+    }
+}
@@ -0,0 +1,235 @@
+package scott.dominio;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import scott.infra.eventos.EventoCambio.Tipo;
+import scott.infra.jpa.entidad.EscuchaEntidad.Cambio;
+import scott.infra.util.IndiceTexto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Búsqueda de empleados por nombre y cargo y de departamentos por nombre y localidad, para autocompletar
+public interface BusquedaNombres {
+
+    record Coincidencia(String id, String texto) {
+    }
+
+    List<Coincidencia> empleados(String consulta, int limite);
+
+    List<Coincidencia> departamentos(String consulta, int limite);
+
+    default void invalidar() {
+    }
+
+    static String texto(Empleado empleado) {
+        return empleado.getNombre() + " " + empleado.getCargo();
+    }
+
+    static String texto(Departamento departamento) {
+        return departamento.getNombre() + " " + departamento.getLocalidad();
+    }
+
+    // Índices construidos a partir de los repositorios en la primera consulta y mantenidos con los cambios notificados
+    // por EscuchaEntidad una vez confirmada la transacción. En las sentencias masivas solo se conoce el id, y esas
+    // entidades se vuelven a leer en la siguiente consulta
+    @Service
+    @ConditionalOnProperty(name = "scott.busqueda.indice", havingValue = "memoria", matchIfMissing = true)
+    class Memoria implements BusquedaNombres {
+
+        @Override
+        public List<Coincidencia> empleados(String consulta, int limite) {
+            return convertir(indiceEmpleados().buscar(consulta, limite));
+        }
+
+        @Override
+        public List<Coincidencia> departamentos(String consulta, int limite) {
+            return convertir(indiceDepartamentos().buscar(consulta, limite));
+        }
+
+        @Override
+        public synchronized void invalidar() {
+            empleados = null;
+            departamentos = null;
+            empleadosPendientes.clear();
+            departamentosPendientes.clear();
+        }
+
+        private synchronized IndiceTexto<String> indiceEmpleados() {
+            if (empleados == null) {
+                final var nuevo = new IndiceTexto<String>();
+                repositorioEmpleado.findAll().forEach(empleado -> nuevo.registrar(empleado.getId(), texto(empleado)));
+                empleados = nuevo;
+                empleadosPendientes.clear();
+            } else if (!empleadosPendientes.isEmpty()) {
+                final var ids = List.copyOf(empleadosPendientes);
+                empleadosPendientes.clear();
+                final var releidos = new HashSet<String>();
+                repositorioEmpleado.findAllById(ids).forEach(empleado -> {
+                    empleados.registrar(empleado.getId(), texto(empleado));
+                    releidos.add(empleado.getId());
+                });
+                ids.stream().filter(id -> !releidos.contains(id)).forEach(empleados::quitar);
+            }
+            return empleados;
+        }
+
+        private synchronized IndiceTexto<String> indiceDepartamentos() {
+            if (departamentos == null) {
+                final var nuevo = new IndiceTexto<String>();
+                repositorioDepartamento.findAll()
+                        .forEach(departamento -> nuevo.registrar(departamento.getId(), texto(departamento)));
+                departamentos = nuevo;
+                departamentosPendientes.clear();
+            } else if (!departamentosPendientes.isEmpty()) {
+                final var ids = List.copyOf(departamentosPendientes);
+                departamentosPendientes.clear();
+                final var releidos = new HashSet<String>();
+                repositorioDepartamento.findAllById(ids).forEach(departamento -> {
+                    departamentos.registrar(departamento.getId(), texto(departamento));
+                    releidos.add(departamento.getId());
+                });
+                ids.stream().filter(id -> !releidos.contains(id)).forEach(departamentos::quitar);
+            }
+            return departamentos;
+        }
+
+        // El texto se toma al notificarse el cambio y se indexa al confirmarse; mientras un índice no se haya
+        // construido no hay nada que mantener: la construcción ya leerá el estado confirmado
+        @EventListener
+        public void registrarCambio(Cambio cambio) {
+            final String texto;
+            if (cambio.entidad() instanceof Empleado empleado) {
+                texto = texto(empleado);
+            } else if (cambio.entidad() instanceof Departamento departamento) {
+                texto = texto(departamento);
+            } else if (cambio.clase() == Empleado.class || cambio.clase() == Departamento.class) {
+                texto = null;
+            } else {
+                return;
+            }
+            alConfirmar(() -> {
+                final var esEmpleado = cambio.clase() == Empleado.class;
+                final var indice = esEmpleado ? empleados : departamentos;
+                if (indice == null) {
+                    return;
+                }
+                if (cambio.tipo() == Tipo.BAJA) {
+                    indice.quitar(cambio.id());
+                } else if (texto != null) {
+                    indice.registrar(cambio.id(), texto);
+                } else {
+                    (esEmpleado ? empleadosPendientes : departamentosPendientes).add(cambio.id());
+                }
+            });
+        }
+
+        private void alConfirmar(Runnable ajuste) {
+            final Runnable ajusteSincronizado = () -> {
+                synchronized (this) {
+                    ajuste.run();
+                }
+            };
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        ajusteSincronizado.run();
+                    }
+                });
+            } else {
+                ajusteSincronizado.run();
+            }
+        }
+
+        private static List<Coincidencia> convertir(List<IndiceTexto.Coincidencia<String>> coincidencias) {
+            return coincidencias.stream()
+                    .map(coincidencia -> new Coincidencia(coincidencia.clave(), coincidencia.texto()))
+                    .toList();
+        }
+
+        private IndiceTexto<String> empleados;
+        private IndiceTexto<String> departamentos;
+        private final Set<String> empleadosPendientes = new HashSet<>();
+        private final Set<String> departamentosPendientes = new HashSet<>();
+        private final RepositorioEmpleado repositorioEmpleado;
+        private final RepositorioDepartamento repositorioDepartamento;
+
+        public Memoria(RepositorioEmpleado repositorioEmpleado, RepositorioDepartamento repositorioDepartamento) {
+            this.repositorioEmpleado = repositorioEmpleado;
+            this.repositorioDepartamento = repositorioDepartamento;
+        }
+    }
+
+    // PostgreSQL con pg_trgm: índices GIN de trigramas sobre el texto normalizado (ver busqueda-postgresql.sql), que
+    // sirven tanto a LIKE '%término%' como al operador de similitud %. Los términos de la consulta se normalizan aquí
+    // igual que en el índice en memoria
+    @Service
+    @ConditionalOnProperty(name = "scott.busqueda.indice", havingValue = "sql")
+    class Sql implements BusquedaNombres {
+
+        private static final String TEXTO_EMPLEADO = "scott_sin_acentos(lower(nombre || ' ' || cargo))";
+        private static final String TEXTO_DEPARTAMENTO = "scott_sin_acentos(lower(nombre || ' ' || localidad))";
+
+        @Override
+        public List<Coincidencia> empleados(String consulta, int limite) {
+            return buscar("empleado", "nombre || ' ' || cargo", TEXTO_EMPLEADO, consulta, limite);
+        }
+
+        @Override
+        public List<Coincidencia> departamentos(String consulta, int limite) {
+            return buscar("departamento", "nombre || ' ' || localidad", TEXTO_DEPARTAMENTO, consulta, limite);
+        }
+
+        // Todos los términos por subcadena o, si no hay ninguna coincidencia así, por similitud con la consulta
+        private List<Coincidencia> buscar(String tabla, String texto, String normalizado, String consulta, int limite) {
+            final var terminos = IndiceTexto.terminos(consulta);
+            if (terminos.length == 0 || limite <= 0) {
+                return List.of();
+            }
+            final var unidos = String.join(" ", terminos);
+            final var condiciones = String.join(" and ", Arrays.stream(terminos)
+                    .map(termino -> normalizado + " like ?")
+                    .toList());
+            final var argumentos = new ArrayList<Object>();
+            Arrays.stream(terminos).forEach(termino -> argumentos.add("%" + termino + "%"));
+            argumentos.add(unidos);
+            argumentos.add(limite);
+            final var coincidencias = jdbcTemplate.query("""
+                            select id, %s from %s where %s
+                            order by similarity(%s, ?) desc, length(%s) limit ?
+                            """.formatted(texto, tabla, condiciones, normalizado, texto),
+                    (fila, numero) -> new Coincidencia(fila.getString(1), fila.getString(2)),
+                    argumentos.toArray());
+            if (!coincidencias.isEmpty()) {
+                return coincidencias;
+            }
+            return jdbcTemplate.query("""
+                            select id, %s from %s where %s %% ?
+                            order by similarity(%s, ?) desc limit ?
+                            """.formatted(texto, tabla, normalizado, normalizado),
+                    (fila, numero) -> new Coincidencia(fila.getString(1), fila.getString(2)),
+                    unidos, unidos, limite);
+        }
+
+        private final JdbcTemplate jdbcTemplate;
+
+        public Sql(JdbcTemplate jdbcTemplate, @Value("${scott.busqueda.crear-indices:false}") boolean crearIndices) {
+            this.jdbcTemplate = jdbcTemplate;
+            if (crearIndices) {
+                new ResourceDatabasePopulator(new ClassPathResource("busqueda-postgresql.sql"))
+                        .execute(jdbcTemplate.getDataSource());
+            }
+        }
+    }
+}
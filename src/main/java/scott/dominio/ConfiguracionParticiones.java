@@ -0,0 +1,62 @@
+package scott.dominio;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import scott.infra.eventos.EventoCambio;
+import scott.infra.particion.Particiones;
+import scott.infra.particion.RepositorioParticionado;
+import scott.infra.particion.RepositorioParticionado.Referencia;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+// Departamentos y empleados particionados por código de departamento. Los repositorios particionados conviven
+// con los de la base principal; los servicios siguen usando estos últimos
+@Configuration
+@ConditionalOnProperty(name = "scott.particiones.habilitadas", havingValue = "true")
+public class ConfiguracionParticiones {
+
+    @Bean(destroyMethod = "cerrar")
+    public Particiones particiones(EntityManagerFactoryBuilder constructor,
+                                   ConfigurableListableBeanFactory fabricaBeans,
+                                   DataSourceProperties propiedades,
+                                   @Value("${scott.particiones.urls}") String[] urls,
+                                   @Value("${scott.particiones.modo:hash}") String modo,
+                                   @Value("${scott.particiones.rangos:}") String rangos,
+                                   @Value("${scott.particiones.ddl-auto:none}") String ddl) {
+        return Particiones.crear(constructor, fabricaBeans, propiedades,
+                Arrays.stream(urls).map(String::trim).filter(url -> !url.isEmpty()).toList(),
+                modo, rangos, ddl, Departamento.class, EventoCambio.class);
+    }
+
+    @Bean
+    public RepositorioParticionado<Departamento> departamentosParticionados(Particiones particiones) {
+        return new RepositorioParticionado<>(
+                Departamento.class, particiones, Departamento::getCodigo, departamento -> List.of());
+    }
+
+    @Bean
+    public RepositorioParticionado<Empleado> empleadosParticionados(Particiones particiones) {
+        return new RepositorioParticionado<>(
+                Empleado.class, particiones, empleado -> empleado.getDepartamento().getCodigo(),
+                ConfiguracionParticiones::cadenaSupervision);
+    }
+
+    // Supervisores del empleado desde la raíz, cada uno precedido por su departamento, en el orden en que deben
+    // existir para respetar las claves foráneas
+    private static List<Referencia> cadenaSupervision(Empleado empleado) {
+        final var cadena = new ArrayDeque<Referencia>();
+        for (var supervisor = empleado.getSupervisor(); supervisor != null; supervisor = supervisor.getSupervisor()) {
+            final var codigo = supervisor.getDepartamento().getCodigo();
+            cadena.addFirst(new Referencia(supervisor, codigo));
+            cadena.addFirst(new Referencia(supervisor.getDepartamento(), codigo));
+        }
+        return List.copyOf(cadena);
+    }
+}
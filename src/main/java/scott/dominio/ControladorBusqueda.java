@@ -0,0 +1,32 @@
+package scott.dominio;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import scott.dominio.BusquedaNombres.Coincidencia;
+
+import java.util.List;
+
+@RestController
+public class ControladorBusqueda {
+
+    private static final int LIMITE_MAXIMO = 100;
+
+    private final BusquedaNombres busquedaNombres;
+
+    public ControladorBusqueda(BusquedaNombres busquedaNombres) {
+        this.busquedaNombres = busquedaNombres;
+    }
+
+    @GetMapping("/busqueda/empleados")
+    public List<Coincidencia> empleados(@RequestParam("q") String consulta,
+                                        @RequestParam(name = "limite", defaultValue = "10") int limite) {
+        return busquedaNombres.empleados(consulta, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    @GetMapping("/busqueda/departamentos")
+    public List<Coincidencia> departamentos(@RequestParam("q") String consulta,
+                                            @RequestParam(name = "limite", defaultValue = "10") int limite) {
+        return busquedaNombres.departamentos(consulta, Math.min(limite, LIMITE_MAXIMO));
+    }
+}
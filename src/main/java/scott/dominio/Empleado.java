@@ -1,10 +1,16 @@
 package scott.dominio;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import scott.dominio.Genero.ConvertidorGenero;
+import scott.infra.jpa.ActualizacionLote;
+import scott.infra.jpa.ConvertidorDinero;
+import scott.infra.jpa.Criterio;
 import scott.infra.jpa.entidad.Entidad;
+import scott.infra.jpa.entidad.ErrorValidacion;
+import scott.infra.util.Dinero;
 import scott.infra.validacion.ValorInvalido;
 
 import javax.persistence.*;
@@ -13,14 +19,25 @@ import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
 
 @Entity
 @Table(name = "empleado", uniqueConstraints = {
-        @UniqueConstraint(name = "empl_uk_codigo", columnNames = {"codigo"})})
+        @UniqueConstraint(name = "empl_uk_codigo", columnNames = {"codigo"})}, indexes = {
+        @Index(name = "empl_ix_salario", columnList = "salario"),
+        @Index(name = "empl_ix_fecha_contratacion", columnList = "fecha_contratacion"),
+        @Index(name = "empl_ix_departamento_salario", columnList = "id_departamento, salario")})
 @Getter
 @ToString(onlyExplicitlyIncluded = true)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Empleado extends Entidad {
+    public static final Criterio.Atributo<Empleado, Dinero> SALARIO =
+            new Criterio.Atributo<>("salario", Empleado::getMontoSalario);
+    public static final Criterio.Atributo<Empleado, LocalDate> FECHA_CONTRATACION =
+            new Criterio.Atributo<>("fechaContratacion", Empleado::getFechaContratacion);
+
     @ToString.Include
     @Pattern(regexp = "^[0-9]{4}$", message = "Código de empleado inválido; debe constar de cuatro dígitos")
     @NotNull(message = "El código del empleado debe ser especificado")
@@ -63,12 +80,16 @@ public class Empleado extends Entidad {
     @Positive(message = "El salario del empleado debe ser positivo")
     @Basic(optional = false)
     @Column(name = "salario", nullable = false)
-    private BigDecimal salario;
+    @Convert(converter = ConvertidorDinero.class)
+    @Getter(AccessLevel.NONE)
+    private Dinero salario;
 
     @Positive(message = "La comisión del empleado debe ser positiva")
     @Basic
     @Column(name = "comision")
-    private BigDecimal comision;
+    @Convert(converter = ConvertidorDinero.class)
+    @Getter(AccessLevel.NONE)
+    private Dinero comision;
 
     @ManyToOne
     @OnDelete(action = OnDeleteAction.CASCADE)
@@ -92,8 +113,8 @@ public class Empleado extends Entidad {
         this.cargo = cargo;
         this.supervisor = supervisor;
         this.fechaContratacion = fechaContratacion;
-        this.salario = salario;
-        this.comision = comision;
+        this.salario = monto("salario", salario);
+        this.comision = monto("comision", comision);
         this.departamento = departamento;
         validar();
     }
@@ -103,22 +124,89 @@ public class Empleado extends Entidad {
                           Empleado supervisor,
                           BigDecimal salario,
                           BigDecimal comision) {
+        final var nuevoSalario = monto("salario", salario);
+        final var nuevaComision = monto("comision", comision);
         this.departamento = departamento;
         this.cargo = cargo;
         this.supervisor = supervisor;
-        this.salario = salario;
-        this.comision = comision;
+        this.salario = nuevoSalario;
+        this.comision = nuevaComision;
+        validar();
+    }
+
+    public BigDecimal getSalario() {
+        return salario == null ? null : salario.aBigDecimal();
+    }
+
+    public BigDecimal getComision() {
+        return comision == null ? null : comision.aBigDecimal();
+    }
+
+    @JsonIgnore
+    public Dinero getMontoSalario() {
+        return salario;
+    }
+
+    @JsonIgnore
+    public Dinero getMontoComision() {
+        return comision;
+    }
+
+    public void trasladar(Departamento departamento) {
+        this.departamento = departamento;
         validar();
     }
 
+    public static ActualizacionLote<Empleado> traslado(Departamento origen, Departamento destino) {
+        return ActualizacionLote.<Empleado>de(
+                        Criterio.igual("departamento", Empleado::getDepartamento, origen),
+                        empleado -> empleado.trasladar(destino))
+                .asignar("departamento", destino)
+                .validar("La comisión solo aplica al departamento VENTAS, no al departamento %s"
+                                .formatted(destino.getNombre()),
+                        aplicaComision(destino) ?
+                                Criterio.ninguno() :
+                                Criterio.noNulo("comision", Empleado::getMontoComision));
+    }
+
+    private static boolean aplicaComision(Departamento departamento) {
+        return "Ventas".equalsIgnoreCase(departamento.getNombre());
+    }
+
+    // Como @Positive en ValidadorDineroPositivo, pero antes de convertir: Dinero no puede guardar el monto para
+    // validarlo después
+    private static Dinero monto(String atributo, BigDecimal valor) {
+        if (valor != null && !Dinero.esExacto(valor)) {
+            throw new ErrorValidacion(Empleado.class.getSimpleName(), List.of(new ValorInvalido(
+                    atributo, valor, "El monto no admite fracciones de centavo")));
+        }
+        return Dinero.de(valor);
+    }
+
     private void validar() {
         validarInstancia(vis -> {
-            if (!"Ventas".equalsIgnoreCase(departamento.getNombre()) && comision != null) {
+            if (!aplicaComision(departamento) && comision != null) {
                 vis.add(new ValorInvalido(
                         "comision", comision,
                         "La comisión (%s) solo aplica al departamento VENTAS, no al departamento %s"
                                 .formatted(comision, departamento.getNombre())));
             }
+            if (formaCiclo()) {
+                vis.add(new ValorInvalido(
+                        "supervisor", supervisor.getCodigo(),
+                        "El supervisor %s está subordinado al empleado %s; se formaría un ciclo"
+                                .formatted(supervisor.getCodigo(), codigo)));
+            }
         });
     }
+
+    private boolean formaCiclo() {
+        final var visitados = Collections.newSetFromMap(new IdentityHashMap<Empleado, Boolean>());
+        for (var actual = supervisor; actual != null; actual = actual.getSupervisor()) {
+            if (actual == this || (getId() != null && getId().equals(actual.getId())) || !visitados.add(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,296 @@
+package scott.dominio;
+
+import scott.infra.jpa.Repositorio;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+// Copia de solo lectura de los empleados organizada por columnas de tipos primitivos: montos en centavos, fechas
+// como días desde la época, género como ordinal y departamento codificado contra un diccionario. Los operadores
+// de filtrado y agrupación recorren las columnas en paralelo mediante fork-join
+public final class InstantaneaEmpleados {
+
+    public static final long SIN_COMISION = Long.MIN_VALUE;
+    public static final byte SIN_GENERO = -1;
+
+    private static final int FILAS_POR_TAREA = 1 << 14;
+    private static final int MAXIMO_BANDAS = 1 << 12;
+    private static final Genero[] GENEROS = Genero.values();
+
+    private final int filas;
+    private final String[] ids;
+    private final long[] centavosSalario;
+    private final long[] centavosComision;
+    private final int[] fechaContratacion;
+    private final byte[] genero;
+    private final int[] departamento;
+    private final String[] diccionarioDepartamentos;
+    private final long maximoCentavosSalario;
+
+    private InstantaneaEmpleados(int filas,
+                                 String[] ids,
+                                 long[] centavosSalario,
+                                 long[] centavosComision,
+                                 int[] fechaContratacion,
+                                 byte[] genero,
+                                 int[] departamento,
+                                 String[] diccionarioDepartamentos) {
+        this.filas = filas;
+        this.ids = ids;
+        this.centavosSalario = centavosSalario;
+        this.centavosComision = centavosComision;
+        this.fechaContratacion = fechaContratacion;
+        this.genero = genero;
+        this.departamento = departamento;
+        this.diccionarioDepartamentos = diccionarioDepartamentos;
+        this.maximoCentavosSalario = Arrays.stream(centavosSalario, 0, filas).max().orElse(0);
+    }
+
+    public static InstantaneaEmpleados de(Repositorio<Empleado> repositorio) {
+        final var empleados = repositorio.findAll();
+        final var filas = empleados.size();
+        final var ids = new String[filas];
+        final var centavosSalario = new long[filas];
+        final var centavosComision = new long[filas];
+        final var fechaContratacion = new int[filas];
+        final var genero = new byte[filas];
+        final var departamento = new int[filas];
+        final var diccionario = new LinkedHashMap<String, Integer>();
+
+        for (int fila = 0; fila < filas; fila++) {
+            final var empleado = empleados.get(fila);
+            ids[fila] = empleado.getId();
+            centavosSalario[fila] = empleado.getMontoSalario().centavos();
+            centavosComision[fila] = empleado.getMontoComision() == null ?
+                    SIN_COMISION :
+                    empleado.getMontoComision().centavos();
+            fechaContratacion[fila] = (int) empleado.getFechaContratacion().toEpochDay();
+            genero[fila] = empleado.getGenero() == null ? SIN_GENERO : (byte) empleado.getGenero().ordinal();
+            departamento[fila] = diccionario.computeIfAbsent(
+                    empleado.getDepartamento().getId(), id -> diccionario.size());
+        }
+
+        return new InstantaneaEmpleados(
+                filas, ids, centavosSalario, centavosComision, fechaContratacion, genero, departamento,
+                diccionario.keySet().toArray(new String[0]));
+    }
+
+    public int filas() {
+        return filas;
+    }
+
+    public String id(int fila) {
+        return ids[fila];
+    }
+
+    // Memoria ocupada por las columnas, sin contar los identificadores
+    public long bytesColumnas() {
+        return filas * (Long.BYTES * 2L + Integer.BYTES * 2L + Byte.BYTES);
+    }
+
+    // Filtros
+
+    public IntPredicate todas() {
+        return fila -> true;
+    }
+
+    public IntPredicate salarioEntre(BigDecimal minimo, BigDecimal maximo) {
+        final var desde = TotalesNomina.centavos(minimo);
+        final var hasta = TotalesNomina.centavos(maximo);
+        return fila -> centavosSalario[fila] >= desde && centavosSalario[fila] <= hasta;
+    }
+
+    public IntPredicate contratadosEntre(LocalDate desde, LocalDate hasta) {
+        final var diaDesde = (int) desde.toEpochDay();
+        final var diaHasta = (int) hasta.toEpochDay();
+        return fila -> fechaContratacion[fila] >= diaDesde && fechaContratacion[fila] <= diaHasta;
+    }
+
+    public IntPredicate deGenero(Genero valor) {
+        final var ordinal = (byte) valor.ordinal();
+        return fila -> genero[fila] == ordinal;
+    }
+
+    public IntPredicate delDepartamento(String idDepartamento) {
+        final var codigo = codigoDepartamento(idDepartamento);
+        return fila -> departamento[fila] == codigo;
+    }
+
+    public IntPredicate conComision() {
+        return fila -> centavosComision[fila] != SIN_COMISION;
+    }
+
+    // Operadores
+
+    public long contar(IntPredicate filtro) {
+        return agregar(filtro, 1, fila -> 0, fila -> 0)[0];
+    }
+
+    public Map<String, TotalesNomina> nominaPorDepartamento(IntPredicate filtro) {
+        final var grupos = diccionarioDepartamentos.length;
+        final var salarios = agregar(filtro, grupos, fila -> departamento[fila], fila -> centavosSalario[fila]);
+        final var comisiones = agregar(filtro, grupos, fila -> departamento[fila], this::comisionOCero);
+        final var nomina = new HashMap<String, TotalesNomina>();
+        for (int grupo = 0; grupo < grupos; grupo++) {
+            if (salarios[2 * grupo] > 0) {
+                nomina.put(diccionarioDepartamentos[grupo],
+                        new TotalesNomina(salarios[2 * grupo], salarios[2 * grupo + 1], comisiones[2 * grupo + 1]));
+            }
+        }
+        return nomina;
+    }
+
+    public Map<Genero, Long> contarPorGenero(IntPredicate filtro) {
+        final var conGenero = filtro.and(fila -> genero[fila] != SIN_GENERO);
+        final var conteos = agregar(conGenero, GENEROS.length, fila -> genero[fila], fila -> 0);
+        final var resultado = new EnumMap<Genero, Long>(Genero.class);
+        for (final var valor : GENEROS) {
+            resultado.put(valor, conteos[2 * valor.ordinal()]);
+        }
+        return resultado;
+    }
+
+    // Cantidad de empleados por banda salarial; cada banda se identifica por su límite inferior. Se rechazan los
+    // anchos que darían más de MAXIMO_BANDAS bandas sobre el salario máximo de la instantánea, lo que acota los
+    // conteos de cada tarea; estos crecen a medida que aparecen bandas nuevas y el filtro se evalúa una sola vez
+    // por fila
+    public SortedMap<BigDecimal, Long> bandasSalariales(BigDecimal ancho, IntPredicate filtro) {
+        final var anchoCentavos = TotalesNomina.centavos(ancho);
+        if (anchoCentavos <= 0) {
+            throw new IllegalArgumentException("Ancho de banda inválido: %s".formatted(ancho));
+        }
+        if (Math.max(maximoCentavosSalario, 0) / anchoCentavos >= MAXIMO_BANDAS) {
+            throw new IllegalArgumentException(
+                    "Ancho de banda demasiado pequeño: %s (más de %d bandas)".formatted(ancho, MAXIMO_BANDAS));
+        }
+        final var conteos = ForkJoinPool.commonPool().invoke(new ConteoBandas(0, filas, filtro, anchoCentavos));
+        final var resultado = new TreeMap<BigDecimal, Long>();
+        for (int banda = 0; banda < conteos.length; banda++) {
+            if (conteos[banda] > 0) {
+                resultado.put(BigDecimal.valueOf(banda * anchoCentavos, 2), conteos[banda]);
+            }
+        }
+        return resultado;
+    }
+
+    public double antiguedadPromedioDias(LocalDate fechaReferencia, IntPredicate filtro) {
+        final var dia = fechaReferencia.toEpochDay();
+        final var resultado = agregar(filtro, 1, fila -> 0, fila -> dia - fechaContratacion[fila]);
+        return resultado[0] == 0 ? 0 : (double) resultado[1] / resultado[0];
+    }
+
+    private long comisionOCero(int fila) {
+        return centavosComision[fila] == SIN_COMISION ? 0 : centavosComision[fila];
+    }
+
+    private int codigoDepartamento(String idDepartamento) {
+        for (int codigo = 0; codigo < diccionarioDepartamentos.length; codigo++) {
+            if (diccionarioDepartamentos[codigo].equals(idDepartamento)) {
+                return codigo;
+            }
+        }
+        return -1;
+    }
+
+    // Retorna, por grupo, la cantidad de filas aceptadas (posición par) y la suma de sus valores (posición impar)
+    private long[] agregar(IntPredicate filtro, int grupos, IntUnaryOperator grupo, IntToLongFunction valor) {
+        return ForkJoinPool.commonPool().invoke(new Agregacion(0, filas, filtro, grupos, grupo, valor));
+    }
+
+    private final class ConteoBandas extends RecursiveTask<long[]> {
+        private final int desde;
+        private final int hasta;
+        private final IntPredicate filtro;
+        private final long anchoCentavos;
+
+        ConteoBandas(int desde, int hasta, IntPredicate filtro, long anchoCentavos) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.filtro = filtro;
+            this.anchoCentavos = anchoCentavos;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hasta - desde <= FILAS_POR_TAREA) {
+                var conteos = new long[0];
+                for (int fila = desde; fila < hasta; fila++) {
+                    if (filtro.test(fila)) {
+                        final var banda = (int) (Math.max(centavosSalario[fila], 0) / anchoCentavos);
+                        if (banda >= conteos.length) {
+                            conteos = Arrays.copyOf(conteos, Math.max(banda + 1, 2 * conteos.length));
+                        }
+                        conteos[banda]++;
+                    }
+                }
+                return conteos;
+            }
+            final var medio = (desde + hasta) >>> 1;
+            final var izquierda = new ConteoBandas(desde, medio, filtro, anchoCentavos);
+            izquierda.fork();
+            final var derecha = new ConteoBandas(medio, hasta, filtro, anchoCentavos).compute();
+            final var conteos = izquierda.join();
+            final var mayor = conteos.length >= derecha.length ? conteos : derecha;
+            final var menor = mayor == conteos ? derecha : conteos;
+            for (int banda = 0; banda < menor.length; banda++) {
+                mayor[banda] += menor[banda];
+            }
+            return mayor;
+        }
+    }
+
+    private static final class Agregacion extends RecursiveTask<long[]> {
+        private final int desde;
+        private final int hasta;
+        private final IntPredicate filtro;
+        private final int grupos;
+        private final IntUnaryOperator grupo;
+        private final IntToLongFunction valor;
+
+        Agregacion(int desde, int hasta,
+                   IntPredicate filtro, int grupos, IntUnaryOperator grupo, IntToLongFunction valor) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.filtro = filtro;
+            this.grupos = grupos;
+            this.grupo = grupo;
+            this.valor = valor;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (hasta - desde <= FILAS_POR_TAREA) {
+                final var acumulado = new long[2 * grupos];
+                for (int fila = desde; fila < hasta; fila++) {
+                    if (filtro.test(fila)) {
+                        final var indice = 2 * grupo.applyAsInt(fila);
+                        acumulado[indice] += 1;
+                        acumulado[indice + 1] += valor.applyAsLong(fila);
+                    }
+                }
+                return acumulado;
+            }
+            final var medio = (desde + hasta) >>> 1;
+            final var izquierda = new Agregacion(desde, medio, filtro, grupos, grupo, valor);
+            izquierda.fork();
+            final var derecha = new Agregacion(medio, hasta, filtro, grupos, grupo, valor).compute();
+            final var acumulado = izquierda.join();
+            for (int i = 0; i < acumulado.length; i++) {
+                acumulado[i] += derecha[i];
+            }
+            return acumulado;
+        }
+    }
+}
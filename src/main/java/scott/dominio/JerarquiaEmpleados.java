@@ -0,0 +1,143 @@
+package scott.dominio;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import scott.infra.util.IndiceArbol;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+public interface JerarquiaEmpleados {
+
+    // Subordinados directos e indirectos
+    List<String> subordinados(String idEmpleado);
+
+    // Desde el supervisor inmediato hasta la cima de la organización
+    List<String> cadenaDeMando(String idEmpleado);
+
+    int contarSubordinados(String idEmpleado);
+
+    default void registrar(String idEmpleado, String idSupervisor) {
+    }
+
+    default void invalidar() {
+    }
+
+    @Service
+    @ConditionalOnProperty(name = "scott.jerarquia.indice", havingValue = "sql", matchIfMissing = true)
+    class Sql implements JerarquiaEmpleados {
+
+        // El nivel acota la recursión ante datos inconsistentes que pudieran contener ciclos
+        private static final int PROFUNDIDAD_MAXIMA = 10_000;
+
+        private static final String SUBORDINADOS = """
+                with recursive subordinado(id, nivel) as (
+                    select id, 1 from empleado where id_supervisor = :id
+                    union all
+                    select e.id, s.nivel + 1
+                    from empleado e join subordinado s on e.id_supervisor = s.id
+                    where s.nivel < :profundidad
+                )
+                """;
+
+        private static final String CADENA_DE_MANDO = """
+                with recursive cadena(id, id_supervisor, nivel) as (
+                    select id, id_supervisor, 0 from empleado where id = :id
+                    union all
+                    select e.id, e.id_supervisor, c.nivel + 1
+                    from empleado e join cadena c on e.id = c.id_supervisor
+                    where c.nivel < :profundidad
+                )
+                select id from cadena where nivel > 0 order by nivel
+                """;
+
+        @Override
+        public List<String> subordinados(String idEmpleado) {
+            return consultar(SUBORDINADOS + "select id from subordinado order by nivel", idEmpleado);
+        }
+
+        @Override
+        public List<String> cadenaDeMando(String idEmpleado) {
+            return consultar(CADENA_DE_MANDO, idEmpleado);
+        }
+
+        @Override
+        public int contarSubordinados(String idEmpleado) {
+            return ((Number) entityManager
+                    .createNativeQuery(SUBORDINADOS + "select count(*) from subordinado")
+                    .setParameter("id", idEmpleado)
+                    .setParameter("profundidad", PROFUNDIDAD_MAXIMA)
+                    .getSingleResult())
+                    .intValue();
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<String> consultar(String sql, String idEmpleado) {
+            return ((List<Object>) entityManager
+                    .createNativeQuery(sql)
+                    .setParameter("id", idEmpleado)
+                    .setParameter("profundidad", PROFUNDIDAD_MAXIMA)
+                    .getResultList())
+                    .stream()
+                    .map(Object::toString)
+                    .toList();
+        }
+
+        private final EntityManager entityManager;
+
+        public Sql(EntityManager entityManager) {
+            this.entityManager = entityManager;
+        }
+    }
+
+    // Índice en memoria construido a partir del repositorio en la primera consulta y mantenido en cada alta o
+    // reasignación registrada por el servicio de empleados
+    @Service
+    @ConditionalOnProperty(name = "scott.jerarquia.indice", havingValue = "memoria")
+    class Memoria implements JerarquiaEmpleados {
+
+        @Override
+        public List<String> subordinados(String idEmpleado) {
+            return indice().descendientes(idEmpleado);
+        }
+
+        @Override
+        public List<String> cadenaDeMando(String idEmpleado) {
+            return indice().ancestros(idEmpleado);
+        }
+
+        @Override
+        public int contarSubordinados(String idEmpleado) {
+            return indice().contarDescendientes(idEmpleado);
+        }
+
+        @Override
+        public void registrar(String idEmpleado, String idSupervisor) {
+            indice().registrar(idEmpleado, idSupervisor);
+        }
+
+        @Override
+        public synchronized void invalidar() {
+            indice = null;
+        }
+
+        private synchronized IndiceArbol<String> indice() {
+            if (indice == null) {
+                final var nuevoIndice = new IndiceArbol<String>();
+                repositorioEmpleado.findAll().forEach(empleado ->
+                        nuevoIndice.registrar(
+                                empleado.getId(),
+                                empleado.getSupervisor() == null ? null : empleado.getSupervisor().getId()));
+                indice = nuevoIndice;
+            }
+            return indice;
+        }
+
+        private IndiceArbol<String> indice;
+        private final RepositorioEmpleado repositorioEmpleado;
+
+        public Memoria(RepositorioEmpleado repositorioEmpleado) {
+            this.repositorioEmpleado = repositorioEmpleado;
+        }
+    }
+}
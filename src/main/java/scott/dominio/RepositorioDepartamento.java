@@ -1,12 +1,14 @@
 package scott.dominio;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import scott.infra.jpa.Repositorio;
 
 import java.util.Optional;
 
 @Repository
 public interface RepositorioDepartamento extends Repositorio<Departamento> {
+    @Transactional(readOnly = true)
     Optional<Departamento> findByCodigo(String codigo);
 
     default Optional<Departamento> buscarPorCodigo(String codigo) {
@@ -1,10 +1,12 @@
 package scott.dominio;
 
+import org.springframework.transaction.annotation.Transactional;
 import scott.infra.jpa.Repositorio;
 
 import java.util.Optional;
 
 public interface RepositorioEmpleado extends Repositorio<Empleado> {
+    @Transactional(readOnly = true)
     Optional<Empleado> findByCodigo(String codigo);
 
     default Optional<Empleado> buscarPorCodigo(String codigo) {
@@ -0,0 +1,222 @@
+package scott.dominio;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// Agregados de nómina por departamento y por subárbol de supervisión (el empleado y todos sus subordinados)
+public interface RepositorioNomina {
+
+    TotalesNomina totalesDepartamento(String idDepartamento);
+
+    TotalesNomina totalesSubarbol(String idEmpleado);
+
+    void registrarAlta(String idEmpleado, Posicion posicion);
+
+    void registrarCambio(String idEmpleado, Posicion anterior, Posicion nueva);
+
+    void registrarTraslado(String idDepartamentoOrigen, String idDepartamentoDestino);
+
+    void invalidar();
+
+    // Compara los agregados mantenidos contra un recálculo completo; una lista vacía indica que coinciden
+    List<String> verificar();
+
+    record Posicion(String idDepartamento, String idSupervisor, TotalesNomina propios) {
+        public static Posicion de(Empleado empleado) {
+            return new Posicion(
+                    empleado.getDepartamento().getId(),
+                    empleado.getSupervisor() == null ? null : empleado.getSupervisor().getId(),
+                    TotalesNomina.de(empleado.getMontoSalario(), empleado.getMontoComision()));
+        }
+    }
+
+    // Los agregados se materializan con un recálculo completo en la primera consulta y, desde entonces, se
+    // ajustan con cada alta, cambio o traslado una vez confirmada la transacción que lo originó. Cada ajuste se
+    // aplica solo sobre los mismos agregados que existían al registrarlo; si entretanto se materializaron otros, no
+    // se sabe si ya reflejan el cambio y se descartan
+    @Service
+    class Memoria implements RepositorioNomina {
+
+        @Override
+        public synchronized TotalesNomina totalesDepartamento(String idDepartamento) {
+            return agregados().porDepartamento().getOrDefault(idDepartamento, TotalesNomina.CERO);
+        }
+
+        @Override
+        public synchronized TotalesNomina totalesSubarbol(String idEmpleado) {
+            return agregados().porSubarbol().getOrDefault(idEmpleado, TotalesNomina.CERO);
+        }
+
+        @Override
+        public void registrarAlta(String idEmpleado, Posicion posicion) {
+            final var base = agregados;
+            final var ancestros = base == null ? List.<String>of() : ancestros(posicion.idSupervisor());
+            alConfirmar(base, agregados -> {
+                sumar(agregados.porDepartamento(), posicion.idDepartamento(), posicion.propios());
+                sumar(agregados.porSubarbol(), idEmpleado, posicion.propios());
+                ancestros.forEach(idAncestro -> sumar(agregados.porSubarbol(), idAncestro, posicion.propios()));
+            });
+        }
+
+        @Override
+        public void registrarCambio(String idEmpleado, Posicion anterior, Posicion nueva) {
+            final var base = agregados;
+            final var mismoSupervisor = Objects.equals(anterior.idSupervisor(), nueva.idSupervisor());
+            final var ancestrosAnteriores = base == null || mismoSupervisor ?
+                    List.<String>of() :
+                    ancestros(anterior.idSupervisor());
+            final var ancestrosNuevos = base == null ? List.<String>of() : ancestros(nueva.idSupervisor());
+            alConfirmar(base, agregados -> {
+                restar(agregados.porDepartamento(), anterior.idDepartamento(), anterior.propios());
+                sumar(agregados.porDepartamento(), nueva.idDepartamento(), nueva.propios());
+
+                final var delta = nueva.propios().menos(anterior.propios());
+                final var subarbolAnterior = agregados.porSubarbol().getOrDefault(idEmpleado, anterior.propios());
+                final var subarbolNuevo = subarbolAnterior.mas(delta);
+                agregados.porSubarbol().put(idEmpleado, subarbolNuevo);
+
+                if (mismoSupervisor) {
+                    ancestrosNuevos.forEach(idAncestro -> sumar(agregados.porSubarbol(), idAncestro, delta));
+                } else {
+                    ancestrosAnteriores.forEach(idAncestro ->
+                            restar(agregados.porSubarbol(), idAncestro, subarbolAnterior));
+                    ancestrosNuevos.forEach(idAncestro ->
+                            sumar(agregados.porSubarbol(), idAncestro, subarbolNuevo));
+                }
+            });
+        }
+
+        @Override
+        public void registrarTraslado(String idDepartamentoOrigen, String idDepartamentoDestino) {
+            alConfirmar(agregados, agregados -> {
+                final var trasladados = agregados.porDepartamento().remove(idDepartamentoOrigen);
+                if (trasladados != null) {
+                    sumar(agregados.porDepartamento(), idDepartamentoDestino, trasladados);
+                }
+            });
+        }
+
+        @Override
+        public synchronized void invalidar() {
+            agregados = null;
+        }
+
+        @Override
+        public List<String> verificar() {
+            final var recalculados = recalcular();
+            final Agregados mantenidos;
+            synchronized (this) {
+                mantenidos = new Agregados(
+                        new HashMap<>(agregados().porDepartamento()),
+                        new HashMap<>(agregados().porSubarbol()));
+            }
+            final var discrepancias = new ArrayList<String>();
+            comparar("departamento", mantenidos.porDepartamento(), recalculados.porDepartamento(), discrepancias);
+            comparar("subárbol", mantenidos.porSubarbol(), recalculados.porSubarbol(), discrepancias);
+            return discrepancias;
+        }
+
+        private record Agregados(Map<String, TotalesNomina> porDepartamento,
+                                 Map<String, TotalesNomina> porSubarbol) {
+        }
+
+        private synchronized Agregados agregados() {
+            if (agregados == null) {
+                agregados = recalcular();
+            }
+            return agregados;
+        }
+
+        private Agregados recalcular() {
+            final var recalculados = new Agregados(new HashMap<>(), new HashMap<>());
+            for (final var empleado : repositorioEmpleado.findAll()) {
+                final var propios = TotalesNomina.de(empleado.getMontoSalario(), empleado.getMontoComision());
+                sumar(recalculados.porDepartamento(), empleado.getDepartamento().getId(), propios);
+                for (var actual = empleado; actual != null; actual = actual.getSupervisor()) {
+                    sumar(recalculados.porSubarbol(), actual.getId(), propios);
+                }
+            }
+            return recalculados;
+        }
+
+        // Los ajustes se aplican solo tras confirmarse la transacción en curso (si la hay). La decisión se toma con
+        // el bloqueo tomado: sin agregados no hay nada que ajustar (el primer recálculo ya reflejará el cambio), y
+        // si no son los mismos que había al registrar el ajuste se invalidan
+        private void alConfirmar(Agregados base, Consumer<Agregados> ajuste) {
+            final Runnable ajusteSincronizado = () -> {
+                synchronized (this) {
+                    if (agregados == null) {
+                        return;
+                    }
+                    if (agregados != base) {
+                        agregados = null;
+                        return;
+                    }
+                    ajuste.accept(agregados);
+                }
+            };
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        ajusteSincronizado.run();
+                    }
+                });
+            } else {
+                ajusteSincronizado.run();
+            }
+        }
+
+        private List<String> ancestros(String idSupervisor) {
+            if (idSupervisor == null) {
+                return List.of();
+            }
+            final var ancestros = new ArrayList<String>();
+            ancestros.add(idSupervisor);
+            ancestros.addAll(jerarquiaEmpleados.cadenaDeMando(idSupervisor));
+            return ancestros;
+        }
+
+        private static void sumar(Map<String, TotalesNomina> totales, String clave, TotalesNomina valor) {
+            totales.merge(clave, valor, TotalesNomina::mas);
+        }
+
+        private static void restar(Map<String, TotalesNomina> totales, String clave, TotalesNomina valor) {
+            totales.merge(clave, TotalesNomina.CERO.menos(valor), TotalesNomina::mas);
+        }
+
+        private static void comparar(String ambito,
+                                     Map<String, TotalesNomina> mantenidos,
+                                     Map<String, TotalesNomina> recalculados,
+                                     List<String> discrepancias) {
+            final var claves = new HashSet<>(mantenidos.keySet());
+            claves.addAll(recalculados.keySet());
+            for (final var clave : claves) {
+                final var mantenido = mantenidos.getOrDefault(clave, TotalesNomina.CERO);
+                final var recalculado = recalculados.getOrDefault(clave, TotalesNomina.CERO);
+                if (!mantenido.equals(recalculado)) {
+                    discrepancias.add("Totales de %s %s: mantenidos %s, recalculados %s"
+                            .formatted(ambito, clave, mantenido, recalculado));
+                }
+            }
+        }
+
+        private volatile Agregados agregados;
+        private final RepositorioEmpleado repositorioEmpleado;
+        private final JerarquiaEmpleados jerarquiaEmpleados;
+
+        public Memoria(RepositorioEmpleado repositorioEmpleado, JerarquiaEmpleados jerarquiaEmpleados) {
+            this.repositorioEmpleado = repositorioEmpleado;
+            this.jerarquiaEmpleados = jerarquiaEmpleados;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package scott.dominio;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.stereotype.Repository;
+import scott.infra.jdbc.RepositorioJdbc;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.util.Optional;
+
+@Repository
+@Profile("!memoria")
+public class RepositorioVistaDepartamento extends RepositorioJdbc<VistaDepartamento> {
+
+    private final PreparedStatementCreatorFactory consultaPorCodigo = consultaPreparada("codigo = ?", Types.VARCHAR);
+
+    public RepositorioVistaDepartamento(DataSource dataSource,
+                                        @Value("${scott.lectura.tamano-fetch:500}") int tamanoFetch) {
+        super(dataSource, tamanoFetch, "departamento", VistaDepartamento.COLUMNAS, VistaDepartamento::mapear);
+    }
+
+    public Optional<VistaDepartamento> buscarPorCodigo(String codigo) {
+        return consultar(consultaPorCodigo, codigo).stream().findFirst();
+    }
+}
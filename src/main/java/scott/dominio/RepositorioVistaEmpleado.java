@@ -0,0 +1,34 @@
+package scott.dominio;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.stereotype.Repository;
+import scott.infra.jdbc.RepositorioJdbc;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Profile("!memoria")
+public class RepositorioVistaEmpleado extends RepositorioJdbc<VistaEmpleado> {
+
+    private final PreparedStatementCreatorFactory consultaPorCodigo = consultaPreparada("codigo = ?", Types.VARCHAR);
+    private final PreparedStatementCreatorFactory consultaPorDepartamento =
+            consultaPreparada("id_departamento = ?", Types.VARCHAR);
+
+    public RepositorioVistaEmpleado(DataSource dataSource,
+                                    @Value("${scott.lectura.tamano-fetch:500}") int tamanoFetch) {
+        super(dataSource, tamanoFetch, "empleado", VistaEmpleado.COLUMNAS, VistaEmpleado::mapear);
+    }
+
+    public Optional<VistaEmpleado> buscarPorCodigo(String codigo) {
+        return consultar(consultaPorCodigo, codigo).stream().findFirst();
+    }
+
+    public List<VistaEmpleado> leerPorDepartamento(String idDepartamento) {
+        return consultar(consultaPorDepartamento, idDepartamento);
+    }
+}
@@ -0,0 +1,4 @@
+package scott.dominio;
+
+public record ResumenEmpleado(String codigo, String nombre, String departamentoNombre) {
+}
@@ -2,16 +2,28 @@ package scott.dominio;
 
 import io.vavr.control.Either;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import scott.infra.Falla;
+import scott.infra.Falla.FallaAplicacion;
+import scott.infra.idempotencia.AlmacenIdempotencia;
+import scott.infra.jpa.AgrupadorOperaciones;
+import scott.infra.jpa.Criterio;
 
+import static scott.infra.idempotencia.AlmacenIdempotencia.huella;
 import static scott.infra.jpa.RepositorioDSL.*;
 
 public interface ServicioDepartamento {
     Either<Falla, String> crearDepartamento(String codigo, String nombre, String localidad);
 
+    // Una repetición con la misma clave retorna el resultado original sin volver a crear el departamento
+    Either<Falla, String> crearDepartamento(String claveIdempotencia, String codigo, String nombre, String localidad);
+
     Either<Falla, String> relocalizar(String idDepartamento, String nuevaLocalidad);
 
+    Either<Falla, Void> eliminar(String idDepartamento);
+
     @Service
     class Impl implements ServicioDepartamento {
         @Override
@@ -27,6 +39,17 @@ public interface ServicioDepartamento {
             );
         }
 
+        @Override
+        public Either<Falla, String> crearDepartamento(String claveIdempotencia,
+                                                       String codigo,
+                                                       String nombre,
+                                                       String localidad) {
+            return almacenIdempotencia.ejecutar(
+                    claveIdempotencia,
+                    huella("ServicioDepartamento.crearDepartamento", codigo, nombre, localidad),
+                    () -> crearDepartamento(codigo, nombre, localidad));
+        }
+
         @Override
         public Either<Falla, String> relocalizar(String idDepartamento, String nuevaLocalidad) {
             return actualizarConResultado(
@@ -34,12 +57,75 @@ public interface ServicioDepartamento {
                     departamento -> departamento.relocalizar(nuevaLocalidad));
         }
 
+        @Override
+        public Either<Falla, Void> eliminar(String idDepartamento) {
+            // Los empleados del departamento se eliminan en cascada en la base de datos, sin cargarlos
+            return borrarEnLote(repositorioDepartamento, Criterio.igual("id", Departamento::getId, idDepartamento))
+                    .peek(borrados -> {
+                        jerarquiaEmpleados.invalidar();
+                        repositorioNomina.invalidar();
+                    })
+                    .flatMap(borrados -> borrados > 0 ?
+                            Either.<Falla, Void>right(null) :
+                            Either.<Falla, Void>left(new FallaAplicacion("Id no encontrado: %s".formatted(idDepartamento))));
+        }
+
         private final RepositorioDepartamento repositorioDepartamento;
+        private final JerarquiaEmpleados jerarquiaEmpleados;
+        private final RepositorioNomina repositorioNomina;
+        private final AlmacenIdempotencia almacenIdempotencia;
 
         @Autowired
-        public Impl(RepositorioDepartamento repositorioDepartamento) {
+        public Impl(RepositorioDepartamento repositorioDepartamento,
+                    JerarquiaEmpleados jerarquiaEmpleados,
+                    RepositorioNomina repositorioNomina,
+                    AlmacenIdempotencia almacenIdempotencia) {
             this.repositorioDepartamento = repositorioDepartamento;
+            this.jerarquiaEmpleados = jerarquiaEmpleados;
+            this.repositorioNomina = repositorioNomina;
+            this.almacenIdempotencia = almacenIdempotencia;
         }
     }
-}
 
+    @Service
+    @Primary
+    @ConditionalOnProperty(name = "scott.agrupacion.habilitada", havingValue = "true")
+    class Agrupado implements ServicioDepartamento {
+        @Override
+        public Either<Falla, String> crearDepartamento(String codigo, String nombre, String localidad) {
+            return agrupador.ejecutar(() -> servicio.crearDepartamento(codigo, nombre, localidad));
+        }
+
+        @Override
+        public Either<Falla, String> crearDepartamento(String claveIdempotencia,
+                                                       String codigo,
+                                                       String nombre,
+                                                       String localidad) {
+            return almacenIdempotencia.ejecutar(
+                    claveIdempotencia,
+                    huella("ServicioDepartamento.crearDepartamento", codigo, nombre, localidad),
+                    () -> crearDepartamento(codigo, nombre, localidad));
+        }
+
+        @Override
+        public Either<Falla, String> relocalizar(String idDepartamento, String nuevaLocalidad) {
+            return servicio.relocalizar(idDepartamento, nuevaLocalidad);
+        }
+
+        @Override
+        public Either<Falla, Void> eliminar(String idDepartamento) {
+            return servicio.eliminar(idDepartamento);
+        }
+
+        private final Impl servicio;
+        private final AgrupadorOperaciones agrupador;
+        private final AlmacenIdempotencia almacenIdempotencia;
+
+        @Autowired
+        public Agrupado(Impl servicio, AgrupadorOperaciones agrupador, AlmacenIdempotencia almacenIdempotencia) {
+            this.servicio = servicio;
+            this.agrupador = agrupador;
+            this.almacenIdempotencia = almacenIdempotencia;
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package scott.dominio;
 
 import io.vavr.control.Either;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import scott.dominio.RepositorioNomina.Posicion;
 import scott.infra.Falla;
+import scott.infra.Falla.FallaGrabacion;
+import scott.infra.idempotencia.AlmacenIdempotencia;
+import scott.infra.jpa.AgrupadorOperaciones;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static scott.infra.idempotencia.AlmacenIdempotencia.huella;
 import static scott.infra.jpa.RepositorioDSL.*;
 
 public interface ServicioEmpleado {
@@ -20,6 +31,18 @@ public interface ServicioEmpleado {
                                         BigDecimal comision,
                                         String idDepartamento);
 
+    // Una repetición con la misma clave retorna el resultado original sin volver a crear el empleado
+    Either<Falla, String> crearEmpleado(String claveIdempotencia,
+                                        String codigo,
+                                        String nombre,
+                                        Genero genero,
+                                        String cargo,
+                                        String idSupervisor,
+                                        LocalDate fechaContratacion,
+                                        BigDecimal salario,
+                                        BigDecimal comision,
+                                        String idDepartamento);
+
     Either<Falla, Void> reasignar(String idEmpleado,
                                   String idDepartamento,
                                   String cargo,
@@ -27,6 +50,21 @@ public interface ServicioEmpleado {
                                   BigDecimal salario,
                                   BigDecimal comision);
 
+    Either<Falla, Integer> trasladar(String idDepartamentoOrigen, String idDepartamentoDestino);
+
+    record Reasignacion(String idEmpleado,
+                        String idDepartamento,
+                        String cargo,
+                        String idSupervisor,
+                        BigDecimal salario,
+                        BigDecimal comision) {
+    }
+
+    // Varias reasignaciones en una sola transacción y unidad de trabajo, grabadas con una única sincronización. Si
+    // alguna no es válida, o la sincronización falla, la transacción se revierte y no se graba ninguna; una falla de
+    // la sincronización atribuible a un empleado indica su reasignación
+    Either<Falla, Integer> reorganizar(List<Reasignacion> reasignaciones);
+
     @Service
     class Impl implements ServicioEmpleado {
         @Override
@@ -53,7 +91,33 @@ public interface ServicioEmpleado {
                             .comision(comision)
                             .departamento(leer(repositorioDepartamento, idDepartamento))
                             .build()
-            );
+            ).flatMap(idEmpleado -> eitherCatch("registrando jerarquía y nómina", () -> {
+                jerarquiaEmpleados.registrar(idEmpleado, idSupervisor);
+                repositorioNomina.registrarAlta(
+                        idEmpleado, new Posicion(idDepartamento, idSupervisor, TotalesNomina.de(salario, comision)));
+                return idEmpleado;
+            }));
+        }
+
+        @Override
+        public Either<Falla, String> crearEmpleado(String claveIdempotencia,
+                                                   String codigo,
+                                                   String nombre,
+                                                   Genero genero,
+                                                   String cargo,
+                                                   String idSupervisor,
+                                                   LocalDate fechaContratacion,
+                                                   BigDecimal salario,
+                                                   BigDecimal comision,
+                                                   String idDepartamento) {
+            return almacenIdempotencia.ejecutar(
+                    claveIdempotencia,
+                    huella("ServicioEmpleado.crearEmpleado",
+                            codigo, nombre, genero, cargo, idSupervisor, fechaContratacion, salario, comision,
+                            idDepartamento),
+                    () -> crearEmpleado(
+                            codigo, nombre, genero, cargo, idSupervisor, fechaContratacion, salario, comision,
+                            idDepartamento));
         }
 
         @Override
@@ -63,25 +127,165 @@ public interface ServicioEmpleado {
                                              String idSupervisor,
                                              BigDecimal salario,
                                              BigDecimal comision) {
+            final var posicionAnterior = new AtomicReference<Posicion>();
             return actualizar(
                     idEmpleado, repositorioEmpleado,
-                    empleado ->
-                            empleado.reasignar(
-                                    leer(repositorioDepartamento, idDepartamento),
-                                    cargo,
-                                    leerOpcional(repositorioEmpleado, idSupervisor),
-                                    salario,
-                                    comision
-                            )
-            );
+                    empleado -> {
+                        posicionAnterior.set(Posicion.de(empleado));
+                        empleado.reasignar(
+                                leer(repositorioDepartamento, idDepartamento),
+                                cargo,
+                                leerOpcional(repositorioEmpleado, idSupervisor),
+                                salario,
+                                comision
+                        );
+                    }
+            ).flatMap(ignorado -> trasGrabar("actualizando jerarquía y nómina", () -> {
+                jerarquiaEmpleados.registrar(idEmpleado, idSupervisor);
+                repositorioNomina.registrarCambio(
+                        idEmpleado,
+                        posicionAnterior.get(),
+                        new Posicion(idDepartamento, idSupervisor, TotalesNomina.de(salario, comision)));
+            }));
+        }
+
+        @Override
+        @Transactional
+        public Either<Falla, Integer> reorganizar(List<Reasignacion> reasignaciones) {
+            return enUnidadDeTrabajo(() -> {
+                Either<Falla, Integer> reasignados = Either.right(0);
+                for (final var reasignacion : reasignaciones) {
+                    reasignados = reasignados.flatMap(cantidad -> reasignar(
+                            reasignacion.idEmpleado(),
+                            reasignacion.idDepartamento(),
+                            reasignacion.cargo(),
+                            reasignacion.idSupervisor(),
+                            reasignacion.salario(),
+                            reasignacion.comision()).map(ignorado -> cantidad + 1));
+                }
+                return reasignados;
+            })
+                    .mapLeft(falla -> falla instanceof FallaGrabacion grabacion ?
+                            atribuir(grabacion, reasignaciones) :
+                            falla)
+                    .peekLeft(falla -> TransactionAspectSupport.currentTransactionStatus().setRollbackOnly());
+        }
+
+        private static Falla atribuir(FallaGrabacion grabacion, List<Reasignacion> reasignaciones) {
+            if (!(grabacion.entidad() instanceof Empleado empleado)) {
+                return grabacion;
+            }
+            for (int i = 0; i < reasignaciones.size(); i++) {
+                if (reasignaciones.get(i).idEmpleado().equals(empleado.getId())) {
+                    return new FallaGrabacion(
+                            "grabando reasignación %d (empleado %s)".formatted(i + 1, empleado.getId()),
+                            grabacion.llamada(), empleado, grabacion.error());
+                }
+            }
+            return grabacion;
+        }
+
+        @Override
+        public Either<Falla, Integer> trasladar(String idDepartamentoOrigen, String idDepartamentoDestino) {
+            return eitherCatch("preparando traslado de empleados", () ->
+                    Empleado.traslado(
+                            leer(repositorioDepartamento, idDepartamentoOrigen),
+                            leer(repositorioDepartamento, idDepartamentoDestino)))
+                    .flatMap(traslado -> actualizarEnLote(repositorioEmpleado, traslado))
+                    .peek(trasladados -> repositorioNomina.registrarTraslado(idDepartamentoOrigen, idDepartamentoDestino));
         }
 
         private final RepositorioEmpleado repositorioEmpleado;
         private final RepositorioDepartamento repositorioDepartamento;
+        private final JerarquiaEmpleados jerarquiaEmpleados;
+        private final RepositorioNomina repositorioNomina;
+        private final AlmacenIdempotencia almacenIdempotencia;
 
-        public Impl(RepositorioEmpleado repositorioEmpleado, RepositorioDepartamento repositorioDepartamento) {
+        public Impl(RepositorioEmpleado repositorioEmpleado,
+                    RepositorioDepartamento repositorioDepartamento,
+                    JerarquiaEmpleados jerarquiaEmpleados,
+                    RepositorioNomina repositorioNomina,
+                    AlmacenIdempotencia almacenIdempotencia) {
             this.repositorioEmpleado = repositorioEmpleado;
             this.repositorioDepartamento = repositorioDepartamento;
+            this.jerarquiaEmpleados = jerarquiaEmpleados;
+            this.repositorioNomina = repositorioNomina;
+            this.almacenIdempotencia = almacenIdempotencia;
+        }
+    }
+
+    // Las altas concurrentes se agrupan en una sola transacción; el resto de operaciones se delega sin cambios
+    @Service
+    @Primary
+    @ConditionalOnProperty(name = "scott.agrupacion.habilitada", havingValue = "true")
+    class Agrupado implements ServicioEmpleado {
+        @Override
+        public Either<Falla, String> crearEmpleado(String codigo,
+                                                   String nombre,
+                                                   Genero genero,
+                                                   String cargo,
+                                                   String idSupervisor,
+                                                   LocalDate fechaContratacion,
+                                                   BigDecimal salario,
+                                                   BigDecimal comision,
+                                                   String idDepartamento) {
+            return agrupador.ejecutar(() -> servicio.crearEmpleado(
+                    codigo, nombre, genero, cargo, idSupervisor, fechaContratacion, salario, comision, idDepartamento));
+        }
+
+        @Override
+        public Either<Falla, String> crearEmpleado(String claveIdempotencia,
+                                                   String codigo,
+                                                   String nombre,
+                                                   Genero genero,
+                                                   String cargo,
+                                                   String idSupervisor,
+                                                   LocalDate fechaContratacion,
+                                                   BigDecimal salario,
+                                                   BigDecimal comision,
+                                                   String idDepartamento) {
+            return almacenIdempotencia.ejecutar(
+                    claveIdempotencia,
+                    huella("ServicioEmpleado.crearEmpleado",
+                            codigo, nombre, genero, cargo, idSupervisor, fechaContratacion, salario, comision,
+                            idDepartamento),
+                    () -> crearEmpleado(
+                            codigo, nombre, genero, cargo, idSupervisor, fechaContratacion, salario, comision,
+                            idDepartamento));
+        }
+
+        @Override
+        public Either<Falla, Void> reasignar(String idEmpleado,
+                                             String idDepartamento,
+                                             String cargo,
+                                             String idSupervisor,
+                                             BigDecimal salario,
+                                             BigDecimal comision) {
+            return servicio.reasignar(idEmpleado, idDepartamento, cargo, idSupervisor, salario, comision);
+        }
+
+        @Override
+        public Either<Falla, Integer> trasladar(String idDepartamentoOrigen, String idDepartamentoDestino) {
+            return servicio.trasladar(idDepartamentoOrigen, idDepartamentoDestino);
+        }
+
+        @Override
+        public Either<Falla, Integer> reorganizar(List<Reasignacion> reasignaciones) {
+            return servicio.reorganizar(reasignaciones);
+        }
+
+        private final Impl servicio;
+        private final AgrupadorOperaciones agrupador;
+        private final AlmacenIdempotencia almacenIdempotencia;
+
+        public Agrupado(Impl servicio,
+                        AgrupadorOperaciones agrupador,
+                        AlmacenIdempotencia almacenIdempotencia,
+                        JerarquiaEmpleados jerarquiaEmpleados) {
+            this.servicio = servicio;
+            this.agrupador = agrupador;
+            this.almacenIdempotencia = almacenIdempotencia;
+            agrupador.alRevertir(jerarquiaEmpleados::invalidar);
         }
     }
 }
@@ -0,0 +1,49 @@
+package scott.dominio;
+
+import scott.infra.util.Dinero;
+
+import java.math.BigDecimal;
+
+// Totales de nómina en centavos, para que la acumulación de altas y ajustes sea exacta
+public record TotalesNomina(long empleados, long centavosSalario, long centavosComision) {
+
+    public static final TotalesNomina CERO = new TotalesNomina(0, 0, 0);
+
+    public static TotalesNomina de(BigDecimal salario, BigDecimal comision) {
+        return new TotalesNomina(1, centavos(salario), centavos(comision));
+    }
+
+    public static TotalesNomina de(Dinero salario, Dinero comision) {
+        return new TotalesNomina(
+                1, salario == null ? 0 : salario.centavos(), comision == null ? 0 : comision.centavos());
+    }
+
+    public TotalesNomina mas(TotalesNomina otros) {
+        return new TotalesNomina(
+                empleados + otros.empleados,
+                centavosSalario + otros.centavosSalario,
+                centavosComision + otros.centavosComision);
+    }
+
+    public TotalesNomina menos(TotalesNomina otros) {
+        return new TotalesNomina(
+                empleados - otros.empleados,
+                centavosSalario - otros.centavosSalario,
+                centavosComision - otros.centavosComision);
+    }
+
+    public BigDecimal salario() {
+        return BigDecimal.valueOf(centavosSalario, 2);
+    }
+
+    public BigDecimal comision() {
+        return BigDecimal.valueOf(centavosComision, 2);
+    }
+
+    static long centavos(BigDecimal valor) {
+        if (valor == null) {
+            return 0;
+        }
+        return Dinero.centavos(valor);
+    }
+}
@@ -0,0 +1,18 @@
+package scott.dominio;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+public record VistaDepartamento(String id, String codigo, String nombre, String localidad) {
+
+    static final List<String> COLUMNAS = List.of("id", "codigo", "nombre", "localidad");
+
+    static VistaDepartamento mapear(ResultSet rs, int fila) throws SQLException {
+        return new VistaDepartamento(
+                rs.getString("id"),
+                rs.getString("codigo"),
+                rs.getString("nombre"),
+                rs.getString("localidad"));
+    }
+}
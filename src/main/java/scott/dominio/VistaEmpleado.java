@@ -0,0 +1,41 @@
+package scott.dominio;
+
+import scott.dominio.Genero.ConvertidorGenero;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+public record VistaEmpleado(String id,
+                            String codigo,
+                            String nombre,
+                            Genero genero,
+                            String cargo,
+                            String idSupervisor,
+                            LocalDate fechaContratacion,
+                            BigDecimal salario,
+                            BigDecimal comision,
+                            String idDepartamento) {
+
+    static final List<String> COLUMNAS = List.of(
+            "id", "codigo", "nombre", "genero", "cargo", "id_supervisor",
+            "fecha_contratacion", "salario", "comision", "id_departamento");
+
+    private static final ConvertidorGenero convertidorGenero = new ConvertidorGenero();
+
+    static VistaEmpleado mapear(ResultSet rs, int fila) throws SQLException {
+        return new VistaEmpleado(
+                rs.getString("id"),
+                rs.getString("codigo"),
+                rs.getString("nombre"),
+                convertidorGenero.convertToEntityAttribute(rs.getString("genero")),
+                rs.getString("cargo"),
+                rs.getString("id_supervisor"),
+                rs.getObject("fecha_contratacion", LocalDate.class),
+                rs.getBigDecimal("salario"),
+                rs.getBigDecimal("comision"),
+                rs.getString("id_departamento"));
+    }
+}
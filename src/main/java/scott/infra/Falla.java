@@ -35,4 +35,41 @@ public interface Falla {
             );
         }
     }
+
+    // La sincronización diferida de una unidad de trabajo falló por la entidad que registró una de sus llamadas
+    // (numeradas desde 1 en el orden en que difirieron su grabación)
+    record FallaGrabacion(String contexto, int llamada, Object entidad, Throwable error) implements Falla {
+
+        @Override
+        public String mensaje() {
+            return "Error %s: %s".formatted(
+                    contexto(),
+                    error().getMessage() == null ? error().toString() : error().getMessage()
+            );
+        }
+    }
+
+    // No se sabe si la operación se aplicó (p. ej. se dejó de esperarla mientras estaba en curso). A diferencia de
+    // FallaSistema no es transitoria: reintentarla sin verificar antes su efecto puede duplicarla
+    record FallaIndeterminada(String contexto, Throwable error) implements Falla {
+
+        @Override
+        public String mensaje() {
+            return "Resultado desconocido %s; verifique antes de reintentar".formatted(contexto());
+        }
+    }
+
+    // Rechazo inmediato por saturación: el llamador puede reintentar más tarde
+    record FallaSobrecarga(String operacion, int limite) implements Falla {
+
+        @Override
+        public String mensaje() {
+            return "Servicio saturado: %s (límite de concurrencia %d)".formatted(operacion, limite);
+        }
+
+        @Override
+        public Throwable error() {
+            return null;
+        }
+    }
 }
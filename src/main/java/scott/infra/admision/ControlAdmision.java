@@ -0,0 +1,105 @@
+package scott.infra.admision;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vavr.control.Either;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import scott.infra.Falla;
+import scott.infra.Falla.FallaSobrecarga;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.QueryTimeoutException;
+import java.sql.SQLTransientException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Control de admisión para los servicios de dominio que retornan Either: cada operación tiene su propio límite
+// adaptativo y, al alcanzarlo, se rechaza de inmediato con FallaSobrecarga en lugar de encolarse sin límite en el
+// pool de conexiones. Las llamadas anidadas en el mismo hilo ya fueron admitidas y no consumen otro cupo. Se
+// habilita explícitamente, una vez calibrados los límites para la carga esperada
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "scott.admision.habilitada", havingValue = "true")
+public class ControlAdmision {
+
+    private static final ThreadLocal<Boolean> admitido = new ThreadLocal<>();
+
+    private final Map<String, LimiteGradiente> limites = new ConcurrentHashMap<>();
+    private final LimiteGradiente.Configuracion configuracion;
+    private final MeterRegistry registro;
+
+    public ControlAdmision(MeterRegistry registro,
+                           @Value("${scott.admision.limite-inicial:20}") int limiteInicial,
+                           @Value("${scott.admision.limite-minimo:2}") int limiteMinimo,
+                           @Value("${scott.admision.limite-maximo:200}") int limiteMaximo,
+                           @Value("${scott.admision.cola-maxima:16}") int colaMaxima,
+                           @Value("${scott.admision.espera-maxima-ms:20}") long esperaMaximaMs) {
+        this.configuracion = new LimiteGradiente.Configuracion(
+                limiteInicial, limiteMinimo, limiteMaximo, colaMaxima, LimiteGradiente.nanos(esperaMaximaMs));
+        this.registro = registro;
+    }
+
+    @Around("execution(public io.vavr.control.Either scott.dominio.Servicio*+.*(..))")
+    public Object admitir(ProceedingJoinPoint punto) throws Throwable {
+        if (admitido.get() != null) {
+            return punto.proceed();
+        }
+        final var operacion = nombreOperacion((MethodSignature) punto.getSignature());
+        final var limite = limites.computeIfAbsent(operacion, clave -> new LimiteGradiente(clave, configuracion, registro));
+        if (!limite.adquirir()) {
+            registro.counter("scott.admision.rechazos", "operacion", operacion).increment();
+            return Either.left(new FallaSobrecarga(operacion, limite.limite()));
+        }
+
+        final var inicio = System.nanoTime();
+        var saturado = false;
+        admitido.set(Boolean.TRUE);
+        try {
+            final var resultado = punto.proceed();
+            saturado = resultado instanceof Either<?, ?> either && either.isLeft() &&
+                    either.getLeft() instanceof Falla falla && esSaturacion(falla.error());
+            return resultado;
+        } catch (Throwable t) {
+            saturado = esSaturacion(t);
+            throw t;
+        } finally {
+            admitido.remove();
+            limite.liberar(System.nanoTime() - inicio, saturado);
+        }
+    }
+
+    // Tiempos de espera agotados y errores transitorios de la base de datos indican saturación, no errores de
+    // la operación
+    private static boolean esSaturacion(Throwable error) {
+        for (var causa = error; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLTransientException ||
+                    causa instanceof TransientDataAccessException ||
+                    causa instanceof QueryTimeoutException ||
+                    causa instanceof LockTimeoutException) {
+                return true;
+            }
+            if (causa.getCause() == causa) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // P. ej. ServicioEmpleado.Impl.crearEmpleado: cada implementación tiene su propio límite
+    private static String nombreOperacion(MethodSignature firma) {
+        final var clase = firma.getDeclaringType();
+        final var nombreClase = clase.getEnclosingClass() == null ?
+                clase.getSimpleName() :
+                "%s.%s".formatted(clase.getEnclosingClass().getSimpleName(), clase.getSimpleName());
+        return "%s.%s".formatted(nombreClase, firma.getName());
+    }
+}
@@ -0,0 +1,145 @@
+package scott.infra.admision;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Límite de concurrencia adaptativo por gradiente: compara la latencia reciente (promedio móvil corto) con la
+// latencia de referencia (promedio móvil largo). Mientras ambas coinciden el límite crece en torno a la raíz
+// cuadrada del límite actual; cuando la latencia reciente sube (las peticiones empiezan a hacer cola en el pool de
+// conexiones o en la base de datos) el límite se reduce en la misma proporción. Los errores de saturación
+// reducen el límite multiplicativamente
+final class LimiteGradiente {
+
+    record Configuracion(int inicial, int minimo, int maximo, int colaMaxima, long esperaMaximaNanos) {
+    }
+
+    private static final double VENTANA_CORTA = 10;
+    private static final double VENTANA_LARGA = 600;
+    private static final double SUAVIZADO = 0.2;
+    private static final double REDUCCION = 0.9;
+
+    private final Configuracion configuracion;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition liberado = lock.newCondition();
+
+    private double limite;
+    private int enCurso = 0;
+    private int enEspera = 0;
+    private double latenciaCorta = 0;
+    private double latenciaLarga = 0;
+
+    LimiteGradiente(String operacion, Configuracion configuracion, MeterRegistry registro) {
+        this.configuracion = configuracion;
+        this.limite = configuracion.inicial();
+        Gauge.builder("scott.admision.limite", this, LimiteGradiente::limite)
+                .tag("operacion", operacion).register(registro);
+        Gauge.builder("scott.admision.en_curso", this, LimiteGradiente::enCurso)
+                .tag("operacion", operacion).register(registro);
+        Gauge.builder("scott.admision.en_espera", this, LimiteGradiente::enEspera)
+                .tag("operacion", operacion).register(registro);
+    }
+
+    // Espera un cupo solo si la cola no está llena, y como máximo el tiempo configurado
+    boolean adquirir() throws InterruptedException {
+        lock.lock();
+        try {
+            if (enCurso < (int) limite) {
+                enCurso += 1;
+                return true;
+            }
+            if (enEspera >= configuracion.colaMaxima()) {
+                return false;
+            }
+            enEspera += 1;
+            try {
+                var restante = configuracion.esperaMaximaNanos();
+                while (enCurso >= (int) limite) {
+                    if (restante <= 0) {
+                        return false;
+                    }
+                    restante = liberado.awaitNanos(restante);
+                }
+                enCurso += 1;
+                return true;
+            } finally {
+                enEspera -= 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void liberar(long latenciaNanos, boolean saturado) {
+        lock.lock();
+        try {
+            final var enCursoAlTerminar = enCurso;
+            enCurso -= 1;
+            if (saturado) {
+                limite = Math.max(configuracion.minimo(), limite * REDUCCION);
+            } else {
+                ajustar(latenciaNanos, enCursoAlTerminar);
+            }
+            liberado.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int limite() {
+        lock.lock();
+        try {
+            return (int) limite;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ajustar(long latenciaNanos, int enCursoAlTerminar) {
+        if (latenciaLarga == 0) {
+            latenciaCorta = latenciaNanos;
+            latenciaLarga = latenciaNanos;
+            return;
+        }
+        latenciaCorta += (latenciaNanos - latenciaCorta) / VENTANA_CORTA;
+        latenciaLarga += (latenciaNanos - latenciaLarga) / VENTANA_LARGA;
+        // Si la latencia de referencia quedó muy por encima de la reciente (p. ej. tras un episodio de lentitud),
+        // se acerca rápidamente para no sobreestimar la capacidad
+        if (latenciaLarga / latenciaCorta > 2) {
+            latenciaLarga *= 0.95;
+        }
+        // Con poca carga la latencia no dice nada sobre la capacidad: el límite no crece
+        if (enCursoAlTerminar < limite / 2) {
+            return;
+        }
+        final var gradiente = Math.max(0.5, Math.min(1.0, latenciaLarga / latenciaCorta));
+        final var nuevo = limite * gradiente + Math.sqrt(limite);
+        limite = Math.max(configuracion.minimo(),
+                Math.min(configuracion.maximo(), limite * (1 - SUAVIZADO) + nuevo * SUAVIZADO));
+    }
+
+    private double enCurso() {
+        lock.lock();
+        try {
+            return enCurso;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double enEspera() {
+        lock.lock();
+        try {
+            return enEspera;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static long nanos(long milisegundos) {
+        return TimeUnit.MILLISECONDS.toNanos(milisegundos);
+    }
+}
@@ -0,0 +1,27 @@
+package scott.infra.arranque;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import scott.dominio.BusquedaNombres;
+import scott.infra.eventos.EscuchaCambios;
+import scott.infra.eventos.RelevoEventos;
+import scott.infra.web.CacheRepresentaciones;
+
+// Perfil de arranque rápido (application-arranque.properties): todos los beans se crean en su primer uso, salvo los
+// que deben existir antes de la primera escritura porque se registran en su constructor como observadores de
+// cambios (eventos de cambio en Hibernate, caché de representaciones, índices de búsqueda) o planifican tareas
+@Configuration
+@Profile("arranque")
+public class ConfiguracionArranque {
+
+    @Bean
+    public static LazyInitializationExcludeFilter beansCriticos() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                EscuchaCambios.class,
+                RelevoEventos.class,
+                CacheRepresentaciones.class,
+                BusquedaNombres.class);
+    }
+}
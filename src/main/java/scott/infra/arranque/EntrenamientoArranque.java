@@ -0,0 +1,75 @@
+package scott.infra.arranque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import scott.infra.seguridad.TokenFirmado;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ejecución de entrenamiento para el archivo CDS (./gradlew entrenarCds): una vez lista la aplicación recorre
+// las solicitudes más habituales, para que sus clases también queden archivadas, y termina la JVM, que es cuando
+// -XX:ArchiveClassesAtExit escribe el archivo
+@Component
+@ConditionalOnProperty(name = "scott.arranque.entrenamiento", havingValue = "true")
+public class EntrenamientoArranque {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntrenamientoArranque.class);
+
+    private static final List<String> RECORRIDO = List.of(
+            "/actuator/health",
+            "/departamentos",
+            "/empleados",
+            "/busqueda/empleados?q=a",
+            "/busqueda/departamentos?q=a");
+
+    private final TokenFirmado tokens;
+
+    public EntrenamientoArranque(TokenFirmado tokens) {
+        this.tokens = tokens;
+    }
+
+    @EventListener
+    public void alEstarLista(ApplicationReadyEvent evento) {
+        final var contexto = evento.getApplicationContext();
+        try {
+            recorrer(((WebServerApplicationContext) contexto).getWebServer().getPort())
+                    .forEach((ruta, estado) -> logger.info("Entrenamiento: {} -> {}", ruta, estado));
+        } catch (Exception e) {
+            logger.warn("Entrenamiento incompleto", e);
+        }
+        System.exit(SpringApplication.exit(contexto));
+    }
+
+    // Las solicitudes llevan un token emitido aquí mismo, así que no hacen falta credenciales configuradas
+    public Map<String, Integer> recorrer(int puerto) throws IOException, InterruptedException {
+        final var base = "http://localhost:%d".formatted(puerto);
+        final var cliente = HttpClient.newHttpClient();
+        final var autorizacion = "Bearer " + tokens.emitir("entrenamiento", List.of("USUARIO")).token();
+        final var estados = new LinkedHashMap<String, Integer>();
+        for (final var ruta : RECORRIDO) {
+            estados.put(ruta, cliente.send(
+                    HttpRequest.newBuilder(URI.create(base + ruta)).header("Authorization", autorizacion).build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+        estados.put("/autenticacion/token", cliente.send(
+                HttpRequest.newBuilder(URI.create(base + "/autenticacion/token"))
+                        .header("Authorization", autorizacion)
+                        .POST(HttpRequest.BodyPublishers.noBody())
+                        .build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        return estados;
+    }
+}
@@ -0,0 +1,78 @@
+package scott.infra.eventos;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+// Destino de los eventos relevados desde la bandeja de salida. Recibe los eventos en orden de secuencia; si
+// lanza una excepción el lote completo se vuelve a entregar en el siguiente ciclo (entrega al menos una vez)
+public interface DestinoEventos {
+
+    void enviar(List<EventoCambio> eventos);
+
+    // Conserva los últimos eventos recibidos; para pruebas y desarrollo
+    @Component
+    @ConditionalOnProperty(name = "scott.eventos.destino", havingValue = "memoria", matchIfMissing = true)
+    class Memoria implements DestinoEventos {
+
+        private static final int CAPACIDAD = 10_000;
+
+        private final Deque<EventoCambio> eventos = new ArrayDeque<>();
+
+        @Override
+        public synchronized void enviar(List<EventoCambio> nuevos) {
+            for (final var evento : nuevos) {
+                if (eventos.size() == CAPACIDAD) {
+                    eventos.removeFirst();
+                }
+                eventos.addLast(evento);
+            }
+        }
+
+        public synchronized List<EventoCambio> recibidos() {
+            return List.copyOf(eventos);
+        }
+    }
+
+    // Una línea por evento, separada por tabuladores, añadida al final del archivo
+    @Component
+    @ConditionalOnProperty(name = "scott.eventos.destino", havingValue = "archivo")
+    class Archivo implements DestinoEventos {
+
+        private final Path archivo;
+
+        public Archivo(@Value("${scott.eventos.archivo:eventos.tsv}") String archivo) {
+            this.archivo = Path.of(archivo);
+        }
+
+        @Override
+        public synchronized void enviar(List<EventoCambio> eventos) {
+            final var lineas = eventos.stream()
+                    .map(evento -> String.join("\t",
+                            evento.getSecuencia().toString(),
+                            evento.getFechaRegistro().toString(),
+                            evento.getEntidad(),
+                            evento.getIdEntidad(),
+                            evento.getTipo().name(),
+                            evento.getVersion() == null ? "" : evento.getVersion().toString(),
+                            evento.getCampos() == null ? "" : evento.getCampos()))
+                    .toList();
+            try {
+                Files.write(archivo, lineas, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package scott.infra.eventos;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import scott.infra.eventos.EventoCambio.Tipo;
+import scott.infra.jpa.entidad.Entidad;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+
+// Complemento de EscuchaEntidad a nivel de Hibernate: registra un evento de cambio por cada alta, modificación o
+// baja de una Entidad. Los eventos se acumulan por sesión y se insertan en un solo lote JDBC justo antes del
+// commit, con la conexión de la propia transacción: o se confirman junto con el cambio o no se confirman. Los
+// eventos pendientes pertenecen a cada instancia (una por fábrica de sesiones) y se indexan débilmente por sesión,
+// de modo que una sesión que termina sin completar su transacción no los retiene
+@Component
+@Profile("!memoria")
+public class EscuchaCambios implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String INSERTAR = """
+            insert into evento_cambio (entidad, id_entidad, tipo, campos, version, fecha_registro)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final Map<SessionImplementor, List<EventoCambio>> pendientes =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    public EscuchaCambios(EntityManagerFactory entityManagerFactory) {
+        final var registro = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, this);
+        registro.appendListeners(EventType.POST_UPDATE, this);
+        registro.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent evento) {
+        if (evento.getEntity() instanceof Entidad) {
+            acumular(evento.getSession(), List.of(EventoCambio.nuevo(
+                    nombreEntidad(evento.getPersister()), evento.getId().toString(), Tipo.ALTA, null,
+                    version(evento.getPersister(), evento.getState()))));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent evento) {
+        if (evento.getEntity() instanceof Entidad) {
+            acumular(evento.getSession(), List.of(EventoCambio.nuevo(
+                    nombreEntidad(evento.getPersister()), evento.getId().toString(), Tipo.CAMBIO,
+                    campos(evento.getPersister(), evento.getDirtyProperties()),
+                    version(evento.getPersister(), evento.getState()))));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent evento) {
+        if (evento.getEntity() instanceof Entidad) {
+            acumular(evento.getSession(), List.of(EventoCambio.nuevo(
+                    nombreEntidad(evento.getPersister()), evento.getId().toString(), Tipo.BAJA, null,
+                    version(evento.getPersister(), evento.getDeletedState()))));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    // También para las sentencias masivas de RepositorioJpa, que no disparan los eventos de Hibernate
+    public static void registrar(SessionImplementor sesion, List<EventoCambio> eventos) {
+        if (!eventos.isEmpty()) {
+            instancia(sesion).acumular(sesion, eventos);
+        }
+    }
+
+    private static EscuchaCambios instancia(SessionImplementor sesion) {
+        for (final var escucha : sesion.getFactory().getServiceRegistry().getService(EventListenerRegistry.class)
+                .getEventListenerGroup(EventType.POST_INSERT).listeners()) {
+            if (escucha instanceof EscuchaCambios instancia) {
+                return instancia;
+            }
+        }
+        throw new IllegalStateException("EscuchaCambios no está registrado en la fábrica de sesiones");
+    }
+
+    // Una sesión solo se usa desde un hilo a la vez; la sincronización protege el mapa compartido entre sesiones
+    private void acumular(SessionImplementor sesion, List<EventoCambio> eventos) {
+        final List<EventoCambio> existentes;
+        synchronized (pendientes) {
+            existentes = pendientes.get(sesion);
+            if (existentes == null) {
+                pendientes.put(sesion, new ArrayList<>(eventos));
+            }
+        }
+        if (existentes != null) {
+            existentes.addAll(eventos);
+            return;
+        }
+        sesion.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::grabar);
+        sesion.getActionQueue().registerProcess(
+                (AfterTransactionCompletionProcess) (exito, s) -> pendientes.remove(sesion));
+    }
+
+    private void grabar(SessionImplementor sesion) {
+        final var eventos = pendientes.remove(sesion);
+        if (eventos == null || eventos.isEmpty()) {
+            return;
+        }
+        sesion.doWork(conexion -> {
+            try (final var sentencia = conexion.prepareStatement(INSERTAR)) {
+                for (final var evento : eventos) {
+                    sentencia.setString(1, evento.getEntidad());
+                    sentencia.setString(2, evento.getIdEntidad());
+                    sentencia.setString(3, evento.getTipo().name());
+                    sentencia.setString(4, evento.getCampos());
+                    if (evento.getVersion() == null) {
+                        sentencia.setNull(5, Types.BIGINT);
+                    } else {
+                        sentencia.setLong(5, evento.getVersion());
+                    }
+                    sentencia.setTimestamp(6, Timestamp.valueOf(evento.getFechaRegistro()));
+                    sentencia.addBatch();
+                }
+                sentencia.executeBatch();
+            }
+        });
+    }
+
+    private static String nombreEntidad(EntityPersister persister) {
+        return persister.getMappedClass().getSimpleName();
+    }
+
+    private static String campos(EntityPersister persister, int[] indices) {
+        if (indices == null) {
+            return null;
+        }
+        final var nombres = persister.getPropertyNames();
+        return Arrays.stream(indices)
+                .mapToObj(indice -> nombres[indice])
+                .filter(nombre -> !nombre.equals("fechaActualizacion") && !nombre.equals("version"))
+                .collect(Collectors.joining(","));
+    }
+
+    private static Long version(EntityPersister persister, Object[] estado) {
+        if (estado == null || !persister.isVersioned()) {
+            return null;
+        }
+        return (Long) estado[persister.getVersionProperty()];
+    }
+}
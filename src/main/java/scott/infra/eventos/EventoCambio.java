@@ -0,0 +1,67 @@
+package scott.infra.eventos;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// Fila de la bandeja de salida. La secuencia es creciente en orden de inserción; como dos transacciones que
+// modifican la misma entidad se serializan por el bloqueo de su fila, el orden por secuencia es también el orden
+// de los cambios de cada entidad
+@Entity
+@Table(name = "evento_cambio")
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class EventoCambio {
+
+    public enum Tipo {ALTA, CAMBIO, BAJA}
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "secuencia", nullable = false, updatable = false)
+    private Long secuencia;
+
+    @Column(name = "entidad", nullable = false, length = 32, updatable = false)
+    private String entidad;
+
+    @Column(name = "id_entidad", nullable = false, length = 32, updatable = false)
+    private String idEntidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 6, updatable = false)
+    private Tipo tipo;
+
+    // Nombres de los atributos modificados separados por comas; nulo en altas y bajas o si no se conocen
+    @Column(name = "campos", length = 512, updatable = false)
+    private String campos;
+
+    @Column(name = "version", updatable = false)
+    private Long version;
+
+    @Column(name = "fecha_registro", nullable = false, updatable = false)
+    private LocalDateTime fechaRegistro;
+
+    public EventoCambio(Long secuencia,
+                        String entidad,
+                        String idEntidad,
+                        Tipo tipo,
+                        String campos,
+                        Long version,
+                        LocalDateTime fechaRegistro) {
+        this.secuencia = secuencia;
+        this.entidad = entidad;
+        this.idEntidad = idEntidad;
+        this.tipo = tipo;
+        this.campos = campos;
+        this.version = version;
+        this.fechaRegistro = fechaRegistro;
+    }
+
+    public static EventoCambio nuevo(String entidad, String idEntidad, Tipo tipo, String campos, Long version) {
+        return new EventoCambio(null, entidad, idEntidad, tipo, campos, version, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,145 @@
+package scott.infra.eventos;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.infra.eventos.EventoCambio.Tipo;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drena la bandeja de salida en lotes hacia el destino configurado. Cada ciclo lee las primeras filas por
+// secuencia (recorrido del índice de la clave primaria, sin examinar la tabla completa), las entrega y las borra.
+// Como las filas entregadas se borran, una transacción que confirma tarde una secuencia menor no se pierde: su
+// evento simplemente aparece en el ciclo siguiente. Si un lote llega completo, el siguiente se consulta de
+// inmediato, sin esperar el intervalo. Las filas leídas quedan bloqueadas hasta el final del ciclo y los demás
+// relevos (otras instancias) las saltan en lugar de esperar o entregarlas dos veces; con varios relevos activos el
+// orden por secuencia se respeta dentro de cada lote, pero no entre lotes entregados por instancias distintas
+@Component
+@ConditionalOnProperty(name = "scott.eventos.relevo.habilitado", havingValue = "true")
+public class RelevoEventos {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelevoEventos.class);
+
+    private static final String SELECCIONAR = """
+            select secuencia, entidad, id_entidad, tipo, campos, version, fecha_registro
+            from evento_cambio
+            order by secuencia
+            fetch first %d rows only
+            for update skip locked
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final DestinoEventos destino;
+    private final int tamanoLote;
+    private final Duration intervalo;
+    private final ScheduledExecutorService planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        final var hilo = new Thread(tarea, "relevo-eventos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final AtomicLong retrasoMilisegundos = new AtomicLong();
+    private final AtomicLong pendientes = new AtomicLong();
+    private final Counter eventosRelevados;
+
+    public RelevoEventos(DataSource dataSource,
+                         PlatformTransactionManager transactionManager,
+                         DestinoEventos destino,
+                         MeterRegistry metricas,
+                         @Value("${scott.eventos.relevo.lote:1000}") int tamanoLote,
+                         @Value("${scott.eventos.relevo.intervalo:PT0.5S}") Duration intervalo) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.destino = destino;
+        this.tamanoLote = tamanoLote;
+        this.intervalo = intervalo;
+        Gauge.builder("scott.eventos.retraso", retrasoMilisegundos, AtomicLong::get)
+                .baseUnit("milliseconds").register(metricas);
+        Gauge.builder("scott.eventos.pendientes", pendientes, AtomicLong::get)
+                .register(metricas);
+        this.eventosRelevados = metricas.counter("scott.eventos.relevados");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        planificador.scheduleWithFixedDelay(this::ciclo, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        planificador.shutdownNow();
+    }
+
+    private void ciclo() {
+        try {
+            int relevados;
+            do {
+                relevados = relevar();
+            } while (relevados == tamanoLote);
+        } catch (RuntimeException e) {
+            logger.warn("Error relevando eventos de cambio; se reintentará en el siguiente ciclo", e);
+        }
+    }
+
+    // Retorna la cantidad de eventos entregados
+    int relevar() {
+        final Integer relevados = transaccion.execute(estado -> {
+            final var eventos = jdbcTemplate.query(SELECCIONAR.formatted(tamanoLote), RelevoEventos::mapear);
+            actualizarMetricas(eventos);
+            if (eventos.isEmpty()) {
+                return 0;
+            }
+            destino.enviar(eventos);
+            jdbcTemplate.batchUpdate(
+                    "delete from evento_cambio where secuencia = ?",
+                    eventos.stream().map(evento -> new Object[]{evento.getSecuencia()}).toList());
+            eventosRelevados.increment(eventos.size());
+            return eventos.size();
+        });
+        return relevados == null ? 0 : relevados;
+    }
+
+    // Retraso del evento más antiguo pendiente y amplitud de secuencias pendientes (aproximación sin contar filas)
+    private void actualizarMetricas(List<EventoCambio> eventos) {
+        if (eventos.isEmpty()) {
+            retrasoMilisegundos.set(0);
+            pendientes.set(0);
+            return;
+        }
+        final var primero = eventos.get(0);
+        retrasoMilisegundos.set(Duration.between(primero.getFechaRegistro(), LocalDateTime.now()).toMillis());
+        final var maximo = jdbcTemplate.queryForObject("select max(secuencia) from evento_cambio", Long.class);
+        pendientes.set(maximo == null ? 0 : maximo - primero.getSecuencia() + 1);
+    }
+
+    private static EventoCambio mapear(ResultSet rs, int fila) throws SQLException {
+        return new EventoCambio(
+                rs.getLong("secuencia"),
+                rs.getString("entidad"),
+                rs.getString("id_entidad"),
+                Tipo.valueOf(rs.getString("tipo")),
+                rs.getString("campos"),
+                rs.getObject("version", Long.class),
+                rs.getTimestamp("fecha_registro").toLocalDateTime());
+    }
+}
@@ -0,0 +1,181 @@
+package scott.infra.idempotencia;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vavr.control.Either;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import scott.infra.Falla;
+import scott.infra.Falla.FallaAplicacion;
+import scott.infra.Falla.FallaGrabacion;
+import scott.infra.Falla.FallaSistema;
+import scott.infra.Falla.FallaSobrecarga;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+// Resultados de operaciones de creación indexados por clave de idempotencia. Una repetición de la misma clave
+// retorna el resultado original sin volver a ejecutar la operación; una repetición concurrente espera a que
+// termine la ejecución en curso. Cada clave queda ligada a la huella de la operación y sus datos, y se rechaza si
+// se repite con otra. La capacidad es acotada (se descartan las claves menos usadas) y cada resultado
+// vence tras la vigencia configurada. Las fallas transitorias (sobrecarga, errores de sistema) no se conservan,
+// para que el reintento pueda tener éxito. Opcionalmente los resultados exitosos se registran en una tabla
+// para sobrevivir reinicios y compartirse entre instancias
+@Component
+public class AlmacenIdempotencia {
+
+    private record Entrada(CompletableFuture<Either<Falla, ?>> resultado, String huella, long vence) {
+    }
+
+    private final Map<String, Entrada> entradas;
+    private final long vigenciaNanos;
+    private final Optional<RegistroIdempotencia> registro;
+    private final Counter repeticiones;
+
+    @Autowired
+    public AlmacenIdempotencia(@Value("${scott.idempotencia.capacidad:10000}") int capacidad,
+                               @Value("${scott.idempotencia.vigencia:PT24H}") Duration vigencia,
+                               ObjectProvider<RegistroIdempotencia> registro,
+                               MeterRegistry metricas) {
+        this(capacidad, vigencia, Optional.ofNullable(registro.getIfAvailable()), metricas);
+    }
+
+    public AlmacenIdempotencia(int capacidad,
+                               Duration vigencia,
+                               Optional<RegistroIdempotencia> registro,
+                               MeterRegistry metricas) {
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> masAntigua) {
+                return size() > capacidad;
+            }
+        };
+        this.vigenciaNanos = vigencia.toNanos();
+        this.registro = registro;
+        this.repeticiones = metricas.counter("scott.idempotencia.repeticiones");
+    }
+
+    public static AlmacenIdempotencia enMemoria(int capacidad) {
+        return new AlmacenIdempotencia(capacidad, Duration.ofHours(24), Optional.empty(), new SimpleMeterRegistry());
+    }
+
+    // Huella de la operación y sus datos: una clave repetida con otra huella es un error del cliente, no una
+    // repetición. Los montos se normalizan para que 1500 y 1500.00 sean la misma solicitud
+    public static String huella(String operacion, Object... datos) {
+        final var texto = new StringBuilder(operacion);
+        for (final var dato : datos) {
+            texto.append('\u001f').append(dato instanceof BigDecimal monto ?
+                    monto.stripTrailingZeros().toPlainString() :
+                    String.valueOf(dato));
+        }
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(texto.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Either<Falla, T> ejecutar(String clave, String huella, Supplier<Either<Falla, T>> operacion) {
+        if (clave == null) {
+            return operacion.get();
+        }
+
+        final var propia = new CompletableFuture<Either<Falla, ?>>();
+        final Entrada existente;
+        synchronized (entradas) {
+            final var ahora = System.nanoTime();
+            final var entrada = entradas.get(clave);
+            if (entrada != null && entrada.vence() - ahora > 0) {
+                existente = entrada;
+            } else {
+                existente = null;
+                entradas.put(clave, new Entrada(propia, huella, ahora + vigenciaNanos));
+            }
+        }
+        if (existente != null) {
+            if (!existente.huella().equals(huella)) {
+                return Either.left(claveReutilizada(clave));
+            }
+            repeticiones.increment();
+            return (Either<Falla, T>) esperar(existente.resultado());
+        }
+
+        // Si la operación termina con un Error (o cualquier otra salida inesperada) la clave se libera y quienes
+        // esperan reciben la falla, en lugar de quedar bloqueados
+        try {
+            final var registrado = registro.flatMap(r -> r.buscar(clave));
+            if (registrado.isPresent()) {
+                final var resultado = registrado.get().huella().equals(huella) ?
+                        Either.<Falla, T>right((T) registrado.get().resultado()) :
+                        Either.<Falla, T>left(claveReutilizada(clave));
+                if (resultado.isRight()) {
+                    repeticiones.increment();
+                }
+                propia.complete(resultado);
+                return resultado;
+            }
+
+            Either<Falla, T> resultado;
+            try {
+                resultado = operacion.get();
+            } catch (RuntimeException e) {
+                resultado = Either.left(new FallaSistema("ejecutando operación idempotente", e));
+            }
+            if (resultado.isLeft() && esTransitoria(resultado.getLeft())) {
+                liberar(clave, propia);
+            } else if (resultado.isRight() && resultado.get() instanceof String valor) {
+                registro.ifPresent(r -> r.registrar(clave, huella, valor));
+            }
+            propia.complete(resultado);
+            return resultado;
+        } catch (Throwable t) {
+            liberar(clave, propia);
+            propia.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    private void liberar(String clave, CompletableFuture<Either<Falla, ?>> propia) {
+        synchronized (entradas) {
+            final var actual = entradas.get(clave);
+            if (actual != null && actual.resultado() == propia) {
+                entradas.remove(clave);
+            }
+        }
+    }
+
+    private static Falla claveReutilizada(String clave) {
+        return new FallaAplicacion(
+                "La clave de idempotencia %s ya se usó con otra operación o datos distintos".formatted(clave));
+    }
+
+    private static Either<Falla, ?> esperar(CompletableFuture<Either<Falla, ?>> resultado) {
+        try {
+            return resultado.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Either.left(new FallaSistema("esperando operación idempotente en curso", e));
+        } catch (ExecutionException e) {
+            return Either.left(new FallaSistema("esperando operación idempotente en curso", e.getCause()));
+        }
+    }
+
+    private static boolean esTransitoria(Falla falla) {
+        return falla instanceof FallaSobrecarga || falla instanceof FallaSistema || falla instanceof FallaGrabacion;
+    }
+}
@@ -0,0 +1,60 @@
+package scott.infra.idempotencia;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RegistroIdempotencia {
+
+    record Registrado(String huella, String resultado) {
+    }
+
+    Optional<Registrado> buscar(String clave);
+
+    void registrar(String clave, String huella, String resultado);
+
+    // El registro se graba después de confirmar la operación, no en su misma transacción: una caída entre ambos
+    // pasos deja la clave sin registrar y el reintento termina en la detección de duplicados del servicio. La tabla
+    // se crea con idempotencia.sql, junto con el resto del esquema
+    @Component
+    @ConditionalOnProperty(name = "scott.idempotencia.jdbc", havingValue = "true")
+    class Jdbc implements RegistroIdempotencia {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final Duration vigencia;
+
+        public Jdbc(DataSource dataSource, @Value("${scott.idempotencia.vigencia:PT24H}") Duration vigencia) {
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.vigencia = vigencia;
+        }
+
+        @Override
+        public Optional<Registrado> buscar(String clave) {
+            return jdbcTemplate.query(
+                            "select huella, resultado from idempotencia where clave = ? and fecha_registro > ?",
+                            (fila, numero) -> new Registrado(fila.getString(1), fila.getString(2)),
+                            clave, Timestamp.valueOf(LocalDateTime.now().minus(vigencia)))
+                    .stream()
+                    .findFirst();
+        }
+
+        @Override
+        public void registrar(String clave, String huella, String resultado) {
+            try {
+                jdbcTemplate.update(
+                        "insert into idempotencia (clave, huella, resultado, fecha_registro) values (?, ?, ?, ?)",
+                        clave, huella, resultado, Timestamp.valueOf(LocalDateTime.now()));
+            } catch (DuplicateKeyException e) {
+                // Otra instancia registró la misma clave
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package scott.infra.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import scott.infra.jdbc.EnrutadorFuentesDatos.Configuracion;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Sustituye la fuente de datos de Spring Boot por la primaria (spring.datasource.*) más las réplicas de
+// scott.replicas.urls, que comparten usuario, clave y controlador con la primaria salvo que se indiquen
+@Configuration
+@ConditionalOnProperty(name = "scott.replicas.habilitadas", havingValue = "true")
+public class ConfiguracionReplicas {
+
+    @Bean(destroyMethod = "detener")
+    public EnrutadorFuentesDatos enrutadorFuentesDatos(
+            DataSourceProperties propiedades,
+            @Value("${scott.replicas.urls}") String[] urls,
+            @Value("${scott.replicas.usuario:${spring.datasource.username:}}") String usuario,
+            @Value("${scott.replicas.clave:${spring.datasource.password:}}") String clave,
+            @Value("${scott.replicas.ventana-lectura:PT2S}") Duration ventanaLectura,
+            @Value("${scott.replicas.retraso-maximo:PT5S}") Duration retrasoMaximo,
+            @Value("${scott.replicas.intervalo-verificacion:PT1S}") Duration intervaloVerificacion,
+            @Value("${scott.replicas.consulta-retraso:}") String consultaRetraso,
+            ObjectProvider<Clock> reloj) {
+        final var primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName("primaria");
+        final var direcciones = Arrays.stream(urls)
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        final List<DataSource> replicas = IntStream.range(0, direcciones.size())
+                .<DataSource>mapToObj(i -> {
+                    final var replica = DataSourceBuilder.create()
+                            .type(HikariDataSource.class)
+                            .driverClassName(propiedades.determineDriverClassName())
+                            .url(direcciones.get(i))
+                            .username(usuario)
+                            .password(clave)
+                            .build();
+                    replica.setPoolName("replica-" + i);
+                    return replica;
+                })
+                .toList();
+        // Los grupos de conexiones los cierra el enrutador al destruirse el bean
+        return new EnrutadorFuentesDatos(primaria, replicas,
+                new Configuracion(ventanaLectura, retrasoMaximo, intervaloVerificacion, consultaRetraso),
+                reloj.getIfAvailable(Clock::systemUTC));
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutadorFuentesDatos enrutador) {
+        return new LazyConnectionDataSourceProxy(enrutador);
+    }
+}
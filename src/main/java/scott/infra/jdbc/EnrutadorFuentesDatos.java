@@ -0,0 +1,176 @@
+package scott.infra.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+// Envía las transacciones de solo lectura a una réplica y todo lo demás a la primaria. La decisión se toma al
+// obtener la conexión física, por eso debe usarse detrás de un LazyConnectionDataSourceProxy: la marca de solo
+// lectura de la transacción se fija después de que el gestor de transacciones pide la conexión.
+// Una réplica recibe lecturas solo si responde, su retraso no supera el máximo y desde la última escritura
+// confirmada de la misma sesión (SesionEscritura) pasó más que la ventana de lectura y que su propio retraso, de modo
+// que una lectura posterior a una escritura de quien la hizo la observa. Al detenerse cierra las fuentes de datos.
+// Spring Boot vincula sus métricas al registro del contexto (MeterBinder): recibir el registro en el constructor
+// haría depender la fuente de datos de él, y este de la fuente de datos a través de las métricas de los grupos
+public class EnrutadorFuentesDatos extends AbstractRoutingDataSource implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrutadorFuentesDatos.class);
+
+    private static final String PRIMARIA = "primaria";
+
+    public record Configuracion(Duration ventanaLectura,
+                                Duration retrasoMaximo,
+                                Duration intervaloVerificacion,
+                                String consultaRetraso) {
+    }
+
+    private static final class Replica {
+        private final String nombre;
+        private final DataSource dataSource;
+        private volatile boolean disponible = true;
+        private volatile long retrasoMilisegundos;
+
+        Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final DataSource primaria;
+    private final List<Replica> replicas;
+    private final Configuracion configuracion;
+    private final Clock reloj;
+    private final AtomicInteger turno = new AtomicInteger();
+    private volatile Map<String, Counter> conexiones = Map.of();
+    private final ScheduledExecutorService verificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        final var hilo = new Thread(tarea, "verificacion-replicas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    public EnrutadorFuentesDatos(DataSource primaria,
+                                 List<DataSource> replicas,
+                                 Configuracion configuracion,
+                                 Clock reloj) {
+        this.primaria = primaria;
+        this.configuracion = configuracion;
+        this.reloj = reloj;
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicas.get(i)))
+                .toList();
+        final var destinos = new HashMap<Object, Object>();
+        destinos.put(PRIMARIA, primaria);
+        this.replicas.forEach(replica -> destinos.put(replica.nombre, replica.dataSource));
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+    }
+
+    // Las conexiones obtenidas antes de la vinculación no se cuentan
+    @Override
+    public void bindTo(MeterRegistry metricas) {
+        final var contadores = new HashMap<String, Counter>();
+        contadores.put(PRIMARIA, metricas.counter("scott.fuentes.conexiones", "destino", PRIMARIA));
+        for (final var replica : replicas) {
+            Gauge.builder("scott.replicas.retraso", replica, r -> r.retrasoMilisegundos)
+                    .tag("replica", replica.nombre).baseUnit("milliseconds").register(metricas);
+            Gauge.builder("scott.replicas.disponible", replica, r -> r.disponible ? 1 : 0)
+                    .tag("replica", replica.nombre).register(metricas);
+            contadores.put(replica.nombre, metricas.counter("scott.fuentes.conexiones", "destino", replica.nombre));
+        }
+        conexiones = Map.copyOf(contadores);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        verificar();
+        final var intervalo = configuracion.intervaloVerificacion().toMillis();
+        verificador.scheduleWithFixedDelay(this::verificar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    public void detener() {
+        verificador.shutdownNow();
+        cerrar(primaria);
+        replicas.forEach(replica -> cerrar(replica.dataSource));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            SesionEscritura.registrarEscritura(reloj);
+            return contar(PRIMARIA);
+        }
+        final var transcurrido = reloj.millis() - SesionEscritura.actual().ultimaEscritura();
+        final var ventana = configuracion.ventanaLectura().toMillis();
+        final var limite = configuracion.retrasoMaximo().toMillis();
+        final var inicio = Math.floorMod(turno.getAndIncrement(), Math.max(replicas.size(), 1));
+        for (int i = 0; i < replicas.size(); i++) {
+            final var replica = replicas.get((inicio + i) % replicas.size());
+            final var retraso = replica.retrasoMilisegundos;
+            if (replica.disponible && retraso <= limite && transcurrido > Math.max(ventana, retraso)) {
+                return contar(replica.nombre);
+            }
+        }
+        return contar(PRIMARIA);
+    }
+
+    private void verificar() {
+        for (final var replica : replicas) {
+            final var disponibleAntes = replica.disponible;
+            try (final var conexion = replica.dataSource.getConnection()) {
+                var retraso = 0L;
+                if (configuracion.consultaRetraso() != null && !configuracion.consultaRetraso().isBlank()) {
+                    try (final var sentencia = conexion.createStatement();
+                         final var rs = sentencia.executeQuery(configuracion.consultaRetraso())) {
+                        retraso = rs.next() ? (long) (rs.getDouble(1) * 1000) : Long.MAX_VALUE;
+                    }
+                }
+                replica.retrasoMilisegundos = retraso;
+                replica.disponible = conexion.isValid(1);
+            } catch (Exception e) {
+                replica.disponible = false;
+                if (disponibleAntes) {
+                    logger.warn("Réplica {} excluida: {}", replica.nombre, e.getMessage());
+                }
+            }
+            if (!disponibleAntes && replica.disponible) {
+                logger.info("Réplica {} restablecida", replica.nombre);
+            }
+        }
+    }
+
+    private static void cerrar(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable cerrable) {
+            try {
+                cerrable.close();
+            } catch (Exception e) {
+                logger.warn("No se pudo cerrar la fuente de datos: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Object contar(String destino) {
+        final var contador = conexiones.get(destino);
+        if (contador != null) {
+            contador.increment();
+        }
+        return destino;
+    }
+}
@@ -0,0 +1,63 @@
+package scott.infra.jdbc;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+import scott.infra.jpa.RepositorioLectura;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+
+// Lectura directa de filas a registros inmutables, sin contexto de persistencia ni carga de asociaciones. Cada
+// consulta se prepara una sola vez con texto SQL constante, lo que permite al driver reutilizar la sentencia
+// preparada (caché de consultas de H2, prepareThreshold de PostgreSQL). Las lecturas sin transacción en curso se
+// marcan de solo lectura para que puedan atenderse desde una réplica. Dentro de una transacción JPA solo se ven las
+// escrituras que Hibernate ya emitió; quien necesite leer sus propios cambios pendientes debe hacer flush antes
+@Transactional(readOnly = true)
+public abstract class RepositorioJdbc<T> implements RepositorioLectura<T> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<T> mapeador;
+    private final String seleccion;
+    private final PreparedStatementCreatorFactory consultaPorId;
+    private final PreparedStatementCreatorFactory consultaTodos;
+
+    protected RepositorioJdbc(DataSource dataSource,
+                              int tamanoFetch,
+                              String tabla,
+                              List<String> columnas,
+                              RowMapper<T> mapeador) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(tamanoFetch);
+        this.mapeador = mapeador;
+        this.seleccion = "select %s from %s".formatted(String.join(", ", columnas), tabla);
+        this.consultaPorId = consultaPreparada("id = ?", Types.VARCHAR);
+        this.consultaTodos = new PreparedStatementCreatorFactory(seleccion);
+    }
+
+    @Override
+    public T leerPorId(String id) {
+        return buscarPorId(id).orElseThrow(() -> new RuntimeException("Id inexistente: %s".formatted(id)));
+    }
+
+    @Override
+    public Optional<T> buscarPorId(String id) {
+        return consultar(consultaPorId, id).stream().findFirst();
+    }
+
+    @Override
+    public List<T> leerTodos() {
+        return consultar(consultaTodos);
+    }
+
+    protected PreparedStatementCreatorFactory consultaPreparada(String condicion, int... tiposParametros) {
+        return new PreparedStatementCreatorFactory(seleccion + " where " + condicion, tiposParametros);
+    }
+
+    protected List<T> consultar(PreparedStatementCreatorFactory consulta, Object... parametros) {
+        return jdbcTemplate.query(consulta.newPreparedStatementCreator(parametros), mapeador);
+    }
+}
@@ -0,0 +1,105 @@
+package scott.infra.jdbc;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+// Instante de la última escritura confirmada por quien origina las transacciones, para que sus lecturas posteriores
+// no vayan a una réplica que aún no la recibió. Una sesión explícita (p. ej. la de una solicitud HTTP, que recibe y
+// devuelve el instante en un encabezado) tiene precedencia; sin ella, la sesión es el hilo
+public final class SesionEscritura {
+
+    private static final Object SESIONES = new Object();
+    private static final ThreadLocal<SesionEscritura> explicita = new ThreadLocal<>();
+    private static final ThreadLocal<SesionEscritura> delHilo =
+            ThreadLocal.withInitial(() -> new SesionEscritura(0, instante -> {
+            }));
+
+    private final AtomicLong ultimaEscritura;
+    private final LongConsumer alConfirmar;
+
+    private SesionEscritura(long ultimaEscritura, LongConsumer alConfirmar) {
+        this.ultimaEscritura = new AtomicLong(ultimaEscritura);
+        this.alConfirmar = alConfirmar;
+    }
+
+    public static SesionEscritura actual() {
+        final var sesion = explicita.get();
+        return sesion != null ? sesion : delHilo.get();
+    }
+
+    // Abre una sesión explícita en el hilo actual hasta cerrar(); alConfirmar recibe cada nueva escritura confirmada
+    public static SesionEscritura abrir(long ultimaEscritura, LongConsumer alConfirmar) {
+        final var sesion = new SesionEscritura(ultimaEscritura, alConfirmar);
+        explicita.set(sesion);
+        return sesion;
+    }
+
+    public void cerrar() {
+        if (explicita.get() == this) {
+            explicita.remove();
+        }
+    }
+
+    public long ultimaEscritura() {
+        return ultimaEscritura.get();
+    }
+
+    // Ejecuta en nombre de esta sesión desde otro hilo (p. ej. el agrupador de operaciones). Si ya hay una transacción
+    // de escritura en curso, la sesión queda marcada al confirmarse aunque la conexión la haya obtenido otra
+    public <T> T aplicar(Supplier<T> operacion) {
+        final var previa = explicita.get();
+        explicita.set(this);
+        try {
+            if (TransactionSynchronizationManager.getResource(SESIONES) instanceof Set<?> sesiones) {
+                agregar(sesiones, this);
+            }
+            return operacion.get();
+        } finally {
+            if (previa == null) {
+                explicita.remove();
+            } else {
+                explicita.set(previa);
+            }
+        }
+    }
+
+    // Sin transacción (p. ej. DDL al arrancar) no hay nada que proteger
+    static void registrarEscritura(Clock reloj) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.getResource(SESIONES) instanceof Set<?> sesiones) {
+            agregar(sesiones, actual());
+            return;
+        }
+        final var sesiones = ConcurrentHashMap.<SesionEscritura>newKeySet();
+        sesiones.add(actual());
+        TransactionSynchronizationManager.bindResource(SESIONES, sesiones);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SESIONES);
+                if (estado == STATUS_COMMITTED) {
+                    final var instante = reloj.millis();
+                    sesiones.forEach(sesion -> sesion.registrar(instante));
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void agregar(Set<?> sesiones, SesionEscritura sesion) {
+        ((Set<SesionEscritura>) sesiones).add(sesion);
+    }
+
+    private void registrar(long instante) {
+        alConfirmar.accept(ultimaEscritura.accumulateAndGet(instante, Math::max));
+    }
+}
@@ -0,0 +1,54 @@
+package scott.infra.jpa;
+
+import io.vavr.CheckedConsumer;
+import scott.infra.validacion.ViolacionIntegridad;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Describe una actualización masiva: qué instancias (criterio), cómo modificarlas una a una (actualizacion) y,
+// opcionalmente, las asignaciones equivalentes que permiten ejecutarla como una única sentencia UPDATE
+public record ActualizacionLote<E>(Criterio<E> criterio,
+                                   CheckedConsumer<E> actualizacion,
+                                   Map<String, Object> asignaciones,
+                                   List<Invariante<E>> invariantes,
+                                   int tamanoBloque) {
+
+    public static final int TAMANO_BLOQUE = 50;
+
+    public static <E> ActualizacionLote<E> de(Criterio<E> criterio, CheckedConsumer<E> actualizacion) {
+        return new ActualizacionLote<>(criterio, actualizacion, Map.of(), List.of(), TAMANO_BLOQUE);
+    }
+
+    public ActualizacionLote<E> asignar(String atributo, Object valor) {
+        final var nuevasAsignaciones = new LinkedHashMap<>(asignaciones);
+        nuevasAsignaciones.put(atributo, valor);
+        return new ActualizacionLote<>(
+                criterio, actualizacion, Collections.unmodifiableMap(nuevasAsignaciones), invariantes, tamanoBloque);
+    }
+
+    public ActualizacionLote<E> validar(String mensaje, Criterio<E> violacion) {
+        final var nuevasInvariantes = new ArrayList<>(invariantes);
+        nuevasInvariantes.add(new Invariante<>(mensaje, violacion));
+        return new ActualizacionLote<>(
+                criterio, actualizacion, asignaciones, Collections.unmodifiableList(nuevasInvariantes), tamanoBloque);
+    }
+
+    public ActualizacionLote<E> enBloquesDe(int tamanoBloque) {
+        return new ActualizacionLote<>(criterio, actualizacion, asignaciones, invariantes, tamanoBloque);
+    }
+
+    public boolean admiteSentenciaUnica() {
+        return !asignaciones.isEmpty();
+    }
+
+    // Selecciona, entre las instancias del lote, aquellas que violarían la invariante tras la actualización
+    public record Invariante<E>(String mensaje, Criterio<E> violacion) {
+        public ViolacionIntegridad violada(long violaciones) {
+            return new ViolacionIntegridad("%s (%d instancia(s))".formatted(mensaje, violaciones));
+        }
+    }
+}
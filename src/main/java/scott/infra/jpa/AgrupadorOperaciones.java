@@ -0,0 +1,201 @@
+package scott.infra.jpa;
+
+import io.vavr.control.Either;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.infra.Falla;
+import scott.infra.Falla.FallaIndeterminada;
+import scott.infra.Falla.FallaSistema;
+import scott.infra.jdbc.SesionEscritura;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+// Agrupa operaciones concurrentes e independientes que llegan dentro de una ventana corta (o hasta completar un
+// máximo) y las ejecuta en una sola transacción, con las inserciones agrupadas en lotes JDBC y un único commit.
+// Cada operación valida su instancia antes de persistirla, de modo que una fila inválida solo falla su propia
+// operación. Si aun así el commit falla (p. ej. dos operaciones del mismo grupo con la misma clave única), cada
+// operación exitosa se reintenta en su propia transacción para aislar a la responsable. Si se agota la espera con
+// la operación todavía en cola, se cancela y no llega a ejecutarse; si ya estaba en curso, su resultado se informa
+// como indeterminado
+@Component
+@ConditionalOnProperty(name = "scott.agrupacion.habilitada", havingValue = "true")
+public class AgrupadorOperaciones {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgrupadorOperaciones.class);
+
+    private enum Estado {EN_COLA, EN_CURSO, CANCELADA}
+
+    // La sesión de escritura de quien la encola, para que sus lecturas posteriores vean lo que se confirme aquí
+    private record Pendiente(Supplier<Either<Falla, ?>> operacion,
+                             SesionEscritura sesion,
+                             CompletableFuture<Either<Falla, ?>> resultado,
+                             AtomicReference<Estado> estado) {
+
+        // Una operación reintentada por separado tras revertirse su grupo ya estaba en curso
+        boolean iniciar() {
+            return estado.compareAndSet(Estado.EN_COLA, Estado.EN_CURSO) || estado.get() == Estado.EN_CURSO;
+        }
+
+        boolean cancelar() {
+            return estado.compareAndSet(Estado.EN_COLA, Estado.CANCELADA);
+        }
+    }
+
+    private final BlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final List<Runnable> accionesAlRevertir = new CopyOnWriteArrayList<>();
+    private final List<Thread> hilos = new ArrayList<>();
+    private final TransactionTemplate transaccion;
+    private final EntityManager entityManager;
+    private final long ventanaNanos;
+    private final int maximo;
+    private final long esperaMaximaMillis;
+    private volatile boolean activo = true;
+
+    public AgrupadorOperaciones(PlatformTransactionManager transactionManager,
+                                EntityManager entityManager,
+                                @Value("${scott.agrupacion.ventana-micros:2000}") long ventanaMicros,
+                                @Value("${scott.agrupacion.maximo:256}") int maximo,
+                                @Value("${scott.agrupacion.hilos:2}") int hilos,
+                                @Value("${scott.agrupacion.espera-maxima-ms:30000}") long esperaMaximaMillis) {
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.ventanaNanos = TimeUnit.MICROSECONDS.toNanos(ventanaMicros);
+        this.maximo = maximo;
+        this.esperaMaximaMillis = esperaMaximaMillis;
+        for (int i = 0; i < hilos; i++) {
+            final var hilo = new Thread(this::atender, "agrupador-" + i);
+            hilo.setDaemon(true);
+            hilo.start();
+            this.hilos.add(hilo);
+        }
+    }
+
+    // Dentro de una transacción en curso la operación se ejecuta directamente para no alterar su semántica
+    @SuppressWarnings("unchecked")
+    public <T> Either<Falla, T> ejecutar(Supplier<Either<Falla, T>> operacion) {
+        if (!activo || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operacion.get();
+        }
+        final var pendiente = new Pendiente(
+                operacion::get,
+                SesionEscritura.actual(),
+                new CompletableFuture<>(),
+                new AtomicReference<>(Estado.EN_COLA));
+        cola.add(pendiente);
+        try {
+            return (Either<Falla, T>) pendiente.resultado().get(esperaMaximaMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return abandonar(pendiente, e);
+        } catch (ExecutionException | TimeoutException e) {
+            return abandonar(pendiente, e);
+        }
+    }
+
+    private static <T> Either<Falla, T> abandonar(Pendiente pendiente, Exception e) {
+        if (pendiente.cancelar()) {
+            return Either.left(new FallaSistema("esperando operación agrupada (cancelada sin ejecutarse)", e));
+        }
+        return Either.left(new FallaIndeterminada("de la operación agrupada", e));
+    }
+
+    // Para descartar estado en memoria registrado por operaciones cuya transacción conjunta se revirtió
+    public void alRevertir(Runnable accion) {
+        accionesAlRevertir.add(accion);
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        hilos.forEach(Thread::interrupt);
+        final var restantes = new ArrayList<Pendiente>();
+        cola.drainTo(restantes);
+        restantes.forEach(pendiente -> pendiente.resultado().complete(ejecutarProtegida(pendiente)));
+    }
+
+    private void atender() {
+        while (activo) {
+            try {
+                final var grupo = new ArrayList<Pendiente>();
+                grupo.add(cola.take());
+                final var limite = System.nanoTime() + ventanaNanos;
+                while (grupo.size() < maximo) {
+                    final var siguiente = cola.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    grupo.add(siguiente);
+                }
+                cola.drainTo(grupo, maximo - grupo.size());
+                procesar(grupo);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Error inesperado en el agrupador de operaciones", e);
+            }
+        }
+    }
+
+    private void procesar(List<Pendiente> grupo) {
+        final var resultados = new ArrayList<Either<Falla, ?>>(grupo.size());
+        try {
+            transaccion.executeWithoutResult(estado -> {
+                // Las consultas de validación no deben sincronizar cada inserción pendiente por separado
+                entityManager.unwrap(Session.class).setHibernateFlushMode(FlushMode.COMMIT);
+                grupo.forEach(pendiente -> resultados.add(ejecutarProtegida(pendiente)));
+            });
+        } catch (RuntimeException e) {
+            logger.debug("Falló el commit de {} operaciones agrupadas; se reintentan por separado", grupo.size(), e);
+            accionesAlRevertir.forEach(Runnable::run);
+            for (int i = 0; i < grupo.size(); i++) {
+                if (i < resultados.size() && resultados.get(i).isLeft()) {
+                    continue;
+                }
+                final var pendiente = grupo.get(i);
+                final var individual = ejecutarIndividual(pendiente);
+                if (i < resultados.size()) {
+                    resultados.set(i, individual);
+                } else {
+                    resultados.add(individual);
+                }
+            }
+        }
+        for (int i = 0; i < grupo.size(); i++) {
+            grupo.get(i).resultado().complete(resultados.get(i));
+        }
+    }
+
+    private Either<Falla, ?> ejecutarIndividual(Pendiente pendiente) {
+        try {
+            return transaccion.execute(estado -> ejecutarProtegida(pendiente));
+        } catch (RuntimeException e) {
+            return Either.left(new FallaSistema("grabando operación", e));
+        }
+    }
+
+    private static Either<Falla, ?> ejecutarProtegida(Pendiente pendiente) {
+        if (!pendiente.iniciar()) {
+            return Either.left(new FallaSistema("ejecutando operación agrupada", new CancellationException()));
+        }
+        try {
+            return pendiente.sesion().aplicar(pendiente.operacion());
+        } catch (RuntimeException e) {
+            return Either.left(new FallaSistema("ejecutando operación agrupada", e));
+        }
+    }
+}
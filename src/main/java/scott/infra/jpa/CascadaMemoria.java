@@ -0,0 +1,24 @@
+package scott.infra.jpa;
+
+import scott.infra.jpa.entidad.Entidad;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Emula entre los repositorios en memoria de un mismo contexto las restricciones ON DELETE CASCADE de la base de
+// datos (@OnDelete en las asociaciones): al borrar una instancia se borran también, con sus eventos, las que la
+// referencian
+public final class CascadaMemoria {
+
+    private final List<RepositorioMemoria<?>> repositorios = new CopyOnWriteArrayList<>();
+
+    void registrar(RepositorioMemoria<?> repositorio) {
+        repositorios.add(repositorio);
+    }
+
+    void borrada(Entidad entidad) {
+        for (final var repositorio : repositorios) {
+            repositorio.borrarDependientes(entidad);
+        }
+    }
+}
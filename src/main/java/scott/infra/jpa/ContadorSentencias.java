@@ -0,0 +1,101 @@
+package scott.infra.jpa;
+
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Cuenta las sentencias SQL emitidas por Hibernate en el hilo actual, agrupadas por operación lógica. Las
+// mediciones se anidan: una sentencia se atribuye a todas las mediciones abiertas (el servicio y el combinador
+// del DSL que la originaron). Una misma sentencia repetida UMBRAL_REPETICION veces o más dentro de una operación
+// se reporta como posible N+1
+public final class ContadorSentencias {
+
+    public static final int UMBRAL_REPETICION = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorSentencias.class);
+
+    private static final ThreadLocal<Deque<Medicion>> mediciones = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private ContadorSentencias() {
+    }
+
+    public static Medicion iniciar(String operacion) {
+        final var medicion = new Medicion(operacion);
+        mediciones.get().push(medicion);
+        return medicion;
+    }
+
+    public static <T> T medir(String operacion, Supplier<T> cuerpo) {
+        try (final var ignorada = iniciar(operacion)) {
+            return cuerpo.get();
+        }
+    }
+
+    static void registrar(String sql) {
+        for (final var medicion : mediciones.get()) {
+            medicion.registrar(sql);
+        }
+    }
+
+    public static final class Medicion implements AutoCloseable {
+
+        private final String operacion;
+        private final Map<String, Integer> sentencias = new LinkedHashMap<>();
+        private int total = 0;
+        private boolean cerrada = false;
+
+        private Medicion(String operacion) {
+            this.operacion = operacion;
+        }
+
+        public String operacion() {
+            return operacion;
+        }
+
+        public int total() {
+            return total;
+        }
+
+        public Map<String, Integer> sentencias() {
+            return Map.copyOf(sentencias);
+        }
+
+        public Map<String, Integer> repetidas() {
+            return sentencias.entrySet().stream()
+                    .filter(sentencia -> sentencia.getValue() >= UMBRAL_REPETICION)
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+
+        private void registrar(String sql) {
+            sentencias.merge(sql, 1, Integer::sum);
+            total += 1;
+        }
+
+        @Override
+        public void close() {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            final var abiertas = mediciones.get();
+            abiertas.remove(this);
+            if (abiertas.isEmpty()) {
+                mediciones.remove();
+            }
+
+            Metrics.summary("scott.sql.sentencias", "operacion", operacion).record(total);
+            final var repetidas = repetidas();
+            if (!repetidas.isEmpty()) {
+                Metrics.counter("scott.sql.repetidas", "operacion", operacion).increment();
+                logger.warn("Posible N+1 en {}: {}", operacion, repetidas);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package scott.infra.jpa;
+
+import scott.infra.util.Dinero;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.math.BigDecimal;
+
+// Columnas numeric(19,2): el controlador JDBC entrega un BigDecimal que se descarta tras leer los centavos
+@Converter(autoApply = true)
+public class ConvertidorDinero implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero dinero) {
+        return dinero == null ? null : dinero.aBigDecimal();
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal valor) {
+        return Dinero.de(valor);
+    }
+}
@@ -1,31 +1,43 @@
 package scott.infra.jpa;
 
-import io.vavr.Tuple2;
-
 import javax.persistence.AttributeConverter;
 import javax.persistence.Converter;
-import java.util.Arrays;
-import java.util.Map;
+import java.lang.reflect.Array;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
+// Las conversiones se resuelven con arreglos: por ordinal al escribir y, para los códigos de un carácter ASCII,
+// por carácter al leer; los demás códigos se comparan en orden, lo que para enumeraciones cortas es más rápido
+// que un HashMap y no requiere calcular el hash de la cadena leída
 @Converter(autoApply = true)
 public abstract class ConvertidorEnumeracion<E extends Enum<E>> implements AttributeConverter<E, String> {
 
-    private final Map<E, String> porConstante;
-    private final Map<String, E> porCadena;
+    private static final int CARACTERES = 128;
+
+    private final E[] constantes;
+    private final String[] porOrdinal;
+    private final E[] porCaracter;
 
     public ConvertidorEnumeracion(E[] values) {
         this(values, E::toString);
     }
 
+    @SuppressWarnings("unchecked")
     public ConvertidorEnumeracion(E[] values, Function<E, String> toString) {
-        porConstante = Arrays.stream(values)
-                .map(v -> new Tuple2<>(v, toString.apply(v)))
-                .collect(Collectors.toMap(Tuple2::_1, Tuple2::_2));
-        porCadena = porConstante.entrySet().stream()
-                .map(entry -> new Tuple2<>(entry.getValue(), entry.getKey()))
-                .collect(Collectors.toMap(Tuple2::_1, Tuple2::_2));
+        final var tipo = values.getClass().getComponentType();
+        constantes = (E[]) Array.newInstance(tipo, tipo.getEnumConstants().length);
+        porOrdinal = new String[constantes.length];
+        porCaracter = (E[]) Array.newInstance(tipo, CARACTERES);
+        for (final var constante : values) {
+            final var cadena = toString.apply(constante);
+            if (buscar(cadena) != null) {
+                throw new IllegalArgumentException("Constante duplicada: %s".formatted(cadena));
+            }
+            constantes[constante.ordinal()] = constante;
+            porOrdinal[constante.ordinal()] = cadena;
+            if (cadena.length() == 1 && cadena.charAt(0) < CARACTERES) {
+                porCaracter[cadena.charAt(0)] = constante;
+            }
+        }
     }
 
     @Override
@@ -33,7 +45,7 @@ public abstract class ConvertidorEnumeracion<E extends Enum<E>> implements Attri
         if (constante == null) {
             return null;
         }
-        return porConstante.get(constante);
+        return porOrdinal[constante.ordinal()];
     }
 
     @Override
@@ -41,10 +53,22 @@ public abstract class ConvertidorEnumeracion<E extends Enum<E>> implements Attri
         if (cadena == null) {
             return null;
         }
-        final var constante = porCadena.get(cadena);
+        final var constante = buscar(cadena);
         if (constante == null) {
             throw new IllegalArgumentException("Constante inválida: %s".formatted(cadena));
         }
         return constante;
     }
+
+    private E buscar(String cadena) {
+        if (cadena.length() == 1 && cadena.charAt(0) < CARACTERES) {
+            return porCaracter[cadena.charAt(0)];
+        }
+        for (int ordinal = 0; ordinal < porOrdinal.length; ordinal++) {
+            if (cadena.equals(porOrdinal[ordinal])) {
+                return constantes[ordinal];
+            }
+        }
+        return null;
+    }
 }
@@ -0,0 +1,105 @@
+package scott.infra.jpa;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Criterio de selección con doble representación: como especificación JPA (para sentencias SQL) y como
+// predicado en memoria (para RepositorioMemoria y para validar instancias ya cargadas). Las condiciones son las
+// igualdades y rangos de la conjunción, que RepositorioMemoria puede resolver con sus índices; el predicado sigue
+// siendo la definición completa del criterio
+public record Criterio<E>(Specification<E> especificacion, Predicate<E> predicado, List<Condicion> condiciones) {
+
+    // Rango cerrado sobre un atributo; un extremo nulo no acota, y desde == hasta expresa una igualdad
+    public record Condicion(String atributo, Object desde, Object hasta) {
+        public boolean esIgualdad() {
+            return desde != null && desde == hasta;
+        }
+    }
+
+    // Atributo comparable de la entidad con su extractor. Fija el tipo de los extremos de un rango al del valor que
+    // guarda la entidad (p. ej. Empleado.SALARIO es Dinero y no admite extremos BigDecimal)
+    public record Atributo<E, V extends Comparable<? super V>>(String nombre, Function<E, V> extractor) {
+    }
+
+    public Criterio(Specification<E> especificacion, Predicate<E> predicado) {
+        this(especificacion, predicado, List.of());
+    }
+
+    public static <E> Criterio<E> todos() {
+        return new Criterio<E>((raiz, consulta, cb) -> cb.conjunction(), e -> true);
+    }
+
+    public static <E> Criterio<E> ninguno() {
+        return new Criterio<E>((raiz, consulta, cb) -> cb.disjunction(), e -> false);
+    }
+
+    public static <E, V> Criterio<E> igual(String atributo, Function<E, V> extractor, V valor) {
+        return new Criterio<E>(
+                (raiz, consulta, cb) -> valor == null ?
+                        cb.isNull(raiz.get(atributo)) :
+                        cb.equal(raiz.get(atributo), valor),
+                e -> Objects.equals(extractor.apply(e), valor),
+                valor == null ? List.of() : List.of(new Condicion(atributo, valor, valor)));
+    }
+
+    // Ambos extremos incluidos; un extremo nulo deja el rango abierto por ese lado
+    public static <E, V extends Comparable<? super V>> Criterio<E> entre(Atributo<E, V> atributo, V desde, V hasta) {
+        final var nombre = atributo.nombre();
+        final var extractor = atributo.extractor();
+        return new Criterio<E>(
+                (raiz, consulta, cb) -> {
+                    final var ruta = raiz.<V>get(nombre);
+                    if (desde != null && hasta != null) {
+                        return cb.between(ruta, desde, hasta);
+                    }
+                    return desde != null ? cb.greaterThanOrEqualTo(ruta, desde) :
+                            hasta != null ? cb.lessThanOrEqualTo(ruta, hasta) :
+                                    cb.isNotNull(ruta);
+                },
+                e -> {
+                    final var valor = extractor.apply(e);
+                    return valor != null &&
+                            (desde == null || valor.compareTo(desde) >= 0) &&
+                            (hasta == null || valor.compareTo(hasta) <= 0);
+                },
+                List.of(new Condicion(nombre, desde, hasta)));
+    }
+
+    public static <E, V> Criterio<E> noNulo(String atributo, Function<E, V> extractor) {
+        return new Criterio<E>(
+                (raiz, consulta, cb) -> cb.isNotNull(raiz.get(atributo)),
+                e -> extractor.apply(e) != null);
+    }
+
+    // El atributo admite rutas a través de asociaciones, p. ej. "departamento.codigo"
+    public static <E, V> Criterio<E> en(String atributo, Function<E, V> extractor, Collection<V> valores) {
+        if (valores.isEmpty()) {
+            return ninguno();
+        }
+        return new Criterio<E>(
+                (raiz, consulta, cb) -> ruta(raiz, atributo).in(valores),
+                e -> valores.contains(extractor.apply(e)));
+    }
+
+    public Criterio<E> y(Criterio<E> otro) {
+        final var unidas = new ArrayList<>(condiciones);
+        unidas.addAll(otro.condiciones);
+        return new Criterio<E>(
+                especificacion.and(otro.especificacion), predicado.and(otro.predicado), List.copyOf(unidas));
+    }
+
+    private static Path<?> ruta(Path<?> raiz, String atributo) {
+        Path<?> actual = raiz;
+        for (final var segmento : atributo.split("\\.")) {
+            actual = actual.get(segmento);
+        }
+        return actual;
+    }
+}
@@ -0,0 +1,272 @@
+package scott.infra.jpa;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import scott.infra.jpa.entidad.Entidad;
+import scott.infra.jpa.entidad.EscuchaEntidad;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Implementa en memoria cualquier interfaz derivada de Repositorio: los métodos de Repositorio se delegan en un
+// RepositorioMemoria, los métodos por defecto se ejecutan tal cual y las consultas derivadas (findBy, existsBy,
+// countBy, deleteBy...) se interpretan con el mismo analizador de nombres que usa Spring Data, como predicados
+// sobre las propiedades de la entidad. Los métodos no admitidos se rechazan al generar el repositorio
+public final class GeneradorRepositoriosMemoria {
+
+    private GeneradorRepositoriosMemoria() {
+    }
+
+    public static <R extends Repositorio<?>> R generar(Class<R> interfaz) {
+        return generar(interfaz, null, null);
+    }
+
+    // Los repositorios unidos a la misma cascada emulan entre sí las restricciones ON DELETE CASCADE; los cambios
+    // se publican con la escucha del contexto, si la hay
+    @SuppressWarnings("unchecked")
+    public static <R extends Repositorio<?>> R generar(Class<R> interfaz,
+                                                       CascadaMemoria cascada,
+                                                       EscuchaEntidad escucha) {
+        final var claseEntidad = (Class<Entidad>) GenericTypeResolver.resolveTypeArgument(interfaz, Repositorio.class);
+        if (claseEntidad == null) {
+            throw new IllegalArgumentException("No se puede resolver la entidad de %s".formatted(interfaz.getName()));
+        }
+        final var base = new RepositorioMemoria<Entidad>(claseEntidad, new ConcurrentHashMap<>()) {
+        };
+        if (cascada != null) {
+            base.unirA(cascada);
+        }
+        if (escucha != null) {
+            base.publicarEn(escucha);
+        }
+        final var consultas = new HashMap<Method, ConsultaDerivada>();
+        for (final var metodo : interfaz.getMethods()) {
+            if (!metodo.isDefault() && !metodo.getDeclaringClass().isAssignableFrom(base.getClass())) {
+                consultas.put(metodo, new ConsultaDerivada(metodo, claseEntidad));
+            }
+        }
+        final InvocationHandler manejador = (proxy, metodo, argumentos) -> {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return switch (metodo.getName()) {
+                    case "equals" -> proxy == argumentos[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> interfaz.getSimpleName() + "[memoria]";
+                };
+            }
+            final var consulta = consultas.get(metodo);
+            if (consulta != null) {
+                return consulta.ejecutar(base, argumentos == null ? new Object[0] : argumentos);
+            }
+            // Los métodos por defecto de Repositorio van a la base, que puede redefinirlos
+            if (metodo.isDefault() && !metodo.getDeclaringClass().isInstance(base)) {
+                return InvocationHandler.invokeDefault(proxy, metodo, argumentos);
+            }
+            try {
+                return metodo.invoke(base, argumentos);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (R) Proxy.newProxyInstance(interfaz.getClassLoader(), new Class<?>[]{interfaz}, manejador);
+    }
+
+    private static final class ConsultaDerivada {
+
+        private final PartTree arbol;
+        private final Class<?> tipoRetorno;
+        private final boolean ordenDinamico;
+
+        ConsultaDerivada(Method metodo, Class<?> claseEntidad) {
+            this.arbol = new PartTree(metodo.getName(), claseEntidad);
+            this.tipoRetorno = metodo.getReturnType();
+            final var parametros = metodo.getParameterTypes();
+            this.ordenDinamico = parametros.length > 0 && Sort.class.isAssignableFrom(parametros[parametros.length - 1]);
+            for (final var parte : arbol.getParts()) {
+                if (!ADMITIDAS.contains(parte.getType())) {
+                    throw new UnsupportedOperationException(
+                            "%s: %s no se admite en memoria".formatted(metodo, parte.getType()));
+                }
+            }
+        }
+
+        Object ejecutar(RepositorioMemoria<Entidad> base, Object[] argumentos) {
+            final var valores = Arrays.asList(argumentos).iterator();
+            Predicate<Object> criterio = entidad -> false;
+            for (final var alternativa : arbol) {
+                Predicate<Object> conjuncion = entidad -> true;
+                for (final var parte : alternativa) {
+                    conjuncion = conjuncion.and(predicado(parte, valores));
+                }
+                criterio = criterio.or(conjuncion);
+            }
+            var seleccion = base.todas().filter(criterio);
+            final var orden = ordenDinamico ? arbol.getSort().and((Sort) argumentos[argumentos.length - 1]) : arbol.getSort();
+            if (orden.isSorted()) {
+                seleccion = seleccion.sorted(comparador(orden));
+            }
+            if (arbol.isDistinct()) {
+                seleccion = seleccion.distinct();
+            }
+            if (arbol.isLimiting()) {
+                seleccion = seleccion.limit(arbol.getMaxResults());
+            }
+
+            if (arbol.isCountProjection()) {
+                return numero(seleccion.count());
+            }
+            if (arbol.isExistsProjection()) {
+                return seleccion.findAny().isPresent();
+            }
+            final var resultado = seleccion.toList();
+            if (arbol.isDelete()) {
+                resultado.forEach(base::delete);
+                return Collection.class.isAssignableFrom(tipoRetorno) ? resultado : numero(resultado.size());
+            }
+            if (tipoRetorno == Optional.class) {
+                return unico(resultado).map(Optional::of).orElse(Optional.empty());
+            }
+            if (tipoRetorno == Stream.class) {
+                return resultado.stream();
+            }
+            if (Set.class.isAssignableFrom(tipoRetorno)) {
+                return new LinkedHashSet<>(resultado);
+            }
+            if (Iterable.class.isAssignableFrom(tipoRetorno)) {
+                return resultado;
+            }
+            return unico(resultado).orElse(null);
+        }
+
+        private Object numero(long valor) {
+            return tipoRetorno == int.class || tipoRetorno == Integer.class ? (Object) (int) valor : (Object) valor;
+        }
+
+        private static Optional<Entidad> unico(List<Entidad> resultado) {
+            if (resultado.size() > 1) {
+                throw new IncorrectResultSizeDataAccessException(1, resultado.size());
+            }
+            return resultado.stream().findFirst();
+        }
+    }
+
+    private static final Set<Part.Type> ADMITIDAS = EnumSet.of(
+            Part.Type.SIMPLE_PROPERTY, Part.Type.NEGATING_SIMPLE_PROPERTY,
+            Part.Type.IS_NULL, Part.Type.IS_NOT_NULL, Part.Type.TRUE, Part.Type.FALSE,
+            Part.Type.GREATER_THAN, Part.Type.GREATER_THAN_EQUAL, Part.Type.LESS_THAN, Part.Type.LESS_THAN_EQUAL,
+            Part.Type.AFTER, Part.Type.BEFORE, Part.Type.BETWEEN, Part.Type.IN, Part.Type.NOT_IN,
+            Part.Type.LIKE, Part.Type.NOT_LIKE, Part.Type.STARTING_WITH, Part.Type.ENDING_WITH,
+            Part.Type.CONTAINING, Part.Type.NOT_CONTAINING, Part.Type.IS_EMPTY, Part.Type.IS_NOT_EMPTY);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate<Object> predicado(Part parte, Iterator<Object> valores) {
+        final var ruta = parte.getProperty().toDotPath();
+        final var ignorarMayusculas = parte.shouldIgnoreCase() != Part.IgnoreCaseType.NEVER;
+        final var argumentos = new Object[parte.getNumberOfArguments()];
+        for (int i = 0; i < argumentos.length; i++) {
+            argumentos[i] = valores.next();
+        }
+        final var valor = argumentos.length > 0 ? argumentos[0] : null;
+        return entidad -> {
+            final var actual = leer(entidad, ruta);
+            return switch (parte.getType()) {
+                case SIMPLE_PROPERTY -> iguales(actual, valor, ignorarMayusculas);
+                case NEGATING_SIMPLE_PROPERTY -> !iguales(actual, valor, ignorarMayusculas);
+                case IS_NULL -> actual == null;
+                case IS_NOT_NULL -> actual != null;
+                case TRUE -> Boolean.TRUE.equals(actual);
+                case FALSE -> Boolean.FALSE.equals(actual);
+                case GREATER_THAN, AFTER -> actual != null && ((Comparable) actual).compareTo(valor) > 0;
+                case GREATER_THAN_EQUAL -> actual != null && ((Comparable) actual).compareTo(valor) >= 0;
+                case LESS_THAN, BEFORE -> actual != null && ((Comparable) actual).compareTo(valor) < 0;
+                case LESS_THAN_EQUAL -> actual != null && ((Comparable) actual).compareTo(valor) <= 0;
+                case BETWEEN -> actual != null &&
+                        ((Comparable) actual).compareTo(argumentos[0]) >= 0 &&
+                        ((Comparable) actual).compareTo(argumentos[1]) <= 0;
+                case IN -> ((Collection<?>) valor).contains(actual);
+                case NOT_IN -> !((Collection<?>) valor).contains(actual);
+                case LIKE -> actual != null && like(valor, ignorarMayusculas).matcher(actual.toString()).matches();
+                case NOT_LIKE -> actual != null && !like(valor, ignorarMayusculas).matcher(actual.toString()).matches();
+                case STARTING_WITH -> actual != null && texto(actual, ignorarMayusculas).startsWith(texto(valor, ignorarMayusculas));
+                case ENDING_WITH -> actual != null && texto(actual, ignorarMayusculas).endsWith(texto(valor, ignorarMayusculas));
+                case CONTAINING -> contiene(actual, valor, ignorarMayusculas);
+                case NOT_CONTAINING -> actual != null && !contiene(actual, valor, ignorarMayusculas);
+                case IS_EMPTY -> actual == null || ((Collection<?>) actual).isEmpty();
+                case IS_NOT_EMPTY -> actual != null && !((Collection<?>) actual).isEmpty();
+                default -> throw new UnsupportedOperationException(parte.getType().toString());
+            };
+        };
+    }
+
+    // Las rutas que atraviesan una asociación nula producen null, como un LEFT JOIN
+    private static Object leer(Object entidad, String ruta) {
+        Object actual = entidad;
+        for (final var segmento : ruta.split("\\.")) {
+            if (actual == null) {
+                return null;
+            }
+            actual = new BeanWrapperImpl(actual).getPropertyValue(segmento);
+        }
+        return actual;
+    }
+
+    private static boolean iguales(Object actual, Object valor, boolean ignorarMayusculas) {
+        if (ignorarMayusculas && actual instanceof String a && valor instanceof String b) {
+            return a.equalsIgnoreCase(b);
+        }
+        if (actual instanceof Comparable && valor != null && actual.getClass() == valor.getClass()) {
+            return compararIguales(actual, valor);
+        }
+        return Objects.equals(actual, valor);
+    }
+
+    // BigDecimal se compara por valor, sin tener en cuenta la escala, igual que en SQL
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean compararIguales(Object actual, Object valor) {
+        return ((Comparable) actual).compareTo(valor) == 0;
+    }
+
+    private static boolean contiene(Object actual, Object valor, boolean ignorarMayusculas) {
+        if (actual instanceof Collection<?> coleccion) {
+            return coleccion.contains(valor);
+        }
+        return actual != null && texto(actual, ignorarMayusculas).contains(texto(valor, ignorarMayusculas));
+    }
+
+    private static String texto(Object valor, boolean ignorarMayusculas) {
+        return ignorarMayusculas ? valor.toString().toLowerCase(Locale.ROOT) : valor.toString();
+    }
+
+    private static Pattern like(Object patron, boolean ignorarMayusculas) {
+        final var expresion = patron.toString().chars()
+                .mapToObj(caracter -> switch (caracter) {
+                    case '%' -> ".*";
+                    case '_' -> ".";
+                    default -> Pattern.quote(String.valueOf((char) caracter));
+                })
+                .collect(Collectors.joining());
+        return Pattern.compile(expresion, ignorarMayusculas ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+    }
+
+    private static <E> Comparator<E> comparador(Sort orden) {
+        Comparator<E> comparador = (a, b) -> 0;
+        for (final var criterio : orden) {
+            comparador = comparador.thenComparing(new PropertyComparator<>(new MutableSortDefinition(
+                    criterio.getProperty(), criterio.isIgnoreCase(), criterio.isAscending())));
+        }
+        return comparador;
+    }
+}
@@ -0,0 +1,144 @@
+package scott.infra.jpa;
+
+import scott.infra.jpa.Criterio.Condicion;
+import scott.infra.jpa.entidad.Entidad;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Índice ordenado de RepositorioMemoria sobre un atributo comparable, opcionalmente particionado por la igualdad de
+// otro atributo (p. ej. departamento y salario). Cada partición es una skip list valor -> ids, así que un rango se
+// resuelve en O(log n + k). Las lecturas no se bloquean; las escrituras se serializan por índice y recuerdan el
+// valor indexado de cada id, porque las entidades se modifican en el lugar antes de guardarse
+final class IndiceRango<E extends Entidad> {
+
+    private static final Object SIN_PARTICION = new Object();
+
+    private record Posicion(Object particion, Comparable<Object> valor) {
+    }
+
+    private final String atributoParticion;
+    private final Function<E, ?> extractorParticion;
+    private final String atributo;
+    private final Class<?> tipo;
+    private final Function<E, Comparable<Object>> extractor;
+    private final Map<Object, ConcurrentNavigableMap<Comparable<Object>, Set<String>>> particiones =
+            new ConcurrentHashMap<>();
+    private final Map<String, Posicion> posiciones = new ConcurrentHashMap<>();
+
+    IndiceRango(String atributoParticion,
+                Function<E, ?> extractorParticion,
+                String atributo,
+                Class<?> tipo,
+                Function<E, Comparable<Object>> extractor) {
+        this.atributoParticion = atributoParticion;
+        this.extractorParticion = extractorParticion;
+        this.atributo = atributo;
+        this.tipo = tipo;
+        this.extractor = extractor;
+    }
+
+    synchronized void registrar(E entidad) {
+        final var valor = extractor.apply(entidad);
+        final var nueva = valor == null ? null : new Posicion(particion(entidad), valor);
+        final var anterior = posiciones.get(entidad.getId());
+        if (Objects.equals(anterior, nueva)) {
+            return;
+        }
+        quitar(entidad.getId());
+        if (nueva != null) {
+            particiones.computeIfAbsent(nueva.particion(), particion -> new ConcurrentSkipListMap<>())
+                    .computeIfAbsent(nueva.valor(), v -> ConcurrentHashMap.newKeySet())
+                    .add(entidad.getId());
+            posiciones.put(entidad.getId(), nueva);
+        }
+    }
+
+    synchronized void quitar(String id) {
+        final var anterior = posiciones.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        final var particion = particiones.get(anterior.particion());
+        final var ids = particion.get(anterior.valor());
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            particion.remove(anterior.valor());
+        }
+    }
+
+    // Cuántas de las condiciones aprovecha el índice: 2 con partición y rango, 1 con solo una de ellas, 0 si no sirve
+    int aprovechamiento(List<Condicion> condiciones) {
+        final var rango = rango(condiciones).isPresent();
+        if (atributoParticion == null) {
+            return rango ? 1 : 0;
+        }
+        final var igualdad = condicion(condiciones, atributoParticion).filter(Condicion::esIgualdad).isPresent();
+        return !igualdad ? 0 : rango ? 2 : 1;
+    }
+
+    // Ids candidatos: pueden incluir entidades que no cumplen el resto del criterio, nunca omitir las que sí
+    @SuppressWarnings("unchecked")
+    Stream<String> candidatos(List<Condicion> condiciones) {
+        final Stream<ConcurrentNavigableMap<Comparable<Object>, Set<String>>> seleccionadas =
+                atributoParticion == null ?
+                        Stream.ofNullable(particiones.get(SIN_PARTICION)) :
+                        Stream.ofNullable(particiones.get(clave(condicion(condiciones, atributoParticion)
+                                .orElseThrow()
+                                .desde())));
+        final var rango = rango(condiciones);
+        return seleccionadas
+                .map(particion -> rango.map(condicion -> acotar(
+                        particion,
+                        (Comparable<Object>) condicion.desde(),
+                        (Comparable<Object>) condicion.hasta())).orElse(particion))
+                .flatMap(particion -> particion.values().stream())
+                .flatMap(Set::stream);
+    }
+
+    private static ConcurrentNavigableMap<Comparable<Object>, Set<String>> acotar(
+            ConcurrentNavigableMap<Comparable<Object>, Set<String>> particion,
+            Comparable<Object> desde,
+            Comparable<Object> hasta) {
+        if (desde != null && hasta != null) {
+            return desde.compareTo(hasta) > 0 ?
+                    new ConcurrentSkipListMap<>() :
+                    particion.subMap(desde, true, hasta, true);
+        }
+        return desde != null ? particion.tailMap(desde, true) :
+                hasta != null ? particion.headMap(hasta, true) :
+                        particion;
+    }
+
+    // Un rango con extremos de otro tipo que el indexado (p. ej. un Atributo propio con otro extractor) no se compara
+    // con las claves: lo resuelve el predicado
+    private Optional<Condicion> rango(List<Condicion> condiciones) {
+        return condicion(condiciones, atributo).filter(condicion ->
+                (condicion.desde() == null || tipo.isInstance(condicion.desde())) &&
+                        (condicion.hasta() == null || tipo.isInstance(condicion.hasta())));
+    }
+
+    private static Optional<Condicion> condicion(List<Condicion> condiciones, String atributo) {
+        return condiciones.stream().filter(condicion -> condicion.atributo().equals(atributo)).findFirst();
+    }
+
+    private Object particion(E entidad) {
+        return extractorParticion == null ? SIN_PARTICION : clave(extractorParticion.apply(entidad));
+    }
+
+    // Las asociaciones se particionan por id, para no depender de que la instancia sea la misma
+    private static Object clave(Object valor) {
+        if (valor instanceof Entidad entidad) {
+            return entidad.getId();
+        }
+        return valor == null ? SIN_PARTICION : valor;
+    }
+}
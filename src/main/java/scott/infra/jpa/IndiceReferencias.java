@@ -0,0 +1,59 @@
+package scott.infra.jpa;
+
+import scott.infra.jpa.entidad.Entidad;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Índice inverso de RepositorioMemoria sobre una asociación @OnDelete(CASCADE): id referido -> ids que lo
+// referencian, para que un borrado encuentre sus dependientes sin recorrer el repositorio. Como IndiceRango,
+// recuerda la referencia indexada de cada id, porque las entidades se modifican en el lugar antes de guardarse
+final class IndiceReferencias<E extends Entidad> {
+
+    private final Class<?> tipo;
+    private final Function<E, ?> extractor;
+    private final Map<String, Set<String>> dependientes = new ConcurrentHashMap<>();
+    private final Map<String, String> referidas = new ConcurrentHashMap<>();
+
+    IndiceReferencias(Class<?> tipo, Function<E, ?> extractor) {
+        this.tipo = tipo;
+        this.extractor = extractor;
+    }
+
+    synchronized void registrar(E entidad) {
+        final var nueva = extractor.apply(entidad) instanceof Entidad referida ? referida.getId() : null;
+        if (Objects.equals(referidas.get(entidad.getId()), nueva)) {
+            return;
+        }
+        quitar(entidad.getId());
+        if (nueva != null) {
+            dependientes.computeIfAbsent(nueva, id -> ConcurrentHashMap.newKeySet()).add(entidad.getId());
+            referidas.put(entidad.getId(), nueva);
+        }
+    }
+
+    synchronized void quitar(String id) {
+        final var referida = referidas.remove(id);
+        if (referida == null) {
+            return;
+        }
+        final var ids = dependientes.get(referida);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            dependientes.remove(referida);
+        }
+    }
+
+    // Copia de los ids, que el borrado en cascada va quitando del índice
+    List<String> dependientes(Entidad borrada) {
+        if (!tipo.isInstance(borrada)) {
+            return List.of();
+        }
+        final var ids = dependientes.get(borrada.getId());
+        return ids == null ? List.of() : List.copyOf(ids);
+    }
+}
@@ -0,0 +1,14 @@
+package scott.infra.jpa;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Registrado mediante hibernate.session_factory.statement_inspector; ve cada sentencia al prepararse, por lo que
+// un lote JDBC cuenta como una sola sentencia
+public class InspectorSentencias implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        ContadorSentencias.registrar(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,25 @@
+package scott.infra.jpa;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+// Cada método público de un servicio de dominio es una operación lógica para ContadorSentencias
+@Aspect
+@Component
+public class MedicionServicios {
+
+    @Around("execution(public * scott.dominio.Servicio*+.*(..))")
+    public Object medir(ProceedingJoinPoint punto) throws Throwable {
+        try (final var ignorada = ContadorSentencias.iniciar(nombreOperacion(punto))) {
+            return punto.proceed();
+        }
+    }
+
+    private static String nombreOperacion(ProceedingJoinPoint punto) {
+        final var clase = punto.getSignature().getDeclaringType();
+        final var servicio = clase.getEnclosingClass() != null ? clase.getEnclosingClass() : clase;
+        return "%s.%s".formatted(servicio.getSimpleName(), punto.getSignature().getName());
+    }
+}
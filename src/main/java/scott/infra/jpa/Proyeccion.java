@@ -0,0 +1,152 @@
+package scott.infra.jpa;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import scott.infra.util.Dinero;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Descripción de una proyección (registro o interfaz cerrada) sobre una entidad: cada propiedad de la proyección
+// se resuelve a una ruta de atributos de la entidad con las mismas reglas de las consultas derivadas de Spring Data,
+// p. ej. departamentoNombre -> departamento.nombre. Cada valor se convierte al tipo de la propiedad de la proyección,
+// de modo que la consulta JPA (que entrega el tipo del atributo, p. ej. Dinero) y la lectura en memoria (que entrega
+// el del lector, p. ej. BigDecimal) producen lo mismo
+final class Proyeccion<P> {
+
+    private static final ProjectionFactory fabrica = new SpelAwareProxyProjectionFactory();
+    private static final Map<List<Class<?>>, Proyeccion<?>> proyecciones = new ConcurrentHashMap<>();
+
+    private final Class<P> tipo;
+    private final List<String> propiedades;
+    private final List<Class<?>> tipos;
+    private final List<String> rutas;
+    private final List<List<Method>> lectores;
+    private final Constructor<P> constructor;
+
+    private Proyeccion(Class<?> claseEntidad, Class<P> tipo) {
+        this.tipo = tipo;
+        this.propiedades = propiedades(tipo);
+        this.tipos = tipos(tipo);
+        final var caminos = propiedades.stream().map(propiedad -> PropertyPath.from(propiedad, claseEntidad)).toList();
+        this.rutas = caminos.stream().map(PropertyPath::toDotPath).toList();
+        this.lectores = caminos.stream().map(Proyeccion::lectores).toList();
+        this.constructor = tipo.isRecord() ? constructorCanonico(tipo) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <P> Proyeccion<P> de(Class<?> claseEntidad, Class<P> tipo) {
+        return (Proyeccion<P>) proyecciones.computeIfAbsent(
+                List.of(claseEntidad, tipo),
+                clave -> new Proyeccion<>(claseEntidad, tipo));
+    }
+
+    List<String> rutas() {
+        return rutas;
+    }
+
+    P crear(Object[] valores) {
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = convertir(valores[i], tipos.get(i));
+        }
+        if (constructor != null) {
+            try {
+                return constructor.newInstance(valores);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("No se pudo crear la proyección %s".formatted(tipo.getSimpleName()), e);
+            }
+        }
+        final var mapa = new HashMap<String, Object>(valores.length * 2);
+        for (int i = 0; i < valores.length; i++) {
+            mapa.put(propiedades.get(i), valores[i]);
+        }
+        return fabrica.createProjection(tipo, mapa);
+    }
+
+    P extraer(Object entidad) {
+        final var valores = new Object[lectores.size()];
+        for (int i = 0; i < valores.length; i++) {
+            Object valor = entidad;
+            for (final var lector : lectores.get(i)) {
+                if (valor == null) {
+                    break;
+                }
+                try {
+                    valor = lector.invoke(valor);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("No se pudo leer %s".formatted(rutas.get(i)), e);
+                }
+            }
+            valores[i] = valor;
+        }
+        return crear(valores);
+    }
+
+    // Los montos se guardan como Dinero y se exponen como BigDecimal; una proyección puede pedir cualquiera de los dos
+    private static Object convertir(Object valor, Class<?> destino) {
+        if (valor instanceof Dinero dinero && destino == BigDecimal.class) {
+            return dinero.aBigDecimal();
+        }
+        if (valor instanceof BigDecimal monto && destino == Dinero.class) {
+            return Dinero.de(monto);
+        }
+        return valor;
+    }
+
+    private static List<Class<?>> tipos(Class<?> tipo) {
+        if (tipo.isRecord()) {
+            return Arrays.stream(tipo.getRecordComponents()).<Class<?>>map(RecordComponent::getType).toList();
+        }
+        return fabrica.getProjectionInformation(tipo).getInputProperties().stream()
+                .<Class<?>>map(PropertyDescriptor::getPropertyType)
+                .toList();
+    }
+
+    private static List<String> propiedades(Class<?> tipo) {
+        if (tipo.isRecord()) {
+            return Arrays.stream(tipo.getRecordComponents()).map(RecordComponent::getName).toList();
+        }
+        if (tipo.isInterface()) {
+            final var informacion = fabrica.getProjectionInformation(tipo);
+            if (!informacion.isClosed()) {
+                throw new IllegalArgumentException("Solo se admiten proyecciones cerradas: %s".formatted(tipo.getName()));
+            }
+            return informacion.getInputProperties().stream().map(PropertyDescriptor::getName).toList();
+        }
+        throw new IllegalArgumentException("La proyección debe ser un registro o una interfaz: %s".formatted(tipo.getName()));
+    }
+
+    private static List<Method> lectores(PropertyPath camino) {
+        return camino.stream()
+                .map(segmento -> {
+                    final var descriptor = BeanUtils.getPropertyDescriptor(
+                            segmento.getOwningType().getType(), segmento.getSegment());
+                    if (descriptor == null || descriptor.getReadMethod() == null) {
+                        throw new IllegalArgumentException("Propiedad sin lector: %s".formatted(segmento.toDotPath()));
+                    }
+                    return descriptor.getReadMethod();
+                })
+                .toList();
+    }
+
+    private static <P> Constructor<P> constructorCanonico(Class<P> tipo) {
+        final var tipos = Arrays.stream(tipo.getRecordComponents()).map(RecordComponent::getType).toArray(Class<?>[]::new);
+        try {
+            final var constructor = tipo.getDeclaredConstructor(tipos);
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
-public interface Repositorio<E extends Entidad> extends JpaRepository<E, String> {
+public interface Repositorio<E extends Entidad> extends JpaRepository<E, String>, RepositorioLectura<E> {
 
     default E guardar(E entidad) {
         return save(entidad);
@@ -18,22 +18,42 @@ public interface Repositorio<E extends Entidad> extends JpaRepository<E, String>
         return saveAndFlush(entidad);
     }
 
+    @Override
     default E leerPorId(String id) {
         return getById(id);
     }
 
+    @Override
     default Optional<E> buscarPorId(String id) {
         return findById(id);
     }
 
+    @Override
     default List<E> leerTodos() {
         return findAll();
     }
 
+    @Override
     default Stream<E> encontrar(Predicate<E> predicado) {
         return findAll().stream().filter(predicado);
     }
 
+    // Proyección a un registro o interfaz cerrada: solo se leen las columnas de sus propiedades y las asociaciones
+    // necesarias para alcanzarlas, sin crear entidades administradas
+    <P> List<P> proyectar(Class<P> tipo, Criterio<E> criterio);
+
+    default <P> List<P> proyectar(Class<P> tipo) {
+        return proyectar(tipo, Criterio.todos());
+    }
+
+    // Entidades completas con las asociaciones indicadas (p. ej. "departamento", "supervisor.departamento")
+    // cargadas en la misma consulta
+    List<E> cargar(Criterio<E> criterio, String... asociaciones);
+
+    int actualizarEnLote(ActualizacionLote<E> lote);
+
+    int borrarEnLote(Criterio<E> criterio);
+
     private static String nombreEntidad(Class<?> clase) {
         String nombre = clase.getSimpleName();
         if (nombre.startsWith("Repositorio")) {
@@ -3,11 +3,13 @@ package scott.infra.jpa;
 import io.vavr.CheckedConsumer;
 import io.vavr.CheckedFunction0;
 import io.vavr.CheckedFunction1;
+import io.vavr.CheckedRunnable;
 import io.vavr.control.Either;
 import org.springframework.data.jpa.repository.JpaRepository;
 import scott.infra.Falla;
 import scott.infra.Falla.FallaAplicacion;
 import scott.infra.Falla.FallaSistema;
+import scott.infra.jpa.entidad.Entidad;
 
 import java.util.Optional;
 import java.util.function.Function;
@@ -20,13 +22,14 @@ public class RepositorioDSL {
             CheckedConsumer<E> validacion,
             CheckedFunction0<E> crearInstancia
     ) {
-        return eitherCatch("creando instancia de entidad en memoria", crearInstancia)
-                .flatMap(entidad ->
-                        eitherCatch("validando instancia de entidad en memoria", entidad, validacion))
-                .flatMap(entidad ->
-                        eitherCatch("persistiendo nueva instancia", () -> repositorio.save(entidad)))
-                .flatMap(entidad ->
-                        eitherCatch("recuperando clave primaria", () -> clavePrimaria.apply(entidad)));
+        return ContadorSentencias.medir("RepositorioDSL.persistirInstancia", () ->
+                eitherCatch("creando instancia de entidad en memoria", crearInstancia)
+                        .flatMap(entidad ->
+                                eitherCatch("validando instancia de entidad en memoria", entidad, validacion))
+                        .flatMap(entidad ->
+                                eitherCatch("persistiendo nueva instancia", () -> repositorio.save(entidad)))
+                        .flatMap(entidad ->
+                                eitherCatch("recuperando clave primaria", () -> clavePrimaria.apply(entidad))));
     }
 
     public static <E, I> Either<Falla, Void> actualizar(
@@ -34,12 +37,12 @@ public class RepositorioDSL {
             JpaRepository<E, I> repositorio,
             CheckedConsumer<E> actualizar
     ) {
-        try {
+        try (final var ignorada = ContadorSentencias.iniciar("RepositorioDSL.actualizar")) {
             return repositorio
                     .findById(id)
                     .map(entidad ->
                             eitherCatch("actualizando entidad", entidad, actualizar)
-                                    .peek(repositorio::saveAndFlush)
+                                    .flatMap(e -> grabarActualizacion(repositorio, e))
                                     .<Void>map(e -> null)
                     )
                     .orElseGet(() -> Either.left(new FallaAplicacion("Id no encontrado: %s".formatted(id))));
@@ -53,14 +56,13 @@ public class RepositorioDSL {
             JpaRepository<E, I> repositorio,
             CheckedFunction1<E, R> actualizar
     ) {
-        try {
+        try (final var ignorada = ContadorSentencias.iniciar("RepositorioDSL.actualizarConResultado")) {
             return repositorio
                     .findById(id)
                     .map(entidad ->
                             eitherCatch("actualizando entidad", () -> actualizar.apply(entidad))
                                     .flatMap(resultado ->
-                                            eitherCatch("grabando entidad actualizada",
-                                                    () -> repositorio.saveAndFlush(entidad))
+                                            grabarActualizacion(repositorio, entidad)
                                                     .map(ignored -> resultado)
                                     )
                     )
@@ -70,6 +72,49 @@ public class RepositorioDSL {
         }
     }
 
+    public static <T> Either<Falla, T> enUnidadDeTrabajo(CheckedFunction0<Either<Falla, T>> cuerpo) {
+        return enUnidadDeTrabajo(UnidadTrabajo.UMBRAL, cuerpo);
+    }
+
+    public static <T> Either<Falla, T> enUnidadDeTrabajo(int umbral, CheckedFunction0<Either<Falla, T>> cuerpo) {
+        return ContadorSentencias.medir("RepositorioDSL.enUnidadDeTrabajo", () -> UnidadTrabajo.ejecutar(umbral, cuerpo));
+    }
+
+    // Efectos (índices, cachés) que solo deben aplicarse si la escritura se graba: dentro de una unidad de trabajo
+    // se aplican después de su sincronización y la falla de esta, o la del propio efecto, llega al resultado de la
+    // unidad; fuera de ella se aplican de inmediato
+    public static Either<Falla, Void> trasGrabar(String contexto, CheckedRunnable efecto) {
+        return UnidadTrabajo.actual()
+                .map(unidad -> unidad.trasGrabar(contexto, efecto))
+                .orElseGet(() -> eitherCatch(contexto, () -> {
+                    efecto.run();
+                    return (Void) null;
+                }));
+    }
+
+    // Dentro de una unidad de trabajo la entidad actualizada se difiere hasta el cierre del alcance
+    private static <E, I> Either<Falla, E> grabarActualizacion(JpaRepository<E, I> repositorio, E entidad) {
+        return UnidadTrabajo.actual()
+                .map(unidad -> unidad.registrar(repositorio, entidad))
+                .orElseGet(() -> eitherCatch("grabando entidad actualizada", () -> repositorio.saveAndFlush(entidad)));
+    }
+
+    public static <E extends Entidad> Either<Falla, Integer> actualizarEnLote(
+            Repositorio<E> repositorio,
+            ActualizacionLote<E> lote
+    ) {
+        return ContadorSentencias.medir("RepositorioDSL.actualizarEnLote", () ->
+                eitherCatch("actualizando entidades en lote", () -> repositorio.actualizarEnLote(lote)));
+    }
+
+    public static <E extends Entidad> Either<Falla, Integer> borrarEnLote(
+            Repositorio<E> repositorio,
+            Criterio<E> criterio
+    ) {
+        return ContadorSentencias.medir("RepositorioDSL.borrarEnLote", () ->
+                eitherCatch("borrando entidades en lote", () -> repositorio.borrarEnLote(criterio)));
+    }
+
     public static <E, I> E leer(JpaRepository<E, I> repositorio, I id) {
         return Optional.ofNullable(id)
                 .flatMap(repositorio::findById)
@@ -0,0 +1,404 @@
+package scott.infra.jpa;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+import scott.infra.eventos.EscuchaCambios;
+import scott.infra.eventos.EventoCambio;
+import scott.infra.eventos.EventoCambio.Tipo;
+import scott.infra.jpa.entidad.Entidad;
+import scott.infra.jpa.entidad.EscuchaEntidad;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Tuple;
+import javax.persistence.Subgraph;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class RepositorioJpa<E extends Entidad> extends SimpleJpaRepository<E, String> implements Repositorio<E> {
+
+    private final EntityManager entityManager;
+
+    public RepositorioJpa(JpaEntityInformation<E, ?> informacionEntidad, EntityManager entityManager) {
+        super(informacionEntidad, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public <P> List<P> proyectar(Class<P> tipo, Criterio<E> criterio) {
+        final var proyeccion = Proyeccion.de(getDomainClass(), tipo);
+        final var cb = entityManager.getCriteriaBuilder();
+        final var consulta = cb.createTupleQuery();
+        final var raiz = consulta.from(getDomainClass());
+        final var uniones = new HashMap<String, From<?, ?>>();
+        final var columnas = proyeccion.rutas().stream()
+                .<Selection<?>>map(ruta -> seguir(raiz, ruta, uniones))
+                .toList();
+        consulta.multiselect(columnas)
+                .where(criterio.especificacion().toPredicate(raiz, consulta, cb));
+        return entityManager.createQuery(consulta)
+                .getResultStream()
+                .map(fila -> proyeccion.crear(fila.toArray()))
+                .toList();
+    }
+
+    @Override
+    public List<E> cargar(Criterio<E> criterio, String... asociaciones) {
+        final var cb = entityManager.getCriteriaBuilder();
+        final var consulta = cb.createQuery(getDomainClass());
+        final var raiz = consulta.from(getDomainClass());
+        consulta.select(raiz).where(criterio.especificacion().toPredicate(raiz, consulta, cb));
+        return entityManager.createQuery(consulta)
+                .setHint("javax.persistence.loadgraph", grafo(asociaciones))
+                .getResultList();
+    }
+
+    // Cursor sobre las instancias del criterio en el orden pedido. Cada instancia se descarta del contexto de
+    // persistencia al entregarse, de modo que recorrer muchas filas no las retiene todas; quien llama cierra el flujo
+    // dentro de la transacción
+    public Stream<E> recorrer(Criterio<E> criterio, Sort orden) {
+        return getQuery(criterio.especificacion(), orden)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    @Transactional
+    public int actualizarEnLote(ActualizacionLote<E> lote) {
+        verificarInvariantes(lote);
+        if (!lote.admiteSentenciaUnica()) {
+            return actualizarPorBloques(lote);
+        }
+
+        // La sentencia UPDATE no pasa por el contexto de persistencia: se sincroniza antes y, después, se releen las
+        // entidades gestionadas que modificó
+        entityManager.flush();
+        final var afectadas = bloquearVersiones(lote.criterio());
+        final var cb = entityManager.getCriteriaBuilder();
+        final var actualizacion = cb.createCriteriaUpdate(getDomainClass());
+        final var raiz = actualizacion.from(getDomainClass());
+        for (final var asignacion : lote.asignaciones().entrySet()) {
+            actualizacion.set(asignacion.getKey(), asignacion.getValue());
+        }
+        // Equivalente a EscuchaEntidad.preUpdate y al control de versiones, que no se aplican en sentencias masivas
+        actualizacion.set("fechaActualizacion", LocalDateTime.now());
+        actualizacion.set(raiz.<Long>get("version"), cb.sum(raiz.<Long>get("version"), 1L));
+        actualizacion.where(lote.criterio().especificacion().toPredicate(raiz, null, cb));
+        final var actualizadas = entityManager.createQuery(actualizacion).executeUpdate();
+        final var campos = String.join(",", lote.asignaciones().keySet());
+        registrarEventos(getDomainClass(), afectadas, Tipo.CAMBIO, campos, 1);
+        sincronizar(Map.of(getDomainClass(), ids(afectadas)), Map.of());
+        return actualizadas;
+    }
+
+    // Las filas dependientes se eliminan mediante las restricciones ON DELETE CASCADE de la base de datos, sin
+    // cargarlas en memoria; por eso se descartan del contexto de persistencia las filas borradas y, en el caché de
+    // segundo nivel, la entidad y las que dependen de ella. Sus bajas se registran igual que las de las filas borradas
+    // directamente
+    @Override
+    @Transactional
+    public int borrarEnLote(Criterio<E> criterio) {
+        entityManager.flush();
+        final var filas = bloquearVersiones(criterio);
+        registrarEventos(getDomainClass(), filas, Tipo.BAJA, null, 0);
+        final var dependientes = dependientesEnCascada(List.copyOf(ids(filas)));
+        dependientes.forEach((clase, filasDependientes) ->
+                registrarEventos(clase, filasDependientes, Tipo.BAJA, null, 0));
+        final var cb = entityManager.getCriteriaBuilder();
+        final var borrado = cb.createCriteriaDelete(getDomainClass());
+        final var raiz = borrado.from(getDomainClass());
+        borrado.where(criterio.especificacion().toPredicate(raiz, null, cb));
+        final var borradas = entityManager.createQuery(borrado).executeUpdate();
+        final var descartadas = new HashMap<Class<? extends Entidad>, Set<String>>();
+        descartadas.put(getDomainClass(), ids(filas));
+        dependientes.forEach((clase, filasDependientes) -> descartadas.put(clase, ids(filasDependientes)));
+        sincronizar(Map.of(), descartadas);
+        desalojarDependientes();
+        return borradas;
+    }
+
+    // Las dependientes se buscan antes del borrado, que las elimina en cascada al sincronizarse. Las que el propio
+    // contexto de persistencia elimina por CascadeType.REMOVE ya tienen su evento y no se repiten
+    @Override
+    @Transactional
+    public void delete(E entidad) {
+        final var dependientes = entidad.getId() == null ?
+                Map.<Class<? extends Entidad>, List<Tuple>>of() :
+                dependientesEnCascada(List.of(entidad.getId()));
+        super.delete(entidad);
+        if (dependientes.isEmpty()) {
+            return;
+        }
+        final var eliminadas = new HashSet<Object>();
+        for (final var entrada : entityManager.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entrada.getValue().getStatus() == Status.DELETED) {
+                eliminadas.add(entrada.getValue().getId());
+            }
+        }
+        final var descartadas = new HashMap<Class<? extends Entidad>, Set<String>>();
+        dependientes.forEach((clase, filas) -> {
+            final var enCascadaSql = filas.stream()
+                    .filter(fila -> !eliminadas.contains(fila.get(0, String.class)))
+                    .toList();
+            registrarEventos(clase, enCascadaSql, Tipo.BAJA, null, 0);
+            descartadas.put(clase, ids(enCascadaSql));
+        });
+        sincronizar(Map.of(), descartadas);
+        desalojarDependientes();
+    }
+
+    // Filas que la base de datos borrará en cascada, bloqueadas y agrupadas por entidad. Se recorren las asociaciones
+    // @OnDelete(CASCADE) nivel por nivel hasta que no aparecen filas nuevas (un empleado puede depender de otro a
+    // través de su supervisor)
+    private Map<Class<? extends Entidad>, List<Tuple>> dependientesEnCascada(List<String> ids) {
+        final var metamodelo = entityManager.getMetamodel();
+        final var encontradas = new LinkedHashMap<Class<? extends Entidad>, List<Tuple>>();
+        final var vistos = new HashSet<>(ids);
+        var nivel = Map.<Class<?>, List<String>>of(getDomainClass(), ids);
+        while (!nivel.isEmpty()) {
+            final var siguiente = new HashMap<Class<?>, List<String>>();
+            for (final var borradas : nivel.entrySet()) {
+                for (final var tipo : metamodelo.getEntities()) {
+                    for (final var atributo : tipo.getSingularAttributes()) {
+                        if (borradas.getValue().isEmpty() ||
+                                !enCascada(atributo) ||
+                                !atributo.getJavaType().isAssignableFrom(borradas.getKey())) {
+                            continue;
+                        }
+                        final var dependientes = entityManager.createQuery(
+                                        "select e.id, e.version from %s e where e.%s.id in :ids"
+                                                .formatted(tipo.getName(), atributo.getName()),
+                                        Tuple.class)
+                                .setParameter("ids", borradas.getValue())
+                                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                                .getResultStream()
+                                .filter(fila -> vistos.add(fila.get(0, String.class)))
+                                .toList();
+                        if (!dependientes.isEmpty()) {
+                            @SuppressWarnings("unchecked")
+                            final var clase = (Class<? extends Entidad>) tipo.getJavaType();
+                            encontradas.computeIfAbsent(clase, c -> new ArrayList<>()).addAll(dependientes);
+                            siguiente.computeIfAbsent(clase, c -> new ArrayList<>())
+                                    .addAll(dependientes.stream().map(fila -> fila.get(0, String.class)).toList());
+                        }
+                    }
+                }
+            }
+            nivel = siguiente;
+        }
+        return encontradas;
+    }
+
+    private static boolean enCascada(Attribute<?, ?> atributo) {
+        return atributo.isAssociation() &&
+                atributo.getJavaMember() instanceof Field campo &&
+                campo.getAnnotation(OnDelete.class) instanceof OnDelete borrado &&
+                borrado.action() == OnDeleteAction.CASCADE;
+    }
+
+    // La entidad del repositorio, las que la referencian (directa o indirectamente) y las colecciones que las
+    // contienen
+    private void desalojarDependientes() {
+        final var metamodelo = entityManager.getMetamodel();
+        final var afectadas = new HashSet<Class<?>>(Set.of(getDomainClass()));
+        var cambios = true;
+        while (cambios) {
+            cambios = false;
+            for (final var tipo : metamodelo.getEntities()) {
+                final var referencia = tipo.getSingularAttributes().stream()
+                        .filter(Attribute::isAssociation)
+                        .anyMatch(atributo -> afectadas.stream().anyMatch(
+                                afectada -> atributo.getJavaType().isAssignableFrom(afectada)));
+                if (referencia && afectadas.add(tipo.getJavaType())) {
+                    cambios = true;
+                }
+            }
+        }
+        final var cache = entityManager.getEntityManagerFactory().getCache().unwrap(org.hibernate.Cache.class);
+        for (final var tipo : metamodelo.getEntities()) {
+            if (afectadas.contains(tipo.getJavaType())) {
+                cache.evict(tipo.getJavaType());
+            }
+            for (final var coleccion : tipo.getPluralAttributes()) {
+                if (afectadas.contains(coleccion.getElementType().getJavaType())) {
+                    cache.evictCollectionData(tipo.getJavaType().getName() + "." + coleccion.getName());
+                }
+            }
+        }
+    }
+
+    private int actualizarPorBloques(ActualizacionLote<E> lote) {
+        final var cb = entityManager.getCriteriaBuilder();
+        final var consulta = cb.createQuery(String.class);
+        final var raiz = consulta.from(getDomainClass());
+        consulta.select(raiz.<String>get("id"))
+                .where(lote.criterio().especificacion().toPredicate(raiz, consulta, cb));
+        final var ids = entityManager.createQuery(consulta).getResultList();
+
+        final var contexto = entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        for (int desde = 0; desde < ids.size(); desde += lote.tamanoBloque()) {
+            final var previas = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (final var entrada : contexto.reentrantSafeEntityEntries()) {
+                previas.add(entrada.getKey());
+            }
+            final var bloque = findAllById(ids.subList(desde, Math.min(desde + lote.tamanoBloque(), ids.size())));
+            bloque.forEach(lote.actualizacion().unchecked());
+            // Cada bloque se escribe y se descarta lo que cargó, para que el contexto de persistencia no crezca con el
+            // lote; las entidades que ya tenía quien llama siguen gestionadas, con la actualización aplicada
+            entityManager.flush();
+            for (final var entrada : contexto.reentrantSafeEntityEntries()) {
+                if (!previas.contains(entrada.getKey()) && entityManager.contains(entrada.getKey())) {
+                    entityManager.detach(entrada.getKey());
+                }
+            }
+        }
+        return ids.size();
+    }
+
+    // Tras una sentencia masiva, las entidades gestionadas que modificó se releen y las que borró se descartan, igual
+    // que las que tienen cargada una colección de alguna de esas clases, que quedaría desactualizada. El resto de lo
+    // que haya cargado quien llama sigue gestionado
+    private void sincronizar(Map<Class<? extends Entidad>, Set<String>> actualizadas,
+                             Map<Class<? extends Entidad>, Set<String>> borradas) {
+        final var contexto = entityManager.unwrap(SessionImplementor.class).getPersistenceContextInternal();
+        final var clases = new HashSet<Class<?>>(actualizadas.keySet());
+        clases.addAll(borradas.keySet());
+        final var releer = new ArrayList<Object>();
+        final var descartar = new ArrayList<Object>();
+        for (final var entrada : contexto.reentrantSafeEntityEntries()) {
+            if (entrada.getValue().getStatus() != Status.MANAGED || !(entrada.getKey() instanceof Entidad entidad)) {
+                continue;
+            }
+            if (contiene(borradas, entidad)) {
+                descartar.add(entidad);
+            } else if (contiene(actualizadas, entidad)) {
+                releer.add(entidad);
+            }
+        }
+        contexto.forEachCollectionEntry((coleccion, entrada) -> {
+            final var persistidor = entrada.getLoadedPersister();
+            if (coleccion.wasInitialized() && persistidor != null && coleccion.getOwner() != null &&
+                    clases.stream().anyMatch(persistidor.getElementType().getReturnedClass()::isAssignableFrom)) {
+                final var propietaria = contexto.getEntry(coleccion.getOwner());
+                if (propietaria != null && propietaria.getStatus() == Status.MANAGED) {
+                    descartar.add(coleccion.getOwner());
+                }
+            }
+        }, false);
+        descartar.stream().filter(entityManager::contains).forEach(entityManager::detach);
+        releer.stream().filter(entityManager::contains).forEach(entityManager::refresh);
+    }
+
+    private static boolean contiene(Map<Class<? extends Entidad>, Set<String>> filas, Entidad entidad) {
+        for (final var grupo : filas.entrySet()) {
+            if (grupo.getKey().isInstance(entidad) && grupo.getValue().contains(entidad.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<String> ids(List<Tuple> filas) {
+        final var ids = new HashSet<String>();
+        filas.forEach(fila -> ids.add(fila.get(0, String.class)));
+        return ids;
+    }
+
+    // Identificadores y versiones de las filas seleccionadas, bloqueadas hasta el final de la transacción para que
+    // la versión registrada en el evento sea la que deja la sentencia masiva
+    private List<Tuple> bloquearVersiones(Criterio<E> criterio) {
+        final var cb = entityManager.getCriteriaBuilder();
+        final var consulta = cb.createTupleQuery();
+        final var raiz = consulta.from(getDomainClass());
+        consulta.multiselect(raiz.get("id"), raiz.get("version"))
+                .where(criterio.especificacion().toPredicate(raiz, consulta, cb));
+        return entityManager.createQuery(consulta)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    private void registrarEventos(Class<? extends Entidad> clase,
+                                  List<Tuple> filas,
+                                  Tipo tipo,
+                                  String campos,
+                                  long incrementoVersion) {
+        final var entidad = clase.getSimpleName();
+        EscuchaCambios.registrar(
+                entityManager.unwrap(SessionImplementor.class),
+                filas.stream()
+                        .map(fila -> {
+                            final var version = fila.get(1, Long.class);
+                            return EventoCambio.nuevo(
+                                    entidad, fila.get(0, String.class), tipo, campos,
+                                    version == null ? null : version + incrementoVersion);
+                        })
+                        .toList());
+        // Las sentencias masivas no pasan por las retrollamadas de EscuchaEntidad
+        final var escucha = EscuchaEntidad.de(entityManager.unwrap(SessionImplementor.class));
+        filas.forEach(fila -> escucha.notificar(tipo, clase, fila.get(0, String.class)));
+    }
+
+    // Las asociaciones intermedias se recorren con LEFT JOIN, compartido entre rutas con el mismo prefijo, para que
+    // una asociación nula produzca valores nulos en lugar de descartar la fila
+    private static Path<?> seguir(From<?, ?> raiz, String ruta, Map<String, From<?, ?>> uniones) {
+        final var segmentos = ruta.split("\\.");
+        From<?, ?> actual = raiz;
+        for (int i = 0; i < segmentos.length - 1; i++) {
+            final var origen = actual;
+            final var segmento = segmentos[i];
+            actual = uniones.computeIfAbsent(
+                    String.join(".", List.of(segmentos).subList(0, i + 1)),
+                    prefijo -> origen.join(segmento, JoinType.LEFT));
+        }
+        return actual.get(segmentos[segmentos.length - 1]);
+    }
+
+    private EntityGraph<E> grafo(String... asociaciones) {
+        final var grafo = entityManager.createEntityGraph(getDomainClass());
+        for (final var asociacion : asociaciones) {
+            final var segmentos = asociacion.split("\\.");
+            if (segmentos.length == 1) {
+                grafo.addAttributeNodes(asociacion);
+                continue;
+            }
+            Subgraph<?> subgrafo = grafo.addSubgraph(segmentos[0]);
+            for (int i = 1; i < segmentos.length - 1; i++) {
+                subgrafo = subgrafo.addSubgraph(segmentos[i]);
+            }
+            subgrafo.addAttributeNodes(segmentos[segmentos.length - 1]);
+        }
+        return grafo;
+    }
+
+    private void verificarInvariantes(ActualizacionLote<E> lote) {
+        for (final var invariante : lote.invariantes()) {
+            final var violaciones = count(lote.criterio().y(invariante.violacion()).especificacion());
+            if (violaciones > 0) {
+                throw invariante.violada(violaciones);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package scott.infra.jpa;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+public interface RepositorioLectura<T> {
+
+    T leerPorId(String id);
+
+    Optional<T> buscarPorId(String id);
+
+    List<T> leerTodos();
+
+    default Stream<T> encontrar(Predicate<T> predicado) {
+        return leerTodos().stream().filter(predicado);
+    }
+}
@@ -1,77 +1,133 @@
 package scott.infra.jpa;
 
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.GenericTypeResolver;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+import scott.infra.eventos.EventoCambio.Tipo;
 import scott.infra.jpa.entidad.Entidad;
 import scott.infra.jpa.entidad.EscuchaEntidad;
-import scott.infra.util.Colecciones;
 
+import javax.persistence.Column;
+import javax.persistence.JoinColumn;
+import javax.persistence.Table;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 
+// Las lecturas por id no asignan memoria: el registro de depuración va parametrizado y cada instancia se guarda ya
+// envuelta en el Optional que devuelve findById. encontrar recorre directamente las instancias si el mapa es
+// concurrente; un LinkedHashMap no admite modificaciones mientras se recorre, así que con él solo se copian las
+// instancias seleccionadas
 @SuppressWarnings("ALL")
 public abstract class RepositorioMemoria<E extends Entidad> implements Repositorio<E> {
 
     private static final Logger logger = LoggerFactory.getLogger(RepositorioMemoria.class);
 
-    final protected Map<String, E> instancias;
+    private final Map<String, Optional<E>> instancias;
+    private final Class<?> claseEntidad;
+    private final List<IndiceRango<E>> indices;
+    private final List<IndiceReferencias<E>> referencias;
+    private CascadaMemoria cascada;
+    private EscuchaEntidad escucha;
+    private final String nombre = getClass().getSimpleName();
 
     public RepositorioMemoria() {
         this(new LinkedHashMap<>());
     }
 
-    public RepositorioMemoria(Map<String, E> instancias) {
+    public RepositorioMemoria(Map<String, Optional<E>> instancias) {
         this.instancias = instancias;
+        this.claseEntidad = GenericTypeResolver.resolveTypeArgument(getClass(), RepositorioMemoria.class);
+        this.indices = indices(claseEntidad);
+        this.referencias = referencias(claseEntidad);
+        todas().forEach(this::indexar);
+    }
+
+    // Para subclases genéricas, cuyo tipo de entidad no se puede resolver a partir de la declaración
+    protected RepositorioMemoria(Class<E> claseEntidad, Map<String, Optional<E>> instancias) {
+        this.instancias = instancias;
+        this.claseEntidad = claseEntidad;
+        this.indices = indices(claseEntidad);
+        this.referencias = referencias(claseEntidad);
+        todas().forEach(this::indexar);
+    }
+
+    // Vista de las instancias, sin copiarlas; quien la recorre no debe modificar el repositorio mientras tanto
+    protected Stream<E> todas() {
+        return instancias.values().stream().map(Optional::get);
     }
 
     @Override
     public <S extends E> S save(S entidad) {
         EscuchaEntidad.prePersist(entidad);
-        instancias.put(entidad.getId(), entidad);
-        logger.debug("Guardando %s: %s [%s]".formatted(entidad.getClass().getSimpleName(), entidad.getId(), entidad));
+        final var anterior = instancias.put(entidad.getId(), Optional.of(entidad));
+        indexar(entidad);
+        notificar(anterior == null ? Tipo.ALTA : Tipo.CAMBIO, entidad);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Guardando {}: {} [{}]", entidad.getClass().getSimpleName(), entidad.getId(), entidad);
+        }
         return entidad;
     }
 
     @Override
     public <S extends E> List<S> saveAll(Iterable<S> entidades) {
-        return Colecciones.toStream(entidades)
-                .map(this::save)
-                .toList();
+        final var guardadas = new ArrayList<S>();
+        for (final var entidad : entidades) {
+            guardadas.add(save(entidad));
+        }
+        return guardadas;
     }
 
     @Override
     public Optional<E> findById(String id) {
-        logger.debug("%s: buscando id %s: %s".formatted(getClass().getSimpleName(), id, instancias.containsKey(id)));
-        return Optional.of(instancias.get(id));
+        logger.debug("{}: buscando id {}", nombre, id);
+        return instancias.getOrDefault(id, Optional.empty());
     }
 
     @Override
     public boolean existsById(String id) {
-        logger.debug("%s: verificando id %s: %s".formatted(getClass().getSimpleName(), id, instancias.containsKey(id)));
+        logger.debug("{}: verificando id {}", nombre, id);
         return instancias.containsKey(id);
     }
 
     @Override
     public List<E> findAll() {
-        logger.debug("%s: buscando todos: %d".formatted(getClass().getSimpleName(), instancias.size()));
-        return new ArrayList<>(instancias.values());
+        logger.debug("{}: buscando todos", nombre);
+        return todas().toList();
+    }
+
+    @Override
+    public Stream<E> encontrar(Predicate<E> predicado) {
+        if (instancias instanceof ConcurrentMap) {
+            return todas().filter(predicado);
+        }
+        return todas().filter(predicado).toList().stream();
     }
 
     @Override
     public List<E> findAllById(Iterable<String> ids) {
-        logger.debug("%s: buscando ids: %s".formatted(getClass().getSimpleName(), ids));
-        return Colecciones.toStream(ids)
-                .map(instancias::get)
-                .filter(Objects::nonNull)
-                .toList();
+        logger.debug("{}: buscando ids {}", nombre, ids);
+        final var encontradas = new ArrayList<E>();
+        for (final var id : ids) {
+            final var entidad = instancias.get(id);
+            if (entidad != null) {
+                encontradas.add(entidad.get());
+            }
+        }
+        return encontradas;
     }
 
     @Override
@@ -81,8 +137,40 @@ public abstract class RepositorioMemoria<E extends Entidad> implements Repositor
 
     @Override
     public void deleteById(String id) {
-        logger.debug("%s: borrando id: %s".formatted(getClass().getSimpleName(), instancias.containsKey(id)));
-        instancias.remove(id);
+        logger.debug("{}: borrando id {}", nombre, id);
+        final var opcional = instancias.remove(id);
+        final var borrada = opcional == null ? null : opcional.get();
+        indices.forEach(indice -> indice.quitar(id));
+        referencias.forEach(indice -> indice.quitar(id));
+        if (borrada != null) {
+            notificar(Tipo.BAJA, borrada);
+            if (cascada != null) {
+                cascada.borrada(borrada);
+            }
+        }
+    }
+
+    void unirA(CascadaMemoria cascada) {
+        this.cascada = cascada;
+        cascada.registrar(this);
+    }
+
+    // Sin escucha (repositorios creados fuera de un contexto) los cambios no se publican
+    void publicarEn(EscuchaEntidad escucha) {
+        this.escucha = escucha;
+    }
+
+    private void notificar(Tipo tipo, Entidad entidad) {
+        if (escucha != null) {
+            escucha.notificar(tipo, entidad);
+        }
+    }
+
+    // Borra las instancias que referencian a la borrada mediante una asociación @OnDelete(CASCADE)
+    void borrarDependientes(Entidad borrada) {
+        for (final var indice : referencias) {
+            indice.dependientes(borrada).forEach(this::deleteById);
+        }
     }
 
     @Override
@@ -92,23 +180,205 @@ public abstract class RepositorioMemoria<E extends Entidad> implements Repositor
 
     @Override
     public void deleteAllById(Iterable<? extends String> ids) {
-        logger.debug("%s: borrando ids: %s".formatted(getClass().getSimpleName(), ids));
-        Colecciones.toStream(ids).forEach(instancias::remove);
-
+        logger.debug("{}: borrando ids {}", nombre, ids);
+        ids.forEach(this::deleteById);
     }
 
     @Override
     public void deleteAll(Iterable<? extends E> entidades) {
-        Colecciones.toStream(entidades)
-                .map(Entidad::getId)
-                .forEach(instancias::remove);
-
+        for (final var entidad : entidades) {
+            deleteById(entidad.getId());
+        }
     }
 
     @Override
     public void deleteAll() {
-        logger.debug("Borrando todos: %d".formatted(instancias.size()));
-        instancias.clear();
+        logger.debug("{}: borrando todos: {}", nombre, instancias.size());
+        List.copyOf(instancias.keySet()).forEach(this::deleteById);
+    }
+
+    @Override
+    public <P> List<P> proyectar(Class<P> tipo, Criterio<E> criterio) {
+        final var proyeccion = Proyeccion.de(claseEntidad, tipo);
+        return seleccionar(criterio)
+                .map(proyeccion::extraer)
+                .toList();
+    }
+
+    // Las asociaciones ya están en memoria
+    @Override
+    public List<E> cargar(Criterio<E> criterio, String... asociaciones) {
+        return seleccionar(criterio).toList();
+    }
+
+    @Override
+    public int actualizarEnLote(ActualizacionLote<E> lote) {
+        final var seleccionadas = seleccionar(lote.criterio()).toList();
+        for (final var invariante : lote.invariantes()) {
+            final var violaciones = seleccionadas.stream().filter(invariante.violacion().predicado()).count();
+            if (violaciones > 0) {
+                throw invariante.violada(violaciones);
+            }
+        }
+        logger.debug("{}: actualizando en lote: {}", nombre, seleccionadas.size());
+        // Como en la base de datos, el lote se aplica entero o no se aplica: si una actualización falla (p. ej. por
+        // validación) se restaura el estado previo de las instancias ya modificadas
+        final var instantaneas = seleccionadas.stream().map(Instantanea::de).toList();
+        try {
+            seleccionadas.forEach(lote.actualizacion().unchecked());
+        } catch (Throwable e) {
+            instantaneas.forEach(Instantanea::restaurar);
+            throw e;
+        }
+        seleccionadas.forEach(EscuchaEntidad::preUpdate);
+        seleccionadas.forEach(this::indexar);
+        seleccionadas.forEach(entidad -> notificar(Tipo.CAMBIO, entidad));
+        return seleccionadas.size();
+    }
+
+    @Override
+    public int borrarEnLote(Criterio<E> criterio) {
+        final var seleccionadas = seleccionar(criterio)
+                .map(Entidad::getId)
+                .toList();
+        logger.debug("{}: borrando en lote: {}", nombre, seleccionadas.size());
+        seleccionadas.forEach(this::deleteById);
+        return seleccionadas.size();
+    }
+
+    // Con un índice aplicable a las condiciones del criterio solo se evalúa el predicado sobre sus candidatos; sin él,
+    // sobre todas las instancias
+    private Stream<E> seleccionar(Criterio<E> criterio) {
+        IndiceRango<E> mejor = null;
+        int aprovechamiento = 0;
+        for (final var indice : indices) {
+            final var propio = indice.aprovechamiento(criterio.condiciones());
+            if (propio > aprovechamiento) {
+                mejor = indice;
+                aprovechamiento = propio;
+            }
+        }
+        if (mejor == null) {
+            return todas().filter(criterio.predicado());
+        }
+        return mejor.candidatos(criterio.condiciones())
+                .map(instancias::get)
+                .filter(Objects::nonNull)
+                .map(Optional::get)
+                .filter(criterio.predicado());
+    }
+
+    private void indexar(E entidad) {
+        for (final var indice : indices) {
+            indice.registrar(entidad);
+        }
+        for (final var indice : referencias) {
+            indice.registrar(entidad);
+        }
+    }
+
+    // Los índices declarados en @Table(indexes) de la entidad, de una columna (rango sobre ella) o de dos (igualdad
+    // sobre la primera y rango sobre la segunda), siempre que las columnas correspondan a atributos propios y la
+    // última sea comparable. Los demás solo existen en la base de datos
+    @SuppressWarnings("unchecked")
+    private static <E extends Entidad> List<IndiceRango<E>> indices(Class<?> claseEntidad) {
+        final var tabla = claseEntidad == null ? null : claseEntidad.getAnnotation(Table.class);
+        if (tabla == null) {
+            return List.of();
+        }
+        final var campos = new HashMap<String, Field>();
+        for (var clase = claseEntidad; clase != null; clase = clase.getSuperclass()) {
+            for (final var campo : clase.getDeclaredFields()) {
+                final var columna = campo.getAnnotation(Column.class);
+                final var columnaUnion = campo.getAnnotation(JoinColumn.class);
+                final var nombre = columna != null && !columna.name().isEmpty() ? columna.name() :
+                        columnaUnion != null && !columnaUnion.name().isEmpty() ? columnaUnion.name() :
+                                campo.getName();
+                campos.putIfAbsent(nombre, campo);
+            }
+        }
+        final var resultado = new ArrayList<IndiceRango<E>>();
+        for (final var declarado : tabla.indexes()) {
+            final var columnas = Arrays.stream(declarado.columnList().split(","))
+                    .map(String::trim)
+                    .map(columna -> columna.split("\\s+")[0])
+                    .map(campos::get)
+                    .toList();
+            final var rango = columnas.get(columnas.size() - 1);
+            if (columnas.size() > 2 || columnas.contains(null) || !Comparable.class.isAssignableFrom(rango.getType())) {
+                continue;
+            }
+            columnas.forEach(campo -> campo.setAccessible(true));
+            final var particion = columnas.size() == 2 ? columnas.get(0) : null;
+            resultado.add(new IndiceRango<E>(
+                    particion == null ? null : particion.getName(),
+                    particion == null ? null : entidad -> leer(particion, entidad),
+                    rango.getName(),
+                    rango.getType(),
+                    entidad -> (Comparable<Object>) leer(rango, entidad)));
+        }
+        return List.copyOf(resultado);
+    }
+
+    // Copia superficial de los campos de una entidad, para deshacer modificaciones en el lugar
+    private record Instantanea(Object entidad, Field[] campos, Object[] valores) {
+
+        private static final Map<Class<?>, Field[]> camposPorClase = new ConcurrentHashMap<>();
+
+        static Instantanea de(Object entidad) {
+            final var campos = camposPorClase.computeIfAbsent(entidad.getClass(), Instantanea::campos);
+            final var valores = new Object[campos.length];
+            for (int i = 0; i < campos.length; i++) {
+                valores[i] = leer(campos[i], entidad);
+            }
+            return new Instantanea(entidad, campos, valores);
+        }
+
+        void restaurar() {
+            try {
+                for (int i = 0; i < campos.length; i++) {
+                    campos[i].set(entidad, valores[i]);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static Field[] campos(Class<?> claseEntidad) {
+            final var campos = new ArrayList<Field>();
+            for (var clase = claseEntidad; clase != Object.class; clase = clase.getSuperclass()) {
+                for (final var campo : clase.getDeclaredFields()) {
+                    if (!Modifier.isStatic(campo.getModifiers())) {
+                        campo.setAccessible(true);
+                        campos.add(campo);
+                    }
+                }
+            }
+            return campos.toArray(Field[]::new);
+        }
+    }
+
+    private static <E extends Entidad> List<IndiceReferencias<E>> referencias(Class<?> claseEntidad) {
+        final var indices = new ArrayList<IndiceReferencias<E>>();
+        for (var clase = claseEntidad; clase != null; clase = clase.getSuperclass()) {
+            for (final var campo : clase.getDeclaredFields()) {
+                final var alBorrar = campo.getAnnotation(OnDelete.class);
+                if (alBorrar != null && alBorrar.action() == OnDeleteAction.CASCADE &&
+                        Entidad.class.isAssignableFrom(campo.getType())) {
+                    campo.setAccessible(true);
+                    indices.add(new IndiceReferencias<>(campo.getType(), entidad -> leer(campo, entidad)));
+                }
+            }
+        }
+        return List.copyOf(indices);
+    }
+
+    private static Object leer(Field campo, Object entidad) {
+        try {
+            return campo.get(entidad);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     @Override
@@ -129,10 +399,9 @@ public abstract class RepositorioMemoria<E extends Entidad> implements Repositor
 
     @Override
     public <S extends E> List<S> saveAllAndFlush(Iterable<S> entidades) {
-        return StreamSupport
-                .stream(entidades.spliterator(), false)
-                .map(this::saveAndFlush)
-                .collect(Collectors.toList());
+        final var guardadas = saveAll(entidades);
+        flush();
+        return guardadas;
     }
 
     @Override
@@ -147,7 +416,7 @@ public abstract class RepositorioMemoria<E extends Entidad> implements Repositor
 
     @Override
     public void deleteAllInBatch() {
-        throw new UnsupportedOperationException("Unimplemented");
+        deleteAll();
     }
 
     @Override
@@ -158,13 +427,13 @@ public abstract class RepositorioMemoria<E extends Entidad> implements Repositor
 
     @Override
     public E getById(String s) {
-        return instancias.get(s);
+        return instancias.getOrDefault(s, Optional.empty()).orElse(null);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <S extends E> List<S> findAll(Example<S> example) {
-        return instancias.values().stream().map(e -> (S) e).toList();
+        return todas().map(e -> (S) e).toList();
     }
 
     @Override
@@ -0,0 +1,52 @@
+package scott.infra.jpa;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Gestor de transacciones para los repositorios en memoria: no hay recurso que confirmar ni revertir, pero cada
+// transacción activa las sincronizaciones, de modo que los ajustes registrados para después del commit se aplican.
+// Limitación: la reversión NO deshace las escrituras. Cada operación de RepositorioMemoria es atómica por sí misma
+// (un lote fallido no deja cambios), pero lo que otras operaciones ya escribieron en la transacción se conserva;
+// solo se descartan los ajustes posteriores al commit. Las pruebas de este perfil no pueden usar la reversión de
+// la transacción de prueba para limpiar, y cada caso empieza vaciando los repositorios
+public class TransaccionesMemoria extends AbstractPlatformTransactionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransaccionesMemoria.class);
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    // Una transacción anidada se une a la externa: sus sincronizaciones se ejecutan al confirmarse esta última
+    @Override
+    protected boolean isExistingTransaction(Object transaccion) {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    @Override
+    protected Object doSuspend(Object transaccion) {
+        return transaccion;
+    }
+
+    @Override
+    protected void doResume(Object transaccion, Object recursosSuspendidos) {
+    }
+
+    @Override
+    protected void doBegin(Object transaccion, TransactionDefinition definicion) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus estado) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus estado) {
+        logger.warn("Transacción revertida en memoria: las escrituras ya aplicadas se conservan");
+    }
+}
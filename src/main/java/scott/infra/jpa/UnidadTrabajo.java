@@ -0,0 +1,179 @@
+package scott.infra.jpa;
+
+import io.vavr.CheckedFunction0;
+import io.vavr.CheckedRunnable;
+import io.vavr.control.Either;
+import org.hibernate.StaleObjectStateException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import scott.infra.Falla;
+import scott.infra.Falla.FallaGrabacion;
+import scott.infra.Falla.FallaSistema;
+import scott.infra.jpa.entidad.Entidad;
+
+import javax.persistence.OptimisticLockException;
+import javax.validation.ConstraintViolationException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Acumula las entidades actualizadas dentro de un alcance y las graba de una sola vez (al cerrar el alcance o al
+// alcanzar el umbral) en lugar de sincronizar cada actualización por separado. Para que las sentencias se agrupen
+// en lotes JDBC el alcance debe ejecutarse dentro de una transacción, que el llamador revierte si el resultado es
+// una falla. Una llamada diferida solo conoce el resultado de la validación; los efectos que dependen de que la
+// escritura llegue a la base de datos se registran con trasGrabar y no se aplican si la sincronización falla. Cada
+// entidad pendiente recuerda la llamada que la registró, para que una falla de la sincronización atribuible a una
+// entidad (p. ej. un conflicto de versión) se reporte como FallaGrabacion de esa llamada
+class UnidadTrabajo {
+
+    static final int UMBRAL = 256;
+
+    private static final ThreadLocal<UnidadTrabajo> unidadActual = new ThreadLocal<>();
+
+    private final int umbral;
+    private final Map<JpaRepository<?, ?>, List<Pendiente>> pendientes = new LinkedHashMap<>();
+    private final List<Efecto> efectos = new ArrayList<>();
+    private int cantidadPendientes = 0;
+    private int llamadas = 0;
+    private Falla falla;
+
+    private record Efecto(String contexto, CheckedRunnable accion) {
+    }
+
+    private record Pendiente(int llamada, Object entidad) {
+    }
+
+    private UnidadTrabajo(int umbral) {
+        this.umbral = umbral;
+    }
+
+    static Optional<UnidadTrabajo> actual() {
+        return Optional.ofNullable(unidadActual.get());
+    }
+
+    // Si el cuerpo falla no se graba nada de lo pendiente
+    static <T> Either<Falla, T> ejecutar(int umbral, CheckedFunction0<Either<Falla, T>> cuerpo) {
+        if (unidadActual.get() != null) {
+            return RepositorioDSL.eitherCatch("ejecutando unidad de trabajo anidada", cuerpo)
+                    .flatMap(resultado -> resultado);
+        }
+        final var unidad = new UnidadTrabajo(umbral);
+        unidadActual.set(unidad);
+        try {
+            return RepositorioDSL.eitherCatch("ejecutando unidad de trabajo", cuerpo)
+                    .flatMap(resultado -> resultado)
+                    .flatMap(resultado -> unidad.grabar().map(ignorado -> resultado));
+        } finally {
+            unidadActual.remove();
+        }
+    }
+
+    <E> Either<Falla, E> registrar(JpaRepository<E, ?> repositorio, E entidad) {
+        if (falla != null) {
+            return Either.left(falla);
+        }
+        llamadas += 1;
+        pendientes.computeIfAbsent(repositorio, r -> new ArrayList<>()).add(new Pendiente(llamadas, entidad));
+        cantidadPendientes += 1;
+        if (cantidadPendientes >= umbral) {
+            return grabar().map(ignorado -> entidad);
+        }
+        return Either.right(entidad);
+    }
+
+    Either<Falla, Void> trasGrabar(String contexto, CheckedRunnable efecto) {
+        if (falla != null) {
+            return Either.left(falla);
+        }
+        efectos.add(new Efecto(contexto, efecto));
+        return Either.right(null);
+    }
+
+    // Graba las entidades pendientes agrupadas por tipo de entidad, sincroniza una sola vez y, si lo consigue,
+    // aplica los efectos registrados hasta ese momento. Si algo falla, la falla identifica las entidades o el
+    // efecto afectados, los efectos restantes se descartan y se reporta en toda operación posterior del alcance
+    @SuppressWarnings("unchecked")
+    private Either<Falla, Void> grabar() {
+        if (falla != null) {
+            return Either.left(falla);
+        }
+        try {
+            if (cantidadPendientes > 0) {
+                JpaRepository<Object, ?> ultimoRepositorio = null;
+                for (final var entrada : pendientes.entrySet()) {
+                    ultimoRepositorio = (JpaRepository<Object, ?>) entrada.getKey();
+                    ultimoRepositorio.saveAll(entrada.getValue().stream().map(Pendiente::entidad).toList());
+                }
+                ultimoRepositorio.flush();
+            }
+        } catch (Throwable t) {
+            falla = pendienteFallida(t)
+                    .<Falla>map(pendiente -> new FallaGrabacion(
+                            "grabando unidad de trabajo, llamada %d: %s".formatted(
+                                    pendiente.llamada(), pendiente.entidad()),
+                            pendiente.llamada(), pendiente.entidad(), t))
+                    .orElseGet(() -> new FallaSistema(
+                            "grabando unidad de trabajo %s".formatted(describirPendientes()), t));
+            return Either.left(falla);
+        } finally {
+            pendientes.clear();
+            cantidadPendientes = 0;
+        }
+        try {
+            for (final var efecto : efectos) {
+                try {
+                    efecto.accion().run();
+                } catch (Throwable t) {
+                    falla = new FallaSistema(efecto.contexto(), t);
+                    return Either.left(falla);
+                }
+            }
+            return Either.right(null);
+        } finally {
+            efectos.clear();
+        }
+    }
+
+    private String describirPendientes() {
+        return pendientes.values().stream()
+                .flatMap(List::stream)
+                .map(pendiente -> pendiente.entidad().toString())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    // La entidad causante, si la excepción la identifica (conflicto de versión, violación de restricciones de Bean
+    // Validation al sincronizar)
+    private Optional<Pendiente> pendienteFallida(Throwable error) {
+        for (var causa = error; causa != null; causa = causa.getCause()) {
+            final Object identificada;
+            if (causa instanceof OptimisticLockException bloqueo) {
+                identificada = bloqueo.getEntity();
+            } else if (causa instanceof StaleObjectStateException obsoleta) {
+                identificada = obsoleta.getIdentifier();
+            } else if (causa instanceof ObjectOptimisticLockingFailureException conflicto) {
+                identificada = conflicto.getIdentifier();
+            } else if (causa instanceof ConstraintViolationException violacion &&
+                    !violacion.getConstraintViolations().isEmpty()) {
+                identificada = violacion.getConstraintViolations().iterator().next().getRootBean();
+            } else {
+                identificada = null;
+            }
+            if (identificada != null) {
+                final var pendiente = pendientes.values().stream()
+                        .flatMap(List::stream)
+                        .filter(candidata -> candidata.entidad() == identificada ||
+                                candidata.entidad() instanceof Entidad entidad &&
+                                        identificada.equals(entidad.getId()))
+                        .findFirst();
+                if (pendiente.isPresent()) {
+                    return pendiente;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
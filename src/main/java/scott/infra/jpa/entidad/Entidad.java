@@ -30,9 +30,25 @@ public abstract class Entidad extends Validable {
     LocalDateTime fechaCreacion;
 
     @Basic
-    @Column(name = "fecha_actualizacion", updatable = false)
+    @Column(name = "fecha_actualizacion")
     LocalDateTime fechaActualizacion;
 
+    @Version
+    @Getter
+    @Column(name = "version")
+    Long version;
+
+    // Copia de referencia de una entidad de otra partición (ver RepositorioParticionado). Solo la marca una sentencia
+    // explícita: Hibernate no la escribe, así que guardar una instancia leída de una copia no marca al original
+    @Basic
+    @Column(name = "copia", insertable = false, updatable = false,
+            columnDefinition = "boolean default false not null")
+    boolean copia;
+
+    public boolean esCopia() {
+        return copia;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -1,12 +1,40 @@
 package scott.infra.jpa.entidad;
 
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.beans.spi.ManagedBeanRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import scott.infra.eventos.EventoCambio.Tipo;
 import scott.infra.util.Identificadores;
 
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import java.time.LocalDateTime;
 
+// Hibernate obtiene la instancia del contexto a través de SpringBeanContainer, de modo que cada contexto publica
+// sus cambios solo a sus propios @EventListener, de forma síncrona y dentro de la transacción que los produce
+@Component
 public class EscuchaEntidad {
+
+    // Entidad es nula en las sentencias masivas, donde solo se conoce el identificador
+    public record Cambio(Tipo tipo, Class<? extends Entidad> clase, String id, Entidad entidad) {
+    }
+
+    private final ApplicationEventPublisher publicador;
+
+    public EscuchaEntidad(ApplicationEventPublisher publicador) {
+        this.publicador = publicador;
+    }
+
+    // La misma instancia que Hibernate usa en las retrollamadas de las entidades de la sesión
+    public static EscuchaEntidad de(SessionImplementor sesion) {
+        return sesion.getFactory().getServiceRegistry().getService(ManagedBeanRegistry.class)
+                .getBean(EscuchaEntidad.class).getBeanInstance();
+    }
+
     @PrePersist
     public void antesDePesistir(Entidad entidad) {
         prePersist(entidad);
@@ -17,6 +45,21 @@ public class EscuchaEntidad {
         preUpdate(entidad);
     }
 
+    @PostPersist
+    public void despuesDePersistir(Entidad entidad) {
+        notificar(Tipo.ALTA, entidad);
+    }
+
+    @PostUpdate
+    public void despuesDeModificar(Entidad entidad) {
+        notificar(Tipo.CAMBIO, entidad);
+    }
+
+    @PostRemove
+    public void despuesDeBorrar(Entidad entidad) {
+        notificar(Tipo.BAJA, entidad);
+    }
+
     public static void prePersist(Entidad entidad) {
         if (entidad.id == null) {
             entidad.id = Identificadores.siguienteIdentificador();
@@ -27,4 +70,12 @@ public class EscuchaEntidad {
     public static void preUpdate(Entidad entidad) {
         entidad.fechaActualizacion = LocalDateTime.now();
     }
+
+    public void notificar(Tipo tipo, Entidad entidad) {
+        publicador.publishEvent(new Cambio(tipo, entidad.getClass(), entidad.getId(), entidad));
+    }
+
+    public void notificar(Tipo tipo, Class<? extends Entidad> clase, String id) {
+        publicador.publishEvent(new Cambio(tipo, clase, id, null));
+    }
 }
@@ -0,0 +1,126 @@
+package scott.infra.particion;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.infra.eventos.EscuchaCambios;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Una unidad de persistencia por base de datos de partición, con su propio gestor de transacciones y su propio
+// EscuchaCambios (los eventos de cada partición se graban en su tabla evento_cambio), más el ejecutor con el que
+// los repositorios particionados consultan todas las particiones en paralelo
+public final class Particiones {
+
+    public record Particion(String nombre,
+                            EntityManager entityManager,
+                            TransactionTemplate lectura,
+                            TransactionTemplate escritura) {
+    }
+
+    private final TablaParticiones tabla;
+    private final Map<String, Particion> particiones = new LinkedHashMap<>();
+    private final List<EntityManagerFactory> fabricas = new ArrayList<>();
+    private final List<HikariDataSource> fuentes = new ArrayList<>();
+    private final ExecutorService ejecutor;
+
+    private Particiones(TablaParticiones tabla) {
+        this.tabla = tabla;
+        final var contador = new AtomicInteger();
+        this.ejecutor = Executors.newFixedThreadPool(tabla.particiones().size(), tarea -> {
+            final var hilo = new Thread(tarea, "particiones-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    // Las particiones se llaman p0, p1... en el orden de las URL; comparten usuario, clave y controlador con
+    // spring.datasource. El constructor de Boot no añade el contenedor de beans de Spring, necesario para que
+    // Hibernate obtenga EscuchaEntidad del contexto
+    public static Particiones crear(EntityManagerFactoryBuilder constructor,
+                                    ConfigurableListableBeanFactory fabricaBeans,
+                                    DataSourceProperties propiedades,
+                                    List<String> urls,
+                                    String modo,
+                                    String rangos,
+                                    String ddl,
+                                    Class<?>... paquetes) {
+        final var nombres = new ArrayList<String>();
+        for (int i = 0; i < urls.size(); i++) {
+            nombres.add("p" + i);
+        }
+        final var particiones = new Particiones(TablaParticiones.de(modo, nombres, rangos));
+        for (int i = 0; i < urls.size(); i++) {
+            final var fuente = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(propiedades.determineDriverClassName())
+                    .url(urls.get(i))
+                    .username(propiedades.determineUsername())
+                    .password(propiedades.determinePassword())
+                    .build();
+            fuente.setPoolName(nombres.get(i));
+            final var fabrica = constructor.dataSource(fuente)
+                    .packages(paquetes)
+                    .persistenceUnit(nombres.get(i))
+                    .properties(Map.of(
+                            AvailableSettings.HBM2DDL_AUTO, ddl,
+                            AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(fabricaBeans)))
+                    .build();
+            fabrica.afterPropertiesSet();
+            particiones.agregar(nombres.get(i), fuente, fabrica.getObject());
+        }
+        return particiones;
+    }
+
+    private void agregar(String nombre, HikariDataSource fuente, EntityManagerFactory fabrica) {
+        new EscuchaCambios(fabrica);
+        final var transacciones = new JpaTransactionManager(fabrica);
+        final var lectura = new TransactionTemplate(transacciones);
+        lectura.setReadOnly(true);
+        particiones.put(nombre, new Particion(
+                nombre,
+                SharedEntityManagerCreator.createSharedEntityManager(fabrica),
+                lectura,
+                new TransactionTemplate(transacciones)));
+        fuentes.add(fuente);
+        fabricas.add(fabrica);
+    }
+
+    public TablaParticiones tabla() {
+        return tabla;
+    }
+
+    public Particion particion(String nombre) {
+        return particiones.get(nombre);
+    }
+
+    public Collection<Particion> todas() {
+        return particiones.values();
+    }
+
+    public ExecutorService ejecutor() {
+        return ejecutor;
+    }
+
+    public void cerrar() {
+        ejecutor.shutdownNow();
+        fabricas.forEach(EntityManagerFactory::close);
+        fuentes.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,400 @@
+package scott.infra.particion;
+
+import org.hibernate.Hibernate;
+import org.hibernate.ReplicationMode;
+import org.hibernate.Session;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+import scott.infra.jpa.ActualizacionLote;
+import scott.infra.jpa.Criterio;
+import scott.infra.jpa.Repositorio;
+import scott.infra.jpa.RepositorioJpa;
+import scott.infra.jpa.entidad.Entidad;
+import scott.infra.particion.Particiones.Particion;
+import scott.infra.util.Colecciones;
+
+import javax.persistence.EntityNotFoundException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Repositorio repartido entre varias bases de datos según una clave de partición (el código de departamento), de
+// modo que un departamento y sus empleados quedan en la misma partición. Cada operación es una transacción local
+// de la partición afectada; no hay atomicidad entre particiones.
+// Las asociaciones que cruzan particiones (un supervisor de otro departamento) se resuelven con copias de
+// referencia: antes de guardar se replican en la partición destino las entidades referidas, con su mismo
+// identificador y versión. Guardar solo toca la partición de la clave, así que una copia se refresca cuando se
+// guarda en su partición una entidad que la refiere, no cuando cambia el original. Las copias se marcan con la
+// columna copia de Entidad; las consultas sobre todas las particiones solo devuelven filas propias (sin la marca),
+// así que las copias no se duplican. Una entidad no puede cambiar de partición
+public class RepositorioParticionado<E extends Entidad> implements Repositorio<E> {
+
+    // Entidad referida que debe existir en la partición de quien la refiere, con su propia clave de partición
+    public record Referencia(Entidad entidad, String clave) {
+    }
+
+    private final Particiones particiones;
+    private final Function<E, String> clave;
+    private final Function<E, List<Referencia>> referencias;
+    private final Map<String, RepositorioJpa<E>> repositorios = new HashMap<>();
+
+    public RepositorioParticionado(Class<E> clase,
+                                   Particiones particiones,
+                                   Function<E, String> clave,
+                                   Function<E, List<Referencia>> referencias) {
+        this.particiones = particiones;
+        this.clave = clave;
+        this.referencias = referencias;
+        for (final var particion : particiones.todas()) {
+            final var entityManager = particion.entityManager();
+            repositorios.put(particion.nombre(), new RepositorioJpa<>(
+                    JpaEntityInformationSupport.getEntityInformation(clase, entityManager), entityManager));
+        }
+    }
+
+    public String particionDe(E entidad) {
+        return particiones.tabla().particion(clave.apply(entidad));
+    }
+
+    // Una entidad ya guardada debe existir como fila propia en la partición de su clave; si no, cambió de partición
+    @Override
+    public <S extends E> S save(S entidad) {
+        final var destino = particiones.particion(particionDe(entidad));
+        return escribir(destino, repositorio -> {
+            if (entidad.getId() != null) {
+                final var propia = repositorio.findById(entidad.getId())
+                        .filter(actual -> !actual.esCopia())
+                        .isPresent();
+                if (!propia) {
+                    throw new IllegalStateException((
+                            "%s pasaría a la partición %s, pero no es propia de ella; " +
+                                    "para cambiar de partición debe borrarse y volver a crearse")
+                            .formatted(entidad, destino.nombre()));
+                }
+            }
+            final var sesion = destino.entityManager().unwrap(Session.class);
+            for (final var referencia : referencias.apply(entidad)) {
+                if (!particiones.tabla().particion(referencia.clave()).equals(destino.nombre())) {
+                    sesion.replicate(referencia.entidad(), ReplicationMode.OVERWRITE);
+                    marcarCopia(destino, referencia.entidad());
+                }
+            }
+            return repositorio.save(entidad);
+        });
+    }
+
+    @Override
+    public <S extends E> List<S> saveAll(Iterable<S> entidades) {
+        return Colecciones.toStream(entidades)
+                .map(this::save)
+                .toList();
+    }
+
+    // Sin la clave de partición se consulta en todas a la vez y se toma la fila propia
+    @Override
+    public Optional<E> findById(String id) {
+        return abanico(true, (particion, repositorio) -> repositorio.findById(id)
+                .filter(entidad -> !entidad.esCopia())
+                .stream().toList())
+                .findFirst();
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<E> findAll() {
+        return abanico(true, (particion, repositorio) -> repositorio.findAll(propias().especificacion()))
+                .toList();
+    }
+
+    // El predicado se evalúa en cada partición mientras se recorren sus filas; solo se retienen las que lo cumplen
+    @Override
+    public Stream<E> encontrar(Predicate<E> predicado) {
+        return abanico(true, (particion, repositorio) -> {
+            try (final var filas = repositorio.recorrer(propias(), Sort.unsorted())) {
+                return filas.filter(predicado).toList();
+            }
+        });
+    }
+
+    // Cada partición recorre sus filas ordenadas con un cursor y se intercalan a medida que se leen, sin materializar
+    // el resultado de cada partición ni volver a ordenar el conjunto
+    @Override
+    public List<E> findAll(Sort orden) {
+        final var comparador = comparador(orden);
+        return conCursores(new ArrayList<>(particiones.todas()), orden, new ArrayList<>(), cursores -> {
+            final var cola = new PriorityQueue<Map.Entry<E, Iterator<E>>>(Map.Entry.comparingByKey(comparador));
+            cursores.stream()
+                    .filter(Iterator::hasNext)
+                    .forEach(cursor -> cola.add(Map.entry(cursor.next(), cursor)));
+            final var resultado = new ArrayList<E>();
+            while (!cola.isEmpty()) {
+                final var menor = cola.poll();
+                resultado.add(menor.getKey());
+                if (menor.getValue().hasNext()) {
+                    cola.add(Map.entry(menor.getValue().next(), menor.getValue()));
+                }
+            }
+            return resultado;
+        });
+    }
+
+    @Override
+    public List<E> findAllById(Iterable<String> ids) {
+        return Colecciones.toStream(ids)
+                .map(this::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public long count() {
+        return abanico(true, (particion, repositorio) ->
+                List.of(repositorio.count(propias().especificacion())))
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    // Se borra la entidad y todas sus copias; las restricciones ON DELETE CASCADE de cada partición eliminan
+    // los dependientes locales
+    @Override
+    public void deleteById(String id) {
+        enTodas((particion, repositorio) -> repositorio.findById(id).ifPresent(repositorio::delete));
+    }
+
+    @Override
+    public void delete(E entidad) {
+        deleteById(entidad.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        Colecciones.toStream(ids).forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends E> entidades) {
+        Colecciones.toStream(entidades).map(Entidad::getId).forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll() {
+        enTodas((particion, repositorio) -> repositorio.deleteAll());
+    }
+
+    @Override
+    public <P> List<P> proyectar(Class<P> tipo, Criterio<E> criterio) {
+        return abanico(true, (particion, repositorio) ->
+                repositorio.proyectar(tipo, criterio.y(propias())))
+                .toList();
+    }
+
+    @Override
+    public List<E> cargar(Criterio<E> criterio, String... asociaciones) {
+        return abanico(true, (particion, repositorio) ->
+                repositorio.cargar(criterio.y(propias()), asociaciones))
+                .toList();
+    }
+
+    // Se aplica también a las copias, para que sigan al original; el resultado cuenta solo las filas propias
+    @Override
+    public int actualizarEnLote(ActualizacionLote<E> lote) {
+        return abanico(false, (particion, repositorio) -> {
+            final var propias = repositorio.count(lote.criterio().y(propias()).especificacion());
+            repositorio.actualizarEnLote(lote);
+            return List.of(propias);
+        }).mapToInt(Long::intValue).sum();
+    }
+
+    @Override
+    public int borrarEnLote(Criterio<E> criterio) {
+        return abanico(false, (particion, repositorio) -> {
+            final var propias = repositorio.count(criterio.y(propias()).especificacion());
+            repositorio.borrarEnLote(criterio);
+            return List.of(propias);
+        }).mapToInt(Long::intValue).sum();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <S extends E> S saveAndFlush(S entidad) {
+        return save(entidad);
+    }
+
+    @Override
+    public <S extends E> List<S> saveAllAndFlush(Iterable<S> entidades) {
+        return saveAll(entidades);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<E> entidades) {
+        deleteAll(entidades);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<String> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public E getOne(String id) {
+        return getById(id);
+    }
+
+    @Override
+    public E getById(String id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Id inexistente: %s".formatted(id)));
+    }
+
+    @Override
+    public <S extends E> List<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public <S extends E> List<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public Page<E> findAll(Pageable pageable) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public <S extends E> Optional<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public <S extends E> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public <S extends E> long count(Example<S> example) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public <S extends E> boolean exists(Example<S> example) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public <S extends E, R> R findBy(Example<S> example, Function<FetchableFluentQuery<S>, R> queryFunction) {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    // Filas que no son copias de referencia
+    private Criterio<E> propias() {
+        return new Criterio<E>(
+                (raiz, consulta, cb) -> cb.isFalse(raiz.<Boolean>get("copia")),
+                entidad -> !entidad.esCopia());
+    }
+
+    // La marca no pasa por Hibernate (la columna no es insertable ni actualizable); la sentencia sincroniza antes la
+    // réplica pendiente
+    private static void marcarCopia(Particion particion, Entidad entidad) {
+        final var entityManager = particion.entityManager();
+        entityManager.createQuery("update %s e set e.copia = true where e.id = :id"
+                        .formatted(entityManager.getMetamodel().entity(Hibernate.getClass(entidad)).getName()))
+                .setParameter("id", entidad.getId())
+                .executeUpdate();
+    }
+
+    // Abre, anidadas en el hilo de quien llama, una transacción de lectura y un cursor sobre las filas propias por
+    // partición, y aplica la operación con todos los cursores abiertos
+    private <T> T conCursores(List<Particion> pendientes,
+                              Sort orden,
+                              List<Iterator<E>> cursores,
+                              Function<List<Iterator<E>>, T> operacion) {
+        if (pendientes.isEmpty()) {
+            return operacion.apply(cursores);
+        }
+        final var particion = pendientes.get(0);
+        return leer(particion, repositorio -> {
+            try (final var filas = repositorio.recorrer(propias(), orden)) {
+                cursores.add(filas.iterator());
+                return conCursores(pendientes.subList(1, pendientes.size()), orden, cursores, operacion);
+            }
+        });
+    }
+
+    private <T> T leer(Particion particion, Function<RepositorioJpa<E>, T> operacion) {
+        return particion.lectura().execute(estado -> operacion.apply(repositorios.get(particion.nombre())));
+    }
+
+    private <T> T escribir(Particion particion, Function<RepositorioJpa<E>, T> operacion) {
+        return particion.escritura().execute(estado -> operacion.apply(repositorios.get(particion.nombre())));
+    }
+
+    // Ejecuta la operación en todas las particiones a la vez, cada una en su transacción, y entrega los resultados
+    // de cada partición a medida que termina, sin esperar a las más lentas
+    private <T> Stream<T> abanico(boolean lectura, BiFunction<Particion, RepositorioJpa<E>, List<T>> operacion) {
+        final var completadas = new ExecutorCompletionService<List<T>>(particiones.ejecutor());
+        for (final var particion : particiones.todas()) {
+            completadas.submit(() -> lectura ?
+                    leer(particion, repositorio -> operacion.apply(particion, repositorio)) :
+                    escribir(particion, repositorio -> operacion.apply(particion, repositorio)));
+        }
+        return IntStream.range(0, particiones.todas().size())
+                .mapToObj(i -> esperar(completadas))
+                .flatMap(List::stream);
+    }
+
+    private void enTodas(BiConsumer<Particion, RepositorioJpa<E>> operacion) {
+        abanico(false, (particion, repositorio) -> {
+            operacion.accept(particion, repositorio);
+            return List.of();
+        }).forEach(resultado -> {
+        });
+    }
+
+    private static <T> List<T> esperar(ExecutorCompletionService<List<T>> completadas) {
+        try {
+            return completadas.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static <E> Comparator<E> comparador(Sort orden) {
+        Comparator<E> comparador = (a, b) -> 0;
+        for (final var criterio : orden) {
+            comparador = comparador.thenComparing(new PropertyComparator<>(new MutableSortDefinition(
+                    criterio.getProperty(), criterio.isIgnoreCase(), criterio.isAscending())));
+        }
+        return comparador;
+    }
+}
@@ -0,0 +1,68 @@
+package scott.infra.particion;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Asigna cada clave de partición a una partición, por hash o por rangos. En modo rango cada entrada es el límite
+// inferior (inclusive) de un rango de claves, en orden lexicográfico: "00=p0,50=p1" envía 00-49 a p0 y 50-99 a p1
+public final class TablaParticiones {
+
+    public enum Modo {HASH, RANGO}
+
+    private final Modo modo;
+    private final List<String> particiones;
+    private final NavigableMap<String, String> rangos;
+
+    private TablaParticiones(Modo modo, List<String> particiones, NavigableMap<String, String> rangos) {
+        this.modo = modo;
+        this.particiones = List.copyOf(particiones);
+        this.rangos = rangos;
+    }
+
+    public static TablaParticiones hash(List<String> particiones) {
+        if (particiones.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos una partición");
+        }
+        return new TablaParticiones(Modo.HASH, particiones, new TreeMap<>());
+    }
+
+    public static TablaParticiones rangos(List<String> particiones, String definicion) {
+        final var rangos = new TreeMap<String, String>();
+        for (final var entrada : definicion.split(",")) {
+            final var partes = entrada.trim().split("=");
+            if (partes.length != 2 || !particiones.contains(partes[1].trim())) {
+                throw new IllegalArgumentException("Rango inválido: %s".formatted(entrada));
+            }
+            rangos.put(partes[0].trim(), partes[1].trim());
+        }
+        if (rangos.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un rango");
+        }
+        return new TablaParticiones(Modo.RANGO, particiones, rangos);
+    }
+
+    public static TablaParticiones de(String modo, List<String> particiones, String rangos) {
+        return switch (Modo.valueOf(modo.trim().toUpperCase(Locale.ROOT))) {
+            case HASH -> hash(particiones);
+            case RANGO -> rangos(particiones, rangos);
+        };
+    }
+
+    // String.hashCode está especificado, así que la asignación por hash es estable entre ejecuciones
+    public String particion(String clave) {
+        if (modo == Modo.HASH) {
+            return particiones.get(Math.floorMod(clave.hashCode(), particiones.size()));
+        }
+        final var rango = rangos.floorEntry(clave);
+        if (rango == null) {
+            throw new IllegalArgumentException("Clave fuera de los rangos definidos: %s".formatted(clave));
+        }
+        return rango.getValue();
+    }
+
+    public List<String> particiones() {
+        return particiones;
+    }
+}
@@ -0,0 +1,66 @@
+package scott.infra.seguridad;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+
+import java.time.Duration;
+
+// API sin sesiones: cada solicitud se autentica con un token firmado (Bearer) o con autenticación básica, esta
+// última a través de ProveedorBasicoCache. Al declararse el proveedor como bean, Spring Boot no crea su propio
+// almacén de usuarios; el usuario sale igualmente de spring.security.user.*, con la contraseña cifrada con BCrypt
+@Configuration
+public class ConfiguracionSeguridad {
+
+    @Bean
+    public ProveedorBasicoCache proveedorBasicoCache(SecurityProperties propiedades,
+                                                     @Value("${scott.seguridad.basico.capacidad:10000}") int capacidad,
+                                                     @Value("${scott.seguridad.basico.vigencia:PT5M}") Duration vigencia,
+                                                     MeterRegistry metricas) {
+        final var cifrado = new BCryptPasswordEncoder();
+        final var usuario = propiedades.getUser();
+        final var dao = new DaoAuthenticationProvider();
+        dao.setPasswordEncoder(cifrado);
+        dao.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername(usuario.getName())
+                .password(cifrado.encode(usuario.getPassword()))
+                .roles(usuario.getRoles().toArray(String[]::new))
+                .build()));
+        return new ProveedorBasicoCache(dao, capacidad, vigencia, metricas);
+    }
+
+    @Bean
+    public SecurityFilterChain cadenaSeguridad(HttpSecurity http,
+                                               TokenFirmado tokens,
+                                               MeterRegistry metricas) throws Exception {
+        return http
+                .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                // Con token no hay credenciales que el navegador envíe por su cuenta; la emisión del token solo lo
+                // devuelve en la respuesta, que otro origen no puede leer
+                .csrf(csrf -> csrf
+                        .ignoringAntMatchers("/autenticacion/token")
+                        .ignoringRequestMatchers(solicitud -> {
+                            final var encabezado = solicitud.getHeader(HttpHeaders.AUTHORIZATION);
+                            return encabezado != null && encabezado.regionMatches(true, 0, "Bearer ", 0, 7);
+                        }))
+                .authorizeRequests(solicitudes -> solicitudes
+                        .antMatchers("/actuator/health").permitAll()
+                        .anyRequest().authenticated())
+                .httpBasic()
+                .and()
+                .addFilterBefore(new FiltroToken(tokens, metricas), BasicAuthenticationFilter.class)
+                .build();
+    }
+}
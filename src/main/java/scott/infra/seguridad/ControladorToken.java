@@ -0,0 +1,28 @@
+package scott.infra.seguridad;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import scott.infra.seguridad.TokenFirmado.Emision;
+
+// Canjea una autenticación (básica, normalmente) por un token firmado para las solicitudes siguientes
+@RestController
+public class ControladorToken {
+
+    private final TokenFirmado tokens;
+
+    public ControladorToken(TokenFirmado tokens) {
+        this.tokens = tokens;
+    }
+
+    @PostMapping("/autenticacion/token")
+    public Emision emitir(Authentication autenticacion) {
+        final var roles = autenticacion.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(autoridad -> autoridad.startsWith("ROLE_"))
+                .map(autoridad -> autoridad.substring("ROLE_".length()))
+                .toList();
+        return tokens.emitir(autenticacion.getName(), roles);
+    }
+}
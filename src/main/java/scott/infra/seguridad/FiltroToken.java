@@ -0,0 +1,66 @@
+package scott.infra.seguridad;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Autentica las solicitudes con "Authorization: Bearer <token>" verificando la firma del token; las demás siguen
+// por la cadena (autenticación básica). Un token inválido o vencido responde 401 sin probar otros mecanismos
+public class FiltroToken extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final TokenFirmado tokens;
+    private final Timer latencia;
+    private final Counter rechazos;
+
+    public FiltroToken(TokenFirmado tokens, MeterRegistry metricas) {
+        this.tokens = tokens;
+        this.latencia = Timer.builder("scott.autenticacion").tag("modo", "token").register(metricas);
+        this.rechazos = Counter.builder("scott.autenticacion.rechazos").tag("modo", "token").register(metricas);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest solicitud,
+                                    HttpServletResponse respuesta,
+                                    FilterChain cadena) throws ServletException, IOException {
+        final var encabezado = solicitud.getHeader(HttpHeaders.AUTHORIZATION);
+        if (encabezado == null || !encabezado.regionMatches(true, 0, PREFIJO, 0, PREFIJO.length())) {
+            cadena.doFilter(solicitud, respuesta);
+            return;
+        }
+        final var inicio = System.nanoTime();
+        final var credencial = tokens.verificar(encabezado.substring(PREFIJO.length()).trim());
+        latencia.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        if (credencial.isEmpty()) {
+            rechazos.increment();
+            respuesta.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            respuesta.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        final var autoridades = credencial.get().roles().stream()
+                .map(rol -> new SimpleGrantedAuthority("ROLE_" + rol))
+                .toList();
+        final var contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(
+                new UsernamePasswordAuthenticationToken(credencial.get().sujeto(), null, autoridades));
+        SecurityContextHolder.setContext(contexto);
+        try {
+            cadena.doFilter(solicitud, respuesta);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
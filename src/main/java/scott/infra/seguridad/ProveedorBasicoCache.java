@@ -0,0 +1,125 @@
+package scott.infra.seguridad;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Evita repetir la verificación BCrypt de la autenticación básica en cada solicitud: guarda, por usuario, la
+// autenticación ya verificada junto con un HMAC de las credenciales (con una clave aleatoria del proceso, nunca la
+// contraseña) durante la vigencia configurada. Solo se guardan autenticaciones exitosas, de modo que una contraseña
+// errónea siempre pasa por el proveedor delegado. Un cambio de contraseña se refleja, a más tardar, al vencer la entrada
+public class ProveedorBasicoCache implements AuthenticationProvider {
+
+    private record Entrada(byte[] huella, Authentication autenticacion, long vence) {
+    }
+
+    private final AuthenticationProvider delegado;
+    private final long vigenciaNanos;
+    private final Map<String, Entrada> entradas;
+    private final ThreadLocal<Mac> huellas;
+
+    private final Timer latenciaCache;
+    private final Timer latenciaDelegado;
+    private final Counter aciertos;
+    private final Counter fallos;
+    private final Counter rechazos;
+
+    public ProveedorBasicoCache(AuthenticationProvider delegado,
+                                int capacidad,
+                                Duration vigencia,
+                                MeterRegistry metricas) {
+        this.delegado = delegado;
+        this.latenciaCache = Timer.builder("scott.autenticacion").tag("modo", "basico-cache").register(metricas);
+        this.latenciaDelegado = Timer.builder("scott.autenticacion").tag("modo", "basico").register(metricas);
+        this.aciertos = Counter.builder("scott.autenticacion.cache").tag("resultado", "acierto").register(metricas);
+        this.fallos = Counter.builder("scott.autenticacion.cache").tag("resultado", "fallo").register(metricas);
+        this.rechazos = Counter.builder("scott.autenticacion.rechazos").tag("modo", "basico").register(metricas);
+        this.vigenciaNanos = vigencia.toNanos();
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> mayor) {
+                return size() > capacidad;
+            }
+        };
+        final var clave = new byte[32];
+        new SecureRandom().nextBytes(clave);
+        final var especificacion = new SecretKeySpec(clave, "HmacSHA256");
+        this.huellas = ThreadLocal.withInitial(() -> {
+            try {
+                final var mac = Mac.getInstance("HmacSHA256");
+                mac.init(especificacion);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Override
+    public Authentication authenticate(Authentication autenticacion) throws AuthenticationException {
+        final var inicio = System.nanoTime();
+        final var usuario = autenticacion.getName();
+        final var huella = huella(usuario, autenticacion.getCredentials());
+        final Entrada entrada;
+        synchronized (entradas) {
+            entrada = entradas.get(usuario);
+        }
+        if (entrada != null && entrada.vence() - inicio > 0 && MessageDigest.isEqual(entrada.huella(), huella)) {
+            aciertos.increment();
+            latenciaCache.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return entrada.autenticacion();
+        }
+        fallos.increment();
+        final Authentication verificada;
+        try {
+            verificada = delegado.authenticate(autenticacion);
+        } catch (AuthenticationException e) {
+            rechazos.increment();
+            throw e;
+        } finally {
+            latenciaDelegado.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+        if (verificada != null) {
+            final var guardada = new UsernamePasswordAuthenticationToken(
+                    verificada.getPrincipal(), null, verificada.getAuthorities());
+            guardada.setDetails(verificada.getDetails());
+            synchronized (entradas) {
+                entradas.put(usuario, new Entrada(huella, guardada, System.nanoTime() + vigenciaNanos));
+            }
+        }
+        return verificada;
+    }
+
+    @Override
+    public boolean supports(Class<?> autenticacion) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(autenticacion);
+    }
+
+    public void invalidar(String usuario) {
+        synchronized (entradas) {
+            entradas.remove(usuario);
+        }
+    }
+
+    private byte[] huella(String usuario, Object credenciales) {
+        final var mac = huellas.get();
+        mac.update(usuario.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(String.valueOf(credenciales).getBytes(StandardCharsets.UTF_8));
+    }
+}
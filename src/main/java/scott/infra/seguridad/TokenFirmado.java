@@ -0,0 +1,131 @@
+package scott.infra.seguridad;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+// Tokens sin estado de la forma base64url(sujeto \n expiración \n roles).base64url(HMAC-SHA256): se verifican
+// localmente con la clave compartida, sin consultar usuarios ni ningún servicio externo. La clave
+// (scott.seguridad.token.secreto, en base64) es obligatoria: todas las instancias deben compartirla. Solo con los
+// perfiles dev o test se admite omitirla, y entonces se genera una al arrancar que deja de valer al reiniciar
+@Component
+public class TokenFirmado {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenFirmado.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder CODIFICADOR = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODIFICADOR = Base64.getUrlDecoder();
+
+    public record Credencial(String sujeto, List<String> roles, Instant expiracion) {
+    }
+
+    public record Emision(String token, Instant expiracion) {
+    }
+
+    private final ThreadLocal<Mac> firmas;
+    private final Duration vigencia;
+    private final Clock reloj;
+
+    @Autowired
+    public TokenFirmado(@Value("${scott.seguridad.token.secreto:}") String secreto,
+                        @Value("${scott.seguridad.token.vigencia:PT1H}") Duration vigencia,
+                        Environment entorno) {
+        this(clave(secreto, entorno), vigencia, Clock.systemUTC());
+    }
+
+    public TokenFirmado(byte[] clave, Duration vigencia, Clock reloj) {
+        final var especificacion = new SecretKeySpec(clave, ALGORITMO);
+        this.firmas = ThreadLocal.withInitial(() -> {
+            try {
+                final var mac = Mac.getInstance(ALGORITMO);
+                mac.init(especificacion);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.vigencia = vigencia;
+        this.reloj = reloj;
+    }
+
+    public Emision emitir(String sujeto, List<String> roles) {
+        if (sujeto.indexOf('\n') >= 0 || roles.stream().anyMatch(rol -> rol.indexOf(',') >= 0)) {
+            throw new IllegalArgumentException("Sujeto o rol inválido: %s %s".formatted(sujeto, roles));
+        }
+        final var expiracion = Instant.ofEpochSecond(reloj.instant().plus(vigencia).getEpochSecond());
+        final var contenido = CODIFICADOR.encodeToString(
+                (sujeto + '\n' + expiracion.getEpochSecond() + '\n' + String.join(",", roles))
+                        .getBytes(StandardCharsets.UTF_8));
+        return new Emision(contenido + '.' + CODIFICADOR.encodeToString(firmar(contenido)), expiracion);
+    }
+
+    // La firma se compara en tiempo constante antes de decodificar nada del contenido
+    public Optional<Credencial> verificar(String token) {
+        final var punto = token.indexOf('.');
+        if (punto <= 0 || punto == token.length() - 1) {
+            return Optional.empty();
+        }
+        final var contenido = token.substring(0, punto);
+        final byte[] firma;
+        final String[] campos;
+        try {
+            firma = DECODIFICADOR.decode(token.substring(punto + 1));
+            if (!MessageDigest.isEqual(firma, firmar(contenido))) {
+                return Optional.empty();
+            }
+            campos = new String(DECODIFICADOR.decode(contenido), StandardCharsets.UTF_8).split("\n", -1);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (campos.length != 3) {
+            return Optional.empty();
+        }
+        final var expiracion = Instant.ofEpochSecond(Long.parseLong(campos[1]));
+        if (!reloj.instant().isBefore(expiracion)) {
+            return Optional.empty();
+        }
+        final var roles = campos[2].isEmpty() ? List.<String>of() : Arrays.asList(campos[2].split(","));
+        return Optional.of(new Credencial(campos[0], roles, expiracion));
+    }
+
+    private byte[] firmar(String contenido) {
+        return firmas.get().doFinal(contenido.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] clave(String secreto, Environment entorno) {
+        if (!secreto.isBlank()) {
+            return Base64.getDecoder().decode(secreto);
+        }
+        if (!entorno.acceptsProfiles(Profiles.of("dev | test"))) {
+            throw new IllegalStateException(
+                    "Falta scott.seguridad.token.secreto (clave HMAC en base64, compartida por todas las instancias)");
+        }
+        logger.warn("Sin scott.seguridad.token.secreto: se usa una clave aleatoria, válida hasta reiniciar");
+        return aleatorio();
+    }
+
+    private static byte[] aleatorio() {
+        final var clave = new byte[32];
+        new SecureRandom().nextBytes(clave);
+        return clave;
+    }
+}
@@ -0,0 +1,91 @@
+package scott.infra.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Monto exacto en centavos. Ocupa un long, frente al BigDecimal con escala, precisión y caché de texto, y las
+// operaciones no pasan por BigInteger
+public record Dinero(long centavos) implements Comparable<Dinero> {
+
+    public static final int ESCALA = 2;
+    public static final Dinero CERO = new Dinero(0);
+
+    private static final long CENTAVOS_POR_UNIDAD = 100;
+
+    public static Dinero deCentavos(long centavos) {
+        return centavos == 0 ? CERO : new Dinero(centavos);
+    }
+
+    public static Dinero de(long unidades) {
+        return deCentavos(Math.multiplyExact(unidades, CENTAVOS_POR_UNIDAD));
+    }
+
+    public static Dinero de(BigDecimal valor) {
+        return valor == null ? null : deCentavos(centavos(valor));
+    }
+
+    // Un monto con fracciones de centavo no se redondea: se rechaza. Los ceros sobrantes a la derecha sí se admiten
+    public static boolean esExacto(BigDecimal valor) {
+        return valor.scale() <= ESCALA || valor.stripTrailingZeros().scale() <= ESCALA;
+    }
+
+    // Con la escala de la columna numeric(19,2) el desplazamiento deja un valor compacto y no se crea un BigInteger
+    public static long centavos(BigDecimal valor) {
+        if (!esExacto(valor)) {
+            throw new IllegalArgumentException("Monto con fracciones de centavo: %s".formatted(valor));
+        }
+        final var ajustado = valor.scale() > ESCALA ? valor.setScale(ESCALA, RoundingMode.UNNECESSARY) : valor;
+        return ajustado.movePointRight(ESCALA).longValueExact();
+    }
+
+    public Dinero mas(Dinero otro) {
+        return deCentavos(Math.addExact(centavos, otro.centavos));
+    }
+
+    public Dinero menos(Dinero otro) {
+        return deCentavos(Math.subtractExact(centavos, otro.centavos));
+    }
+
+    public Dinero por(long cantidad) {
+        return deCentavos(Math.multiplyExact(centavos, cantidad));
+    }
+
+    // Redondeo al centavo más cercano, con los medios centavos alejándose de cero
+    public Dinero porcentaje(long puntosBasicos) {
+        final var producto = Math.multiplyExact(centavos, puntosBasicos);
+        final var cociente = producto / 10_000;
+        final var resto = producto % 10_000;
+        return deCentavos(Math.abs(resto) >= 5_000 ? cociente + Long.signum(producto) : cociente);
+    }
+
+    public boolean esPositivo() {
+        return centavos > 0;
+    }
+
+    public boolean esCero() {
+        return centavos == 0;
+    }
+
+    // Siempre con la escala de la columna numeric(19,2), sea o no entero el monto
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centavos, otro.centavos);
+    }
+
+    @Override
+    public String toString() {
+        final var absoluto = Math.abs(centavos);
+        final var fraccion = (int) (absoluto % CENTAVOS_POR_UNIDAD);
+        return new StringBuilder(24)
+                .append(centavos < 0 ? "-" : "")
+                .append(absoluto / CENTAVOS_POR_UNIDAD)
+                .append('.')
+                .append((char) ('0' + fraccion / 10))
+                .append((char) ('0' + fraccion % 10))
+                .toString();
+    }
+}
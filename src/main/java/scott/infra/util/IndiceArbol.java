@@ -0,0 +1,162 @@
+package scott.infra.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Índice en memoria de un bosque (clave -> clave del padre). El tamaño de cada subárbol se mantiene de forma
+// incremental en cada alta o movimiento; la numeración en preorden (que hace de cada subárbol un intervalo
+// contiguo) se recalcula de forma diferida y solo cuando compensa frente a un recorrido directo del subárbol
+public class IndiceArbol<K> {
+
+    private static final class Nodo<K> {
+        final K clave;
+        Nodo<K> padre;
+        final List<Nodo<K>> hijos = new ArrayList<>();
+        int tamano = 1;
+        int inicio;
+
+        Nodo(K clave) {
+            this.clave = clave;
+        }
+    }
+
+    private final Map<K, Nodo<K>> nodos = new HashMap<>();
+    private Object[] preorden = new Object[0];
+    private boolean numeracionVigente = true;
+
+    public synchronized void registrar(K clave, K clavePadre) {
+        final var nodo = nodo(clave);
+        final var padre = clavePadre == null ? null : nodo(clavePadre);
+        if (nodo.padre == padre) {
+            return;
+        }
+        if (padre != null && contiene(nodo, padre)) {
+            throw new IllegalArgumentException(
+                    "%s no puede depender de %s: se formaría un ciclo".formatted(clave, clavePadre));
+        }
+        if (nodo.padre != null) {
+            nodo.padre.hijos.remove(nodo);
+            ajustarTamanos(nodo.padre, -nodo.tamano);
+        }
+        nodo.padre = padre;
+        if (padre != null) {
+            padre.hijos.add(nodo);
+            ajustarTamanos(padre, nodo.tamano);
+        }
+        numeracionVigente = false;
+    }
+
+    public synchronized void eliminar(K clave) {
+        final var nodo = nodos.remove(clave);
+        if (nodo == null) {
+            return;
+        }
+        if (nodo.padre != null) {
+            nodo.padre.hijos.remove(nodo);
+            ajustarTamanos(nodo.padre, -nodo.tamano);
+        }
+        for (final var hijo : nodo.hijos) {
+            hijo.padre = null;
+        }
+        numeracionVigente = false;
+    }
+
+    // Todos los descendientes, en preorden
+    @SuppressWarnings("unchecked")
+    public synchronized List<K> descendientes(K clave) {
+        final var nodo = nodos.get(clave);
+        if (nodo == null || nodo.tamano == 1) {
+            return List.of();
+        }
+        if (!numeracionVigente && nodo.tamano * 16 > nodos.size()) {
+            numerar();
+        }
+        if (numeracionVigente) {
+            final var intervalo = Arrays.copyOfRange(preorden, nodo.inicio + 1, nodo.inicio + nodo.tamano);
+            return (List<K>) Collections.unmodifiableList(Arrays.asList(intervalo));
+        }
+        final var descendientes = new ArrayList<K>(nodo.tamano - 1);
+        final var pila = new ArrayDeque<Nodo<K>>(nodo.hijos);
+        while (!pila.isEmpty()) {
+            final var actual = pila.pop();
+            descendientes.add(actual.clave);
+            actual.hijos.forEach(pila::push);
+        }
+        return Collections.unmodifiableList(descendientes);
+    }
+
+    // Los ancestros, del padre inmediato a la raíz
+    public synchronized List<K> ancestros(K clave) {
+        final var ancestros = new ArrayList<K>();
+        final var nodo = nodos.get(clave);
+        for (var actual = nodo == null ? null : nodo.padre; actual != null; actual = actual.padre) {
+            ancestros.add(actual.clave);
+        }
+        return Collections.unmodifiableList(ancestros);
+    }
+
+    public synchronized int contarDescendientes(K clave) {
+        final var nodo = nodos.get(clave);
+        return nodo == null ? 0 : nodo.tamano - 1;
+    }
+
+    public synchronized boolean esDescendiente(K clave, K claveAncestro) {
+        final var nodo = nodos.get(clave);
+        final var ancestro = nodos.get(claveAncestro);
+        return nodo != null && ancestro != null && nodo != ancestro && contiene(ancestro, nodo);
+    }
+
+    private Nodo<K> nodo(K clave) {
+        var nodo = nodos.get(clave);
+        if (nodo == null) {
+            nodo = new Nodo<>(clave);
+            nodos.put(clave, nodo);
+            numeracionVigente = false;
+        }
+        return nodo;
+    }
+
+    private boolean contiene(Nodo<K> raiz, Nodo<K> nodo) {
+        if (numeracionVigente) {
+            return raiz.inicio <= nodo.inicio && nodo.inicio < raiz.inicio + raiz.tamano;
+        }
+        for (var actual = nodo; actual != null; actual = actual.padre) {
+            if (actual == raiz) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ajustarTamanos(Nodo<K> desde, int delta) {
+        for (var actual = desde; actual != null; actual = actual.padre) {
+            actual.tamano += delta;
+        }
+    }
+
+    private void numerar() {
+        preorden = new Object[nodos.size()];
+        var posicion = 0;
+        final var pila = new ArrayDeque<Nodo<K>>();
+        for (final var raiz : nodos.values()) {
+            if (raiz.padre != null) {
+                continue;
+            }
+            pila.push(raiz);
+            while (!pila.isEmpty()) {
+                final var actual = pila.pop();
+                actual.inicio = posicion;
+                preorden[posicion++] = actual.clave;
+                for (int i = actual.hijos.size() - 1; i >= 0; i--) {
+                    pila.push(actual.hijos.get(i));
+                }
+            }
+        }
+        numeracionVigente = true;
+    }
+}
@@ -0,0 +1,332 @@
+package scott.infra.util;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice en memoria para búsquedas por prefijo mientras se escribe, insensibles a mayúsculas y acentos. Cada término
+// normalizado apunta a sus documentos ordenados por longitud del texto, de modo que los K primeros resultados salen
+// de recorrer solo el comienzo de cada lista; los trigramas de los términos permiten además coincidencias
+// aproximadas cuando los prefijos no alcanzan a completar el resultado
+public class IndiceTexto<K> {
+
+    public record Coincidencia<K>(K clave, String texto) {
+    }
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Cota de documentos examinados por consulta: acota el peor caso de consultas con varios términos muy frecuentes
+    private static final int MAXIMO_REVISADOS = 50_000;
+    private static final double SIMILITUD_MINIMA = 0.4;
+
+    // Documentos de un término, ordenados por (longitud del texto, número de documento) empaquetados en un long
+    private static final class Lista {
+        long[] claves = new long[2];
+        int tamano;
+
+        void agregar(long clave) {
+            final var posicion = Arrays.binarySearch(claves, 0, tamano, clave);
+            if (posicion >= 0) {
+                return;
+            }
+            final var insercion = -posicion - 1;
+            if (tamano == claves.length) {
+                claves = Arrays.copyOf(claves, tamano * 2);
+            }
+            System.arraycopy(claves, insercion, claves, insercion + 1, tamano - insercion);
+            claves[insercion] = clave;
+            tamano++;
+        }
+
+        void quitar(long clave) {
+            final var posicion = Arrays.binarySearch(claves, 0, tamano, clave);
+            if (posicion >= 0) {
+                System.arraycopy(claves, posicion + 1, claves, posicion, tamano - posicion - 1);
+                tamano--;
+            }
+        }
+    }
+
+    private static final class Cursor {
+        final Lista lista;
+        int posicion;
+
+        Cursor(Lista lista) {
+            this.lista = lista;
+        }
+
+        long actual() {
+            return lista.claves[posicion];
+        }
+    }
+
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Map<K, Integer> documentos = new HashMap<>();
+    private final ArrayDeque<Integer> libres = new ArrayDeque<>();
+    private final TreeMap<String, Lista> terminos = new TreeMap<>();
+    private final Map<String, Set<String>> trigramas = new HashMap<>();
+    private Object[] claves = new Object[16];
+    private String[] textos = new String[16];
+    private String[][] terminosDocumento = new String[16][];
+    private int siguiente = 0;
+
+    public static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    public static String[] terminos(String texto) {
+        return Arrays.stream(SEPARADORES.split(normalizar(texto)))
+                .filter(termino -> !termino.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    public void registrar(K clave, String texto) {
+        final var nuevos = terminos(texto);
+        candado.writeLock().lock();
+        try {
+            quitarDocumento(clave);
+            final int documento = libres.isEmpty() ? siguiente++ : libres.pop();
+            if (documento == claves.length) {
+                claves = Arrays.copyOf(claves, documento * 2);
+                textos = Arrays.copyOf(textos, documento * 2);
+                terminosDocumento = Arrays.copyOf(terminosDocumento, documento * 2);
+            }
+            claves[documento] = clave;
+            textos[documento] = texto;
+            terminosDocumento[documento] = nuevos;
+            documentos.put(clave, documento);
+            final var posicion = posicion(texto, documento);
+            for (final var termino : nuevos) {
+                terminos.computeIfAbsent(termino, this::nuevoTermino).agregar(posicion);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void quitar(K clave) {
+        candado.writeLock().lock();
+        try {
+            quitarDocumento(clave);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Todos los términos de la consulta deben coincidir, por prefijo, con algún término del documento. Primero van
+    // los documentos con el término guía completo, luego los que solo lo tienen como prefijo y por último los
+    // aproximados; dentro de cada grupo, los de texto más corto
+    public List<Coincidencia<K>> buscar(String consulta, int limite) {
+        final var consultados = terminos(consulta);
+        if (consultados.length == 0 || limite <= 0) {
+            return List.of();
+        }
+        candado.readLock().lock();
+        try {
+            final var guia = guia(consultados);
+            final var vistos = new BitSet();
+            final var resultado = new ArrayList<Coincidencia<K>>(limite);
+            final var revisados = new int[1];
+            final var exacto = terminos.get(guia);
+            if (exacto != null) {
+                recorrer(List.of(exacto), consultados, limite, vistos, resultado, revisados);
+            }
+            if (resultado.size() < limite) {
+                final var completados = new ArrayList<Lista>();
+                prefijos(guia).forEach((termino, lista) -> {
+                    if (!termino.equals(guia)) {
+                        completados.add(lista);
+                    }
+                });
+                recorrer(completados, consultados, limite, vistos, resultado, revisados);
+            }
+            if (resultado.size() < limite) {
+                final var ultimo = consultados[consultados.length - 1];
+                final var otros = Arrays.copyOf(consultados, consultados.length - 1);
+                for (final var similar : similares(ultimo)) {
+                    recorrer(List.of(terminos.get(similar)), otros, limite, vistos, resultado, revisados);
+                    if (resultado.size() >= limite) {
+                        break;
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // Mezcla las listas en orden de longitud del texto, descartando documentos ya vistos o que no contienen todos
+    // los términos de la consulta
+    @SuppressWarnings("unchecked")
+    private void recorrer(List<Lista> listas,
+                          String[] consultados,
+                          int limite,
+                          BitSet vistos,
+                          List<Coincidencia<K>> resultado,
+                          int[] revisados) {
+        final var cola = new PriorityQueue<Cursor>(Math.max(1, listas.size()), Comparator.comparingLong(Cursor::actual));
+        for (final var lista : listas) {
+            if (lista.tamano > 0) {
+                cola.add(new Cursor(lista));
+            }
+        }
+        while (!cola.isEmpty() && resultado.size() < limite && revisados[0] < MAXIMO_REVISADOS) {
+            final var cursor = cola.poll();
+            final var documento = (int) cursor.actual();
+            if (++cursor.posicion < cursor.lista.tamano) {
+                cola.add(cursor);
+            }
+            if (vistos.get(documento)) {
+                continue;
+            }
+            vistos.set(documento);
+            revisados[0]++;
+            if (contieneTodos(terminosDocumento[documento], consultados)) {
+                resultado.add(new Coincidencia<>((K) claves[documento], textos[documento]));
+            }
+        }
+    }
+
+    // El término con menos documentos asociados es el que menos candidatos genera
+    private String guia(String[] consultados) {
+        if (consultados.length == 1) {
+            return consultados[0];
+        }
+        var guia = consultados[consultados.length - 1];
+        var menor = Long.MAX_VALUE;
+        for (final var termino : consultados) {
+            long total = 0;
+            for (final var lista : prefijos(termino).values()) {
+                total += lista.tamano;
+                if (total >= menor) {
+                    break;
+                }
+            }
+            if (total < menor) {
+                menor = total;
+                guia = termino;
+            }
+        }
+        return guia;
+    }
+
+    private NavigableMap<String, Lista> prefijos(String prefijo) {
+        return terminos.subMap(prefijo, true, prefijo + Character.MAX_VALUE, false);
+    }
+
+    private static boolean contieneTodos(String[] delDocumento, String[] consultados) {
+        for (final var consultado : consultados) {
+            var encontrado = false;
+            for (final var termino : delDocumento) {
+                if (termino.startsWith(consultado)) {
+                    encontrado = true;
+                    break;
+                }
+            }
+            if (!encontrado) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Términos con un coeficiente de Dice sobre trigramas de al menos SIMILITUD_MINIMA, del más al menos parecido. Un
+    // término de longitud n tiene a lo sumo n + 1 trigramas (con el relleno), que se usan como su cantidad
+    private List<String> similares(String termino) {
+        if (termino.length() < 3) {
+            return List.of();
+        }
+        final var propios = trigramasDe(termino);
+        final var comunes = new HashMap<String, Integer>();
+        for (final var trigrama : propios) {
+            for (final var candidato : trigramas.getOrDefault(trigrama, Set.of())) {
+                comunes.merge(candidato, 1, Integer::sum);
+            }
+        }
+        final var similitudes = new HashMap<String, Double>();
+        comunes.forEach((candidato, cantidad) -> {
+            final var similitud = 2.0 * cantidad / (propios.size() + candidato.length() + 1);
+            if (similitud >= SIMILITUD_MINIMA && !candidato.startsWith(termino)) {
+                similitudes.put(candidato, similitud);
+            }
+        });
+        return similitudes.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static Set<String> trigramasDe(String termino) {
+        final var relleno = "  " + termino + " ";
+        final var resultado = new HashSet<String>();
+        for (int i = 0; i + 3 <= relleno.length(); i++) {
+            resultado.add(relleno.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    private Lista nuevoTermino(String termino) {
+        for (final var trigrama : trigramasDe(termino)) {
+            trigramas.computeIfAbsent(trigrama, t -> new HashSet<>()).add(termino);
+        }
+        return new Lista();
+    }
+
+    private void quitarDocumento(K clave) {
+        final var documento = documentos.remove(clave);
+        if (documento == null) {
+            return;
+        }
+        final var posicion = posicion(textos[documento], documento);
+        for (final var termino : terminosDocumento[documento]) {
+            final var lista = terminos.get(termino);
+            lista.quitar(posicion);
+            if (lista.tamano == 0) {
+                terminos.remove(termino);
+                for (final var trigrama : trigramasDe(termino)) {
+                    final var conTrigrama = trigramas.get(trigrama);
+                    conTrigrama.remove(termino);
+                    if (conTrigrama.isEmpty()) {
+                        trigramas.remove(trigrama);
+                    }
+                }
+            }
+        }
+        claves[documento] = null;
+        textos[documento] = null;
+        terminosDocumento[documento] = null;
+        libres.push(documento);
+    }
+
+    private static long posicion(String texto, int documento) {
+        return (long) texto.length() << 32 | documento;
+    }
+}
@@ -0,0 +1,16 @@
+package scott.infra.validacion;
+
+import scott.infra.util.Dinero;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import javax.validation.constraints.Positive;
+
+// Extiende @Positive a Dinero; se registra en META-INF/services/javax.validation.ConstraintValidator
+public class ValidadorDineroPositivo implements ConstraintValidator<Positive, Dinero> {
+
+    @Override
+    public boolean isValid(Dinero valor, ConstraintValidatorContext contexto) {
+        return valor == null || valor.esPositivo();
+    }
+}
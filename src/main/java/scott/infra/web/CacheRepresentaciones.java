@@ -0,0 +1,73 @@
+package scott.infra.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import scott.infra.jpa.entidad.EscuchaEntidad.Cambio;
+import scott.infra.web.RecursosRest.Elemento;
+import scott.infra.web.RecursosRest.Estado;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Respuestas ya serializadas de los elementos más leídos, por entidad y variante (Accept y parámetros). Un cambio
+// notificado por EscuchaEntidad descarta las variantes de la entidad de inmediato y otra vez al confirmarse la
+// transacción, para no conservar una respuesta generada con el estado anterior mientras el cambio no era visible
+@Component
+@Profile("!memoria")
+public class CacheRepresentaciones {
+
+    public record Representacion(Estado estado, String tipoContenido, byte[] cuerpo) {
+    }
+
+    private record Clave(Class<?> clase, String id) {
+    }
+
+    private final RecursosRest recursos;
+    private final Map<Clave, Map<String, Representacion>> entradas;
+
+    public CacheRepresentaciones(RecursosRest recursos,
+                                 @Value("${scott.web.representaciones.capacidad:1000}") int capacidad) {
+        this.recursos = recursos;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Map<String, Representacion>> mayor) {
+                return size() > capacidad;
+            }
+        };
+    }
+
+    public synchronized Representacion leer(Elemento elemento, String variante) {
+        final var variantes = entradas.get(new Clave(elemento.recurso().clase(), elemento.id()));
+        return variantes == null ? null : variantes.get(variante);
+    }
+
+    public synchronized void guardar(Elemento elemento, String variante, Representacion representacion) {
+        entradas.computeIfAbsent(new Clave(elemento.recurso().clase(), elemento.id()), clave -> new HashMap<>())
+                .put(variante, representacion);
+    }
+
+    @EventListener
+    public void invalidar(Cambio cambio) {
+        recursos.recurso(cambio.clase()).ifPresent(recurso -> {
+            final var clave = new Clave(recurso.clase(), cambio.id());
+            descartar(clave);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int estado) {
+                        descartar(clave);
+                    }
+                });
+            }
+        });
+    }
+
+    private synchronized void descartar(Clave clave) {
+        entradas.remove(clave);
+    }
+}
@@ -0,0 +1,214 @@
+package scott.infra.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import scott.infra.web.CacheRepresentaciones.Representacion;
+import scott.infra.web.RecursosRest.Elemento;
+import scott.infra.web.RecursosRest.Estado;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Optional;
+
+// Solicitudes condicionales sobre los elementos de Spring Data REST. If-None-Match e If-Modified-Since se
+// resuelven con la versión leída de la tabla (o de la representación en caché) y responden 304 sin cargar la
+// entidad; If-Match en PUT, PATCH y DELETE responde 412 si la versión no coincide. Las ETag son débiles
+// (W/"versión") porque distintas variantes de la misma versión comparten etiqueta; If-Match usa la comparación
+// fuerte, así que solo acepta la versión como etiqueta fuerte ("versión", el formato de Spring Data REST) o *
+@Component
+@ConditionalOnProperty(name = "scott.web.condicional.habilitado", havingValue = "true")
+public class FiltroCondicional extends OncePerRequestFilter {
+
+    private final RecursosRest recursos;
+    private final CacheRepresentaciones cache;
+    private final MeterRegistry metricas;
+
+    public FiltroCondicional(RecursosRest recursos, CacheRepresentaciones cache, MeterRegistry metricas) {
+        this.recursos = recursos;
+        this.cache = cache;
+        this.metricas = metricas;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest solicitud,
+                                    HttpServletResponse respuesta,
+                                    FilterChain cadena) throws ServletException, IOException {
+        final var elemento = recursos.elemento(solicitud);
+        if (elemento.isEmpty()) {
+            cadena.doFilter(solicitud, respuesta);
+            return;
+        }
+        switch (solicitud.getMethod()) {
+            case "GET", "HEAD" -> leer(elemento.get(), solicitud, respuesta, cadena);
+            case "PUT", "PATCH", "DELETE" -> modificar(elemento.get(), solicitud, respuesta, cadena);
+            default -> cadena.doFilter(solicitud, respuesta);
+        }
+    }
+
+    private void leer(Elemento elemento,
+                      HttpServletRequest solicitud,
+                      HttpServletResponse respuesta,
+                      FilterChain cadena) throws ServletException, IOException {
+        final var variante = variante(solicitud);
+        final var cacheada = cache.leer(elemento, variante);
+        final var estado = cacheada != null ? Optional.of(cacheada.estado()) : recursos.estado(elemento);
+        if (estado.isEmpty()) {
+            cadena.doFilter(solicitud, respuesta);
+            return;
+        }
+        if (noModificado(solicitud, estado.get())) {
+            encabezados(respuesta, estado.get());
+            respuesta.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            contar("no-modificado");
+            return;
+        }
+        if (cacheada != null) {
+            encabezados(respuesta, cacheada.estado());
+            respuesta.setStatus(HttpServletResponse.SC_OK);
+            respuesta.setContentType(cacheada.tipoContenido());
+            respuesta.setContentLength(cacheada.cuerpo().length);
+            if ("GET".equals(solicitud.getMethod())) {
+                respuesta.getOutputStream().write(cacheada.cuerpo());
+            }
+            contar("cache");
+            return;
+        }
+
+        final var capturada = new ContentCachingResponseWrapper(respuesta);
+        cadena.doFilter(solicitud, capturada);
+        // Solo se guarda si la respuesta corresponde a la versión leída; si cambió en medio, se sirve sin guardar
+        if (capturada.getStatus() == HttpServletResponse.SC_OK) {
+            encabezados(capturada, estado.get());
+            if ("GET".equals(solicitud.getMethod()) && versionRespuesta(capturada) == estado.get().version()) {
+                cache.guardar(elemento, variante,
+                        new Representacion(estado.get(), capturada.getContentType(), capturada.getContentAsByteArray()));
+            }
+        }
+        capturada.copyBodyToResponse();
+        contar("generada");
+    }
+
+    private void modificar(Elemento elemento,
+                           HttpServletRequest solicitud,
+                           HttpServletResponse respuesta,
+                           FilterChain cadena) throws ServletException, IOException {
+        final var condicion = solicitud.getHeader(HttpHeaders.IF_MATCH);
+        if (condicion == null) {
+            cadena.doFilter(solicitud, respuesta);
+            return;
+        }
+        final var estado = recursos.estado(elemento);
+        if (estado.isEmpty()) {
+            cadena.doFilter(solicitud, respuesta);
+            return;
+        }
+        if (!coincide(condicion, estado.get(), true)) {
+            encabezados(respuesta, estado.get());
+            respuesta.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
+            contar("precondicion-fallida");
+            return;
+        }
+        // Spring Data REST vuelve a verificar la versión contra la entidad que carga, con su formato de ETag
+        cadena.doFilter(new ConVersion(solicitud, estado.get().version()), respuesta);
+    }
+
+    // If-None-Match tiene precedencia; If-Modified-Since se compara con resolución de segundos
+    private static boolean noModificado(HttpServletRequest solicitud, Estado estado) {
+        final var condicion = solicitud.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (condicion != null) {
+            return coincide(condicion, estado, false);
+        }
+        try {
+            final var desde = solicitud.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return desde >= 0 && estado.ultimaModificacion().getEpochSecond() <= desde / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // La comparación fuerte (If-Match) nunca acepta una etiqueta débil; la débil (If-None-Match) ignora el prefijo
+    private static boolean coincide(String condicion, Estado estado, boolean fuerte) {
+        final var version = Long.toString(estado.version());
+        for (final var etiqueta : condicion.split(",")) {
+            var valor = etiqueta.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                if (fuerte) {
+                    continue;
+                }
+                valor = valor.substring(2);
+            }
+            if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+                valor = valor.substring(1, valor.length() - 1);
+            }
+            if (valor.equals(version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void encabezados(HttpServletResponse respuesta, Estado estado) {
+        respuesta.setHeader(HttpHeaders.ETAG, estado.etag());
+        respuesta.setDateHeader(HttpHeaders.LAST_MODIFIED, estado.ultimaModificacion().toEpochMilli());
+    }
+
+    // Spring Data REST informa la versión serializada en su propia ETag ("versión")
+    private static long versionRespuesta(HttpServletResponse respuesta) {
+        final var etiqueta = respuesta.getHeader(HttpHeaders.ETAG);
+        if (etiqueta == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(etiqueta.replaceFirst("^W/", "").replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String variante(HttpServletRequest solicitud) {
+        final var aceptado = solicitud.getHeader(HttpHeaders.ACCEPT);
+        final var consulta = solicitud.getQueryString();
+        return (aceptado == null ? "*/*" : aceptado) + (consulta == null ? "" : "?" + consulta);
+    }
+
+    private void contar(String resultado) {
+        metricas.counter("scott.web.condicional", "resultado", resultado).increment();
+    }
+
+    // Sustituye If-Match por la versión en el formato que espera Spring Data REST
+    private static final class ConVersion extends HttpServletRequestWrapper {
+
+        private final String etiqueta;
+
+        ConVersion(HttpServletRequest solicitud, long version) {
+            super(solicitud);
+            this.etiqueta = "\"" + version + "\"";
+        }
+
+        @Override
+        public String getHeader(String nombre) {
+            return HttpHeaders.IF_MATCH.equalsIgnoreCase(nombre) ? etiqueta : super.getHeader(nombre);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String nombre) {
+            return HttpHeaders.IF_MATCH.equalsIgnoreCase(nombre) ?
+                    Collections.enumeration(List.of(etiqueta)) :
+                    super.getHeaders(nombre);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package scott.infra.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import scott.infra.jdbc.SesionEscritura;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Cada solicitud es una sesión de escritura: el cliente envía en X-Ultima-Escritura el instante que recibió en su
+// última respuesta con escrituras, y así sus lecturas siguientes van a la primaria mientras una réplica pueda no
+// tenerlas, aunque las atienda otra instancia. Sin el encabezado, las lecturas no esperan escrituras anteriores
+@Component
+@ConditionalOnProperty(name = "scott.replicas.habilitadas", havingValue = "true")
+public class FiltroSesionEscritura extends OncePerRequestFilter {
+
+    public static final String ENCABEZADO = "X-Ultima-Escritura";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest solicitud,
+                                    HttpServletResponse respuesta,
+                                    FilterChain cadena) throws ServletException, IOException {
+        final var sesion = SesionEscritura.abrir(ultimaEscritura(solicitud), instante -> {
+            if (!respuesta.isCommitted()) {
+                respuesta.setHeader(ENCABEZADO, Long.toString(instante));
+            }
+        });
+        try {
+            cadena.doFilter(solicitud, respuesta);
+        } finally {
+            sesion.cerrar();
+        }
+    }
+
+    private static long ultimaEscritura(HttpServletRequest solicitud) {
+        final var valor = solicitud.getHeader(ENCABEZADO);
+        if (valor == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
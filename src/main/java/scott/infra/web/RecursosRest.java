@@ -0,0 +1,117 @@
+package scott.infra.web;
+
+import io.vavr.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.rest.core.config.RepositoryRestConfiguration;
+import org.springframework.data.rest.core.mapping.RepositoryResourceMappings;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import scott.infra.jpa.entidad.Entidad;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Table;
+import javax.servlet.http.HttpServletRequest;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Recursos de elemento expuestos por Spring Data REST (/{base}/{recurso}/{id}) y la lectura de su versión y fecha
+// de modificación directamente de la tabla, sin cargar ni serializar la entidad
+@Component
+@Profile("!memoria")
+public class RecursosRest {
+
+    private static final String VERSION = """
+            select version, coalesce(fecha_actualizacion, fecha_creacion) from %s where id = ?
+            """;
+
+    public record Recurso(Class<? extends Entidad> clase, String consultaVersion) {
+    }
+
+    public record Elemento(Recurso recurso, String id) {
+    }
+
+    public record Estado(long version, Instant ultimaModificacion) {
+
+        public String etag() {
+            return "W/\"" + version + "\"";
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Lazy<String> rutaBase;
+    private final Lazy<Map<String, Recurso>> porRuta;
+
+    public RecursosRest(JdbcTemplate jdbcTemplate,
+                        EntityManagerFactory entityManagerFactory,
+                        RepositoryRestConfiguration configuracion,
+                        RepositoryResourceMappings mapeos) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Se resuelven en la primera solicitud: el filtro se crea antes que la configuración de Spring Data REST
+        this.rutaBase = Lazy.of(() -> quitarBarraFinal(configuracion.getBasePath().toString()));
+        this.porRuta = Lazy.of(() -> resolver(entityManagerFactory, mapeos));
+    }
+
+    public Optional<Elemento> elemento(HttpServletRequest solicitud) {
+        final var ruta = solicitud.getRequestURI().substring(solicitud.getContextPath().length());
+        if (!ruta.startsWith(rutaBase.get() + "/")) {
+            return Optional.empty();
+        }
+        final var relativa = ruta.substring(rutaBase.get().length() + 1);
+        final var separador = relativa.indexOf('/');
+        if (separador <= 0 || separador == relativa.length() - 1 || relativa.indexOf('/', separador + 1) >= 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(porRuta.get().get(relativa.substring(0, separador)))
+                .map(recurso -> new Elemento(recurso, relativa.substring(separador + 1)));
+    }
+
+    public Optional<Recurso> recurso(Class<?> clase) {
+        for (var actual = clase; actual != null; actual = actual.getSuperclass()) {
+            for (final var recurso : porRuta.get().values()) {
+                if (recurso.clase() == actual) {
+                    return Optional.of(recurso);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Estado> estado(Elemento elemento) {
+        return jdbcTemplate.query(elemento.recurso().consultaVersion(), rs -> {
+            if (!rs.next()) {
+                return Optional.empty();
+            }
+            final var version = rs.getLong(1);
+            final var fecha = rs.getTimestamp(2);
+            return Optional.of(new Estado(version, fecha == null ? Instant.EPOCH : fecha.toInstant()));
+        }, elemento.id());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Recurso> resolver(EntityManagerFactory entityManagerFactory,
+                                                 RepositoryResourceMappings mapeos) {
+        final var recursos = new LinkedHashMap<String, Recurso>();
+        for (final var tipo : entityManagerFactory.getMetamodel().getEntities()) {
+            final var clase = tipo.getJavaType();
+            if (!Entidad.class.isAssignableFrom(clase) || !mapeos.exists(clase)) {
+                continue;
+            }
+            final var metadatos = mapeos.getMetadataFor(clase);
+            if (!metadatos.isExported()) {
+                continue;
+            }
+            final var tabla = clase.getAnnotation(Table.class);
+            final var nombreTabla = tabla == null || tabla.name().isEmpty() ? tipo.getName() : tabla.name();
+            recursos.put(
+                    metadatos.getPath().toString().replaceFirst("^/", ""),
+                    new Recurso((Class<? extends Entidad>) clase, VERSION.formatted(nombreTabla)));
+        }
+        return recursos;
+    }
+
+    private static String quitarBarraFinal(String ruta) {
+        return ruta.endsWith("/") ? ruta.substring(0, ruta.length() - 1) : ruta;
+    }
+}
@@ -0,0 +1,14 @@
+-- Índices de trigramas para BusquedaNombres.Sql (scott.busqueda.indice=sql). unaccent no es inmutable y no puede
+-- usarse en un índice de expresión; scott_sin_acentos lo envuelve fijando el diccionario
+create extension if not exists pg_trgm;
+create extension if not exists unaccent;
+
+create or replace function scott_sin_acentos(text) returns text
+    language sql immutable parallel safe strict
+as $$ select public.unaccent('public.unaccent'::regdictionary, $1) $$;
+
+create index if not exists empleado_busqueda_trgm
+    on empleado using gin (scott_sin_acentos(lower(nombre || ' ' || cargo)) gin_trgm_ops);
+
+create index if not exists departamento_busqueda_trgm
+    on departamento using gin (scott_sin_acentos(lower(nombre || ' ' || localidad)) gin_trgm_ops);
@@ -0,0 +1,8 @@
+-- Registro de claves de idempotencia (scott.idempotencia.jdbc=true). La huella es el SHA-256, en hexadecimal, de
+-- la operación y sus datos
+create table if not exists idempotencia (
+    clave          varchar(64) not null primary key,
+    huella         char(64)    not null,
+    resultado      varchar(64) not null,
+    fecha_registro timestamp   not null
+);
@@ -2,7 +2,18 @@ package scott;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import scott.infra.jpa.ContadorSentencias;
+import scott.infra.jpa.ContadorSentencias.Medicion;
 
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// El perfil test aporta la configuración propia de las pruebas (application-test.properties), incluidas las
+// credenciales; las subclases pueden sumar otros perfiles
+@ActiveProfiles("test")
 public abstract class PruebaIntegracion {
 
     @Autowired
@@ -11,4 +22,32 @@ public abstract class PruebaIntegracion {
     protected <T> T getBean(Class<T> clazz) {
         return applicationContext.getBean(clazz);
     }
-}
\ No newline at end of file
+
+    // Se cuentan las sentencias emitidas durante la operación, incluidas las escrituras pendientes de operaciones
+    // anteriores si una consulta provoca el flush automático de Hibernate; para medir solo la operación, conviene
+    // hacer flush antes. Lo que siga pendiente al terminar la operación no se cuenta
+    protected <T> T conMaximoSentencias(int maximo, Supplier<T> operacion) {
+        return medir(operacion, medicion -> medicion.total() <= maximo ?
+                null :
+                "Se esperaban a lo sumo %d sentencias y se emitieron %d: %s"
+                        .formatted(maximo, medicion.total(), medicion.sentencias()));
+    }
+
+    protected <T> T sinSentenciasRepetidas(Supplier<T> operacion) {
+        return medir(operacion, medicion -> medicion.repetidas().isEmpty() ?
+                null :
+                "Sentencias repetidas (posible N+1): %s".formatted(medicion.repetidas()));
+    }
+
+    private <T> T medir(Supplier<T> operacion, Function<Medicion, String> error) {
+        final T resultado;
+        final Medicion medicion;
+        try (final var abierta = ContadorSentencias.iniciar("prueba")) {
+            resultado = operacion.get();
+            medicion = abierta;
+        }
+        final var mensaje = error.apply(medicion);
+        assertTrue(mensaje == null, mensaje);
+        return resultado;
+    }
+}
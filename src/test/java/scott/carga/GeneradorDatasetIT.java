@@ -0,0 +1,104 @@
+package scott.carga;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import scott.PruebaIntegracion;
+import scott.dominio.*;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.infra.jpa.RepositorioDSL.leer;
+
+// El dataset se carga por los servicios sobre el perfil "memoria", de modo que cualquier violación de las reglas
+// del dominio en el plan generado hace fallar la carga
+@SpringBootTest
+@ActiveProfiles("memoria")
+public class GeneradorDatasetIT extends PruebaIntegracion {
+
+    @BeforeEach
+    public void vaciar() {
+        repositorioEmpleado.deleteAll();
+        repositorioDepartamento.deleteAll();
+        jerarquiaEmpleados.invalidar();
+        repositorioNomina.invalidar();
+    }
+
+    @Test
+    public void planReferencialmenteValido() {
+
+        final var parametros = new ParametrosDataset(5, 300, 5, 5, 3000, 0.35, 0.6, 0.25, 7);
+        final var plan = GeneradorDataset.generar(parametros);
+
+        assertEquals(5, plan.departamentos().size());
+        assertEquals(300, plan.empleados().size());
+        assertEquals(plan, GeneradorDataset.generar(parametros));
+
+        final var codigos = new HashSet<String>();
+        for (int i = 0; i < plan.empleados().size(); i++) {
+            final var empleado = plan.empleados().get(i);
+            assertTrue(codigos.add(empleado.codigo()), empleado.codigo());
+            assertTrue(i == 0 ? empleado.supervisor() < 0 : empleado.supervisor() >= 0 && empleado.supervisor() < i);
+            assertTrue(empleado.comision() == null ||
+                    plan.departamentos().get(empleado.departamento()).aplicaComision());
+        }
+
+        // Un organigrama de profundidad 3 y ramificación 2 admite solo 7 empleados
+        assertEquals(7, GeneradorDataset.generar(new ParametrosDataset(2, 50, 3, 2, 3000, 0.35, 0.6, 0.25, 7))
+                .empleados().size());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParametrosDataset(0, 50, 3, 2, 3000, 0.35, 0.6, 0.25, 7));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParametrosDataset(2, ParametrosDataset.MAXIMO_EMPLEADOS + 1, 3, 2, 3000, 0.35, 0.6, 0.25, 7));
+    }
+
+    @Test
+    public void cargaPorServicios() {
+
+        final var plan = GeneradorDataset.generar(new ParametrosDataset(4, 60, 4, 4, 3000, 0.35, 0.6, 0.25, 11));
+        final var cargado = GeneradorDataset.cargarPorServicios(plan, servicioDepartamento, servicioEmpleado);
+
+        assertEquals(4, repositorioDepartamento.count());
+        assertEquals(60, repositorioEmpleado.count());
+        for (int i = 0; i < plan.empleados().size(); i++) {
+            final var esperado = plan.empleados().get(i);
+            final var empleado = leer(repositorioEmpleado, cargado.idsEmpleado().get(i));
+            assertEquals(esperado.codigo(), empleado.getCodigo());
+            assertEquals(cargado.idsDepartamento().get(esperado.departamento()), empleado.getDepartamento().getId());
+            if (esperado.supervisor() < 0) {
+                assertNull(empleado.getSupervisor());
+            } else {
+                assertEquals(cargado.idsEmpleado().get(esperado.supervisor()), empleado.getSupervisor().getId());
+            }
+        }
+        assertTrue(repositorioNomina.verificar().isEmpty());
+    }
+
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+    private final RepositorioNomina repositorioNomina;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+    private final JerarquiaEmpleados jerarquiaEmpleados;
+
+    @Autowired
+    public GeneradorDatasetIT(RepositorioDepartamento repositorioDepartamento,
+                              RepositorioEmpleado repositorioEmpleado,
+                              RepositorioNomina repositorioNomina,
+                              ServicioDepartamento servicioDepartamento,
+                              ServicioEmpleado servicioEmpleado,
+                              JerarquiaEmpleados jerarquiaEmpleados) {
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+        this.repositorioNomina = repositorioNomina;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+        this.jerarquiaEmpleados = jerarquiaEmpleados;
+    }
+}
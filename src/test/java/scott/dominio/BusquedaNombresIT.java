@@ -0,0 +1,98 @@
+package scott.dominio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.PruebaIntegracion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.dominio.Genero.MASCULINO;
+
+// Índice en memoria sobre JPA. Sin transacción de prueba: el índice se ajusta al confirmarse cada transacción
+@SpringBootTest(properties = {
+        "scott.busqueda.indice=memoria",
+        "scott.eventos.relevo.habilitado=false"})
+public class BusquedaNombresIT extends PruebaIntegracion {
+
+    @BeforeEach
+    @AfterEach
+    public void vaciar() {
+        // Los empleados se borran en cascada con sus departamentos
+        jdbcTemplate.update("delete from departamento");
+        busquedaNombres.invalidar();
+    }
+
+    @Test
+    public void bajasEnCascadaSalenDelIndice() {
+
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota").get();
+        final var idInvestigacion = servicioDepartamento.crearDepartamento("20", "Investigacion", "Sunrise").get();
+        final var idOperaciones = servicioDepartamento.crearDepartamento("40", "Operaciones", "Lima").get();
+        final var idBlake = crearEmpleado("7698", "Blake", "Gerente", null, idInvestigacion);
+        final var idJones = crearEmpleado("7566", "Jones", "Gerente", idBlake, idVentas);
+        final var idWard = crearEmpleado("7521", "Ward", "Vendedor", null, idVentas);
+        final var idScott = crearEmpleado("7788", "Scott", "Analista", null, idOperaciones);
+
+        assertEquals(List.of(idBlake, idJones).stream().sorted().toList(),
+                ids(busquedaNombres.empleados("gerente", 10)).stream().sorted().toList());
+
+        // Borrado masivo: Blake cae con su departamento y Jones, de otro, con su supervisor
+        assertTrue(servicioDepartamento.eliminar(idInvestigacion).isRight());
+        assertTrue(busquedaNombres.empleados("gerente", 10).isEmpty());
+        assertTrue(busquedaNombres.departamentos("investigacion", 10).isEmpty());
+        assertEquals(List.of(idWard), ids(busquedaNombres.empleados("ward", 10)));
+
+        // Borrado de la entidad cargada
+        transaccion.executeWithoutResult(estado ->
+                repositorioDepartamento.delete(repositorioDepartamento.leerPorId(idOperaciones)));
+        assertTrue(busquedaNombres.empleados("scott", 10).isEmpty());
+        assertTrue(busquedaNombres.departamentos("operaciones", 10).isEmpty());
+        assertEquals(List.of(idVentas), ids(busquedaNombres.departamentos("ventas", 10)));
+        assertTrue(repositorioEmpleado.findById(idScott).isEmpty());
+    }
+
+    private String crearEmpleado(String codigo, String nombre, String cargo, String idSupervisor, String idDepartamento) {
+        return servicioEmpleado.crearEmpleado(
+                codigo, nombre, MASCULINO, cargo, idSupervisor, LocalDate.of(2011, 1, 1),
+                new BigDecimal(9000), null, idDepartamento).get();
+    }
+
+    static List<String> ids(List<BusquedaNombres.Coincidencia> coincidencias) {
+        return coincidencias.stream().map(BusquedaNombres.Coincidencia::id).toList();
+    }
+
+    private final BusquedaNombres busquedaNombres;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+
+    @Autowired
+    public BusquedaNombresIT(BusquedaNombres busquedaNombres,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             RepositorioDepartamento repositorioDepartamento,
+                             RepositorioEmpleado repositorioEmpleado,
+                             ServicioDepartamento servicioDepartamento,
+                             ServicioEmpleado servicioEmpleado) {
+        this.busquedaNombres = busquedaNombres;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+    }
+}
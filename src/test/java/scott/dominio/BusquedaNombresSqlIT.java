@@ -0,0 +1,90 @@
+package scott.dominio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import scott.PruebaIntegracion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.dominio.BusquedaNombresIT.ids;
+import static scott.dominio.Genero.FEMENINO;
+import static scott.dominio.Genero.MASCULINO;
+
+// BusquedaNombres.Sql necesita pg_trgm y unaccent, que H2 no tiene: la prueba corre solo si SCOTT_POSTGRES_URL
+// apunta a una base PostgreSQL (p. ej. jdbc:postgresql://localhost:5432/scott) cuyo usuario pueda crear las extensiones
+@EnabledIfEnvironmentVariable(named = "SCOTT_POSTGRES_URL", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${SCOTT_POSTGRES_URL}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.datasource.username=${SCOTT_POSTGRES_USUARIO:scott}",
+        "spring.datasource.password=${SCOTT_POSTGRES_CLAVE:tiger}",
+        "spring.jpa.database=POSTGRESQL",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "scott.busqueda.indice=sql",
+        "scott.busqueda.crear-indices=true",
+        "scott.eventos.relevo.habilitado=false"})
+public class BusquedaNombresSqlIT extends PruebaIntegracion {
+
+    @BeforeEach
+    @AfterEach
+    public void vaciar() {
+        jdbcTemplate.update("delete from departamento");
+    }
+
+    @Test
+    public void subcadenaSimilitudYBajas() {
+
+        final var idInvestigacion = servicioDepartamento.crearDepartamento("20", "Investigación", "Sunrise").get();
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogotá").get();
+        final var idMartinez = crearEmpleado("7839", "Martínez", FEMENINO, "Presidente", null, idInvestigacion);
+        final var idMartin = crearEmpleado("7566", "Martín", MASCULINO, "Gerente", idMartinez, idVentas);
+
+        // Todos los términos por subcadena, sin distinguir mayúsculas ni acentos
+        assertEquals(List.of(idMartin, idMartinez), ids(busquedaNombres.empleados("MART", 10)));
+        assertEquals(List.of(idMartinez), ids(busquedaNombres.empleados("martinez pres", 10)));
+        assertEquals(List.of(idVentas), ids(busquedaNombres.departamentos("bogota", 10)));
+        // Sin coincidencias por subcadena, por similitud
+        assertEquals(List.of(idVentas), ids(busquedaNombres.departamentos("Vetnas", 10)));
+
+        // Las bajas en cascada de la base de datos no dejan filas que encontrar
+        assertTrue(servicioDepartamento.eliminar(idInvestigacion).isRight());
+        assertTrue(busquedaNombres.empleados("mart", 10).isEmpty());
+        assertTrue(busquedaNombres.departamentos("investigacion", 10).isEmpty());
+    }
+
+    private String crearEmpleado(String codigo,
+                                 String nombre,
+                                 Genero genero,
+                                 String cargo,
+                                 String idSupervisor,
+                                 String idDepartamento) {
+        return servicioEmpleado.crearEmpleado(
+                codigo, nombre, genero, cargo, idSupervisor, LocalDate.of(2011, 1, 1),
+                new BigDecimal(9000), null, idDepartamento).get();
+    }
+
+    private final BusquedaNombres busquedaNombres;
+    private final JdbcTemplate jdbcTemplate;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+
+    @Autowired
+    public BusquedaNombresSqlIT(BusquedaNombres busquedaNombres,
+                                JdbcTemplate jdbcTemplate,
+                                ServicioDepartamento servicioDepartamento,
+                                ServicioEmpleado servicioEmpleado) {
+        this.busquedaNombres = busquedaNombres;
+        this.jdbcTemplate = jdbcTemplate;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+    }
+}
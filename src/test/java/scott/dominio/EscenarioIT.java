@@ -5,17 +5,27 @@ import io.vavr.collection.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 import scott.PruebaIntegracion;
+import scott.infra.Falla;
+import scott.infra.jpa.Criterio;
+import scott.infra.util.Dinero;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static scott.dominio.Genero.FEMENINO;
 import static scott.dominio.Genero.MASCULINO;
+import static scott.infra.jpa.RepositorioDSL.actualizar;
+import static scott.infra.jpa.RepositorioDSL.enUnidadDeTrabajo;
 import static scott.infra.jpa.RepositorioDSL.leer;
+import static scott.infra.jpa.RepositorioDSL.trasGrabar;
 
 @Transactional
 @SpringBootTest
@@ -60,8 +70,8 @@ public class EscenarioIT extends PruebaIntegracion {
 
         assertEquals("Vendedor", allen.getCargo());
         assertEquals(blake, allen.getSupervisor());
-        assertEquals(new BigDecimal(8000), allen.getSalario());
-        assertEquals(new BigDecimal(1500), allen.getComision());
+        assertEquals(Dinero.de(8000), allen.getMontoSalario());
+        assertEquals(Dinero.de(1500), allen.getMontoComision());
         assertEquals(ventas, allen.getDepartamento());
 
         servicioEmpleado.reasignar(
@@ -71,9 +81,258 @@ public class EscenarioIT extends PruebaIntegracion {
         final var allenDespues = leer(repositorioEmpleado, allen.getId());
         assertEquals("Oficinista", allenDespues.getCargo());
         assertEquals(king, allenDespues.getSupervisor());
-        assertEquals(new BigDecimal(5000), allenDespues.getSalario());
-        assertNull(allenDespues.getComision());
+        assertEquals(Dinero.de(5000), allenDespues.getMontoSalario());
+        assertNull(allenDespues.getMontoComision());
         assertEquals(contabilidad, allen.getDepartamento());
+
+        // Un salario con fracciones de centavo se rechaza en lugar de redondearse
+        final var redondeo = servicioEmpleado.reasignar(
+                allen.getId(), contabilidad.getId(), "Oficinista", king.getId(),
+                new BigDecimal("5000.005"), null);
+        assertTrue(redondeo.isLeft());
+        assertTrue(redondeo.getLeft().mensaje().contains("fracciones de centavo"));
+        assertEquals(Dinero.de(5000), leer(repositorioEmpleado, allen.getId()).getMontoSalario());
+    }
+
+    @Test
+    public void trasladoEnLoteFunciona() {
+
+        final var contabilidad = crearDepartamento("10", "Contabilidad", "Quito");
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, LocalDate.of(2011, 11, 17),
+                new BigDecimal(15000), null, investigacion);
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                king, LocalDate.of(2011, 4, 2),
+                new BigDecimal(14875), null, investigacion);
+
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor", king,
+                LocalDate.of(2011, 2, 20),
+                new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        assertEquals(2, servicioEmpleado.trasladar(investigacion.getId(), contabilidad.getId()).get());
+        assertEquals(contabilidad, leer(repositorioEmpleado, king.getId()).getDepartamento());
+        assertEquals(contabilidad, leer(repositorioEmpleado, jones.getId()).getDepartamento());
+
+        // La comisión de Allen impide trasladarlo fuera de Ventas
+        assertTrue(servicioEmpleado.trasladar(ventas.getId(), contabilidad.getId()).isLeft());
+        assertEquals(ventas, leer(repositorioEmpleado, allen.getId()).getDepartamento());
+    }
+
+    @Test
+    public void unidadDeTrabajoPropagaFallasDeGrabacion() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                null, LocalDate.of(2011, 4, 2),
+                new BigDecimal(14875), null, investigacion);
+        repositorioEmpleado.flush();
+
+        // Otra transacción modifica la fila después de la validación y antes de la sincronización diferida
+        final var aplicado = new AtomicBoolean();
+        final var resultado = enUnidadDeTrabajo(() ->
+                actualizar(jones.getId(), repositorioEmpleado, empleado -> empleado.trasladar(ventas))
+                        .flatMap(ignorado -> trasGrabar("marcando traslado", () -> aplicado.set(true)))
+                        .peek(ignorado -> getBean(JdbcTemplate.class).update(
+                                "update empleado set version = version + 1 where id = ?", jones.getId())));
+
+        assertTrue(resultado.isLeft());
+        assertTrue(resultado.getLeft() instanceof Falla.FallaGrabacion falla
+                && falla.llamada() == 1 && falla.entidad().equals(jones));
+        assertFalse(aplicado.get());
+    }
+
+    @Test
+    public void eliminacionEnCascada() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                null, LocalDate.of(2011, 4, 2),
+                new BigDecimal(14875), null, investigacion);
+
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor", null,
+                LocalDate.of(2011, 2, 20),
+                new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        assertTrue(servicioDepartamento.eliminar(investigacion.getId()).isRight());
+        assertTrue(repositorioDepartamento.findById(investigacion.getId()).isEmpty());
+        assertTrue(repositorioEmpleado.findById(jones.getId()).isEmpty());
+        assertTrue(repositorioEmpleado.findById(allen.getId()).isPresent());
+        assertTrue(servicioDepartamento.eliminar(investigacion.getId()).isLeft());
+    }
+
+    @Test
+    public void jerarquiaFunciona() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, LocalDate.of(2011, 11, 17),
+                new BigDecimal(15000), null, investigacion);
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                king, LocalDate.of(2011, 4, 2),
+                new BigDecimal(14875), null, investigacion);
+
+        final var scott = crearEmpleado(
+                "7788", "Scott", MASCULINO, "Analista",
+                jones, LocalDate.of(2012, 12, 9),
+                new BigDecimal(9000), null, investigacion);
+
+        final var ford = crearEmpleado(
+                "7902", "Ford", MASCULINO, "Analista",
+                jones, LocalDate.of(2011, 12, 3),
+                new BigDecimal(9000), null, investigacion);
+
+        assertEquals(
+                HashSet.of(jones.getId(), scott.getId(), ford.getId()),
+                HashSet.ofAll(jerarquiaEmpleados.subordinados(king.getId())));
+        assertEquals(3, jerarquiaEmpleados.contarSubordinados(king.getId()));
+        assertEquals(
+                List.of(jones.getId(), king.getId()),
+                List.ofAll(jerarquiaEmpleados.cadenaDeMando(scott.getId())));
+
+        // King no puede reportar a uno de sus propios subordinados
+        assertTrue(servicioEmpleado.reasignar(
+                king.getId(), investigacion.getId(), "Presidente", scott.getId(),
+                new BigDecimal(15000), null).isLeft());
+    }
+
+    @Test
+    public void lecturaJdbcFunciona() {
+
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var blake = crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente", null,
+                LocalDate.of(2011, 1, 1),
+                new BigDecimal(14250), null, ventas);
+
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor", blake,
+                LocalDate.of(2011, 2, 20),
+                new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        // La lectura JDBC no pasa por el contexto de persistencia: solo ve lo que Hibernate ya emitió
+        repositorioEmpleado.flush();
+
+        final var vista = repositorioVistaEmpleado.leerPorId(allen.getId());
+        assertEquals("7499", vista.codigo());
+        assertEquals(MASCULINO, vista.genero());
+        assertEquals(blake.getId(), vista.idSupervisor());
+        assertEquals(ventas.getId(), vista.idDepartamento());
+        assertEquals(0, new BigDecimal(1500).compareTo(vista.comision()));
+        assertEquals(2, repositorioVistaEmpleado.leerPorDepartamento(ventas.getId()).size());
+        assertTrue(repositorioVistaEmpleado.buscarPorCodigo("9999").isEmpty());
+    }
+
+    @Test
+    public void rangosFuncionan() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente", null,
+                LocalDate.of(2011, 4, 2),
+                new BigDecimal(9000), null, investigacion);
+
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor", jones,
+                LocalDate.of(2011, 2, 20),
+                new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        final var banda = Criterio.entre(Empleado.SALARIO, Dinero.de(8000), Dinero.de(8500));
+        assertEquals(List.of(allen), List.ofAll(repositorioEmpleado.cargar(banda)));
+        assertEquals(List.of(jones), List.ofAll(repositorioEmpleado.cargar(
+                Criterio.igual("departamento", Empleado::getDepartamento, investigacion)
+                        .y(Criterio.entre(Empleado.FECHA_CONTRATACION, LocalDate.of(2011, 3, 1), null)))));
+    }
+
+    @Test
+    public void proyeccionesFuncionan() {
+
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var blake = crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente", null,
+                LocalDate.of(2011, 1, 1),
+                new BigDecimal(14250), null, ventas);
+
+        crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor", blake,
+                LocalDate.of(2011, 2, 20),
+                new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        assertEquals(
+                HashSet.of(
+                        new ResumenEmpleado("7698", "Blake", "Ventas"),
+                        new ResumenEmpleado("7499", "Allen", "Ventas")),
+                HashSet.ofAll(repositorioEmpleado.proyectar(ResumenEmpleado.class)));
+
+        final var supervisados = repositorioEmpleado.proyectar(
+                CodigoNombre.class, Criterio.noNulo("supervisor", Empleado::getSupervisor));
+        assertEquals(1, supervisados.size());
+        assertEquals("7499", supervisados.get(0).getCodigo());
+        assertEquals("Allen", supervisados.get(0).getNombre());
+
+        // Los montos llegan con el tipo que declara la proyección, igual que en el perfil memoria
+        assertEquals(
+                HashSet.of(
+                        new SalarioEmpleado("7698", new BigDecimal("14250.00"), null),
+                        new SalarioEmpleado("7499", new BigDecimal("8000.00"), Dinero.de(1500))),
+                HashSet.ofAll(repositorioEmpleado.proyectar(SalarioEmpleado.class)));
+
+        assertEquals(2, repositorioEmpleado.cargar(Criterio.todos(), "departamento", "supervisor").size());
+    }
+
+    @Test
+    public void sentenciasAcotadas() {
+
+        // Antes de cada medición se emiten las escrituras pendientes, para que un flush automático provocado por una
+        // consulta no se las atribuya a la operación medida
+        final var ventas = conMaximoSentencias(3, () -> crearDepartamento("30", "Ventas", "Bogota"));
+        repositorioEmpleado.flush();
+
+        final var blake = conMaximoSentencias(6, () -> crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente", null,
+                LocalDate.of(2011, 1, 1),
+                new BigDecimal(14250), null, ventas));
+
+        for (final var codigo : List.of("7499", "7521", "7654", "7844")) {
+            crearEmpleado(
+                    codigo, "Vendedor", MASCULINO, "Vendedor", blake,
+                    LocalDate.of(2011, 2, 20),
+                    new BigDecimal(8000), new BigDecimal(1500), ventas);
+        }
+        repositorioEmpleado.flush();
+
+        assertEquals(5, conMaximoSentencias(1, () -> repositorioEmpleado.proyectar(ResumenEmpleado.class)).size());
+        sinSentenciasRepetidas(() -> repositorioEmpleado.cargar(Criterio.todos(), "departamento", "supervisor"));
+    }
+
+    public interface CodigoNombre {
+        String getCodigo();
+
+        String getNombre();
+    }
+
+    public record SalarioEmpleado(String codigo, BigDecimal salario, Dinero comision) {
     }
 
     private Departamento crearDepartamento(String codigo, String nombre, String localidad) {
@@ -103,15 +362,21 @@ public class EscenarioIT extends PruebaIntegracion {
     private final RepositorioEmpleado repositorioEmpleado;
     private final ServicioDepartamento servicioDepartamento;
     private final ServicioEmpleado servicioEmpleado;
+    private final JerarquiaEmpleados jerarquiaEmpleados;
+    private final RepositorioVistaEmpleado repositorioVistaEmpleado;
 
     @Autowired
     public EscenarioIT(RepositorioDepartamento repositorioDepartamento,
                        RepositorioEmpleado repositorioEmpleado,
                        ServicioDepartamento servicioDepartamento,
-                       ServicioEmpleado servicioEmpleado) {
+                       ServicioEmpleado servicioEmpleado,
+                       JerarquiaEmpleados jerarquiaEmpleados,
+                       RepositorioVistaEmpleado repositorioVistaEmpleado) {
         this.repositorioDepartamento = repositorioDepartamento;
         this.repositorioEmpleado = repositorioEmpleado;
         this.servicioDepartamento = servicioDepartamento;
         this.servicioEmpleado = servicioEmpleado;
+        this.jerarquiaEmpleados = jerarquiaEmpleados;
+        this.repositorioVistaEmpleado = repositorioVistaEmpleado;
     }
 }
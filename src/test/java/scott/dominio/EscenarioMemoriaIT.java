@@ -0,0 +1,413 @@
+package scott.dominio;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.PruebaIntegracion;
+import scott.infra.jpa.ActualizacionLote;
+import scott.infra.jpa.Criterio;
+import scott.infra.jpa.RepositorioDSL;
+import scott.infra.util.Dinero;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.dominio.Genero.FEMENINO;
+import static scott.dominio.Genero.MASCULINO;
+import static scott.infra.jpa.RepositorioDSL.leer;
+
+// Los mismos servicios sobre el perfil "memoria": sin Hibernate, sin base de datos y sin transacción de prueba,
+// por lo que cada caso empieza vaciando los repositorios
+@SpringBootTest
+@ActiveProfiles("memoria")
+public class EscenarioMemoriaIT extends PruebaIntegracion {
+
+    @BeforeEach
+    public void vaciar() {
+        repositorioEmpleado.deleteAll();
+        repositorioDepartamento.deleteAll();
+        jerarquiaEmpleados.invalidar();
+        repositorioNomina.invalidar();
+        busquedaNombres.invalidar();
+    }
+
+    @Test
+    public void noHayJpa() {
+        assertTrue(applicationContext.getBeanNamesForType(EntityManagerFactory.class).length == 0);
+    }
+
+    @Test
+    public void serviciosFuncionan() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+        assertTrue(servicioDepartamento.crearDepartamento("20", "Investigación", "Sunrise").isLeft());
+        assertEquals(ventas, repositorioDepartamento.buscarPorCodigo("30").orElseThrow());
+
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, new BigDecimal(15000), null, investigacion);
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                king, new BigDecimal(14875), null, investigacion);
+
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor",
+                jones, new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        assertEquals(Set.of(king, jones, allen), Set.copyOf(repositorioEmpleado.findAll()));
+        assertEquals(allen, repositorioEmpleado.buscarPorCodigo("7499").orElseThrow());
+        assertTrue(repositorioEmpleado.buscarPorCodigo("9999").isEmpty());
+        assertEquals(List.of(jones.getId(), king.getId()), jerarquiaEmpleados.cadenaDeMando(allen.getId()));
+
+        assertTrue(servicioEmpleado.reasignar(
+                allen.getId(), ventas.getId(), "Vendedor", king.getId(),
+                new BigDecimal(9000), new BigDecimal(1500)).isRight());
+        assertEquals(king, leer(repositorioEmpleado, allen.getId()).getSupervisor());
+        assertEquals(2, jerarquiaEmpleados.contarSubordinados(king.getId()));
+        assertTrue(repositorioNomina.verificar().isEmpty());
+
+        // La comisión de Allen impide trasladarlo fuera de Ventas
+        assertTrue(servicioEmpleado.trasladar(ventas.getId(), investigacion.getId()).isLeft());
+        assertEquals(ventas, leer(repositorioEmpleado, allen.getId()).getDepartamento());
+        assertEquals(2, servicioEmpleado.trasladar(investigacion.getId(), ventas.getId()).get());
+        assertEquals(ventas, leer(repositorioEmpleado, king.getId()).getDepartamento());
+    }
+
+    @Test
+    public void busquedaFunciona() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogotá");
+
+        final var martinez = crearEmpleado(
+                "7839", "Martínez", FEMENINO, "Presidente",
+                null, new BigDecimal(15000), null, investigacion);
+
+        final var martin = crearEmpleado(
+                "7566", "Martín", MASCULINO, "Gerente",
+                martinez, new BigDecimal(14875), null, investigacion);
+
+        assertEquals(List.of(martin.getId(), martinez.getId()), ids(busquedaNombres.empleados("MART", 10)));
+        assertEquals(List.of(martinez.getId()), ids(busquedaNombres.empleados("martinez pres", 10)));
+        assertEquals(List.of(investigacion.getId()), ids(busquedaNombres.departamentos("investigacion", 10)));
+        assertEquals(List.of(ventas.getId()), ids(busquedaNombres.departamentos("bogota", 10)));
+        // Coincidencia aproximada
+        assertEquals(List.of(ventas.getId()), ids(busquedaNombres.departamentos("Vetnas", 10)));
+
+        // Los cambios confirmados se reflejan en el índice ya construido
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor",
+                martin, new BigDecimal(8000), new BigDecimal(1500), ventas);
+        assertEquals(List.of(allen.getId()), ids(busquedaNombres.empleados("vend", 10)));
+        assertTrue(servicioEmpleado.reasignar(
+                allen.getId(), ventas.getId(), "Analista", martin.getId(),
+                new BigDecimal(8000), new BigDecimal(1500)).isRight());
+        assertTrue(busquedaNombres.empleados("vend", 10).isEmpty());
+        assertEquals(List.of(allen.getId()), ids(busquedaNombres.empleados("anal", 10)));
+        repositorioEmpleado.deleteById(allen.getId());
+        assertTrue(busquedaNombres.empleados("allen", 10).isEmpty());
+    }
+
+    @Test
+    public void rangosFuncionan() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, new BigDecimal(15000), null, investigacion);
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                king, new BigDecimal(9000), null, investigacion);
+
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor",
+                king, new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        final var banda = Criterio.entre(Empleado.SALARIO, Dinero.de(8000), Dinero.de(10000));
+        assertEquals(Set.of(jones, allen), Set.copyOf(repositorioEmpleado.cargar(banda)));
+        assertEquals(List.of(jones), repositorioEmpleado.cargar(
+                Criterio.igual("departamento", Empleado::getDepartamento, investigacion).y(banda)));
+        assertEquals(Set.of(king, jones), Set.copyOf(repositorioEmpleado.cargar(
+                Criterio.entre(Empleado.SALARIO, Dinero.de(9000), null))));
+
+        // Empleado.SALARIO no admite extremos BigDecimal; un atributo propio con ese tipo no usa el índice de Dinero
+        final var enBigDecimal = new Criterio.Atributo<Empleado, BigDecimal>("salario", Empleado::getSalario);
+        assertEquals(Set.of(jones, allen), Set.copyOf(repositorioEmpleado.cargar(
+                Criterio.entre(enBigDecimal, new BigDecimal(8000), new BigDecimal(10000)))));
+
+        // El índice sigue a la entidad cuando cambia su salario o se borra
+        assertTrue(servicioEmpleado.reasignar(
+                allen.getId(), ventas.getId(), "Vendedor", king.getId(),
+                new BigDecimal(12000), new BigDecimal(1500)).isRight());
+        assertEquals(List.of(jones), repositorioEmpleado.cargar(banda));
+        repositorioEmpleado.deleteById(jones.getId());
+        assertTrue(repositorioEmpleado.cargar(banda).isEmpty());
+    }
+
+    @Test
+    public void proyeccionesFuncionan() {
+
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+        final var blake = crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente",
+                null, new BigDecimal(14250), null, ventas);
+        crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor",
+                blake, new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        // Los mismos tipos y escalas que la consulta JPA de EscenarioIT
+        assertEquals(
+                Set.of(
+                        new EscenarioIT.SalarioEmpleado("7698", new BigDecimal("14250.00"), null),
+                        new EscenarioIT.SalarioEmpleado("7499", new BigDecimal("8000.00"), Dinero.de(1500))),
+                Set.copyOf(repositorioEmpleado.proyectar(EscenarioIT.SalarioEmpleado.class)));
+        assertEquals(
+                Set.of(new ResumenEmpleado("7698", "Blake", "Ventas"), new ResumenEmpleado("7499", "Allen", "Ventas")),
+                Set.copyOf(repositorioEmpleado.proyectar(ResumenEmpleado.class)));
+    }
+
+    @Test
+    public void eliminacionEnCascada() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                null, new BigDecimal(14875), null, investigacion);
+
+        // Allen depende de Jones a través del supervisor, que también se borra en cascada
+        final var allen = crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor",
+                jones, new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        final var ward = crearEmpleado(
+                "7521", "Ward", MASCULINO, "Vendedor",
+                null, new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        assertEquals(List.of(jones.getId()), ids(busquedaNombres.empleados("jones", 10)));
+        assertEquals(List.of(allen.getId()), ids(busquedaNombres.empleados("allen", 10)));
+
+        assertTrue(servicioDepartamento.eliminar(investigacion.getId()).isRight());
+        assertTrue(repositorioDepartamento.findById(investigacion.getId()).isEmpty());
+        assertTrue(repositorioEmpleado.findById(jones.getId()).isEmpty());
+        assertTrue(repositorioEmpleado.findById(allen.getId()).isEmpty());
+        assertEquals(List.of(ward), repositorioEmpleado.findAll());
+        assertTrue(servicioDepartamento.eliminar(investigacion.getId()).isLeft());
+
+        // Las bajas en cascada también salen del índice de búsqueda ya construido
+        assertTrue(busquedaNombres.empleados("jones", 10).isEmpty());
+        assertTrue(busquedaNombres.empleados("allen", 10).isEmpty());
+        assertEquals(List.of(ward.getId()), ids(busquedaNombres.empleados("vendedor", 10)));
+        assertTrue(busquedaNombres.departamentos("investigacion", 10).isEmpty());
+    }
+
+    @Test
+    public void loteFallidoNoDejaCambios() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, new BigDecimal(15000), null, investigacion);
+
+        final var jones = crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                king, new BigDecimal(14875), null, investigacion);
+
+        // La segunda actualización falla después de aplicada la primera
+        final var aplicadas = new AtomicInteger();
+        final var lote = ActualizacionLote.<Empleado>de(
+                Criterio.igual("departamento", Empleado::getDepartamento, investigacion),
+                empleado -> {
+                    if (aplicadas.incrementAndGet() == 2) {
+                        throw new IllegalStateException("Falla simulada");
+                    }
+                    empleado.trasladar(ventas);
+                });
+        assertTrue(RepositorioDSL.actualizarEnLote(repositorioEmpleado, lote).isLeft());
+        assertEquals(investigacion, leer(repositorioEmpleado, king.getId()).getDepartamento());
+        assertEquals(investigacion, leer(repositorioEmpleado, jones.getId()).getDepartamento());
+    }
+
+    // Limitación documentada en TransaccionesMemoria: la reversión solo descarta los ajustes posteriores al commit
+    @Test
+    public void reversionNoDeshaceEscrituras() {
+
+        final var confirmada = new AtomicBoolean();
+        final var estadoFinal = new AtomicInteger(-1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            repositorioDepartamento.save(new Departamento("40", "Operaciones", "Lima"));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    confirmada.set(true);
+                }
+
+                @Override
+                public void afterCompletion(int resultado) {
+                    estadoFinal.set(resultado);
+                }
+            });
+            estado.setRollbackOnly();
+        });
+
+        assertFalse(confirmada.get());
+        assertEquals(TransactionSynchronization.STATUS_ROLLED_BACK, estadoFinal.get());
+        assertTrue(repositorioDepartamento.buscarPorCodigo("40").isPresent());
+    }
+
+    @Test
+    public void bandasSalarialesFuncionan() {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, new BigDecimal(15000), null, investigacion);
+        crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente",
+                king, new BigDecimal(14875), null, investigacion);
+        crearEmpleado(
+                "7499", "Allen", MASCULINO, "Vendedor",
+                king, new BigDecimal(8000), new BigDecimal(1500), ventas);
+
+        final var instantanea = InstantaneaEmpleados.de(repositorioEmpleado);
+        assertEquals(
+                Map.of(new BigDecimal("5000.00"), 1L, new BigDecimal("10000.00"), 1L, new BigDecimal("15000.00"), 1L),
+                instantanea.bandasSalariales(new BigDecimal(5000), instantanea.todas()));
+
+        // Las bandas se calculan solo sobre las filas aceptadas por el filtro
+        assertEquals(
+                Map.of(new BigDecimal("8000.00"), 1L),
+                instantanea.bandasSalariales(new BigDecimal(1000), instantanea.delDepartamento(ventas.getId())));
+        assertTrue(instantanea.bandasSalariales(
+                new BigDecimal(1000), instantanea.salarioEntre(BigDecimal.ZERO, BigDecimal.ONE)).isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> instantanea.bandasSalariales(BigDecimal.ZERO, instantanea.todas()));
+        assertThrows(IllegalArgumentException.class,
+                () -> instantanea.bandasSalariales(new BigDecimal("0.001"), instantanea.todas()));
+        assertThrows(IllegalArgumentException.class,
+                () -> instantanea.bandasSalariales(new BigDecimal("0.01"), instantanea.todas()));
+        assertThrows(IllegalArgumentException.class,
+                () -> instantanea.bandasSalariales(null, instantanea.todas()));
+    }
+
+    @Test
+    public void nominaConsistenteConAltasConcurrentes() throws Exception {
+
+        final var investigacion = crearDepartamento("20", "Investigación", "Sunrise");
+
+        // Las altas compiten con consultas que materializan los agregados desde cero
+        final var hilos = Executors.newFixedThreadPool(4);
+        try {
+            final var tareas = new ArrayList<Future<?>>();
+            for (var hilo = 0; hilo < 3; hilo++) {
+                final var primero = 1000 + hilo * 50;
+                tareas.add(hilos.submit(() -> {
+                    for (var i = primero; i < primero + 50; i++) {
+                        crearEmpleado(
+                                "%04d".formatted(i), "Smith", MASCULINO, "Analista",
+                                null, new BigDecimal(1000), null, investigacion);
+                    }
+                }));
+            }
+            tareas.add(hilos.submit(() -> {
+                for (var i = 0; i < 50; i++) {
+                    repositorioNomina.invalidar();
+                    repositorioNomina.totalesDepartamento(investigacion.getId());
+                }
+            }));
+            for (final var tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        repositorioNomina.totalesDepartamento(investigacion.getId());
+        assertTrue(repositorioNomina.verificar().isEmpty());
+    }
+
+    private static List<String> ids(List<BusquedaNombres.Coincidencia> coincidencias) {
+        return coincidencias.stream().map(BusquedaNombres.Coincidencia::id).toList();
+    }
+
+    private Departamento crearDepartamento(String codigo, String nombre, String localidad) {
+        return servicioDepartamento.crearDepartamento(codigo, nombre, localidad)
+                .map(idDepartamento -> leer(repositorioDepartamento, idDepartamento))
+                .get();
+    }
+
+    private Empleado crearEmpleado(String codigo,
+                                   String nombre,
+                                   Genero genero,
+                                   String cargo,
+                                   Empleado supervisor,
+                                   BigDecimal salario,
+                                   BigDecimal comision,
+                                   Departamento departamento) {
+        return servicioEmpleado.crearEmpleado(
+                        codigo, nombre, genero, cargo,
+                        supervisor == null ? null : supervisor.getId(),
+                        LocalDate.of(2011, 1, 1), salario, comision, departamento.getId())
+                .map(idEmpleado -> leer(repositorioEmpleado, idEmpleado))
+                .get();
+    }
+
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+    private final RepositorioNomina repositorioNomina;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+    private final JerarquiaEmpleados jerarquiaEmpleados;
+    private final BusquedaNombres busquedaNombres;
+    private final PlatformTransactionManager transactionManager;
+
+    @Autowired
+    public EscenarioMemoriaIT(RepositorioDepartamento repositorioDepartamento,
+                              RepositorioEmpleado repositorioEmpleado,
+                              RepositorioNomina repositorioNomina,
+                              ServicioDepartamento servicioDepartamento,
+                              ServicioEmpleado servicioEmpleado,
+                              JerarquiaEmpleados jerarquiaEmpleados,
+                              BusquedaNombres busquedaNombres,
+                              PlatformTransactionManager transactionManager) {
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+        this.repositorioNomina = repositorioNomina;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+        this.jerarquiaEmpleados = jerarquiaEmpleados;
+        this.busquedaNombres = busquedaNombres;
+        this.transactionManager = transactionManager;
+    }
+}
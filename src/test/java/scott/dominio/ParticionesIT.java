@@ -0,0 +1,166 @@
+package scott.dominio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import scott.PruebaIntegracion;
+import scott.infra.jpa.ActualizacionLote;
+import scott.infra.jpa.Criterio;
+import scott.infra.particion.RepositorioParticionado;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static scott.dominio.Genero.FEMENINO;
+import static scott.dominio.Genero.MASCULINO;
+
+// Tres bases H2 en memoria como particiones por rango de código de departamento
+@SpringBootTest(properties = {
+        "scott.particiones.habilitadas=true",
+        "scott.particiones.urls=jdbc:h2:mem:p0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:p1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:p2;DB_CLOSE_DELAY=-1",
+        "scott.particiones.modo=rango",
+        "scott.particiones.rangos=00=p0,40=p1,70=p2",
+        "scott.particiones.ddl-auto=create"})
+public class ParticionesIT extends PruebaIntegracion {
+
+    @AfterEach
+    public void vaciar() {
+        // Los empleados se borran en cascada con sus departamentos
+        for (final var particion : List.of("p0", "p1", "p2")) {
+            final var jdbcTemplate = new JdbcTemplate(fuente(particion));
+            jdbcTemplate.update("delete from departamento");
+            jdbcTemplate.update("delete from evento_cambio");
+        }
+    }
+
+    @Test
+    public void particionesFuncionan() {
+
+        final var contabilidad = departamentos.save(new Departamento("10", "Contabilidad", "Quito"));
+        final var investigacion = departamentos.save(new Departamento("50", "Investigacion", "Sunrise"));
+        final var ventas = departamentos.save(new Departamento("80", "Ventas", "Bogota"));
+
+        final var king = empleados.save(new Empleado("7839", "King", FEMENINO, "Presidente", null,
+                LocalDate.of(2011, 11, 17), new BigDecimal(15000), null, contabilidad));
+        final var jones = empleados.save(new Empleado("7566", "Jones", MASCULINO, "Gerente", king,
+                LocalDate.of(2011, 4, 2), new BigDecimal(14875), null, investigacion));
+        final var allen = empleados.save(new Empleado("7499", "Allen", MASCULINO, "Vendedor", jones,
+                LocalDate.of(2011, 2, 20), new BigDecimal(8000), new BigDecimal(1500), ventas));
+
+        // Allen arrastra a su partición copias de Jones y King, con sus departamentos
+        assertEquals(3, filas("p2", "empleado"));
+        assertEquals(3, filas("p2", "departamento"));
+        assertEquals(2, filas("p1", "empleado"));
+        assertEquals(2, copias("p2", "empleado"));
+        assertEquals(1, copias("p1", "departamento"));
+
+        // Las copias no aparecen en las consultas sobre todas las particiones
+        assertEquals(3, empleados.count());
+        assertEquals(3, departamentos.count());
+        assertEquals(3, empleados.findAll().size());
+        assertEquals(
+                List.of("7499", "7566", "7839"),
+                empleados.findAll(Sort.by("codigo")).stream().map(Empleado::getCodigo).toList());
+        assertEquals(1, empleados.encontrar(empleado -> empleado.getMontoComision() != null).count());
+        assertEquals(jones.getId(), empleados.leerPorId(allen.getId()).getSupervisor().getId());
+
+        // Guardar el original solo escribe en su partición; la copia se refresca al guardar a quien la refiere
+        jones.reasignar(investigacion, "Director", king, new BigDecimal(16000), null);
+        final var jonesDespues = empleados.save(jones);
+        assertEquals("Gerente", cargoEn("p2", jones.getId()));
+        allen.reasignar(ventas, "Vendedor", jonesDespues, new BigDecimal(8000), new BigDecimal(1500));
+        empleados.save(allen);
+        assertEquals("Director", cargoEn("p2", jones.getId()));
+
+        // Una entidad no cambia de partición, ni hacia una sin fila suya ni hacia una donde solo hay una copia
+        final var traslado = empleados.leerPorId(jones.getId());
+        traslado.reasignar(contabilidad, "Director", king, new BigDecimal(16000), null);
+        assertThrows(IllegalStateException.class, () -> empleados.save(traslado));
+        traslado.reasignar(ventas, "Director", king, new BigDecimal(16000), null);
+        assertThrows(IllegalStateException.class, () -> empleados.save(traslado));
+        assertEquals("50", empleados.leerPorId(jones.getId()).getDepartamento().getCodigo());
+        assertEquals(3, empleados.count());
+    }
+
+    @Test
+    public void sentenciasMasivasYBajasFuncionan() {
+
+        final var contabilidad = departamentos.save(new Departamento("10", "Contabilidad", "Quito"));
+        final var investigacion = departamentos.save(new Departamento("50", "Investigacion", "Sunrise"));
+        final var ventas = departamentos.save(new Departamento("80", "Ventas", "Bogota"));
+
+        final var king = empleados.save(new Empleado("7839", "King", FEMENINO, "Presidente", null,
+                LocalDate.of(2011, 11, 17), new BigDecimal(15000), null, contabilidad));
+        final var jones = empleados.save(new Empleado("7566", "Jones", MASCULINO, "Gerente", king,
+                LocalDate.of(2011, 4, 2), new BigDecimal(14875), null, investigacion));
+        final var allen = empleados.save(new Empleado("7499", "Allen", MASCULINO, "Vendedor", jones,
+                LocalDate.of(2011, 2, 20), new BigDecimal(8000), new BigDecimal(1500), ventas));
+        final var martin = empleados.save(new Empleado("7654", "Martin", MASCULINO, "Vendedor", jones,
+                LocalDate.of(2011, 9, 28), new BigDecimal(8000), new BigDecimal(1400), ventas));
+        assertEquals(1, eventos("p1", jones.getId(), "ALTA"));
+
+        // La actualización masiva alcanza también a la copia de Jones, pero solo cuenta la fila propia
+        assertEquals(1, empleados.actualizarEnLote(ActualizacionLote.<Empleado>de(
+                        Criterio.igual("cargo", Empleado::getCargo, "Gerente"),
+                        empleado -> {
+                        })
+                .asignar("cargo", "Director")));
+        assertEquals("Director", cargoEn("p1", jones.getId()));
+        assertEquals("Director", cargoEn("p2", jones.getId()));
+        assertEquals(1, eventos("p1", jones.getId(), "CAMBIO"));
+
+        // El borrado masivo registra sus bajas en la partición donde ocurren
+        assertEquals(1, empleados.borrarEnLote(Criterio.igual("codigo", Empleado::getCodigo, "7654")));
+        assertEquals(3, filas("p2", "empleado"));
+        assertEquals(1, eventos("p2", martin.getId(), "BAJA"));
+
+        // Borrar el original elimina sus copias y, en cascada, a sus subordinados de cada partición
+        empleados.deleteById(jones.getId());
+        assertEquals(1, empleados.count());
+        assertEquals(1, filas("p1", "empleado"));
+        assertEquals(1, filas("p2", "empleado"));
+        assertEquals(1, eventos("p1", jones.getId(), "BAJA"));
+        assertEquals(1, eventos("p2", allen.getId(), "BAJA"));
+        assertEquals(king.getId(), empleados.findAll().get(0).getId());
+    }
+
+    private static String cargoEn(String particion, String id) {
+        return new JdbcTemplate(fuente(particion)).queryForObject(
+                "select cargo from empleado where id = ?", String.class, id);
+    }
+
+    private long filas(String particion, String tabla) {
+        return new JdbcTemplate(fuente(particion)).queryForObject("select count(*) from " + tabla, Long.class);
+    }
+
+    private long copias(String particion, String tabla) {
+        return new JdbcTemplate(fuente(particion)).queryForObject(
+                "select count(*) from " + tabla + " where copia", Long.class);
+    }
+
+    private long eventos(String particion, String idEntidad, String tipo) {
+        return new JdbcTemplate(fuente(particion)).queryForObject(
+                "select count(*) from evento_cambio where id_entidad = ? and tipo = ?", Long.class, idEntidad, tipo);
+    }
+
+    private static DriverManagerDataSource fuente(String particion) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + particion, "sa", "sa");
+    }
+
+    private final RepositorioParticionado<Departamento> departamentos;
+    private final RepositorioParticionado<Empleado> empleados;
+
+    @Autowired
+    public ParticionesIT(RepositorioParticionado<Departamento> departamentos,
+                         RepositorioParticionado<Empleado> empleados) {
+        this.departamentos = departamentos;
+        this.empleados = empleados;
+    }
+}
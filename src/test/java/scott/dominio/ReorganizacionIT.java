@@ -0,0 +1,100 @@
+package scott.dominio;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import scott.PruebaIntegracion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.dominio.Genero.FEMENINO;
+import static scott.dominio.Genero.MASCULINO;
+
+// Sin transacción de prueba: reorganizar abre la suya y es la única que puede revertir las reasignaciones
+@SpringBootTest(properties = "scott.eventos.relevo.habilitado=false")
+public class ReorganizacionIT extends PruebaIntegracion {
+
+    @BeforeEach
+    @AfterEach
+    public void vaciar() {
+        // Los empleados se borran en cascada con sus departamentos
+        jdbcTemplate.update("delete from departamento");
+    }
+
+    @Test
+    public void reasignacionInvalidaNoDejaEscrituras() {
+
+        final var idInvestigacion = servicioDepartamento.crearDepartamento("20", "Investigacion", "Sunrise").get();
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota").get();
+        final var idKing = crearEmpleado("7839", "King", FEMENINO, "Presidente", null, idInvestigacion);
+        final var idJones = crearEmpleado("7566", "Jones", MASCULINO, "Gerente", idKing, idInvestigacion);
+        final var idAllen = crearEmpleado("7499", "Allen", MASCULINO, "Vendedor", idKing, idVentas);
+        final var antes = filas();
+
+        // La primera reasignación es válida y la segunda no: no se graba ninguna
+        assertTrue(servicioEmpleado.reorganizar(List.of(
+                new ServicioEmpleado.Reasignacion(
+                        idJones, idVentas, "Gerente", idKing, new BigDecimal(14875), null),
+                new ServicioEmpleado.Reasignacion(
+                        idAllen, idVentas, "Cargo 1", idJones, new BigDecimal(8000), null))).isLeft());
+        assertEquals(antes, filas());
+        assertEquals(List.of(idKing), jerarquiaEmpleados.cadenaDeMando(idAllen));
+
+        // Válidas las dos, se graban juntas
+        assertEquals(2, servicioEmpleado.reorganizar(List.of(
+                new ServicioEmpleado.Reasignacion(
+                        idJones, idVentas, "Gerente", idKing, new BigDecimal(14875), null),
+                new ServicioEmpleado.Reasignacion(
+                        idAllen, idVentas, "Vendedor", idJones, new BigDecimal(8000), null))).get());
+        assertEquals(idVentas, filas().get(idJones).get("id_departamento"));
+        assertEquals(idJones, filas().get(idAllen).get("id_supervisor"));
+        assertEquals(List.of(idJones, idKing), jerarquiaEmpleados.cadenaDeMando(idAllen));
+    }
+
+    private Map<String, Map<String, Object>> filas() {
+        final var filas = new HashMap<String, Map<String, Object>>();
+        jdbcTemplate.queryForList("select id, id_departamento, id_supervisor, cargo, version from empleado")
+                .forEach(fila -> filas.put((String) fila.get("id"), Map.of(
+                        "id_departamento", fila.get("id_departamento"),
+                        "id_supervisor", fila.get("id_supervisor") == null ? "" : fila.get("id_supervisor"),
+                        "cargo", fila.get("cargo"),
+                        "version", fila.get("version"))));
+        return filas;
+    }
+
+    private String crearEmpleado(String codigo,
+                                 String nombre,
+                                 Genero genero,
+                                 String cargo,
+                                 String idSupervisor,
+                                 String idDepartamento) {
+        return servicioEmpleado.crearEmpleado(
+                codigo, nombre, genero, cargo, idSupervisor, LocalDate.of(2011, 1, 1),
+                new BigDecimal(9000), null, idDepartamento).get();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JerarquiaEmpleados jerarquiaEmpleados;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+
+    @Autowired
+    public ReorganizacionIT(JdbcTemplate jdbcTemplate,
+                            JerarquiaEmpleados jerarquiaEmpleados,
+                            ServicioDepartamento servicioDepartamento,
+                            ServicioEmpleado servicioEmpleado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jerarquiaEmpleados = jerarquiaEmpleados;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+    }
+}
@@ -0,0 +1,114 @@
+package scott.infra.admision;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import scott.PruebaIntegracion;
+import scott.dominio.ServicioDepartamento;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "scott.admision.habilitada=true",
+        "scott.eventos.relevo.habilitado=false"})
+@Transactional
+public class ControlAdmisionIT extends PruebaIntegracion {
+
+    @Test
+    public void metricasEnElRegistroDeSpring() {
+
+        assertTrue(servicioDepartamento.crearDepartamento("10", "Contabilidad", "Quito").isRight());
+        assertFalse(registro.find("scott.admision.limite").gauges().isEmpty());
+        assertNotNull(registro.find("scott.admision.en_curso").gauge());
+    }
+
+    @Test
+    public void admitirEncolarRechazar() throws Exception {
+
+        final var registroLocal = new SimpleMeterRegistry();
+        final var limite = new LimiteGradiente(
+                "prueba", new LimiteGradiente.Configuracion(2, 1, 10, 1, LimiteGradiente.nanos(2000)), registroLocal);
+        final var enEspera = registroLocal.find("scott.admision.en_espera").gauge();
+
+        assertTrue(limite.adquirir());
+        assertTrue(limite.adquirir());
+
+        // Sin cupo, la tercera espera en la cola; con la cola llena, la cuarta se rechaza de inmediato
+        final var hilo = Executors.newSingleThreadExecutor();
+        try {
+            final var encolada = hilo.submit(limite::adquirir);
+            while (enEspera.value() < 1) {
+                Thread.onSpinWait();
+            }
+            assertFalse(limite.adquirir());
+
+            limite.liberar(LimiteGradiente.nanos(1), false);
+            assertTrue(encolada.get(5, TimeUnit.SECONDS));
+            assertEquals(0, enEspera.value());
+        } finally {
+            hilo.shutdownNow();
+        }
+
+        // Una espera sin cupo liberado termina en rechazo al agotarse el tiempo máximo
+        final var conEsperaCorta = new LimiteGradiente(
+                "prueba-espera", new LimiteGradiente.Configuracion(1, 1, 10, 1, LimiteGradiente.nanos(50)), registroLocal);
+        assertTrue(conEsperaCorta.adquirir());
+        assertFalse(conEsperaCorta.adquirir());
+    }
+
+    @Test
+    public void limiteSeAdapta() throws Exception {
+
+        final var limite = new LimiteGradiente(
+                "prueba", new LimiteGradiente.Configuracion(4, 2, 50, 0, 0), new SimpleMeterRegistry());
+
+        // Con la latencia estable y el límite ocupado, el límite crece hasta el máximo
+        for (int ciclo = 0; ciclo < 30; ciclo++) {
+            ocupar(limite, LimiteGradiente.nanos(1));
+        }
+        final var alcanzado = limite.limite();
+        assertEquals(50, alcanzado);
+
+        // Si la latencia reciente sube, el límite se reduce
+        for (int ciclo = 0; ciclo < 30; ciclo++) {
+            ocupar(limite, LimiteGradiente.nanos(20));
+        }
+        assertTrue(limite.limite() < alcanzado);
+
+        // Los errores de saturación lo llevan al mínimo
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limite.adquirir());
+            limite.liberar(LimiteGradiente.nanos(1), true);
+        }
+        assertEquals(2, limite.limite());
+    }
+
+    private static void ocupar(LimiteGradiente limite, long latenciaNanos) throws InterruptedException {
+        final var cupos = limite.limite();
+        for (int i = 0; i < cupos; i++) {
+            assertTrue(limite.adquirir());
+        }
+        assertFalse(limite.adquirir());
+        for (int i = 0; i < cupos; i++) {
+            limite.liberar(latenciaNanos, false);
+        }
+    }
+
+    private final ServicioDepartamento servicioDepartamento;
+    private final MeterRegistry registro;
+
+    @Autowired
+    public ControlAdmisionIT(ServicioDepartamento servicioDepartamento, MeterRegistry registro) {
+        this.servicioDepartamento = servicioDepartamento;
+        this.registro = registro;
+    }
+}
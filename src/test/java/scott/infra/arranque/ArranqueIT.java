@@ -0,0 +1,50 @@
+package scott.infra.arranque;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import scott.PruebaIntegracion;
+import scott.dominio.BusquedaNombres;
+import scott.dominio.ControladorBusqueda;
+import scott.infra.eventos.EscuchaCambios;
+import scott.infra.seguridad.TokenFirmado;
+import scott.infra.web.CacheRepresentaciones;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Perfil "arranque" con el servidor real, como en entrenarCds; el recorrido de entrenamiento se invoca directamente,
+// sin scott.arranque.entrenamiento, que termina la JVM
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "scott.eventos.relevo.habilitado=false")
+@ActiveProfiles("arranque")
+public class ArranqueIT extends PruebaIntegracion {
+
+    @Test
+    public void perfilPerezosoYRecorridoDeEntrenamiento() throws Exception {
+
+        // Los observadores de cambios existen desde el arranque; el resto, desde su primer uso
+        List.of(EscuchaCambios.class, CacheRepresentaciones.class, BusquedaNombres.class)
+                .forEach(tipo -> assertTrue(creados(tipo), tipo.getSimpleName()));
+        assertFalse(creados(ControladorBusqueda.class));
+
+        // Sin credenciales configuradas: el recorrido se autentica con un token emitido en el proceso
+        final var estados = new EntrenamientoArranque(getBean(TokenFirmado.class)).recorrer(puerto);
+        assertTrue(estados.values().stream().allMatch(estado -> estado == 200), estados.toString());
+        assertTrue(creados(ControladorBusqueda.class));
+    }
+
+    private boolean creados(Class<?> tipo) {
+        final var fabrica = ((ConfigurableApplicationContext) applicationContext).getBeanFactory();
+        final var nombres = fabrica.getBeanNamesForType(tipo, true, false);
+        return nombres.length > 0 && List.of(nombres).stream().allMatch(fabrica::containsSingleton);
+    }
+
+    @LocalServerPort
+    private int puerto;
+}
@@ -0,0 +1,209 @@
+package scott.infra.eventos;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.PruebaIntegracion;
+import scott.dominio.Departamento;
+import scott.dominio.RepositorioDepartamento;
+import scott.dominio.RepositorioEmpleado;
+import scott.dominio.ServicioDepartamento;
+import scott.dominio.ServicioEmpleado;
+import scott.infra.eventos.EventoCambio.Tipo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.dominio.Genero.MASCULINO;
+
+// El relevo queda habilitado pero con un intervalo que no llega a cumplirse durante la prueba: cada caso lo invoca
+// directamente para controlar qué se entrega y cuándo
+@SpringBootTest(properties = {
+        "scott.eventos.relevo.habilitado=true",
+        "scott.eventos.relevo.intervalo=PT1H",
+        "scott.eventos.relevo.lote=2",
+        "scott.eventos.destino=memoria"})
+public class BandejaSalidaIT extends PruebaIntegracion {
+
+    @BeforeEach
+    @AfterEach
+    public void vaciar() {
+        // Los empleados se borran en cascada con sus departamentos
+        jdbcTemplate.update("delete from departamento");
+        jdbcTemplate.update("delete from evento_cambio");
+    }
+
+    @Test
+    public void cambiosEnLaBandejaYRelevoEnOrden() {
+
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota").get();
+        assertTrue(servicioDepartamento.relocalizar(idVentas, "Quito").isRight());
+        assertTrue(servicioDepartamento.relocalizar(idVentas, "Lima").isRight());
+
+        // Un evento por cambio confirmado, con versiones crecientes y los campos modificados
+        final var bandeja = bandeja();
+        assertEquals(List.of(Tipo.ALTA, Tipo.CAMBIO, Tipo.CAMBIO), bandeja.stream().map(EventoCambio::getTipo).toList());
+        assertTrue(bandeja.stream().allMatch(evento -> evento.getIdEntidad().equals(idVentas)));
+        assertEquals("localidad", bandeja.get(1).getCampos());
+        assertTrue(bandeja.get(0).getVersion() < bandeja.get(1).getVersion());
+        assertTrue(bandeja.get(1).getVersion() < bandeja.get(2).getVersion());
+
+        // Lotes de dos: el primero llega completo y el segundo no
+        final var previos = destino.recibidos().size();
+        assertEquals(2, relevo.relevar());
+        assertEquals(1, relevo.relevar());
+        assertEquals(0, relevo.relevar());
+        assertTrue(bandeja().isEmpty());
+
+        final var recibidos = destino.recibidos().subList(previos, destino.recibidos().size());
+        assertEquals(
+                bandeja.stream().map(EventoCambio::getSecuencia).toList(),
+                recibidos.stream().map(EventoCambio::getSecuencia).toList());
+    }
+
+    @Test
+    public void sentenciasMasivasYReversiones() {
+
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota").get();
+        final var idInvestigacion = servicioDepartamento.crearDepartamento("20", "Investigacion", "Sunrise").get();
+        final var idBlake = servicioEmpleado.crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente", null, LocalDate.of(2011, 1, 1),
+                new BigDecimal(14250), null, idInvestigacion).get();
+        final var idJones = servicioEmpleado.crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente", idBlake, LocalDate.of(2011, 4, 2),
+                new BigDecimal(9000), null, idInvestigacion).get();
+        jdbcTemplate.update("delete from evento_cambio");
+
+        // El traslado es una sentencia masiva: igual deja un evento por empleado, con la versión que deja la sentencia
+        final var versionBlake = repositorioEmpleado.leerPorId(idBlake).getVersion();
+        assertEquals(2, servicioEmpleado.trasladar(idInvestigacion, idVentas).get());
+        final var traslados = bandeja();
+        assertEquals(2, traslados.size());
+        assertTrue(traslados.stream().allMatch(evento ->
+                evento.getTipo() == Tipo.CAMBIO && evento.getCampos().equals("departamento")));
+        assertEquals(
+                versionBlake + 1,
+                traslados.stream().filter(evento -> evento.getIdEntidad().equals(idBlake)).findFirst().orElseThrow()
+                        .getVersion());
+        assertEquals(
+                List.of(idBlake, idJones).stream().sorted().toList(),
+                traslados.stream().map(EventoCambio::getIdEntidad).sorted().toList());
+
+        // Una transacción revertida no deja eventos
+        jdbcTemplate.update("delete from evento_cambio");
+        transaccion.executeWithoutResult(estado -> {
+            repositorioDepartamento.save(new Departamento("40", "Operaciones", "Lima"));
+            repositorioDepartamento.flush();
+            estado.setRollbackOnly();
+        });
+        assertTrue(bandeja().isEmpty());
+    }
+
+    @Test
+    public void bajasEnCascada() {
+
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota").get();
+        final var idInvestigacion = servicioDepartamento.crearDepartamento("20", "Investigacion", "Sunrise").get();
+        final var idBlake = servicioEmpleado.crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente", null, LocalDate.of(2011, 1, 1),
+                new BigDecimal(14250), null, idInvestigacion).get();
+        final var idJones = servicioEmpleado.crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente", idBlake, LocalDate.of(2011, 4, 2),
+                new BigDecimal(9000), null, idVentas).get();
+        jdbcTemplate.update("delete from evento_cambio");
+
+        // Blake se borra por CascadeType.REMOVE y Jones, de otro departamento, por ON DELETE CASCADE de su
+        // supervisor: cada baja tiene un solo evento
+        transaccion.executeWithoutResult(estado ->
+                repositorioDepartamento.delete(repositorioDepartamento.leerPorId(idInvestigacion)));
+        final var bajas = bandeja();
+        assertTrue(bajas.stream().allMatch(evento -> evento.getTipo() == Tipo.BAJA));
+        assertEquals(
+                List.of(idBlake, idInvestigacion, idJones).stream().sorted().toList(),
+                bajas.stream().map(EventoCambio::getIdEntidad).sorted().toList());
+        assertEquals(0, repositorioEmpleado.count());
+    }
+
+    @Test
+    public void filasBloqueadasSeSaltan() throws Exception {
+
+        servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota");
+
+        // Otra transacción (p. ej. el relevo de otra instancia) tiene bloqueadas las filas pendientes
+        final var bloqueadas = new CountDownLatch(1);
+        final var liberar = new CountDownLatch(1);
+        final var hilo = Executors.newSingleThreadExecutor();
+        try {
+            final var otra = hilo.submit(() -> transaccion.executeWithoutResult(estado -> {
+                jdbcTemplate.queryForList("select secuencia from evento_cambio for update");
+                bloqueadas.countDown();
+                try {
+                    liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(bloqueadas.await(5, TimeUnit.SECONDS));
+            assertEquals(0, relevo.relevar());
+            liberar.countDown();
+            otra.get(5, TimeUnit.SECONDS);
+        } finally {
+            liberar.countDown();
+            hilo.shutdownNow();
+        }
+        assertEquals(1, relevo.relevar());
+    }
+
+    private List<EventoCambio> bandeja() {
+        return jdbcTemplate.query(
+                "select secuencia, entidad, id_entidad, tipo, campos, version, fecha_registro " +
+                        "from evento_cambio order by secuencia",
+                (fila, numero) -> new EventoCambio(
+                        fila.getLong("secuencia"),
+                        fila.getString("entidad"),
+                        fila.getString("id_entidad"),
+                        Tipo.valueOf(fila.getString("tipo")),
+                        fila.getString("campos"),
+                        fila.getObject("version", Long.class),
+                        fila.getTimestamp("fecha_registro").toLocalDateTime()));
+    }
+
+    private final RelevoEventos relevo;
+    private final DestinoEventos.Memoria destino;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+
+    @Autowired
+    public BandejaSalidaIT(RelevoEventos relevo,
+                           DestinoEventos.Memoria destino,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           RepositorioDepartamento repositorioDepartamento,
+                           RepositorioEmpleado repositorioEmpleado,
+                           ServicioDepartamento servicioDepartamento,
+                           ServicioEmpleado servicioEmpleado) {
+        this.relevo = relevo;
+        this.destino = destino;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+    }
+}
@@ -0,0 +1,116 @@
+package scott.infra.idempotencia;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import scott.PruebaIntegracion;
+import scott.dominio.RepositorioDepartamento;
+import scott.dominio.ServicioDepartamento;
+import scott.infra.Falla;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Transactional
+@SpringBootTest
+public class IdempotenciaIT extends PruebaIntegracion {
+
+    @Test
+    public void creacionIdempotente() {
+
+        final var clave = UUID.randomUUID().toString();
+
+        final var original = servicioDepartamento.crearDepartamento(clave, "10", "Contabilidad", "Quito");
+        final var repeticion = servicioDepartamento.crearDepartamento(clave, "10", "Contabilidad", "Quito");
+
+        assertEquals(original.get(), repeticion.get());
+        assertEquals(1, repositorioDepartamento.count());
+        assertTrue(servicioDepartamento.crearDepartamento("10", "Contabilidad", "Quito").isLeft());
+
+        // La misma clave con otros datos no es una repetición
+        assertTrue(servicioDepartamento.crearDepartamento(clave, "20", "Investigación", "Sunrise").isLeft());
+        assertEquals(1, repositorioDepartamento.count());
+
+        // El registro persistente también compara la huella
+        final var almacen = new AlmacenIdempotencia(
+                10, Duration.ofHours(1),
+                Optional.of(new RegistroIdempotencia.Jdbc(getBean(DataSource.class), Duration.ofHours(1))),
+                new SimpleMeterRegistry());
+        final var huella = AlmacenIdempotencia.huella("prueba", new BigDecimal("1500.00"));
+        assertEquals("id", almacen.ejecutar(clave, huella, () -> Either.right("id")).get());
+        final var otroAlmacen = new AlmacenIdempotencia(
+                10, Duration.ofHours(1),
+                Optional.of(new RegistroIdempotencia.Jdbc(getBean(DataSource.class), Duration.ofHours(1))),
+                new SimpleMeterRegistry());
+        assertEquals("id", otroAlmacen.ejecutar(
+                clave, AlmacenIdempotencia.huella("prueba", new BigDecimal(1500)), () -> Either.right("otro")).get());
+        assertTrue(otroAlmacen.ejecutar(
+                clave, AlmacenIdempotencia.huella("prueba", new BigDecimal(1600)), () -> Either.right("otro")).isLeft());
+    }
+
+    @Test
+    public void idempotenciaTrasError() throws Exception {
+
+        final var almacen = AlmacenIdempotencia.enMemoria(10);
+        final var huella = AlmacenIdempotencia.huella("prueba");
+        final var iniciada = new CountDownLatch(1);
+        final var continuar = new CountDownLatch(1);
+        final var hilo = Executors.newSingleThreadExecutor();
+        try {
+            final var fallida = hilo.submit(() -> almacen.ejecutar("clave", huella, () -> {
+                iniciada.countDown();
+                try {
+                    continuar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new AssertionError("Error simulado");
+            }));
+            assertTrue(iniciada.await(5, TimeUnit.SECONDS));
+
+            // Quien espera la ejecución en curso recibe la falla en lugar de quedar bloqueado
+            final var repeticion = new CompletableFuture<Either<Falla, String>>();
+            final var esperando = new Thread(() -> repeticion.complete(
+                    almacen.ejecutar("clave", huella, () -> Either.right("repetida"))));
+            esperando.start();
+            while (esperando.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            continuar.countDown();
+            assertTrue(repeticion.get(5, TimeUnit.SECONDS).isLeft());
+            final var error = assertThrows(ExecutionException.class, () -> fallida.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, error.getCause());
+        } finally {
+            hilo.shutdownNow();
+        }
+
+        // La clave quedó libre para un nuevo intento
+        assertEquals("nueva", almacen.ejecutar("clave", huella, () -> Either.right("nueva")).get());
+    }
+
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final ServicioDepartamento servicioDepartamento;
+
+    @Autowired
+    public IdempotenciaIT(RepositorioDepartamento repositorioDepartamento,
+                          ServicioDepartamento servicioDepartamento) {
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.servicioDepartamento = servicioDepartamento;
+    }
+}
@@ -0,0 +1,171 @@
+package scott.infra.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import scott.PruebaIntegracion;
+import scott.infra.web.FiltroSesionEscritura;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Dos bases H2 en memoria hacen de primaria y réplica; DATABASE() indica cuál atendió cada transacción. El reloj del
+// enrutador lo controla la prueba
+@SpringBootTest(properties = {
+        "scott.replicas.habilitadas=true",
+        "scott.replicas.urls=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "scott.replicas.ventana-lectura=PT2S",
+        "scott.eventos.relevo.habilitado=false"})
+@AutoConfigureMockMvc
+public class EnrutamientoReplicasIT extends PruebaIntegracion {
+
+    @TestConfiguration
+    static class ConReloj {
+
+        @Bean
+        public RelojAjustable reloj() {
+            return new RelojAjustable();
+        }
+    }
+
+    static final class RelojAjustable extends Clock {
+
+        private final AtomicReference<Instant> ahora = new AtomicReference<>(Instant.parse("2020-01-01T00:00:00Z"));
+
+        void avanzar(Duration lapso) {
+            ahora.updateAndGet(instante -> instante.plus(lapso));
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora.get();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            return this;
+        }
+    }
+
+    @AfterEach
+    public void vaciar() {
+        jdbcTemplate.update("delete from departamento");
+    }
+
+    @Test
+    public void lecturasEnReplicaYEscriturasEnPrimaria() {
+
+        reloj.avanzar(Duration.ofSeconds(3));
+        assertEquals("REPLICA", baseDeDatos(true));
+        assertEquals("TEST", baseDeDatos(false));
+
+        // Dentro de la ventana posterior a una escritura confirmada, las lecturas de la misma sesión se quedan en la
+        // primaria
+        reloj.avanzar(Duration.ofSeconds(3));
+        escritura.executeWithoutResult(estado -> jdbcTemplate.update("update departamento set nombre = nombre"));
+        assertEquals("TEST", baseDeDatos(true));
+        reloj.avanzar(Duration.ofSeconds(1));
+        assertEquals("TEST", baseDeDatos(true));
+        reloj.avanzar(Duration.ofSeconds(2));
+        assertEquals("REPLICA", baseDeDatos(true));
+    }
+
+    @Test
+    public void ventanaPorSesion() throws Exception {
+
+        reloj.avanzar(Duration.ofSeconds(3));
+        escritura.executeWithoutResult(estado -> jdbcTemplate.update("update departamento set nombre = nombre"));
+
+        // La escritura de este hilo no detiene las lecturas de otra sesión
+        final var otroHilo = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("REPLICA", otroHilo.submit(() -> baseDeDatos(true)).get(5, TimeUnit.SECONDS));
+        } finally {
+            otroHilo.shutdownNow();
+        }
+
+        // Una sesión explícita lleva su propio instante, que recibe en cada escritura confirmada
+        final var confirmada = new AtomicReference<Long>();
+        final var sesion = SesionEscritura.abrir(0, confirmada::set);
+        try {
+            assertEquals("REPLICA", baseDeDatos(true));
+            escritura.executeWithoutResult(estado -> jdbcTemplate.update("update departamento set nombre = nombre"));
+            assertEquals(reloj.millis(), confirmada.get());
+            assertEquals("TEST", baseDeDatos(true));
+        } finally {
+            sesion.cerrar();
+        }
+    }
+
+    @Test
+    public void encabezadoUltimaEscritura() throws Exception {
+
+        reloj.avanzar(Duration.ofSeconds(3));
+        final var mvc = getBean(MockMvc.class);
+
+        // La respuesta a una escritura informa el instante de su confirmación
+        mvc.perform(post("/departamentos").with(user("prueba")).with(csrf())
+                        .contentType("application/json")
+                        .content("{\"codigo\": \"10\", \"nombre\": \"Contabilidad\", \"localidad\": \"Quito\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(FiltroSesionEscritura.ENCABEZADO, Long.toString(reloj.millis())));
+
+        // Con ese instante, la sesión de la solicitud lee de la primaria mientras dure la ventana
+        final var sesion = SesionEscritura.abrir(reloj.millis(), instante -> {
+        });
+        try {
+            assertEquals("TEST", baseDeDatos(true));
+            reloj.avanzar(Duration.ofSeconds(3));
+            assertEquals("REPLICA", baseDeDatos(true));
+        } finally {
+            sesion.cerrar();
+        }
+    }
+
+    private String baseDeDatos(boolean soloLectura) {
+        return (soloLectura ? lectura : escritura).execute(
+                estado -> jdbcTemplate.queryForObject("select database()", String.class));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate lectura;
+    private final TransactionTemplate escritura;
+    private final RelojAjustable reloj;
+
+    @Autowired
+    public EnrutamientoReplicasIT(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  RelojAjustable reloj) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+        this.escritura = new TransactionTemplate(transactionManager);
+        this.reloj = reloj;
+    }
+}
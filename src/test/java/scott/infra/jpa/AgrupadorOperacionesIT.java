@@ -0,0 +1,167 @@
+package scott.infra.jpa;
+
+import io.vavr.control.Either;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import scott.PruebaIntegracion;
+import scott.dominio.Departamento;
+import scott.dominio.RepositorioDepartamento;
+import scott.dominio.RepositorioEmpleado;
+import scott.infra.Falla;
+import scott.infra.Falla.FallaIndeterminada;
+import scott.infra.Falla.FallaSistema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Un único hilo agrupador con una ventana amplia, para que las operaciones concurrentes caigan en el mismo grupo,
+// y una espera máxima corta para ejercitar la cancelación
+@SpringBootTest(properties = {
+        "scott.agrupacion.habilitada=true",
+        "scott.agrupacion.hilos=1",
+        "scott.agrupacion.ventana-micros=100000",
+        "scott.agrupacion.espera-maxima-ms=1000",
+        "scott.eventos.relevo.habilitado=false"})
+public class AgrupadorOperacionesIT extends PruebaIntegracion {
+
+    @AfterEach
+    public void vaciar() {
+        repositorioEmpleado.deleteAll();
+        repositorioDepartamento.deleteAll();
+    }
+
+    @Test
+    public void operacionesConcurrentesCompartenTransaccion() throws Exception {
+
+        // Cada operación registra una sincronización y anota cuántas encontró ya registradas en su transacción
+        final var maximoPrevias = new AtomicInteger();
+        final var resultados = concurrentes(8, i -> () -> {
+            maximoPrevias.accumulateAndGet(TransactionSynchronizationManager.getSynchronizations().size(), Math::max);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            });
+            return Either.right(repositorioDepartamento.save(new Departamento("%02d".formatted(i), "Ventas", "Bogota")));
+        });
+
+        assertTrue(resultados.stream().allMatch(Either::isRight));
+        assertEquals(8, repositorioDepartamento.count());
+        assertTrue(maximoPrevias.get() > 0);
+    }
+
+    @Test
+    public void fallasAisladas() throws Exception {
+
+        // Una operación que lanza solo falla ella; el código duplicado revierte el grupo y, al reintentarse cada
+        // operación por separado, solo falla la segunda inserción
+        final var resultados = concurrentes(4, i -> () -> {
+            if (i == 0) {
+                throw new IllegalStateException("Falla simulada");
+            }
+            final var codigo = i == 3 ? "02" : "%02d".formatted(i);
+            return Either.right(repositorioDepartamento.save(new Departamento(codigo, "Ventas", "Bogota")));
+        });
+
+        assertInstanceOf(FallaSistema.class, resultados.get(0).getLeft());
+        assertTrue(resultados.get(1).isRight());
+        assertEquals(1, resultados.subList(2, 4).stream().filter(Either::isLeft).count());
+        assertEquals(2, repositorioDepartamento.count());
+    }
+
+    @Test
+    public void esperaAgotada() throws Exception {
+
+        final var iniciada = new CountDownLatch(1);
+        final var liberar = new CountDownLatch(1);
+        final var ejecutada = new AtomicBoolean();
+        final var hilo = Executors.newSingleThreadExecutor();
+        try {
+            // La primera operación ocupa al agrupador más allá de la espera máxima
+            final var enCurso = hilo.submit(() -> agrupador.ejecutar(() -> {
+                iniciada.countDown();
+                esperar(liberar);
+                return Either.right("lenta");
+            }));
+            assertTrue(iniciada.await(5, TimeUnit.SECONDS));
+
+            // La segunda sigue en cola al agotarse la espera: se cancela y nunca se ejecuta
+            final var cancelada = agrupador.ejecutar(() -> {
+                ejecutada.set(true);
+                return Either.right("cancelada");
+            });
+            assertInstanceOf(FallaSistema.class, cancelada.getLeft());
+
+            // La primera ya estaba en curso: su resultado es indeterminado
+            assertInstanceOf(FallaIndeterminada.class, enCurso.get(5, TimeUnit.SECONDS).getLeft());
+            liberar.countDown();
+
+            assertEquals("siguiente", agrupador.ejecutar(() -> Either.right("siguiente")).get());
+            assertFalse(ejecutada.get());
+        } finally {
+            liberar.countDown();
+            hilo.shutdownNow();
+        }
+    }
+
+    private interface Operacion {
+        Supplier<Either<Falla, Object>> de(int indice);
+    }
+
+    private List<Either<Falla, Object>> concurrentes(int cantidad, Operacion operacion) throws Exception {
+        final var hilos = Executors.newFixedThreadPool(cantidad);
+        try {
+            final var partida = new CountDownLatch(1);
+            final var tareas = new ArrayList<Future<Either<Falla, Object>>>();
+            for (int i = 0; i < cantidad; i++) {
+                final var indice = i;
+                tareas.add(hilos.submit(() -> {
+                    esperar(partida);
+                    return agrupador.ejecutar(operacion.de(indice));
+                }));
+            }
+            partida.countDown();
+            final var resultados = new ArrayList<Either<Falla, Object>>();
+            for (final var tarea : tareas) {
+                resultados.add(tarea.get(10, TimeUnit.SECONDS));
+            }
+            return resultados;
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private static void esperar(CountDownLatch senal) {
+        try {
+            senal.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final AgrupadorOperaciones agrupador;
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+
+    @Autowired
+    public AgrupadorOperacionesIT(AgrupadorOperaciones agrupador,
+                                  RepositorioDepartamento repositorioDepartamento,
+                                  RepositorioEmpleado repositorioEmpleado) {
+        this.agrupador = agrupador;
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+    }
+}
@@ -0,0 +1,87 @@
+package scott.infra.jpa;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import scott.PruebaIntegracion;
+import scott.dominio.RepositorioDepartamento;
+import scott.dominio.RepositorioEmpleado;
+import scott.dominio.ServicioDepartamento;
+import scott.dominio.ServicioEmpleado;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static scott.dominio.Genero.MASCULINO;
+import static scott.infra.jpa.RepositorioDSL.leer;
+
+// Las sentencias masivas solo descartan o releen, dentro de la transacción de quien llama, las entidades que afectan
+@Transactional
+@SpringBootTest(properties = "scott.eventos.relevo.habilitado=false")
+public class SentenciasMasivasIT extends PruebaIntegracion {
+
+    @Test
+    public void entidadesNoAfectadasSiguenGestionadas() {
+
+        final var idContabilidad = servicioDepartamento.crearDepartamento("10", "Contabilidad", "Quito").get();
+        final var idInvestigacion = servicioDepartamento.crearDepartamento("20", "Investigacion", "Sunrise").get();
+        final var idVentas = servicioDepartamento.crearDepartamento("30", "Ventas", "Bogota").get();
+        final var idJones = servicioEmpleado.crearEmpleado(
+                "7566", "Jones", MASCULINO, "Gerente", null, LocalDate.of(2011, 4, 2),
+                new BigDecimal(9000), null, idInvestigacion).get();
+
+        final var ventas = leer(repositorioDepartamento, idVentas);
+        final var jones = leer(repositorioEmpleado, idJones);
+
+        // Actualización masiva: Jones se relee con su nuevo departamento y Ventas no se ve afectada
+        assertEquals(1, servicioEmpleado.trasladar(idInvestigacion, idContabilidad).get());
+        assertTrue(entityManager.contains(jones));
+        assertEquals(idContabilidad, jones.getDepartamento().getId());
+        assertTrue(entityManager.contains(ventas));
+        ventas.relocalizar("Lima");
+        entityManager.flush();
+        assertEquals("Lima", localidad(idVentas));
+
+        // Borrado masivo: Jones cae en cascada y se descarta; Ventas sigue gestionada
+        assertTrue(servicioDepartamento.eliminar(idContabilidad).isRight());
+        assertFalse(entityManager.contains(jones));
+        assertTrue(repositorioEmpleado.findById(idJones).isEmpty());
+        assertTrue(entityManager.contains(ventas));
+        ventas.relocalizar("Quito");
+        entityManager.flush();
+        assertEquals("Quito", localidad(idVentas));
+    }
+
+    private String localidad(String idDepartamento) {
+        return jdbcTemplate.queryForObject(
+                "select localidad from departamento where id = ?", String.class, idDepartamento);
+    }
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+
+    @Autowired
+    public SentenciasMasivasIT(EntityManager entityManager,
+                               JdbcTemplate jdbcTemplate,
+                               RepositorioDepartamento repositorioDepartamento,
+                               RepositorioEmpleado repositorioEmpleado,
+                               ServicioDepartamento servicioDepartamento,
+                               ServicioEmpleado servicioEmpleado) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+    }
+}
@@ -0,0 +1,76 @@
+package scott.infra.seguridad;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class AutenticacionIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void basicaYToken() throws Exception {
+        mockMvc.perform(get("/departamentos")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/departamentos").with(httpBasic("scott", "otra"))).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/departamentos").with(httpBasic("scott", "tiger"))).andExpect(status().isOk());
+        // La segunda vez se resuelve desde la caché del proveedor
+        mockMvc.perform(get("/departamentos").with(httpBasic("scott", "tiger"))).andExpect(status().isOk());
+        mockMvc.perform(get("/departamentos").with(httpBasic("scott", "otra"))).andExpect(status().isUnauthorized());
+
+        final var respuesta = mockMvc.perform(post("/autenticacion/token").with(httpBasic("scott", "tiger")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        final var token = objectMapper.readTree(respuesta).get("token").asText();
+
+        mockMvc.perform(get("/departamentos").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/departamentos").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void tokenVencidoOAlterado() {
+        final var clave = new byte[32];
+        final var inicio = Instant.parse("2022-01-01T00:00:00Z");
+        final var emisor = new TokenFirmado(clave, Duration.ofMinutes(5), Clock.fixed(inicio, ZoneOffset.UTC));
+        final var emision = emisor.emitir("scott", List.of("USUARIO"));
+
+        final var credencial = emisor.verificar(emision.token()).orElseThrow();
+        assertEquals("scott", credencial.sujeto());
+        assertEquals(List.of("USUARIO"), credencial.roles());
+
+        final var posterior = new TokenFirmado(
+                clave, Duration.ofMinutes(5), Clock.fixed(inicio.plus(Duration.ofMinutes(5)), ZoneOffset.UTC));
+        assertTrue(posterior.verificar(emision.token()).isEmpty());
+
+        final var otraClave = new byte[32];
+        otraClave[0] = 1;
+        assertTrue(new TokenFirmado(otraClave, Duration.ofMinutes(5), Clock.fixed(inicio, ZoneOffset.UTC))
+                .verificar(emision.token()).isEmpty());
+    }
+}
@@ -0,0 +1,151 @@
+package scott.infra.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import scott.PruebaIntegracion;
+import scott.dominio.Departamento;
+import scott.dominio.Empleado;
+import scott.dominio.Genero;
+import scott.dominio.RepositorioDepartamento;
+import scott.dominio.RepositorioEmpleado;
+import scott.dominio.ServicioDepartamento;
+import scott.dominio.ServicioEmpleado;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static scott.dominio.Genero.FEMENINO;
+import static scott.dominio.Genero.MASCULINO;
+import static scott.infra.jpa.RepositorioDSL.leer;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+public class RecursosRestIT extends PruebaIntegracion {
+
+    @Test
+    public void solicitudesCondicionales() throws Exception {
+
+        final var contabilidad = crearDepartamento("10", "Contabilidad", "Quito");
+        repositorioDepartamento.flush();
+        final var mvc = getBean(MockMvc.class);
+        final var ruta = "/departamentos/" + contabilidad.getId();
+
+        final var etiqueta = mvc.perform(get(ruta).with(user("prueba")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("W/\"%d\"".formatted(contabilidad.getVersion()), etiqueta);
+
+        mvc.perform(get(ruta).with(user("prueba")).header(HttpHeaders.IF_NONE_MATCH, etiqueta))
+                .andExpect(status().isNotModified());
+        mvc.perform(get(ruta).with(user("prueba")).header(HttpHeaders.IF_NONE_MATCH, "W/\"-1\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Contabilidad")));
+        mvc.perform(patch(ruta).with(user("prueba")).with(csrf())
+                        .header(HttpHeaders.IF_MATCH, "W/\"-1\"")
+                        .contentType("application/json")
+                        .content("{\"localidad\": \"Lima\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        // If-Match usa la comparación fuerte: la ETag débil vigente no basta, la versión como etiqueta fuerte sí
+        mvc.perform(patch(ruta).with(user("prueba")).with(csrf())
+                        .header(HttpHeaders.IF_MATCH, etiqueta)
+                        .contentType("application/json")
+                        .content("{\"localidad\": \"Lima\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(patch(ruta).with(user("prueba")).with(csrf())
+                        .header(HttpHeaders.IF_MATCH, "\"%d\"".formatted(contabilidad.getVersion()))
+                        .contentType("application/json")
+                        .content("{\"localidad\": \"Lima\"}"))
+                .andExpect(status().is2xxSuccessful());
+    }
+
+    @Test
+    public void bajaEnCascadaInvalidaRepresentaciones() throws Exception {
+
+        final var contabilidad = crearDepartamento("10", "Contabilidad", "Quito");
+        final var ventas = crearDepartamento("30", "Ventas", "Bogota");
+        final var king = crearEmpleado(
+                "7839", "King", FEMENINO, "Presidente",
+                null, LocalDate.of(2011, 11, 17),
+                new BigDecimal(15000), null, contabilidad);
+        // Depende de King por su supervisor, aunque está en otro departamento
+        final var blake = crearEmpleado(
+                "7698", "Blake", MASCULINO, "Gerente", king,
+                LocalDate.of(2011, 1, 1),
+                new BigDecimal(14250), null, ventas);
+        repositorioEmpleado.flush();
+        final var mvc = getBean(MockMvc.class);
+
+        // Las representaciones quedan en el caché
+        for (final var empleado : List.of(king, blake)) {
+            mvc.perform(get("/empleados/" + empleado.getId()).with(user("prueba")))
+                    .andExpect(status().isOk());
+        }
+
+        assertTrue(servicioDepartamento.eliminar(contabilidad.getId()).isRight());
+
+        for (final var empleado : List.of(king, blake)) {
+            mvc.perform(get("/empleados/" + empleado.getId()).with(user("prueba")))
+                    .andExpect(status().isNotFound());
+        }
+        mvc.perform(get("/departamentos/" + ventas.getId()).with(user("prueba")))
+                .andExpect(status().isOk());
+    }
+
+    private Departamento crearDepartamento(String codigo, String nombre, String localidad) {
+        return servicioDepartamento.crearDepartamento(codigo, nombre, localidad)
+                .map(idDepartamento -> leer(repositorioDepartamento, idDepartamento))
+                .get();
+    }
+
+    private Empleado crearEmpleado(String codigo,
+                                   String nombre,
+                                   Genero genero,
+                                   String cargo,
+                                   Empleado supervisor,
+                                   LocalDate fechaContratacion,
+                                   BigDecimal salario,
+                                   BigDecimal comision,
+                                   Departamento departamento) {
+        return servicioEmpleado.crearEmpleado(
+                        codigo, nombre, genero, cargo,
+                        supervisor == null ? null : supervisor.getId(),
+                        fechaContratacion, salario, comision, departamento.getId())
+                .map(idEmpleado -> leer(repositorioEmpleado, idEmpleado))
+                .get();
+    }
+
+    private final RepositorioDepartamento repositorioDepartamento;
+    private final RepositorioEmpleado repositorioEmpleado;
+    private final ServicioDepartamento servicioDepartamento;
+    private final ServicioEmpleado servicioEmpleado;
+
+    @Autowired
+    public RecursosRestIT(RepositorioDepartamento repositorioDepartamento,
+                          RepositorioEmpleado repositorioEmpleado,
+                          ServicioDepartamento servicioDepartamento,
+                          ServicioEmpleado servicioEmpleado) {
+        this.repositorioDepartamento = repositorioDepartamento;
+        this.repositorioEmpleado = repositorioEmpleado;
+        this.servicioDepartamento = servicioDepartamento;
+        this.servicioEmpleado = servicioEmpleado;
+    }
+}
@@ -6,6 +6,7 @@ create table departamento
     codigo              varchar(2)  not null,
     localidad           varchar(16) not null,
     nombre              varchar(16) not null,
+    version             bigint,
     primary key (id)
 );
 
@@ -23,9 +24,22 @@ create table empleado
     salario             numeric(19, 2) not null,
     id_departamento     varchar(32),
     id_supervisor       varchar(32),
+    version             bigint,
     primary key (id)
 );
 
+create table evento_cambio
+(
+    secuencia      bigint generated by default as identity,
+    campos         varchar(512),
+    entidad        varchar(32) not null,
+    fecha_registro timestamp   not null,
+    id_entidad     varchar(32) not null,
+    tipo           varchar(6)  not null,
+    version        bigint,
+    primary key (secuencia)
+);
+
 alter table departamento
     add constraint dept_uk_codigo unique (codigo);
 